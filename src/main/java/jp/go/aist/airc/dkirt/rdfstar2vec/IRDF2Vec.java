@@ -76,4 +76,18 @@ public interface IRDF2Vec {
      * @param embedText Boolean
      */
     void setEmbedText(boolean embedText);
+
+    /**
+     * Obtain the indicator of whether the training runs within the JVM instead of the Python server.
+     *
+     * @return True if {@link jp.go.aist.airc.dkirt.rdfstar2vec.training.NativeWord2Vec} is used for the training.
+     */
+    boolean isNativeTraining();
+
+    /**
+     * Set whether the training runs within the JVM instead of the Python server.
+     *
+     * @param nativeTraining True if no Python shall be used for the training.
+     */
+    void setNativeTraining(boolean nativeTraining);
 }
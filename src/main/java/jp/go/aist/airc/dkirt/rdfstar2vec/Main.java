@@ -1,18 +1,27 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.debugging.VocabularyAnalyzer;
+import jp.go.aist.airc.dkirt.rdfstar2vec.nearest_neighbors.HnswIndex;
+import jp.go.aist.airc.dkirt.rdfstar2vec.nearest_neighbors.RecallEvaluation;
 import jp.go.aist.airc.dkirt.rdfstar2vec.training.Gensim;
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.NativeWord2Vec;
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.VectorStore;
 import jp.go.aist.airc.dkirt.rdfstar2vec.training.Word2VecConfiguration;
 import jp.go.aist.airc.dkirt.rdfstar2vec.training.Word2VecType;
 import jp.go.aist.airc.dkirt.rdfstar2vec.util.*;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.WalkGenerationManager;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.WalkGenerationMode;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.light.WalkGenerationManagerLight;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators.Prefix;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators.Tdb2StarLoader;
+import org.javatuples.Pair;
 
 import java.io.File;
+import java.io.IOException;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 
 /**
  * Mini command line tool for server application.
@@ -40,6 +49,16 @@ public class Main {
      */
     private static int numberOfThreads = -1;
 
+    /**
+     * The number of compressor threads that write sharded walk files (0: a single walk writer).
+     */
+    private static int numberOfWriterThreads = 0;
+
+    /**
+     * The seed of the walk generation (null: the walks differ between runs).
+     */
+    private static Long seed = null;
+
     /**
      * Dimensions for the vectors.
      */
@@ -139,6 +158,46 @@ public class Main {
      */
     private static boolean isEmbedText = false;
 
+    /**
+     * If true, RDF-star graphs are held in the dictionary-encoded (integer ID) data structure.
+     */
+    private static boolean isUseCompactData = false;
+
+    /**
+     * If true, the walks are written as binary token corpus (token IDs plus vocabulary) instead of gzipped text.
+     */
+    private static boolean isWriteTokenWalks = false;
+
+    /**
+     * If true, the token frequencies are counted during the walk generation and written to the walk directory.
+     */
+    private static boolean isCountTokens = false;
+
+    /**
+     * If true, the training runs within the JVM rather than in the Python server.
+     */
+    private static boolean isNativeTraining = false;
+
+    /**
+     * If true, the training runs while the walks are generated (RDF2Vec classic only).
+     */
+    private static boolean isPipelinedTraining = false;
+
+    /**
+     * If true, the walks of a pipelined training are spilled to disk for the further epochs.
+     */
+    private static boolean isSpillWalks = false;
+
+    /**
+     * Directory in which binary snapshots of parsed graph files are kept (null: no snapshots).
+     */
+    private static File snapshotDirectory = null;
+
+    /**
+     * The namespaces which are replaced by prefix labels in RDF-star graphs (null: built-in namespaces).
+     */
+    private static Prefix prefix = null;
+
     /**
      * The port that is to be used
      */
@@ -173,6 +232,16 @@ public class Main {
      * The transition probability from an object to a quoted triple (QT) node.
      */
     private static double probabilityFromObjectToQt = DEFAULT_OBJECT2QT;
+
+    /**
+     * The return parameter p of node2vec walks.
+     */
+    private static double returnParameter = WalkGenerationManager.DEFAULT_NODE2VEC_PARAMETER;
+
+    /**
+     * The in-out parameter q of node2vec walks.
+     */
+    private static double inOutParameter = WalkGenerationManager.DEFAULT_NODE2VEC_PARAMETER;
     
     /**
      * The main method that is executed when running the JAR.
@@ -270,6 +339,23 @@ public class Main {
             return;
         }
 
+        // disk-based RDF-star graph
+        if (containsIgnoreCase("-loadTdb2", args)) {
+            loadTdb2(args);
+            return;
+        }
+
+        // nearest neighbor index
+        if (containsIgnoreCase("-buildIndex", args)) {
+            buildIndex(args);
+            return;
+        }
+
+        if (containsIgnoreCase("-nearest", args)) {
+            nearest(args);
+            return;
+        }
+
         // check for analysis request
         if (args[0].equalsIgnoreCase("-analyzevocab") || args[0].equalsIgnoreCase("-analyzevocabulary") ||
                 args[0].equalsIgnoreCase("--analyzevocabulary") || args[0].equalsIgnoreCase("--analyzevocab")) {
@@ -301,6 +387,39 @@ public class Main {
             isEmbedText = true;
         }
 
+        isUseCompactData = containsIgnoreCase("-compactStore", args);
+        isWriteTokenWalks = containsIgnoreCase("-tokenWalks", args);
+        isCountTokens = containsIgnoreCase("-tokenCounts", args);
+        isNativeTraining = containsIgnoreCase("-nativeTraining", args);
+        isPipelinedTraining = containsIgnoreCase("-pipelinedTraining", args);
+        isSpillWalks = containsIgnoreCase("-spillWalks", args);
+
+        String snapshotDirectoryPath = getValue("-snapshotDir", args);
+        snapshotDirectoryPath = (snapshotDirectoryPath == null) ? getValue("-snapshotDirectory", args) :
+                snapshotDirectoryPath;
+        if (snapshotDirectoryPath != null) {
+            snapshotDirectory = new File(snapshotDirectoryPath);
+            if (snapshotDirectory.exists() && !snapshotDirectory.isDirectory()) {
+                System.out.println("The specified snapshot directory is not a directory. No snapshots will be used.");
+                snapshotDirectory = null;
+            }
+        }
+
+        String prefixFilePath = getValue("-prefixes", args);
+        boolean isLearnPrefixes = containsIgnoreCase("-learnPrefixes", args);
+        if (prefixFilePath != null || isLearnPrefixes) {
+            prefix = new Prefix();
+            prefix.setLearnNamespaces(isLearnPrefixes);
+            if (prefixFilePath != null) {
+                try {
+                    int numberOfMappings = prefix.readPrefixFile(new File(prefixFilePath));
+                    System.out.println(numberOfMappings + " prefix mappings read from " + prefixFilePath + ".");
+                } catch (IOException ioe) {
+                    System.out.println("The specified prefix file could not be read. Only the built-in prefixes will be used.");
+                }
+            }
+        }
+
 
 
         if (containsIgnoreCase("-onlyTraining", args)) {
@@ -396,6 +515,28 @@ public class Main {
         } else numberOfThreads = Runtime.getRuntime().availableProcessors() / 2;
         System.out.println("Using " + numberOfThreads + " threads for walk generation and training.");
 
+        String writerThreadsText = getValue("-writerThreads", args);
+        if (writerThreadsText != null) {
+            try {
+                numberOfWriterThreads = Math.max(0, Integer.parseInt(writerThreadsText));
+                System.out.println("Using " + numberOfWriterThreads + " threads to write sharded walk files.");
+            } catch (NumberFormatException nfe) {
+                System.out.println("Could not parse the number of writer threads. Using a single walk writer.");
+                numberOfWriterThreads = 0;
+            }
+        } else numberOfWriterThreads = 0;
+
+        String seedText = getValue("-seed", args);
+        if (seedText != null) {
+            try {
+                seed = Long.parseLong(seedText);
+                System.out.println("Using seed " + seed + " for the walk generation.");
+            } catch (NumberFormatException nfe) {
+                System.out.println("Could not parse the seed. The walks will not be reproducible.");
+                seed = null;
+            }
+        } else seed = null;
+
         String dimensionText = getValue("-dimension", args);
         dimensionText = (dimensionText == null) ? getValue("-dimensions", args) : dimensionText;
         if (dimensionText != null) {
@@ -502,6 +643,9 @@ public class Main {
         } else probabilityFromObjectToQt = DEFAULT_OBJECT2QT;
         System.out.println("Using transition probability from object to qt " + Double.toString(probabilityFromObjectToQt));
 
+        returnParameter = parseNode2VecParameter(getValue("-returnParameter", args), "return parameter p");
+        inOutParameter = parseNode2VecParameter(getValue("-inOutParameter", args), "in-out parameter q");
+
         if (containsIgnoreCase("-noVectorTextFileGeneration", args)) {
             isVectorTextFileGeneration = false;
         } else if (containsIgnoreCase("-vectorTextFileGeneration", args)) {
@@ -555,9 +699,16 @@ public class Main {
             printIfIgnoredOptionsExist();
             System.out.println("Only training is performed, no walks are going to be generated.");
             before = Instant.now();
-            String modelFilePathToWrite = walkDirectory.getAbsolutePath() + "/model.kv";
-            Gensim.getInstance().trainWord2VecModel(modelFilePathToWrite, walkDirectory.getAbsolutePath(), configuration);
-            Gensim.getInstance().writeModelAsTextFile(modelFilePathToWrite, walkDirectory.getAbsolutePath() + "/vectors.txt");
+            if (isNativeTraining) {
+                NativeWord2Vec word2Vec = new NativeWord2Vec();
+                word2Vec.trainWord2VecModel(walkDirectory.getAbsolutePath() + "/model.w2v",
+                        walkDirectory.getAbsolutePath(), configuration);
+                word2Vec.writeModelAsTextFile(walkDirectory.getAbsolutePath() + "/vectors.txt");
+            } else {
+                String modelFilePathToWrite = walkDirectory.getAbsolutePath() + "/model.kv";
+                Gensim.getInstance().trainWord2VecModel(modelFilePathToWrite, walkDirectory.getAbsolutePath(), configuration);
+                Gensim.getInstance().writeModelAsTextFile(modelFilePathToWrite, walkDirectory.getAbsolutePath() + "/vectors.txt");
+            }
             after = Instant.now();
             System.out.println("\nTotal Time:");
             System.out.println(Util.getDeltaTimeString(before, after));
@@ -588,10 +739,17 @@ public class Main {
                         isEmbedText,
                         existingWalkDirectory,
                         walkDirectory);
+                generatorLight.setNumberOfWriterThreads(numberOfWriterThreads);
+                generatorLight.setSeed(seed);
+                generatorLight.setWriteTokenWalks(isWriteTokenWalks);
+                generatorLight.setCountTokens(isCountTokens);
                 switch (walkGenerationMode) {
                 	case STAR_RANDOM_WALKS_DUPLICATE_FREE:
                 		generatorLight.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalks, depth, window, walkDirectory, probabilityFromQtToSubject, probabilityFromObjectToQt);
                 		break;
+                	case STAR_RANDOM_WALKS_DUPLICATE_FREE_SAMPLED:
+                		generatorLight.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalks, depth, window, walkDirectory, probabilityFromQtToSubject, probabilityFromObjectToQt);
+                		break;
                 	case STAR_MID_WALKS:
                 		generatorLight.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalks, depth, window, walkDirectory, probabilityFromQtToSubject, probabilityFromObjectToQt);
                 		break;
@@ -608,7 +766,17 @@ public class Main {
                         isEmbedText,
                         true, 
                         existingWalkDirectory, 
-                        walkDirectory);
+                        walkDirectory,
+                        isUseCompactData,
+                        numberOfThreads,
+                        snapshotDirectory,
+                        prefix);
+                classicGenerator.setReturnParameter(returnParameter);
+                classicGenerator.setInOutParameter(inOutParameter);
+                classicGenerator.setNumberOfWriterThreads(numberOfWriterThreads);
+                classicGenerator.setSeed(seed);
+                classicGenerator.setWriteTokenWalks(isWriteTokenWalks);
+                classicGenerator.setCountTokens(isCountTokens);
                 switch (walkGenerationMode) {
                 	case STAR_RANDOM_WALKS:
                 		classicGenerator.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalks, depth, window, walkDirectory, probabilityFromQtToSubject, probabilityFromObjectToQt);
@@ -616,6 +784,9 @@ public class Main {
                 	case STAR_RANDOM_WALKS_DUPLICATE_FREE:
                 		classicGenerator.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalks, depth, window, walkDirectory, probabilityFromQtToSubject, probabilityFromObjectToQt);
                 		break;
+                	case STAR_RANDOM_WALKS_DUPLICATE_FREE_SAMPLED:
+                		classicGenerator.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalks, depth, window, walkDirectory, probabilityFromQtToSubject, probabilityFromObjectToQt);
+                		break;
             		case STAR_MID_WALKS:
             			classicGenerator.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalks, depth, window, walkDirectory, probabilityFromQtToSubject, probabilityFromObjectToQt);
             			break;
@@ -648,6 +819,13 @@ public class Main {
 
             // setting threads
             if (numberOfThreads > 0) rdf2vec.setNumberOfThreads(numberOfThreads);
+            rdf2vec.setNumberOfWriterThreads(numberOfWriterThreads);
+            rdf2vec.setSeed(seed);
+            rdf2vec.setWriteTokenWalks(isWriteTokenWalks);
+            rdf2vec.setCountTokens(isCountTokens);
+            rdf2vec.setNativeTraining(isNativeTraining);
+            rdf2vec.setPipelinedTraining(isPipelinedTraining);
+            rdf2vec.setSpillWalks(isSpillWalks);
 
             // setting depth
             if (depth > 0) rdf2vec.setDepth(depth);
@@ -661,6 +839,19 @@ public class Main {
             // setting the text embedding option
             rdf2vec.setEmbedText(isEmbedText);
 
+            // set compact data structure option
+            rdf2vec.setUseCompactData(isUseCompactData);
+
+            // set snapshot directory
+            rdf2vec.setSnapshotDirectory(snapshotDirectory);
+
+            // set prefix mappings
+            rdf2vec.setPrefix(prefix);
+
+            // set node2vec parameters
+            rdf2vec.setReturnParameter(returnParameter);
+            rdf2vec.setInOutParameter(inOutParameter);
+
             // setting the continuation walk directory
             if (existingWalkDirectory != null) rdf2vec.setExistingWalkDirectory(existingWalkDirectory);
 
@@ -708,6 +899,7 @@ public class Main {
             // set vector text file
             rdf2VecLight.setVectorTextFileGeneration(isVectorTextFileGeneration);
 
+            rdf2VecLight.setNativeTraining(isNativeTraining);
             rdf2VecLight.setConfiguration(configuration);
             before = Instant.now();
             rdf2VecLight.train();
@@ -776,6 +968,120 @@ public class Main {
         KvConverter.convert(new File(parameters[0]), new File(parameters[1]));
     }
 
+    /**
+     * Load an N-Triples-star file into a TDB2 data set (which can then be used as graph for RDF-star walks).
+     *
+     * @param args The args.
+     */
+    private static void loadTdb2(String[] args) {
+        String[] parameters = getValues("-loadTdb2", 2, args);
+        if (parameters == null) {
+            System.out.println("Your input is not correct.\n" +
+                    "The syntax is: -loadTdb2 <nt_star_file> <tdb2_directory> [-batchSize <number>]");
+            return;
+        }
+        Tdb2StarLoader loader = new Tdb2StarLoader();
+        loader.setBatchSize(getIntValue("-batchSize", args, Tdb2StarLoader.DEFAULT_BATCH_SIZE));
+        long numberOfTriples = loader.load(new File(parameters[0]), new File(parameters[1]));
+        if (numberOfTriples < 0) {
+            System.out.println("Could not load " + parameters[0] + ". Check the log for details.");
+        } else {
+            System.out.println(numberOfTriples + " triples loaded into " + parameters[1] + ".");
+        }
+    }
+
+    /**
+     * Build an HNSW index over a vector file and report its recall and latency against the brute force search.
+     *
+     * @param args The args.
+     */
+    private static void buildIndex(String[] args) {
+        String vectorFilePath = getValue("-buildIndex", args);
+        if (vectorFilePath == null) {
+            System.out.println("Your input is not correct.\n" +
+                    "The syntax is: -buildIndex <vector_file> [-threads <number>] [-m <number>] " +
+                    "[-efConstruction <number>] [-k <number>]");
+            return;
+        }
+        File vectorFile = new File(vectorFilePath);
+        int threads = getIntValue("-threads", args, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        int m = getIntValue("-m", args, HnswIndex.DEFAULT_M);
+        int efConstruction = getIntValue("-efConstruction", args, HnswIndex.DEFAULT_EF_CONSTRUCTION);
+        int k = getIntValue("-k", args, 10);
+        try {
+            VectorStore store = VectorStore.open(vectorFile);
+            File indexFile = HnswIndex.getIndexFile(vectorFile);
+            System.out.println("Building the index of " + store.getVocabularySize() + " vectors with " + threads +
+                    " threads (M = " + m + ", efConstruction = " + efConstruction + ").");
+            long start = System.currentTimeMillis();
+            HnswIndex index = HnswIndex.build(store, indexFile, m, efConstruction, threads);
+            System.out.println("Index written to " + indexFile.getAbsolutePath() + " in " +
+                    (System.currentTimeMillis() - start) / 1000.0 + " seconds.\n");
+            System.out.println(new RecallEvaluation(index, k, 100, 42)
+                    .getReport(RecallEvaluation.DEFAULT_EF_VALUES));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Could not build the index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Print the nearest neighbors of a concept (using the index built with -buildIndex).
+     *
+     * @param args The args.
+     */
+    private static void nearest(String[] args) {
+        String[] parameters = getValues("-nearest", 2, args);
+        if (parameters == null) {
+            System.out.println("Your input is not correct.\n" +
+                    "The syntax is: -nearest <vector_file> <concept> [-k <number>] [-ef <number>]");
+            return;
+        }
+        File vectorFile = new File(parameters[0]);
+        File indexFile = HnswIndex.getIndexFile(vectorFile);
+        if (!indexFile.exists() || indexFile.lastModified() < vectorFile.lastModified()) {
+            System.out.println("No up-to-date index found for " + vectorFile.getAbsolutePath() + ".\n" +
+                    "Please build it first: -buildIndex <vector_file>");
+            return;
+        }
+        int k = getIntValue("-k", args, 10);
+        try {
+            HnswIndex index = HnswIndex.load(VectorStore.open(vectorFile), indexFile);
+            index.setEf(getIntValue("-ef", args, HnswIndex.DEFAULT_EF));
+            long start = System.nanoTime();
+            List<Pair<String, Double>> neighbors = index.getNearest(parameters[1], k);
+            double milliseconds = (System.nanoTime() - start) / 1e6;
+            if (neighbors == null) {
+                System.out.println("The concept '" + parameters[1] + "' is not in the vocabulary.");
+                return;
+            }
+            for (Pair<String, Double> neighbor : neighbors) {
+                System.out.println(neighbor.getValue0() + " " + neighbor.getValue1());
+            }
+            System.out.println("(" + neighbors.size() + " neighbors in " + milliseconds + " ms)");
+        } catch (IOException e) {
+            System.out.println("Could not load the index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper method to obtain an optional integer argument.
+     *
+     * @param key          Arg key.
+     * @param arguments    Arguments as received upon program start.
+     * @param defaultValue Value if the argument is missing or cannot be parsed.
+     * @return Value of the argument.
+     */
+    private static int getIntValue(String key, String[] arguments, int defaultValue) {
+        String text = getValue(key, arguments);
+        if (text == null) return defaultValue;
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException nfe) {
+            System.out.println("Could not parse " + key + " '" + text + "'. Using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     /**
      * Write a UTF-8 encoded file containing the specified model's vocabulary.
      *
@@ -1039,6 +1345,110 @@ public class Main {
         return walkGenerationMode;
     }
 
+    /**
+     * Parse a node2vec parameter.
+     *
+     * @param parameterText The value given on the command line (may be null).
+     * @param name          Name of the parameter for the console output.
+     * @return The parameter, the default if the value is missing or not a positive number.
+     */
+    private static double parseNode2VecParameter(String parameterText, String name) {
+        if (parameterText == null) return WalkGenerationManager.DEFAULT_NODE2VEC_PARAMETER;
+        try {
+            double parameter = Double.parseDouble(parameterText);
+            if (parameter > 0 && !Double.isInfinite(parameter)) {
+                System.out.println("Using node2vec " + name + " " + parameter);
+                return parameter;
+            }
+        } catch (NumberFormatException nfe) {
+            // handled below
+        }
+        System.out.println("Could not parse the " + name + " (must be a positive number). Using default ("
+                + WalkGenerationManager.DEFAULT_NODE2VEC_PARAMETER + ").");
+        return WalkGenerationManager.DEFAULT_NODE2VEC_PARAMETER;
+    }
+
+    /**
+     * Get the token walk switch for testing. Not required for operational usage.
+     *
+     * @return True if the walks are written as binary token corpus.
+     */
+    public static boolean isWriteTokenWalks() {
+        return isWriteTokenWalks;
+    }
+
+    /**
+     * Get the token count switch for testing. Not required for operational usage.
+     *
+     * @return True if the token frequencies are counted during the walk generation.
+     */
+    public static boolean isCountTokens() {
+        return isCountTokens;
+    }
+
+    /**
+     * Get the native training switch for testing. Not required for operational usage.
+     *
+     * @return True if the training runs within the JVM.
+     */
+    public static boolean isNativeTraining() {
+        return isNativeTraining;
+    }
+
+    /**
+     * Get the pipelined training switch for testing. Not required for operational usage.
+     *
+     * @return True if the training runs while the walks are generated.
+     */
+    public static boolean isPipelinedTraining() {
+        return isPipelinedTraining;
+    }
+
+    /**
+     * Get the spill switch for testing. Not required for operational usage.
+     *
+     * @return True if the walks of a pipelined training are spilled to disk.
+     */
+    public static boolean isSpillWalks() {
+        return isSpillWalks;
+    }
+
+    /**
+     * Get the number of writer threads for testing. Not required for operational usage.
+     *
+     * @return Number of compressor threads (0: single walk writer).
+     */
+    public static int getNumberOfWriterThreads() {
+        return numberOfWriterThreads;
+    }
+
+    /**
+     * Get the seed for testing. Not required for operational usage.
+     *
+     * @return Seed of the walk generation (null if not set).
+     */
+    public static Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the node2vec return parameter p for testing. Not required for operational usage.
+     *
+     * @return Return parameter.
+     */
+    public static double getReturnParameter() {
+        return returnParameter;
+    }
+
+    /**
+     * Get the node2vec in-out parameter q for testing. Not required for operational usage.
+     *
+     * @return In-out parameter.
+     */
+    public static double getInOutParameter() {
+        return inOutParameter;
+    }
+
     /**
      * Get depth for testing. Not required for operational usage.
      *
@@ -1136,12 +1546,32 @@ public class Main {
                 "    -walkGenerationMode <MID_WALKS | MID_WALKS_DUPLICATE_FREE | RANDOM_WALKS | RANDOM_WALKS_DUPLICATE_FREE>\n" +
                 "    (default for light: MID_WALKS, default for classic: RANDOM_WALKS_DUPLICATE_FREE)\n" +
                 "    This parameter determines the mode for the walk generation (multiple walk generation algorithms\n" +
-                "    are available). Reasonable defaults are set.\n\n" +
+                "    are available). Reasonable defaults are set. The weighted mid walk modes\n" +
+                "    (MID_WALKS_WEIGHTED_PREDICATE_FREQUENCY, MID_WALKS_WEIGHTED_INVERSE_PREDICATE_FREQUENCY,\n" +
+                "    MID_WALKS_WEIGHTED_DEGREE, MID_WALKS_WEIGHTED_INVERSE_DEGREE) draw edges proportionally to\n" +
+                "    their weight (in-memory graphs only). RANDOM_WALKS_DUPLICATE_FREE_SAMPLED and\n" +
+                "    STAR_RANDOM_WALKS_DUPLICATE_FREE_SAMPLED draw the duplicate-free walks one by one instead of\n" +
+                "    expanding all paths; use them if hubs exhaust the memory (in-memory graphs only).\n\n" +
+
+                "    -returnParameter <p> (default: 1.0)\n" +
+                "    -inOutParameter <q> (default: 1.0)\n" +
+                "    The parameters of the walk generation mode NODE2VEC_WALKS. A low p makes it more likely to\n" +
+                "    return to the previous node, a low q makes it more likely to move away from it (DFS-like walks);\n" +
+                "    a high q keeps the walks close to the entity (BFS-like walks).\n\n" +
 
                 "    -threads <number_of_threads> (default: (# of available processors) / 2)\n" +
                 "    This parameter allows you to set the number of threads that shall be used for the walk generation\n" +
                 "    as well as for the training.\n\n" +
 
+                "    -writerThreads <number_of_threads> (default: 0)\n" +
+                "    If set, the walks are buffered per thread and written into several walk files at the same time by\n" +
+                "    the given number of compressor threads (no global lock). By default, all walks are written through\n" +
+                "    a single writer.\n\n" +
+
+                "    -seed <seed>\n" +
+                "    If set, the walks are reproducible: the same seed leads to the same walks on the same graph,\n" +
+                "    independently of the number of threads. By default, the walks differ between runs.\n\n" +
+
                 "    -walkDirectory <directory where walk files shall be generated/reside>\n" +
                 "    The directory where the walks shall be generated into. In case of -onlyTraining, the directory\n" +
                 "    where the walks reside.\n\n" +
@@ -1149,11 +1579,39 @@ public class Main {
                 "    -embedText\n" +
                 "    If added to the call, this switch will also generate walks that contain textual fragments of datatype properties.\n\n" +
 
+                "    -compactStore\n" +
+                "    If added to the call, RDF-star graphs are held in a dictionary-encoded (integer ID) data structure which\n" +
+                "    requires less memory and allows for faster walk generation.\n\n" +
+
+                "    -tokenWalks\n" +
+                "    If added to the call, the walks are written as binary token corpus (*.walks files with varint token\n" +
+                "    IDs and a *.vocab vocabulary file) instead of gzipped text. This is smaller and faster to read for the\n" +
+                "    training. -writerThreads is ignored in this case.\n\n" +
+
+                "    -tokenCounts\n" +
+                "    If added to the call, the frequencies of the tokens are counted while the walks are generated and\n" +
+                "    written to the walk directory (token_counts.vocab). The training then skips its vocabulary pass over\n" +
+                "    the walks.\n\n" +
+
                 "    -onlyTraining\n" +
                 "    If added to the call, this switch will deactivate the walk generation part so that only the training\n" +
                 "    is performed. The parameter -walkDirectory must be set. If walk generation parameters are specified,\n" +
                 "    they are ignored.\n\n" +
 
+                "    -nativeTraining\n" +
+                "    If added to the call, the word2vec model is trained within the JVM rather than by the Python server, so that\n" +
+                "    no Python installation is required. The vectors are written to model.w2v (word2vec text format, it can be\n" +
+                "    converted with -convertToKv) and to vectors.txt.\n\n" +
+
+                "    -pipelinedTraining\n" +
+                "    If added to the call, the model is trained within the JVM while the walks are generated (RDF2Vec classic\n" +
+                "    only): the walks are handed to the training through a bounded in-memory buffer and no walk files are\n" +
+                "    written. The walks are kept in memory for the further epochs unless -spillWalks is added.\n\n" +
+
+                "    -spillWalks\n" +
+                "    If added to the call together with -pipelinedTraining, the walks are kept in (binary, temporary) files in\n" +
+                "    the walk directory for the further epochs rather than in memory.\n\n" +
+
                 "    -trainingMode <cbow|sg> (default: sg)\n" +
                 "    This parameter controls the mode to be used for the word2vec training. Allowed values are cbow and sg.\n\n" +
 
@@ -1181,6 +1639,19 @@ public class Main {
                 "    -port <port_number> (default: 1808)\n" +
                 "    The port that shall be used for the server.\n\n" +
 
+                "    -snapshotDir <snapshot_directory>\n" +
+                "    Directory in which binary snapshots of parsed graph files are kept. The graph is only parsed if there\n" +
+                "    is no up-to-date snapshot; otherwise, the snapshot is memory-mapped which is much faster than parsing.\n" +
+                "    Not used together with -embedText.\n\n" +
+
+                "    -prefixes <prefix_file>\n" +
+                "    File with additional namespace prefixes for RDF-star graphs, one declaration per line, e.g.\n" +
+                "    @prefix kgc: <http://kgc.knowledge-graph.jp/ontology/kgc.owl#> .\n\n" +
+
+                "    -learnPrefixes\n" +
+                "    If added to the call, frequent namespaces of an RDF-star graph are learnt from a sample of the graph\n" +
+                "    and replaced by generated prefixes (ns0:, ns1:, ...).\n\n" +
+
                 "    -continue <existing_walk_directory>\n" +
                 "    In some cases, old walks shall be re-used (e.g. if the program was interrupted after 48h).\n" +
                 "    With the -continue option, the old walks will be re-used and only missing walks are\n" +
@@ -1257,7 +1728,32 @@ public class Main {
                 "           is the file you want to convert. Make sure you use the correct file endings to indicate\n" +
                 "           the format (.txt/.w2v).\n" +
                 "       where <new_file.kv>\n" +
-                "           is the new file that is to be written. It is recommend to use file suffix '.kv'.\n";
+                "           is the new file that is to be written. It is recommend to use file suffix '.kv'.\n\n" +
+                "H) Nearest Neighbors\n" +
+                "   You can build an approximate nearest neighbor index (HNSW) of a txt/w2v vector file. The index\n" +
+                "   is written next to the vector file (suffix '.hnsw'). Afterwards, the recall and latency of the\n" +
+                "   index are compared with a brute force search:\n\n" +
+                "       -buildIndex <vector_file> [-threads <number>] [-m <number>] [-efConstruction <number>]\n" +
+                "       where -m\n" +
+                "           is the number of neighbors per node (default: " + HnswIndex.DEFAULT_M + ").\n" +
+                "       where -efConstruction\n" +
+                "           is the size of the candidate list during the construction (default: " +
+                HnswIndex.DEFAULT_EF_CONSTRUCTION + ").\n\n" +
+                "   Query the nearest neighbors of a concept with the following command:\n\n" +
+                "       -nearest <vector_file> <concept> [-k <number>] [-ef <number>]\n" +
+                "       where -k\n" +
+                "           is the number of neighbors (default: 10).\n" +
+                "       where -ef\n" +
+                "           is the size of the candidate list of the query (default: " + HnswIndex.DEFAULT_EF +
+                "; higher\n" +
+                "           values give a better recall but slower queries).\n\n" +
+                "I) Disk-based RDF-star Graphs\n" +
+                "   RDF-star graphs which do not fit into memory can be loaded into a TDB2 data set:\n\n" +
+                "       -loadTdb2 <nt_star_file> <tdb2_directory> [-batchSize <number>]\n" +
+                "       where -batchSize\n" +
+                "           is the number of triples written per transaction (default: " +
+                Tdb2StarLoader.DEFAULT_BATCH_SIZE + ").\n\n" +
+                "   Afterwards, use the TDB2 directory as -graph to generate RDF-star walks on disk.\n";
     }
 
     /**
@@ -1268,10 +1764,14 @@ public class Main {
         lightEntityFile = null;
         knowledgeGraphFile = null;
         numberOfThreads = -1;
+        numberOfWriterThreads = 0;
+        seed = null;
         dimensions = -1;
         depth = DEFAULT_DEPTH;
         probabilityFromQtToSubject = DEFAULT_QT2SUBJECT;
         probabilityFromObjectToQt = DEFAULT_OBJECT2QT;
+        returnParameter = WalkGenerationManager.DEFAULT_NODE2VEC_PARAMETER;
+        inOutParameter = WalkGenerationManager.DEFAULT_NODE2VEC_PARAMETER;
         numberOfWalks = DEFAULT_NUMBER_OF_WALKS;
         resourcesDirectory = null;
         rdf2VecInstance = null;
@@ -1279,6 +1779,14 @@ public class Main {
         isVectorTextFileGeneration = true;
         isOnlyTraining = false;
         isEmbedText = false;
+        isUseCompactData = false;
+        isWriteTokenWalks = false;
+        isCountTokens = false;
+        isNativeTraining = false;
+        isPipelinedTraining = false;
+        isSpillWalks = false;
+        snapshotDirectory = null;
+        prefix = null;
         Gensim.shutDown();
     }
 }
@@ -1,10 +1,13 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.training.Gensim;
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.NativeWord2Vec;
 import jp.go.aist.airc.dkirt.rdfstar2vec.training.Word2VecConfiguration;
 import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.WalkGenerationManager;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.WalkGenerationMode;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.WalkRingBuffer;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators.Prefix;
 
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.query.*;
@@ -67,6 +70,65 @@ public class RDF2Vec implements IRDF2Vec {
      */
     boolean isEmbedText = false;
 
+    /**
+     * True if RDF-star graphs shall be held in the dictionary-encoded data structure.
+     */
+    boolean isUseCompactData = false;
+
+    /**
+     * Directory in which binary snapshots of parsed graph files are kept. If null, no snapshots are used.
+     */
+    File snapshotDirectory = null;
+
+    /**
+     * The namespaces which are replaced by prefix labels in RDF-star graphs. If null, the built-in namespaces are used.
+     */
+    Prefix prefix = null;
+
+    /**
+     * The node2vec parameters p (return) and q (in-out); only used for
+     * {@link WalkGenerationMode#NODE2VEC_WALKS}.
+     */
+    double returnParameter = WalkGenerationManager.DEFAULT_NODE2VEC_PARAMETER;
+    double inOutParameter = WalkGenerationManager.DEFAULT_NODE2VEC_PARAMETER;
+
+    /**
+     * The number of compressor threads that write sharded walk files (0: a single walk writer).
+     */
+    int numberOfWriterThreads = 0;
+
+    /**
+     * The seed of the walk generation (null: the walks differ between runs).
+     */
+    Long seed = null;
+
+    /**
+     * True if the walks shall be written as binary token corpus instead of gzipped text.
+     */
+    boolean isWriteTokenWalks = false;
+
+    /**
+     * True if the token frequencies shall be counted during the walk generation and written to the walk directory, so
+     * that the training does not need a separate vocabulary pass.
+     */
+    boolean isCountTokens = false;
+
+    /**
+     * True if the model is trained within the JVM ({@link NativeWord2Vec}) rather than by the Python server.
+     */
+    boolean isNativeTraining = false;
+
+    /**
+     * True if the model is trained (natively) while the walks are generated, without walk files.
+     */
+    boolean isPipelinedTraining = false;
+
+    /**
+     * True if the walks of a pipelined training are spilled into the walk directory for the further epochs instead
+     * of being kept in memory.
+     */
+    boolean isSpillWalks = false;
+
     /**
      * Logger
      */
@@ -168,7 +230,7 @@ public class RDF2Vec implements IRDF2Vec {
      * Train an RDF2Vec model.
      * The model will appear in the directory where the walks reside.
      *
-     * @return Returns the path to the trained model.
+     * @return Returns the path to the trained model (a .w2v file in the case of native training).
      */
     public String train() {
         // if true: file-based generation
@@ -193,11 +255,24 @@ public class RDF2Vec implements IRDF2Vec {
         WalkGenerationManager walkGenerationManager;
         if (useFile) {
             walkGenerationManager = new WalkGenerationManager(getFile(this.knowledgeGraphUri).toURI(), isEmbedText(),
-                    true, existingWalkDirectory, this.walkDirectory);
+                    true, existingWalkDirectory, this.walkDirectory, isUseCompactData(), numberOfThreads,
+                    snapshotDirectory, prefix);
         } else {
             walkGenerationManager = new WalkGenerationManager(this.ontModel, isEmbedText());
         }
 
+        walkGenerationManager.setReturnParameter(returnParameter);
+        walkGenerationManager.setInOutParameter(inOutParameter);
+        walkGenerationManager.setNumberOfWriterThreads(numberOfWriterThreads);
+        walkGenerationManager.setSeed(seed);
+        walkGenerationManager.setWriteTokenWalks(isWriteTokenWalks);
+        walkGenerationManager.setCountTokens(isCountTokens);
+        if (isPipelinedTraining) {
+            if (existingWalkDirectory == null) {
+                return trainPipelined(walkGenerationManager, before);
+            }
+            LOGGER.warn("Pipelined training cannot continue an existing walk directory. The walks are written first.");
+        }
         walkGenerationManager.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalksPerEntity, depth,
                 configuration.getWindowSize(), getWalkDirectory());
 
@@ -206,24 +281,80 @@ public class RDF2Vec implements IRDF2Vec {
         LOGGER.info("Walks successfully generated. Starting training now...");
 
         before = Instant.now();
-        Gensim gensim;
-        if (this.pythonServerResourceDirectory != null) {
-            gensim = Gensim.getInstance(this.pythonServerResourceDirectory);
-        } else gensim = Gensim.getInstance();
-
-        String fileToWrite = getWalkDirectory().getAbsolutePath() + File.separator + "model.kv";
-        gensim.trainWord2VecModel(fileToWrite, getWalkDirectory().getAbsolutePath(), this.configuration);
-        if (isVectorTextFileGeneration) {
-            gensim.writeModelAsTextFile(fileToWrite, getWalkDirectory().getAbsolutePath()
-                    + File.separator + "vectors.txt");
+        String fileToWrite;
+        if (isNativeTraining) {
+            NativeWord2Vec word2Vec = new NativeWord2Vec();
+            fileToWrite = getWalkDirectory().getAbsolutePath() + File.separator + "model.w2v";
+            word2Vec.trainWord2VecModel(fileToWrite, getWalkDirectory().getAbsolutePath(), this.configuration);
+            if (isVectorTextFileGeneration) {
+                word2Vec.writeModelAsTextFile(getWalkDirectory().getAbsolutePath() + File.separator + "vectors.txt");
+            }
+        } else {
+            Gensim gensim;
+            if (this.pythonServerResourceDirectory != null) {
+                gensim = Gensim.getInstance(this.pythonServerResourceDirectory);
+            } else gensim = Gensim.getInstance();
+
+            fileToWrite = getWalkDirectory().getAbsolutePath() + File.separator + "model.kv";
+            gensim.trainWord2VecModel(fileToWrite, getWalkDirectory().getAbsolutePath(), this.configuration);
+            if (isVectorTextFileGeneration) {
+                gensim.writeModelAsTextFile(fileToWrite, getWalkDirectory().getAbsolutePath()
+                        + File.separator + "vectors.txt");
+            }
+            Gensim.shutDown();
         }
-        Gensim.shutDown();
         after = Instant.now();
         this.requiredTimeForLastTrainingString = Util.getDeltaTimeString(before, after);
 
         return fileToWrite;
     }
 
+    /**
+     * Generate the walks and train the model at the same time: the walks are handed to the training through a
+     * {@link WalkRingBuffer} rather than through walk files.
+     *
+     * @param walkGenerationManager The configured walk generation manager.
+     * @param before                The start of the walk generation.
+     * @return The path to the trained model.
+     */
+    private String trainPipelined(WalkGenerationManager walkGenerationManager, Instant before) {
+        if (getWalkDirectory().mkdirs()) {
+            LOGGER.info("Walk directory created.");
+        }
+        WalkRingBuffer walkBuffer = new WalkRingBuffer();
+        walkGenerationManager.setWalkBuffer(walkBuffer);
+        NativeWord2Vec word2Vec = new NativeWord2Vec();
+        String fileToWrite = getWalkDirectory().getAbsolutePath() + File.separator + "model.w2v";
+        File spillDirectory = isSpillWalks ? getWalkDirectory() : null;
+        Thread trainer = new Thread(() -> word2Vec.trainWord2VecModel(fileToWrite, walkBuffer, this.configuration,
+                spillDirectory), "pipelined-training");
+        trainer.start();
+        try {
+            walkGenerationManager.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalksPerEntity, depth,
+                    configuration.getWindowSize(), getWalkDirectory());
+        } finally {
+            // the training must not wait forever if the walk generation failed
+            walkBuffer.close();
+        }
+        Instant after = Instant.now();
+        this.requiredTimeForLastWalkGenerationString = Util.getDeltaTimeString(before, after);
+        LOGGER.info("Walks successfully generated. Waiting for the training...");
+
+        try {
+            trainer.join();
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for the training.", e);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (isVectorTextFileGeneration) {
+            word2Vec.writeModelAsTextFile(getWalkDirectory().getAbsolutePath() + File.separator + "vectors.txt");
+        }
+        // only the time the training took beyond the walk generation
+        this.requiredTimeForLastTrainingString = Util.getDeltaTimeString(after, Instant.now());
+        return fileToWrite;
+    }
+
     public URI getKnowledgeGraphUri() {
         return knowledgeGraphUri;
     }
@@ -355,6 +486,136 @@ public class RDF2Vec implements IRDF2Vec {
         isEmbedText = embedText;
     }
 
+    public boolean isUseCompactData() {
+        return isUseCompactData;
+    }
+
+    public void setUseCompactData(boolean useCompactData) {
+        isUseCompactData = useCompactData;
+    }
+
+    public File getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    /**
+     * Set the directory in which binary snapshots of parsed graph files are kept. A graph file is parsed only if
+     * there is no up-to-date snapshot for it.
+     *
+     * @param snapshotDirectory The snapshot directory, null if no snapshots shall be used.
+     */
+    public void setSnapshotDirectory(File snapshotDirectory) {
+        this.snapshotDirectory = snapshotDirectory;
+    }
+
+    public Prefix getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Set the namespaces which are replaced by prefix labels when an RDF-star graph is parsed.
+     *
+     * @param prefix The prefix mappings, null if the built-in namespaces shall be used.
+     */
+    public void setPrefix(Prefix prefix) {
+        this.prefix = prefix;
+    }
+
+    public double getReturnParameter() {
+        return returnParameter;
+    }
+
+    /**
+     * @param returnParameter The return parameter p of {@link WalkGenerationMode#NODE2VEC_WALKS} (&gt; 0).
+     */
+    public void setReturnParameter(double returnParameter) {
+        this.returnParameter = returnParameter;
+    }
+
+    public double getInOutParameter() {
+        return inOutParameter;
+    }
+
+    /**
+     * @param inOutParameter The in-out parameter q of {@link WalkGenerationMode#NODE2VEC_WALKS} (&gt; 0).
+     */
+    public void setInOutParameter(double inOutParameter) {
+        this.inOutParameter = inOutParameter;
+    }
+
+    public int getNumberOfWriterThreads() {
+        return numberOfWriterThreads;
+    }
+
+    /**
+     * @param numberOfWriterThreads The number of compressor threads that write sharded walk files (0: a single
+     *                              walk writer).
+     */
+    public void setNumberOfWriterThreads(int numberOfWriterThreads) {
+        this.numberOfWriterThreads = numberOfWriterThreads;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param seed The seed of the walk generation (null: the walks differ between runs).
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public boolean isNativeTraining() {
+        return isNativeTraining;
+    }
+
+    @Override
+    public void setNativeTraining(boolean nativeTraining) {
+        isNativeTraining = nativeTraining;
+    }
+
+    public boolean isPipelinedTraining() {
+        return isPipelinedTraining;
+    }
+
+    /**
+     * @param pipelinedTraining True if the model shall be trained within the JVM while the walks are generated; no
+     *                          walk files are written. Not possible together with an existing walk directory.
+     */
+    public void setPipelinedTraining(boolean pipelinedTraining) {
+        isPipelinedTraining = pipelinedTraining;
+    }
+
+    public boolean isSpillWalks() {
+        return isSpillWalks;
+    }
+
+    /**
+     * @param spillWalks True if the walks of a pipelined training shall be kept on disk (in the walk directory) for
+     *                   the further epochs rather than in memory.
+     */
+    public void setSpillWalks(boolean spillWalks) {
+        isSpillWalks = spillWalks;
+    }
+
+    public boolean isWriteTokenWalks() {
+        return isWriteTokenWalks;
+    }
+
+    public void setWriteTokenWalks(boolean writeTokenWalks) {
+        isWriteTokenWalks = writeTokenWalks;
+    }
+
+    public boolean isCountTokens() {
+        return isCountTokens;
+    }
+
+    public void setCountTokens(boolean countTokens) {
+        isCountTokens = countTokens;
+    }
+
     public File getExistingWalkDirectory() {
         return existingWalkDirectory;
     }
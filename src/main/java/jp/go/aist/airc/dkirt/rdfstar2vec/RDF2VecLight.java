@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.training.Gensim;
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.NativeWord2Vec;
 import jp.go.aist.airc.dkirt.rdfstar2vec.training.Word2VecConfiguration;
 import jp.go.aist.airc.dkirt.rdfstar2vec.training.Word2VecType;
 import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
@@ -88,6 +89,11 @@ public class RDF2VecLight implements IRDF2Vec {
      */
     boolean isVectorTextFileGeneration = true;
 
+    /**
+     * True if the model is trained within the JVM ({@link NativeWord2Vec}) rather than by the Python server.
+     */
+    boolean isNativeTraining = false;
+
     private File walkDirectory;
 
     /**
@@ -148,18 +154,28 @@ public class RDF2VecLight implements IRDF2Vec {
         LOGGER.info("Walks successfully generated. Starting training now...");
 
         before = Instant.now();
-        Gensim gensim;
-        if(this.resourceDirectory != null) {
-            gensim = Gensim.getInstance(this.resourceDirectory);
-        } else gensim = Gensim.getInstance();
-
-        String fileToWrite = this.getWalkDirectory().getAbsolutePath() + File.separator + "model.kv";
-        gensim.trainWord2VecModel(fileToWrite, getWalkDirectory().getAbsolutePath(), this.configuration);
-        if(isVectorTextFileGeneration) {
-            gensim.writeModelAsTextFile(fileToWrite, this.getWalkDirectory().getAbsolutePath() +
-                    File.separator + "vectors.txt", entitiesFile.getAbsolutePath());
+        if(isNativeTraining) {
+            NativeWord2Vec word2Vec = new NativeWord2Vec();
+            String fileToWrite = this.getWalkDirectory().getAbsolutePath() + File.separator + "model.w2v";
+            word2Vec.trainWord2VecModel(fileToWrite, getWalkDirectory().getAbsolutePath(), this.configuration);
+            if(isVectorTextFileGeneration) {
+                word2Vec.writeModelAsTextFile(this.getWalkDirectory().getAbsolutePath() +
+                        File.separator + "vectors.txt", entitiesFile.getAbsolutePath());
+            }
+        } else {
+            Gensim gensim;
+            if(this.resourceDirectory != null) {
+                gensim = Gensim.getInstance(this.resourceDirectory);
+            } else gensim = Gensim.getInstance();
+
+            String fileToWrite = this.getWalkDirectory().getAbsolutePath() + File.separator + "model.kv";
+            gensim.trainWord2VecModel(fileToWrite, getWalkDirectory().getAbsolutePath(), this.configuration);
+            if(isVectorTextFileGeneration) {
+                gensim.writeModelAsTextFile(fileToWrite, this.getWalkDirectory().getAbsolutePath() +
+                        File.separator + "vectors.txt", entitiesFile.getAbsolutePath());
+            }
+            Gensim.shutDown();
         }
-        Gensim.shutDown();
         after = Instant.now();
         this.requiredTimeForLastTrainingString = Util.getDeltaTimeString(before, after);
     }
@@ -292,5 +308,14 @@ public class RDF2VecLight implements IRDF2Vec {
     public void setVectorTextFileGeneration(boolean vectorTextFileGeneration) {
         isVectorTextFileGeneration = vectorTextFileGeneration;
     }
-}
 
+    @Override
+    public boolean isNativeTraining() {
+        return isNativeTraining;
+    }
+
+    @Override
+    public void setNativeTraining(boolean nativeTraining) {
+        isNativeTraining = nativeTraining;
+    }
+}
@@ -1,6 +1,8 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.debugging;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.training.Gensim;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenFrequencyCounter;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenWalkReader;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TripleDataSetMemory;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.EntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators.HdtWalkGenerator;
@@ -15,7 +17,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -54,6 +58,96 @@ public class VocabularyAnalyzer {
         return conceptsInModel;
     }
 
+    /**
+     * Check for entities of the entity file that do not appear in the walks of the given directory. Only the token
+     * counts ({@link TokenFrequencyCounter}) or the vocabulary files of binary token walks ({@link TokenWalkReader})
+     * are read, not the walks.
+     * @param walkDirectoryPath Path to the walk directory.
+     * @param filePathToEntityFile Path to the UTF-8 encoded entity file with one entity per line.
+     * @return Entities without walks.
+     */
+    public static Set<String> detectMissingEntitiesInWalks(String walkDirectoryPath, String filePathToEntityFile){
+        Set<String> conceptsInEntityFile = readSetFromFile(filePathToEntityFile);
+        conceptsInEntityFile.removeAll(getWalkVocabulary(new File(walkDirectoryPath)));
+        return conceptsInEntityFile;
+    }
+
+    /**
+     * Check for entities of the entity file that appear less often than the given minimum count in the walks of the
+     * given directory, i.e., which will not obtain a vector in the training. Only the token counts
+     * ({@link TokenFrequencyCounter}) are read, not the walks.
+     * @param walkDirectoryPath Path to the walk directory.
+     * @param filePathToEntityFile Path to the UTF-8 encoded entity file with one entity per line.
+     * @param minCount The minimum count of the training.
+     * @return Entities below the minimum count (including the ones without walks); null if the walk directory does not
+     * contain token counts.
+     */
+    public static Set<String> detectEntitiesBelowMinCount(String walkDirectoryPath, String filePathToEntityFile,
+                                                          int minCount){
+        Map<String, Long> counts = readTokenCounts(new File(walkDirectoryPath));
+        if(counts == null){
+            LOGGER.error("The walk directory does not contain token counts (" + TokenFrequencyCounter.COUNTS_FILE_NAME
+                    + "). Generate the walks with token counting.");
+            return null;
+        }
+        Set<String> result = new HashSet<>();
+        for(String entity : readSetFromFile(filePathToEntityFile)){
+            if(counts.getOrDefault(entity, 0L) < minCount) result.add(entity);
+        }
+        return result;
+    }
+
+    /**
+     * Share of the entities of the entity file that appear in the walks of the given directory. Only the token counts
+     * ({@link TokenFrequencyCounter}) or the vocabulary files of binary token walks are read, not the walks.
+     * @param walkDirectoryPath Path to the walk directory.
+     * @param filePathToEntityFile Path to the UTF-8 encoded entity file with one entity per line.
+     * @return Coverage in [0, 1]; 0 if the entity file is empty.
+     */
+    public static double getWalkCoverage(String walkDirectoryPath, String filePathToEntityFile){
+        Set<String> conceptsInEntityFile = readSetFromFile(filePathToEntityFile);
+        if(conceptsInEntityFile.isEmpty()) return 0.0;
+        int numberOfEntities = conceptsInEntityFile.size();
+        conceptsInEntityFile.retainAll(getWalkVocabulary(new File(walkDirectoryPath)));
+        return conceptsInEntityFile.size() / (double) numberOfEntities;
+    }
+
+    /**
+     * Read the token counts of the given walk directory.
+     * @param walkDirectory The walk directory.
+     * @return Frequency by token; null if there are no (readable) token counts.
+     */
+    static Map<String, Long> readTokenCounts(File walkDirectory){
+        File countsFile = TokenFrequencyCounter.getCountsFile(walkDirectory);
+        if(!countsFile.exists()) return null;
+        try {
+            return TokenFrequencyCounter.read(countsFile);
+        } catch (IOException e) {
+            LOGGER.error("Could not read the token counts " + countsFile.getAbsolutePath() + ".", e);
+            return null;
+        }
+    }
+
+    /**
+     * Read the vocabulary of the walks in the given directory: the tokens of the token counts if they exist, else the
+     * union of the vocabularies of all binary token walk files.
+     * @param walkDirectory The walk directory.
+     * @return The vocabulary.
+     */
+    static Set<String> getWalkVocabulary(File walkDirectory){
+        Map<String, Long> counts = readTokenCounts(walkDirectory);
+        if(counts != null) return new HashSet<>(counts.keySet());
+        Set<String> result = new HashSet<>();
+        for (File walkFile : TokenWalkReader.getWalkFiles(walkDirectory)) {
+            try {
+                result.addAll(Arrays.asList(TokenWalkReader.readVocabulary(walkFile)));
+            } catch (IOException e) {
+                LOGGER.error("Could not read the vocabulary of walk file " + walkFile.getName() + ".", e);
+            }
+        }
+        return result;
+    }
+
     /**
      * Reads a Set from the file as specified by the file.
      * @param pathToFile The file (path) from which shall be read.
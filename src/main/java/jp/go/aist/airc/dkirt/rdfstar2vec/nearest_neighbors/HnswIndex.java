@@ -0,0 +1,957 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.nearest_neighbors;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.VectorStore;
+import org.javatuples.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate nearest neighbor index (hierarchical navigable small world graph, HNSW) over the vectors of a
+ * {@link VectorStore}. The similarity is the cosine similarity.
+ * <p>
+ * The index is built with multiple threads and persisted in an index file next to the vector file
+ * ({@link #INDEX_FILE_SUFFIX}). The neighbor lists of the bottom layer (which contains every vector) are written
+ * directly into the memory-mapped index file; the few nodes of the upper layers are held in the Java heap. The
+ * vectors themselves are not copied: they are read from the memory-mapped store.
+ * <p>
+ * Format of the index file (big-endian): a header of ten ints (magic number, version, number of
+ * rows, dimension, M, maximal number of neighbors in the bottom layer, efConstruction, entry point, maximal layer,
+ * number of indexed vectors), the neighbor lists of the bottom layer (one block of a count followed by the neighbors
+ * per row), and the records of the upper layers (row, number of layers, one block per layer) terminated by -1.
+ * The header is written last so that an interrupted build does not leave a valid index.
+ * <p>
+ * Queries are thread-safe.
+ */
+public class HnswIndex {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HnswIndex.class);
+
+    /**
+     * File ending of the index file which is written next to the vector file.
+     */
+    public static final String INDEX_FILE_SUFFIX = ".hnsw";
+
+    /**
+     * Default number of neighbors per node in the upper layers (twice as many in the bottom layer).
+     */
+    public static final int DEFAULT_M = 16;
+
+    /**
+     * Default size of the candidate list during the construction.
+     */
+    public static final int DEFAULT_EF_CONSTRUCTION = 200;
+
+    /**
+     * Default size of the candidate list of queries.
+     */
+    public static final int DEFAULT_EF = 64;
+
+    /**
+     * "R2VH"
+     */
+    static final int MAGIC = 0x52325648;
+
+    static final int VERSION = 1;
+
+    private static final int HEADER_INTS = 10;
+
+    private static final int HEADER_BYTES = HEADER_INTS * 4;
+
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    /**
+     * Number of locks guarding the neighbor lists (a node uses the lock of its row modulo this number).
+     */
+    private static final int LOCK_STRIPES = 1 << 14;
+
+    private final VectorStore store;
+
+    private final int m;
+
+    private final int maxM0;
+
+    private final int efConstruction;
+
+    /**
+     * Factor of the random level of a node.
+     */
+    private final double levelMultiplier;
+
+    /**
+     * Ints per node in the bottom layer: the number of neighbors followed by up to {@link #maxM0} neighbors.
+     */
+    private final int blockInts;
+
+    private final int nodesPerSegment;
+
+    /**
+     * The bottom layer, memory-mapped.
+     */
+    private final IntBuffer[] level0;
+
+    /**
+     * Upper layers: row → layer - 1 → number of neighbors followed by up to {@link #m} neighbors; null for nodes which
+     * exist only in the bottom layer.
+     */
+    private final int[][][] upperLinks;
+
+    private final Object[] locks;
+
+    /**
+     * Guards the entry point while a node which reaches a new top layer is inserted.
+     */
+    private final ReentrantLock entryLock = new ReentrantLock();
+
+    private volatile int entryPoint;
+
+    private volatile int maxLevel;
+
+    private volatile int size;
+
+    private volatile int ef = DEFAULT_EF;
+
+    private final ThreadLocal<SearchContext> contexts = ThreadLocal.withInitial(SearchContext::new);
+
+    private HnswIndex(VectorStore store, int m, int maxM0, int efConstruction, IntBuffer[] level0,
+                      int[][][] upperLinks, int entryPoint, int maxLevel, int size) {
+        this.store = store;
+        this.m = m;
+        this.maxM0 = maxM0;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(Math.max(m, 2));
+        this.blockInts = maxM0 + 1;
+        this.nodesPerSegment = getNodesPerSegment(maxM0);
+        this.level0 = level0;
+        this.upperLinks = upperLinks;
+        this.entryPoint = entryPoint;
+        this.maxLevel = maxLevel;
+        this.size = size;
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Obtain the index file of the given vector file.
+     *
+     * @param vectorFile The vector file.
+     * @return Index file (it may not exist).
+     */
+    public static File getIndexFile(File vectorFile) {
+        return new File(vectorFile.getPath() + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * Build an index over all vectors of the store and write it to the given file (an existing file is replaced).
+     *
+     * @param store           The vectors.
+     * @param indexFile       The index file to be written.
+     * @param m               Number of neighbors per node in the upper layers (twice as many in the bottom layer).
+     * @param efConstruction  Size of the candidate list during the construction (higher: better recall, slower).
+     * @param numberOfThreads Number of threads inserting the vectors.
+     * @return The index (it can be queried directly).
+     * @throws IOException If the index file cannot be written.
+     */
+    public static HnswIndex build(VectorStore store, File indexFile, int m, int efConstruction, int numberOfThreads)
+            throws IOException {
+        if (m < 2) throw new IllegalArgumentException("M must be at least 2.");
+        int maxM0 = 2 * m;
+        int rows = store.getNumberOfRows();
+        long level0Bytes = (long) rows * (maxM0 + 1) * 4;
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Could not replace " + indexFile.getAbsolutePath());
+        }
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory.getAbsolutePath());
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            file.setLength(HEADER_BYTES + level0Bytes);
+            MappedByteBuffer[] mapped = map(file.getChannel(), FileChannel.MapMode.READ_WRITE, rows, maxM0);
+            IntBuffer[] level0 = new IntBuffer[mapped.length];
+            for (int i = 0; i < mapped.length; i++) {
+                level0[i] = mapped[i].asIntBuffer();
+            }
+            HnswIndex index = new HnswIndex(store, m, maxM0, efConstruction, level0, new int[rows][][], -1, -1, 0);
+            index.insertAll(Math.max(1, numberOfThreads));
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(
+                    file.getChannel().position(HEADER_BYTES + level0Bytes))));
+            for (int row = 0; row < rows; row++) {
+                int[][] links = index.upperLinks[row];
+                if (links == null) continue;
+                out.writeInt(row);
+                out.writeInt(links.length);
+                for (int[] layer : links) {
+                    for (int value : layer) {
+                        out.writeInt(value);
+                    }
+                }
+            }
+            out.writeInt(-1);
+            out.flush();
+            for (MappedByteBuffer buffer : mapped) {
+                buffer.force();
+            }
+            file.seek(0);
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            file.writeInt(rows);
+            file.writeInt(store.getDimension());
+            file.writeInt(m);
+            file.writeInt(maxM0);
+            file.writeInt(efConstruction);
+            file.writeInt(index.entryPoint);
+            file.writeInt(index.maxLevel);
+            file.writeInt(index.size);
+            return index;
+        }
+    }
+
+    /**
+     * Build an index with the default parameters.
+     *
+     * @param store           The vectors.
+     * @param indexFile       The index file to be written.
+     * @param numberOfThreads Number of threads inserting the vectors.
+     * @return The index.
+     * @throws IOException If the index file cannot be written.
+     */
+    public static HnswIndex build(VectorStore store, File indexFile, int numberOfThreads) throws IOException {
+        return build(store, indexFile, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, numberOfThreads);
+    }
+
+    /**
+     * Load an index file. The bottom layer is memory-mapped.
+     *
+     * @param store     The vectors the index was built of.
+     * @param indexFile The index file.
+     * @return The index.
+     * @throws IOException If the file cannot be read, is not a valid index, or does not belong to the store.
+     */
+    public static HnswIndex load(VectorStore store, File indexFile) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "r")) {
+            if (file.length() < HEADER_BYTES || file.readInt() != MAGIC || file.readInt() != VERSION) {
+                throw new IOException("Not a valid index file: " + indexFile.getAbsolutePath());
+            }
+            int rows = file.readInt();
+            int dimension = file.readInt();
+            if (rows != store.getNumberOfRows() || dimension != store.getDimension()) {
+                throw new IOException("The index file " + indexFile.getAbsolutePath()
+                        + " was not built of the given vectors.");
+            }
+            int m = file.readInt();
+            int maxM0 = file.readInt();
+            int efConstruction = file.readInt();
+            int entryPoint = file.readInt();
+            int maxLevel = file.readInt();
+            int size = file.readInt();
+
+            MappedByteBuffer[] mapped = map(file.getChannel(), FileChannel.MapMode.READ_ONLY, rows, maxM0);
+            IntBuffer[] level0 = new IntBuffer[mapped.length];
+            for (int i = 0; i < mapped.length; i++) {
+                level0[i] = mapped[i].asIntBuffer();
+            }
+            int[][][] upperLinks = new int[rows][][];
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(
+                    file.getChannel().position(HEADER_BYTES + (long) rows * (maxM0 + 1) * 4))));
+            int row;
+            while ((row = in.readInt()) >= 0) {
+                int[][] links = new int[in.readInt()][m + 1];
+                for (int[] layer : links) {
+                    for (int i = 0; i < layer.length; i++) {
+                        layer[i] = in.readInt();
+                    }
+                }
+                upperLinks[row] = links;
+            }
+            return new HnswIndex(store, m, maxM0, efConstruction, level0, upperLinks, entryPoint, maxLevel, size);
+        }
+    }
+
+    private static int getNodesPerSegment(int maxM0) {
+        return MAX_SEGMENT_BYTES / ((maxM0 + 1) * 4);
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, int rows, int maxM0)
+            throws IOException {
+        int nodesPerSegment = getNodesPerSegment(maxM0);
+        long blockBytes = (maxM0 + 1) * 4L;
+        int numberOfSegments = Math.max(1, (rows + nodesPerSegment - 1) / nodesPerSegment);
+        MappedByteBuffer[] result = new MappedByteBuffer[numberOfSegments];
+        for (int i = 0; i < numberOfSegments; i++) {
+            int nodes = Math.min(nodesPerSegment, rows - i * nodesPerSegment);
+            result[i] = channel.map(mode, HEADER_BYTES + i * nodesPerSegment * blockBytes, nodes * blockBytes);
+        }
+        return result;
+    }
+
+    /**
+     * Insert all rows of the store (duplicate concepts only once) with the given number of threads.
+     *
+     * @param numberOfThreads Number of threads.
+     * @throws IOException If a thread failed.
+     */
+    private void insertAll(int numberOfThreads) throws IOException {
+        int rows = store.getNumberOfRows();
+        boolean hasDuplicates = rows != store.getVocabularySize();
+        AtomicInteger nextRow = new AtomicInteger();
+        AtomicInteger inserted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < numberOfThreads; t++) {
+            futures.add(executor.submit(() -> {
+                int row;
+                while ((row = nextRow.getAndIncrement()) < rows) {
+                    if (hasDuplicates && store.getRow(store.getConcept(row)) != row) continue;
+                    insert(row, getLevel(row));
+                    int count = inserted.incrementAndGet();
+                    if (count % 100000 == 0) {
+                        LOGGER.info("Indexed " + count + " of " + rows + " vectors.");
+                    }
+                }
+            }));
+        }
+        executor.shutdown();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building the index.", e);
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            throw new IOException("Failed to build the index.", e.getCause());
+        }
+        size = inserted.get();
+        LOGGER.info("Index built (" + size + " vectors, " + (maxLevel + 1) + " layers).");
+    }
+
+    /**
+     * Random level of a node: exponentially decaying with factor 1 / ln(M). It is derived from the row so that the
+     * layers do not depend on the order of the insertion.
+     *
+     * @param row The row.
+     * @return Level (0: bottom layer only).
+     */
+    private int getLevel(int row) {
+        // splitmix64
+        long z = (row + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        double uniform = ((z >>> 11) + 1) * 0x1.0p-53;
+        return (int) Math.min(-Math.log(uniform) * levelMultiplier, 30);
+    }
+
+    private void insert(int row, int level) {
+        SearchContext context = contexts.get();
+        float[] vector = context.vector;
+        store.getVector(row, vector);
+        float norm = store.getNorm(row);
+        if (level > 0) {
+            int[][] links = new int[level][m + 1];
+            upperLinks[row] = links;
+        }
+
+        entryLock.lock();
+        boolean isLocked = true;
+        try {
+            int currentEntryPoint = entryPoint;
+            int currentMaxLevel = maxLevel;
+            if (currentEntryPoint < 0) {
+                entryPoint = row;
+                maxLevel = level;
+                return;
+            }
+            // only insertions which reach a new top layer keep the lock (they are rare)
+            if (level <= currentMaxLevel) {
+                entryLock.unlock();
+                isLocked = false;
+            }
+
+            int closest = currentEntryPoint;
+            float closestDistance = getDistance(vector, norm, closest);
+            for (int layer = currentMaxLevel; layer > level; layer--) {
+                closest = searchClosest(vector, norm, closest, closestDistance, layer, context);
+                closestDistance = getDistance(vector, norm, closest);
+            }
+            for (int layer = Math.min(level, currentMaxLevel); layer >= 0; layer--) {
+                searchLayer(vector, norm, closest, closestDistance, efConstruction, layer, context);
+                int numberOfCandidates = context.drainResults();
+                closest = context.sortedNodes[0];
+                closestDistance = context.sortedDistances[0];
+                int numberOfNeighbors = selectNeighbors(context.sortedNodes, context.sortedDistances,
+                        numberOfCandidates, m, context.selected);
+                setNeighbors(row, layer, context.selected, numberOfNeighbors);
+                for (int i = 0; i < numberOfNeighbors; i++) {
+                    addNeighbor(context.selected[i], layer, row, context);
+                }
+            }
+            if (level > currentMaxLevel) {
+                entryPoint = row;
+                maxLevel = level;
+            }
+        } finally {
+            if (isLocked) entryLock.unlock();
+        }
+    }
+
+    /**
+     * Heuristic neighbor selection of the HNSW paper: a candidate is only selected if it is closer to the base node
+     * than to all neighbors selected so far, so that the neighbors cover different directions.
+     *
+     * @param nodes     Candidates ordered by ascending distance to the base node.
+     * @param distances Distances of the candidates to the base node.
+     * @param n         Number of candidates.
+     * @param max       Maximal number of neighbors.
+     * @param selected  Array to be filled with the selected neighbors.
+     * @return Number of selected neighbors.
+     */
+    private int selectNeighbors(int[] nodes, float[] distances, int n, int max, int[] selected) {
+        int count = 0;
+        for (int i = 0; i < n && count < max; i++) {
+            int candidate = nodes[i];
+            boolean isSelected = true;
+            for (int j = 0; j < count; j++) {
+                if (getDistance(candidate, selected[j]) < distances[i]) {
+                    isSelected = false;
+                    break;
+                }
+            }
+            if (isSelected) selected[count++] = candidate;
+        }
+        return count;
+    }
+
+    /**
+     * Add a link from a node to a new neighbor. If the neighbor list is full, it is pruned with the selection
+     * heuristic.
+     */
+    private void addNeighbor(int node, int layer, int neighbor, SearchContext context) {
+        int maxConnections = layer == 0 ? maxM0 : m;
+        int[] links = context.links;
+        synchronized (getLock(node)) {
+            int count = readNeighbors(node, layer, links);
+            if (count < maxConnections) {
+                links[count++] = neighbor;
+                writeNeighbors(node, layer, links, count);
+                return;
+            }
+            links[count++] = neighbor;
+            int[] nodes = context.pruneNodes;
+            float[] distances = context.pruneDistances;
+            // insertion sort by distance (the lists are short)
+            for (int i = 0; i < count; i++) {
+                int candidate = links[i];
+                float distance = getDistance(node, candidate);
+                int j = i;
+                while (j > 0 && distances[j - 1] > distance) {
+                    nodes[j] = nodes[j - 1];
+                    distances[j] = distances[j - 1];
+                    j--;
+                }
+                nodes[j] = candidate;
+                distances[j] = distance;
+            }
+            int selected = selectNeighbors(nodes, distances, count, maxConnections, links);
+            writeNeighbors(node, layer, links, selected);
+        }
+    }
+
+    private void setNeighbors(int node, int layer, int[] neighbors, int count) {
+        synchronized (getLock(node)) {
+            writeNeighbors(node, layer, neighbors, count);
+        }
+    }
+
+    /**
+     * Copy the neighbors of a node.
+     *
+     * @param node   The node.
+     * @param layer  The layer.
+     * @param target Array of length {@link #maxM0} + 1 or longer.
+     * @return Number of neighbors.
+     */
+    private int getNeighbors(int node, int layer, int[] target) {
+        synchronized (getLock(node)) {
+            return readNeighbors(node, layer, target);
+        }
+    }
+
+    private int readNeighbors(int node, int layer, int[] target) {
+        if (layer == 0) {
+            IntBuffer segment = level0[node / nodesPerSegment];
+            int offset = (node % nodesPerSegment) * blockInts;
+            int count = segment.get(offset);
+            for (int i = 0; i < count; i++) {
+                target[i] = segment.get(offset + 1 + i);
+            }
+            return count;
+        }
+        int[] links = upperLinks[node][layer - 1];
+        int count = links[0];
+        System.arraycopy(links, 1, target, 0, count);
+        return count;
+    }
+
+    private void writeNeighbors(int node, int layer, int[] neighbors, int count) {
+        if (layer == 0) {
+            IntBuffer segment = level0[node / nodesPerSegment];
+            int offset = (node % nodesPerSegment) * blockInts;
+            for (int i = 0; i < count; i++) {
+                segment.put(offset + 1 + i, neighbors[i]);
+            }
+            segment.put(offset, count);
+            return;
+        }
+        int[] links = upperLinks[node][layer - 1];
+        System.arraycopy(neighbors, 0, links, 1, count);
+        links[0] = count;
+    }
+
+    private Object getLock(int node) {
+        return locks[node & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Greedy search for the closest node in an upper layer.
+     */
+    private int searchClosest(float[] vector, float norm, int start, float startDistance, int layer,
+                              SearchContext context) {
+        int closest = start;
+        float closestDistance = startDistance;
+        boolean isChanged = true;
+        while (isChanged) {
+            isChanged = false;
+            int count = getNeighbors(closest, layer, context.neighbors);
+            for (int i = 0; i < count; i++) {
+                int candidate = context.neighbors[i];
+                float distance = getDistance(vector, norm, candidate);
+                if (distance < closestDistance) {
+                    closest = candidate;
+                    closestDistance = distance;
+                    isChanged = true;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Beam search in one layer. The (up to ef) closest nodes found are left in {@link SearchContext#results}.
+     */
+    private void searchLayer(float[] vector, float norm, int start, float startDistance, int ef, int layer,
+                             SearchContext context) {
+        NodeHeap candidates = context.candidates;
+        NodeHeap results = context.results;
+        VisitedSet visited = context.visited;
+        candidates.clear();
+        results.clear();
+        visited.clear();
+        visited.add(start);
+        candidates.push(start, startDistance);
+        results.push(start, startDistance);
+        while (candidates.size() > 0) {
+            if (candidates.peekKey() > results.peekKey() && results.size() >= ef) break;
+            int current = candidates.pop();
+            int count = getNeighbors(current, layer, context.neighbors);
+            for (int i = 0; i < count; i++) {
+                int neighbor = context.neighbors[i];
+                if (!visited.add(neighbor)) continue;
+                float distance = getDistance(vector, norm, neighbor);
+                if (results.size() < ef || distance < results.peekKey()) {
+                    candidates.push(neighbor, distance);
+                    results.push(neighbor, distance);
+                    if (results.size() > ef) results.pop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cosine distance (1 - cosine similarity) of a vector and a row; 1 if one of the vectors is zero.
+     */
+    private float getDistance(float[] vector, float norm, int row) {
+        float rowNorm = store.getNorm(row);
+        if (norm == 0 || rowNorm == 0) return 1f;
+        return (float) (1.0 - store.dot(row, vector) / ((double) norm * rowNorm));
+    }
+
+    private float getDistance(int row1, int row2) {
+        if (store.getNorm(row1) == 0 || store.getNorm(row2) == 0) return 1f;
+        return (float) (1.0 - store.getSimilarity(row1, row2));
+    }
+
+    /**
+     * Approximate nearest neighbors of a concept (the concept itself is not part of the result).
+     *
+     * @param concept The concept.
+     * @param k       Number of neighbors.
+     * @return Concepts and their cosine similarity ordered by descending similarity; null if the concept is not in
+     * the vocabulary.
+     */
+    public List<Pair<String, Double>> getNearest(String concept, int k) {
+        int row = store.getRow(concept);
+        if (row < 0) return null;
+        float[] vector = new float[store.getDimension()];
+        store.getVector(row, vector);
+        return getNearest(vector, k, row);
+    }
+
+    /**
+     * Approximate nearest neighbors of a vector.
+     *
+     * @param vector Array of length {@link VectorStore#getDimension()}.
+     * @param k      Number of neighbors.
+     * @return Concepts and their cosine similarity ordered by descending similarity.
+     */
+    public List<Pair<String, Double>> getNearest(float[] vector, int k) {
+        return getNearest(vector, k, -1);
+    }
+
+    private List<Pair<String, Double>> getNearest(float[] vector, int k, int excludedRow) {
+        List<Pair<String, Double>> result = new ArrayList<>();
+        int start = entryPoint;
+        if (start < 0 || k <= 0) return result;
+        SearchContext context = contexts.get();
+        float norm = getNorm(vector);
+        float startDistance = getDistance(vector, norm, start);
+        for (int layer = maxLevel; layer > 0; layer--) {
+            start = searchClosest(vector, norm, start, startDistance, layer, context);
+            startDistance = getDistance(vector, norm, start);
+        }
+        int requested = excludedRow < 0 ? k : k + 1;
+        searchLayer(vector, norm, start, startDistance, Math.max(ef, requested), 0, context);
+        int count = context.drainResults();
+        for (int i = 0; i < count && result.size() < k; i++) {
+            int row = context.sortedNodes[i];
+            if (row == excludedRow) continue;
+            result.add(new Pair<>(store.getConcept(row), 1.0 - context.sortedDistances[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Exact nearest neighbors of a concept by comparing it with all vectors (brute force); the reference for the
+     * recall of the index.
+     *
+     * @param concept The concept.
+     * @param k       Number of neighbors.
+     * @return Concepts and their cosine similarity ordered by descending similarity; null if the concept is not in
+     * the vocabulary.
+     */
+    public List<Pair<String, Double>> getNearestExact(String concept, int k) {
+        int row = store.getRow(concept);
+        if (row < 0) return null;
+        float[] vector = new float[store.getDimension()];
+        store.getVector(row, vector);
+        return getNearestExact(vector, k, row);
+    }
+
+    /**
+     * Exact nearest neighbors of a vector (brute force).
+     *
+     * @param vector Array of length {@link VectorStore#getDimension()}.
+     * @param k      Number of neighbors.
+     * @return Concepts and their cosine similarity ordered by descending similarity.
+     */
+    public List<Pair<String, Double>> getNearestExact(float[] vector, int k) {
+        return getNearestExact(vector, k, -1);
+    }
+
+    private List<Pair<String, Double>> getNearestExact(float[] vector, int k, int excludedRow) {
+        List<Pair<String, Double>> result = new ArrayList<>();
+        if (k <= 0) return result;
+        int rows = store.getNumberOfRows();
+        boolean hasDuplicates = rows != store.getVocabularySize();
+        float norm = getNorm(vector);
+        NodeHeap closest = new NodeHeap(true);
+        for (int row = 0; row < rows; row++) {
+            if (row == excludedRow || (hasDuplicates && store.getRow(store.getConcept(row)) != row)) continue;
+            float distance = getDistance(vector, norm, row);
+            if (closest.size() < k) {
+                closest.push(row, distance);
+            } else if (distance < closest.peekKey()) {
+                closest.pop();
+                closest.push(row, distance);
+            }
+        }
+        int count = closest.size();
+        int[] nodes = new int[count];
+        float[] distances = new float[count];
+        for (int i = count - 1; i >= 0; i--) {
+            distances[i] = closest.peekKey();
+            nodes[i] = closest.pop();
+        }
+        for (int i = 0; i < count; i++) {
+            result.add(new Pair<>(store.getConcept(nodes[i]), 1.0 - distances[i]));
+        }
+        return result;
+    }
+
+    private static float getNorm(float[] vector) {
+        double sum = 0.0;
+        for (float value : vector) {
+            sum += value * value;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    /**
+     * Set the size of the candidate list of queries (at least the number of requested neighbors is used). Higher
+     * values give a better recall but slower queries.
+     *
+     * @param ef Size of the candidate list.
+     */
+    public void setEf(int ef) {
+        this.ef = Math.max(1, ef);
+    }
+
+    public int getEf() {
+        return ef;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    /**
+     * @return The top layer (0 if there is only the bottom layer).
+     */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * @return The number of indexed vectors.
+     */
+    public int size() {
+        return size;
+    }
+
+    public VectorStore getVectorStore() {
+        return store;
+    }
+
+    /**
+     * Per-thread buffers of the search.
+     */
+    private final class SearchContext {
+
+
+        final float[] vector = new float[store.getDimension()];
+
+        final int[] neighbors = new int[maxM0 + 1];
+
+        final int[] links = new int[maxM0 + 1];
+
+        final int[] selected = new int[maxM0 + 1];
+
+        final int[] pruneNodes = new int[maxM0 + 1];
+
+        final float[] pruneDistances = new float[maxM0 + 1];
+
+        final NodeHeap candidates = new NodeHeap(false);
+
+        final NodeHeap results = new NodeHeap(true);
+
+        final VisitedSet visited = new VisitedSet();
+
+        int[] sortedNodes = new int[64];
+
+        float[] sortedDistances = new float[64];
+
+        /**
+         * Move the results into {@link #sortedNodes} and {@link #sortedDistances} (ascending distance).
+         *
+         * @return Number of results.
+         */
+        int drainResults() {
+            int count = results.size();
+            if (sortedNodes.length < count) {
+                sortedNodes = new int[count];
+                sortedDistances = new float[count];
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                sortedDistances[i] = results.peekKey();
+                sortedNodes[i] = results.pop();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Binary heap of nodes with float keys.
+     */
+    static final class NodeHeap {
+
+
+        private final boolean isMaxHeap;
+
+        private int[] nodes = new int[64];
+
+        private float[] keys = new float[64];
+
+        private int size;
+
+        /**
+         * @param isMaxHeap True: the largest key is on top; false: the smallest key is on top.
+         */
+        NodeHeap(boolean isMaxHeap) {
+            this.isMaxHeap = isMaxHeap;
+        }
+
+        void push(int node, float key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!isAbove(key, keys[parent])) break;
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        /**
+         * Remove the top node.
+         *
+         * @return The top node.
+         */
+        int pop() {
+            int top = nodes[0];
+            size--;
+            int node = nodes[size];
+            float key = keys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && isAbove(keys[child + 1], keys[child])) child++;
+                if (!isAbove(keys[child], key)) break;
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+            return top;
+        }
+
+        float peekKey() {
+            return keys[0];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        private boolean isAbove(float key1, float key2) {
+            return isMaxHeap ? key1 > key2 : key1 < key2;
+        }
+    }
+
+    /**
+     * Set of visited rows (open addressing). It is cleared in constant time by incrementing the stamp of the valid
+     * entries.
+     */
+    static final class VisitedSet {
+
+
+        private int[] keys = new int[1024];
+
+        private int[] stamps = new int[1024];
+
+        private int stamp = 1;
+
+        private int size;
+
+        void clear() {
+            size = 0;
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+
+        /**
+         * @param key The row.
+         * @return True if the row was not contained yet.
+         */
+        boolean add(int key) {
+            if (2 * (size + 1) > keys.length) grow();
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (stamps[slot] == stamp) {
+                if (keys[slot] == key) return false;
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            stamps[slot] = stamp;
+            size++;
+            return true;
+        }
+
+        private static int slot(int key, int mask) {
+            int hash = key * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldStamps = stamps;
+            keys = new int[oldKeys.length * 2];
+            stamps = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldStamps[i] != stamp) continue;
+                int slot = slot(oldKeys[i], mask);
+                while (stamps[slot] == stamp) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                stamps[slot] = stamp;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.nearest_neighbors;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.VectorStore;
+import org.javatuples.Pair;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the approximate nearest neighbors of an {@link HnswIndex} with the exact (brute force) nearest neighbors:
+ * recall@k and mean query latency for several sizes of the candidate list (ef).
+ */
+public class RecallEvaluation {
+
+
+    /**
+     * Default sizes of the candidate list which are evaluated.
+     */
+    public static final int[] DEFAULT_EF_VALUES = {10, 20, 40, 80, 160, 320};
+
+    private final HnswIndex index;
+
+    private final int k;
+
+    private final List<String> queries;
+
+    /**
+     * Exact neighbors per query.
+     */
+    private final List<Set<String>> exactNeighbors = new ArrayList<>();
+
+    private final double exactMillisecondsPerQuery;
+
+    /**
+     * Constructor. Draws random queries of the vocabulary and determines their exact nearest neighbors.
+     *
+     * @param index           The index to be evaluated.
+     * @param k               Number of neighbors per query.
+     * @param numberOfQueries Number of random queries.
+     * @param seed            Seed of the random queries.
+     */
+    public RecallEvaluation(HnswIndex index, int k, int numberOfQueries, long seed) {
+        this.index = index;
+        this.k = k;
+        VectorStore store = index.getVectorStore();
+        int rows = store.getNumberOfRows();
+        Random random = new Random(seed);
+        Set<String> drawn = new HashSet<>();
+        int numberOfDistinctQueries = Math.min(numberOfQueries, store.getVocabularySize());
+        int attempts = 0;
+        while (drawn.size() < numberOfDistinctQueries && attempts++ < 10 * numberOfQueries) {
+            drawn.add(store.getConcept(random.nextInt(rows)));
+        }
+        this.queries = new ArrayList<>(drawn);
+
+        long start = System.nanoTime();
+        for (String query : queries) {
+            exactNeighbors.add(getConcepts(index.getNearestExact(query, k)));
+        }
+        exactMillisecondsPerQuery = queries.isEmpty() ? 0.0 : (System.nanoTime() - start) / 1e6 / queries.size();
+    }
+
+    /**
+     * Query the index with the given size of the candidate list.
+     *
+     * @param ef Size of the candidate list.
+     * @return Pair of recall@k and mean latency in milliseconds.
+     */
+    public Pair<Double, Double> evaluate(int ef) {
+        int previousEf = index.getEf();
+        index.setEf(ef);
+        try {
+            long found = 0;
+            long expected = 0;
+            long start = System.nanoTime();
+            List<Set<String>> approximateNeighbors = new ArrayList<>(queries.size());
+            for (String query : queries) {
+                approximateNeighbors.add(getConcepts(index.getNearest(query, k)));
+            }
+            double milliseconds = queries.isEmpty() ? 0.0 : (System.nanoTime() - start) / 1e6 / queries.size();
+            for (int i = 0; i < queries.size(); i++) {
+                Set<String> exact = exactNeighbors.get(i);
+                expected += exact.size();
+                for (String concept : approximateNeighbors.get(i)) {
+                    if (exact.contains(concept)) found++;
+                }
+            }
+            return new Pair<>(expected == 0 ? 1.0 : (double) found / expected, milliseconds);
+        } finally {
+            index.setEf(previousEf);
+        }
+    }
+
+    /**
+     * Evaluate several sizes of the candidate list.
+     *
+     * @param efValues Sizes of the candidate list.
+     * @return Human-readable report (one line per ef and one line for the brute force search).
+     */
+    public String getReport(int... efValues) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Recall@").append(k).append(" of ").append(queries.size()).append(" random queries against ")
+                .append(index.size()).append(" vectors:\n");
+        sb.append(String.format(Locale.ROOT, "%-12s %-10s %s%n", "ef", "recall", "ms/query"));
+        for (int ef : efValues) {
+            Pair<Double, Double> result = evaluate(ef);
+            sb.append(String.format(Locale.ROOT, "%-12d %-10.4f %.3f%n", ef, result.getValue0(),
+                    result.getValue1()));
+        }
+        sb.append(String.format(Locale.ROOT, "%-12s %-10.4f %.3f%n", "brute force", 1.0, exactMillisecondsPerQuery));
+        return sb.toString();
+    }
+
+    public double getExactMillisecondsPerQuery() {
+        return exactMillisecondsPerQuery;
+    }
+
+    public List<String> getQueries() {
+        return queries;
+    }
+
+    private static Set<String> getConcepts(List<Pair<String, Double>> neighbors) {
+        Set<String> result = new HashSet<>();
+        if (neighbors != null) {
+            for (Pair<String, Double> neighbor : neighbors) {
+                result.add(neighbor.getValue0());
+            }
+        }
+        return result;
+    }
+}
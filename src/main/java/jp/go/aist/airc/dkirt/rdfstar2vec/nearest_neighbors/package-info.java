@@ -0,0 +1,5 @@
+/**
+ * Classes providing approximate nearest neighbor search over trained embeddings.
+ * The index is built from the vector file of a training and persisted next to it, so that it can be reloaded quickly.
+ */
+package jp.go.aist.airc.dkirt.rdfstar2vec.nearest_neighbors;
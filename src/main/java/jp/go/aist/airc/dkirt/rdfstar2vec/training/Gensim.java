@@ -18,6 +18,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -89,6 +90,17 @@ public class Gensim {
      */
     private HashMap<String, Double[]> vectorCache;
 
+    /**
+     * Indicator whether vector files (vectors.txt, .w2v, .bin; see {@link VectorStore#isVectorFile(String)}) shall be
+     * served by a memory-mapped {@link VectorStore} within the JVM rather than by the Python server.
+     */
+    private boolean isUseVectorStore = true;
+
+    /**
+     * The vector stores by vector file path (empty if the vector file could not be read).
+     */
+    private final ConcurrentHashMap<String, Optional<VectorStore>> vectorStores = new ConcurrentHashMap<>();
+
     /**
      * Indicates whether the shutdown hook has been initialized.
      * This flag is required in order to have only one hook despite multiple reinitializations.
@@ -214,6 +226,11 @@ public class Gensim {
      * @return -1.0 in case of failure, else similarity.
      */
     public double getSimilarity(String concept1, String concept2, String modelOrVectorPath) {
+        VectorStore vectorStore = getVectorStore(modelOrVectorPath);
+        if (vectorStore != null) {
+            double similarity = vectorStore.getSimilarity(concept1, concept2);
+            return Double.isNaN(similarity) ? -1.0 : similarity;
+        }
         if (isVectorCaching) {
             // caching is enabled: do not use gensim library but cache vectors and calculate in java on demand
             Double[] v1 = getVector(concept1, modelOrVectorPath);
@@ -258,6 +275,10 @@ public class Gensim {
      * @return Returns all vocabulary entries without vectors in a String HashSet.
      */
     public Set<String> getVocabularyTerms(String modelOrVectorPath) {
+        VectorStore vectorStore = getVectorStore(modelOrVectorPath);
+        if (vectorStore != null) {
+            return vectorStore.getVocabularyTerms();
+        }
         Set<String> result = new HashSet<>();
         HttpGet request = new HttpGet(serverUrl + "/get-vocabulary-terms");
         addModelToRequest(request, modelOrVectorPath);
@@ -346,6 +367,16 @@ public class Gensim {
      * @return The vector for the specified concept.
      */
     public Double[] getVector(String concept, String modelOrVectorPath) {
+        VectorStore vectorStore = getVectorStore(modelOrVectorPath);
+        if (vectorStore != null) {
+            float[] vector = vectorStore.getVector(concept);
+            if (vector == null) return null;
+            Double[] result = new Double[vector.length];
+            for (int i = 0; i < vector.length; i++) {
+                result[i] = (double) vector[i];
+            }
+            return result;
+        }
 
         String v1key = concept + "-" + modelOrVectorPath;
         if (isVectorCaching) {
@@ -418,6 +449,10 @@ public class Gensim {
      * @return True if exists, else false.
      */
     public boolean isInVocabulary(String concept, String modelOrVectorPath) {
+        VectorStore vectorStore = getVectorStore(modelOrVectorPath);
+        if (vectorStore != null) {
+            return vectorStore.isInVocabulary(concept);
+        }
         if (isVectorCaching) {
             return getVector(concept, modelOrVectorPath) != null;
         } else {
@@ -451,6 +486,10 @@ public class Gensim {
      * @return -1 in case of an error else the size of the vocabulary.
      */
     public int getVocabularySize(String modelOrVectorPath) {
+        VectorStore vectorStore = getVectorStore(modelOrVectorPath);
+        if (vectorStore != null) {
+            return vectorStore.getVocabularySize();
+        }
         HttpGet request = new HttpGet(serverUrl + "/get-vocabulary-size");
         addModelToRequest(request, modelOrVectorPath);
 
@@ -470,6 +509,29 @@ public class Gensim {
         return -1;
     }
 
+    /**
+     * Obtain the vector store which serves the given vector file (it is opened on the first request).
+     *
+     * @param modelOrVectorPath The path to the model or vector file.
+     * @return The vector store; null if the vector store is disabled, if the file is a gensim model or .kv file, or
+     * if the file cannot be read.
+     */
+    public VectorStore getVectorStore(String modelOrVectorPath) {
+        if (!isUseVectorStore || !VectorStore.isVectorFile(modelOrVectorPath)) return null;
+        Optional<VectorStore> vectorStore = vectorStores.get(modelOrVectorPath);
+        if (vectorStore == null) {
+            vectorStore = vectorStores.computeIfAbsent(modelOrVectorPath, path -> {
+                try {
+                    return Optional.of(VectorStore.open(new File(path)));
+                } catch (IOException e) {
+                    LOGGER.error("Could not open the vector store of " + path + ".", e);
+                    return Optional.empty();
+                }
+            });
+        }
+        return vectorStore.orElse(null);
+    }
+
     /**
      * Given a path to a model or vector file, this method determines whether it is a model or a vector file and
      * adds the corresponding parameter to the request.
@@ -932,6 +994,20 @@ public class Gensim {
         isVectorCaching = vectorCaching;
     }
 
+    public boolean isUseVectorStore() {
+        return isUseVectorStore;
+    }
+
+    /**
+     * If enabled, vectors, similarities, and vocabularies of vector files (vectors.txt, .w2v, .bin) are served by a
+     * memory-mapped {@link VectorStore} within the JVM rather than by the Python server.
+     *
+     * @param useVectorStore True if the vector store shall be used, else false.
+     */
+    public void setUseVectorStore(boolean useVectorStore) {
+        isUseVectorStore = useVectorStore;
+    }
+
     public static int getPort() {
         return port;
     }
@@ -0,0 +1,1213 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.training;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenFrequencyCounter;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenWalkReader;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.WalkRingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Word2vec training (skip-gram and CBOW with negative sampling) within the JVM. It is an alternative to
+ * {@link Gensim} which does not require Python: it reads the same walk files (text, gzipped text, and binary token
+ * walk files), accepts the same {@link Word2VecConfiguration}, and writes the vectors in the word2vec text format
+ * (.w2v) and in the vectors.txt format of this framework.
+ * <p>
+ * The walk files are read only once: the walks are kept as token IDs in memory for all epochs. The weight matrices are
+ * held off-heap and updated lock-free by all threads (Hogwild), like in the original word2vec implementation.
+ * <p>
+ * Alternatively, the walks can be consumed from a {@link WalkRingBuffer} while they are generated
+ * ({@link #trainWord2VecModel(String, WalkRingBuffer, Word2VecConfiguration, File)}), so that no walk files are needed.
+ */
+public class NativeWord2Vec {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NativeWord2Vec.class);
+
+    /**
+     * Initial learning rate (like gensim).
+     */
+    public static final float START_ALPHA = 0.025f;
+
+    /**
+     * Final learning rate (like gensim).
+     */
+    public static final float MIN_ALPHA = 0.0001f;
+
+    private static final int MAX_EXP = 6;
+
+    private static final int EXP_TABLE_SIZE = 1000;
+
+    /**
+     * Precomputed sigmoid for the interval [-MAX_EXP, MAX_EXP].
+     */
+    private static final float[] EXP_TABLE = new float[EXP_TABLE_SIZE];
+
+    static {
+        for (int i = 0; i < EXP_TABLE_SIZE; i++) {
+            double exp = Math.exp((i / (double) EXP_TABLE_SIZE * 2 - 1) * MAX_EXP);
+            EXP_TABLE[i] = (float) (exp / (exp + 1));
+        }
+    }
+
+    /**
+     * The number of ints per corpus block. A block is the unit of work of a training thread.
+     */
+    static final int BLOCK_SIZE = 1 << 22;
+
+    /**
+     * The number of words after which a training thread updates the learning rate.
+     */
+    private static final int ALPHA_UPDATE_INTERVAL = 10_000;
+
+    /**
+     * The number of rows by which the matrices grow while the vocabulary is built during a streaming training.
+     */
+    private static final int STREAMING_ROWS_PER_SEGMENT = 1 << 14;
+
+    /**
+     * The number of streamed words after which the first negative sampling table is built; the table is rebuilt
+     * every time the number of streamed words has doubled.
+     */
+    private static final long FIRST_TABLE_REBUILD = 100_000;
+
+    /**
+     * The vocabulary, ordered by descending frequency.
+     */
+    private String[] vocabulary;
+
+    /**
+     * The matrix row of each word of {@link #vocabulary}.
+     */
+    private int[] vectorRows;
+
+    /**
+     * Word to matrix row.
+     */
+    private HashMap<String, Integer> index;
+
+    /**
+     * The word vectors (input weights).
+     */
+    private OffHeapFloatMatrix vectors;
+
+    /**
+     * The output weights.
+     */
+    private OffHeapFloatMatrix outputWeights;
+
+    /**
+     * Table of matrix rows for drawing negative samples.
+     */
+    private volatile int[] unigramTable;
+
+    /**
+     * Probability (by matrix row) to keep a word in a walk; null while the vocabulary is built.
+     */
+    private float[] keepProbability;
+
+    /**
+     * The vocabulary of a streaming training while it is built (word to matrix row).
+     */
+    private ConcurrentHashMap<String, Integer> streamingIds;
+
+    /**
+     * Words of a streaming training by matrix row.
+     */
+    private List<String> streamingWords;
+
+    /**
+     * The number of words of a streaming training (published after the matrices have grown).
+     */
+    private volatile int numberOfStreamingWords;
+
+    /**
+     * Frequencies of a streaming training by matrix row (in segments of {@link #STREAMING_ROWS_PER_SEGMENT}).
+     */
+    private volatile AtomicLongArray[] streamingCounts;
+
+    private final ReentrantLock tableLock = new ReentrantLock();
+
+    private volatile long nextTableRebuild;
+
+    /**
+     * Train a word2vec model. The walk files have to exist already.
+     *
+     * @param w2vFilePath      The file to which the vectors are written in the word2vec text format (typically ending
+     *                         with .w2v). It can be converted to a gensim .kv file.
+     * @param trainingFilePath The path to a directory of walk files or to a single walk file.
+     * @param configuration    The configuration for the training operation.
+     * @return True if training succeeded, else false.
+     */
+    public boolean trainWord2VecModel(String w2vFilePath, String trainingFilePath,
+                                      Word2VecConfiguration configuration) {
+        File trainingFile = new File(trainingFilePath);
+        if (!trainingFile.exists()) {
+            LOGGER.error("The training file/directory does not exist: " + trainingFilePath);
+            return false;
+        }
+        Corpus corpus;
+        long[] counts;
+        try {
+            corpus = new Corpus();
+            counts = readCorpus(trainingFile, configuration.getMinCount(), corpus);
+        } catch (IOException e) {
+            LOGGER.error("Could not read the walks.", e);
+            return false;
+        }
+        if (vocabulary.length == 0) {
+            LOGGER.error("The vocabulary is empty. Is the training file/directory empty?");
+            return false;
+        }
+        LOGGER.info("Vocabulary built (" + vocabulary.length + " words, " + corpus.getNumberOfWords()
+                + " words in the walks). Training now...");
+
+        int dimension = configuration.getVectorDimension();
+        vectors = new OffHeapFloatMatrix(vocabulary.length, dimension);
+        outputWeights = new OffHeapFloatMatrix(vocabulary.length, dimension);
+        for (int row = 0; row < vocabulary.length; row++) {
+            initializeRow(row);
+        }
+        prepareSampling(counts, vocabulary.length, configuration.getSample());
+
+        try {
+            trainEpochs(corpus, new ArrayList<>(), configuration, configuration.getEpochs(), 0);
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("The training failed.", e);
+            return false;
+        }
+        LOGGER.info("Model trained.");
+        return writeW2vFile(w2vFilePath);
+    }
+
+    /**
+     * Train a word2vec model while the walks are generated: the first epoch consumes the walks from the buffer until
+     * it is closed; the vocabulary is built on the fly. The walks are kept (as token IDs in memory, or in spill files)
+     * for the further epochs.
+     * <p>
+     * While the vocabulary is built, the negative samples are drawn from the frequencies seen so far, the learning
+     * rate stays at its start value, and rare words (below the minimum count) are still trained; they are removed for
+     * the further epochs and from the written vectors.
+     *
+     * @param w2vFilePath    The file to which the vectors are written in the word2vec text format.
+     * @param walks          The buffer which is filled by the walk generation.
+     * @param configuration  The configuration for the training operation.
+     * @param spillDirectory Directory for the walks of the further epochs (they are deleted after the training); null
+     *                       if they shall be kept in memory.
+     * @return True if training succeeded, else false.
+     */
+    public boolean trainWord2VecModel(String w2vFilePath, WalkRingBuffer walks, Word2VecConfiguration configuration,
+                                      File spillDirectory) {
+        int dimension = configuration.getVectorDimension();
+        vectors = OffHeapFloatMatrix.growable(dimension, STREAMING_ROWS_PER_SEGMENT);
+        outputWeights = OffHeapFloatMatrix.growable(dimension, STREAMING_ROWS_PER_SEGMENT);
+        streamingIds = new ConcurrentHashMap<>();
+        streamingWords = new ArrayList<>();
+        numberOfStreamingWords = 0;
+        streamingCounts = new AtomicLongArray[0];
+        keepProbability = null;
+        unigramTable = null;
+        nextTableRebuild = FIRST_TABLE_REBUILD;
+
+        int numberOfThreads = Math.max(1, configuration.getNumberOfThreads());
+        boolean isSpill = spillDirectory != null && configuration.getEpochs() > 1;
+        if (isSpill && spillDirectory.mkdirs()) {
+            LOGGER.info("Spill directory created.");
+        }
+        List<StreamingWorker> workers = new ArrayList<>();
+        AtomicLong processedWords = new AtomicLong(0);
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < numberOfThreads; thread++) {
+                File spillFile = isSpill ? new File(spillDirectory, "spill_" + thread +
+                        TokenWalkReader.WALK_FILE_SUFFIX) : null;
+                StreamingWorker worker = new StreamingWorker(thread, configuration, processedWords, walks, spillFile,
+                        configuration.getEpochs() > 1);
+                workers.add(worker);
+                futures.add(executor.submit(worker));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("The training failed. The remaining walks are discarded.", e);
+            executor.shutdownNow();
+            discard(walks);
+            deleteSpillFiles(workers);
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // final vocabulary
+        int numberOfRows = streamingWords.size();
+        long[] rowCounts = new long[numberOfRows];
+        for (int row = 0; row < numberOfRows; row++) {
+            rowCounts[row] = getStreamingCount(row);
+        }
+        List<Integer> kept = new ArrayList<>();
+        for (int row = 0; row < numberOfRows; row++) {
+            if (rowCounts[row] >= configuration.getMinCount()) kept.add(row);
+        }
+        kept.sort((row1, row2) -> Long.compare(rowCounts[row2], rowCounts[row1]));
+        vocabulary = new String[kept.size()];
+        vectorRows = new int[kept.size()];
+        index = new HashMap<>(kept.size() * 2);
+        for (int i = 0; i < kept.size(); i++) {
+            vectorRows[i] = kept.get(i);
+            vocabulary[i] = streamingWords.get(vectorRows[i]);
+            index.put(vocabulary[i], vectorRows[i]);
+        }
+        streamingIds = null;
+        streamingWords = null;
+        streamingCounts = null;
+        if (vocabulary.length == 0) {
+            LOGGER.error("The vocabulary is empty. Were walks generated?");
+            deleteSpillFiles(workers);
+            return false;
+        }
+        LOGGER.info("Streamed epoch finished (" + vocabulary.length + " words, " + processedWords.get()
+                + " words in the walks).");
+
+        if (configuration.getEpochs() > 1) {
+            long[] keptCounts = new long[numberOfRows];
+            for (int row : vectorRows) {
+                keptCounts[row] = rowCounts[row];
+            }
+            prepareSampling(keptCounts, numberOfRows, configuration.getSample());
+            Corpus corpus = new Corpus();
+            List<File> spillFiles = new ArrayList<>();
+            for (StreamingWorker worker : workers) {
+                if (worker.spillFile != null) spillFiles.add(worker.spillFile);
+                else if (worker.corpus != null) corpus.addAll(worker.corpus);
+            }
+            try {
+                trainEpochs(corpus, spillFiles, configuration, configuration.getEpochs() - 1, processedWords.get());
+            } catch (InterruptedException | ExecutionException e) {
+                LOGGER.error("The training failed.", e);
+                return false;
+            } finally {
+                deleteSpillFiles(workers);
+            }
+        }
+        LOGGER.info("Model trained.");
+        return writeW2vFile(w2vFilePath);
+    }
+
+    /**
+     * Consume the walks without training so that the walk generation is not blocked.
+     *
+     * @param walks The buffer.
+     */
+    private static void discard(WalkRingBuffer walks) {
+        try {
+            while (walks.take() != null) {
+                // discard
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteSpillFiles(List<StreamingWorker> workers) {
+        for (StreamingWorker worker : workers) {
+            if (worker.spillFile != null && worker.spillFile.exists() && !worker.spillFile.delete()) {
+                LOGGER.warn("Could not delete spill file " + worker.spillFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Read the walks, build the vocabulary and encode the walks as IDs. If the walk directory contains the token
+     * counts of the walk generation ({@link TokenFrequencyCounter}), the vocabulary is taken from there and the walks
+     * are encoded directly with their final IDs.
+     *
+     * @param trainingFile Walk file or directory.
+     * @param minCount     Words with a lower frequency are removed.
+     * @param corpus       The corpus to which the encoded walks are added.
+     * @return The frequencies of the words (by ID).
+     * @throws IOException If a walk file cannot be read.
+     */
+    private long[] readCorpus(File trainingFile, int minCount, Corpus corpus) throws IOException {
+        List<File> files = new ArrayList<>();
+        if (trainingFile.isDirectory()) {
+            File[] directoryFiles = trainingFile.listFiles();
+            if (directoryFiles != null) {
+                Arrays.sort(directoryFiles);
+                for (File file : directoryFiles) {
+                    if (isWalkFile(file)) files.add(file);
+                }
+            }
+            File countsFile = TokenFrequencyCounter.getCountsFile(trainingFile);
+            if (countsFile.exists()) {
+                LOGGER.info("Token counts found. The vocabulary is taken from " + countsFile.getName() + ".");
+                return readCorpus(files, TokenFrequencyCounter.read(countsFile), minCount, corpus);
+            }
+        } else files.add(trainingFile);
+
+        // the walks are encoded with preliminary IDs (order of appearance) which are replaced later
+        HashMap<String, Integer> preliminaryIds = new HashMap<>();
+        List<String> preliminaryWords = new ArrayList<>();
+        long[][] preliminaryCounts = {new long[1024]};
+
+        for (File file : files) {
+            LOGGER.info("Processing file: " + file.getName());
+            if (TokenWalkReader.isTokenWalkFile(file)) {
+                String[] fileVocabulary = TokenWalkReader.readVocabulary(file);
+                int[] toPreliminaryId = new int[fileVocabulary.length];
+                Arrays.fill(toPreliminaryId, -1);
+                TokenWalkReader.forEachWalk(file, walk -> {
+                    for (int i = 0; i < walk.length; i++) {
+                        int id = toPreliminaryId[walk[i]];
+                        if (id < 0) {
+                            id = getPreliminaryId(fileVocabulary[walk[i]], preliminaryIds, preliminaryWords,
+                                    preliminaryCounts);
+                            toPreliminaryId[walk[i]] = id;
+                        }
+                        preliminaryCounts[0][id]++;
+                        walk[i] = id;
+                    }
+                    corpus.add(walk, walk.length);
+                });
+            } else {
+                int[] walk = new int[64];
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(file),
+                        StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int length = 0;
+                        for (String token : line.split(" ")) {
+                            if (token.isEmpty()) continue;
+                            int id = getPreliminaryId(token, preliminaryIds, preliminaryWords, preliminaryCounts);
+                            preliminaryCounts[0][id]++;
+                            if (length == walk.length) walk = Arrays.copyOf(walk, length * 2);
+                            walk[length++] = id;
+                        }
+                        corpus.add(walk, length);
+                    }
+                }
+            }
+        }
+
+        // final vocabulary: frequent words first
+        long[] allCounts = preliminaryCounts[0];
+        List<Integer> kept = new ArrayList<>();
+        for (int id = 0; id < preliminaryWords.size(); id++) {
+            if (allCounts[id] >= minCount) kept.add(id);
+        }
+        kept.sort((id1, id2) -> Long.compare(allCounts[id2], allCounts[id1]));
+        int[] toFinalId = new int[preliminaryWords.size()];
+        Arrays.fill(toFinalId, -1);
+        vocabulary = new String[kept.size()];
+        vectorRows = new int[kept.size()];
+        long[] counts = new long[kept.size()];
+        index = new HashMap<>(kept.size() * 2);
+        for (int finalId = 0; finalId < kept.size(); finalId++) {
+            int id = kept.get(finalId);
+            toFinalId[id] = finalId;
+            vocabulary[finalId] = preliminaryWords.get(id);
+            vectorRows[finalId] = finalId;
+            counts[finalId] = allCounts[id];
+            index.put(vocabulary[finalId], finalId);
+        }
+        corpus.replaceIds(toFinalId);
+        return counts;
+    }
+
+    /**
+     * Encode the walks with the given vocabulary; words below the minimum count are removed right away.
+     *
+     * @param files       The walk files.
+     * @param tokenCounts Frequency by token, in descending order.
+     * @param minCount    Words with a lower frequency are removed.
+     * @param corpus      The corpus to which the encoded walks are added.
+     * @return The frequencies of the words (by ID).
+     * @throws IOException If a walk file cannot be read.
+     */
+    private long[] readCorpus(List<File> files, Map<String, Long> tokenCounts, int minCount, Corpus corpus)
+            throws IOException {
+        List<String> kept = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : tokenCounts.entrySet()) {
+            if (entry.getValue() >= minCount) kept.add(entry.getKey());
+        }
+        vocabulary = kept.toArray(new String[0]);
+        vectorRows = new int[vocabulary.length];
+        long[] counts = new long[vocabulary.length];
+        index = new HashMap<>(vocabulary.length * 2);
+        for (int id = 0; id < vocabulary.length; id++) {
+            vectorRows[id] = id;
+            counts[id] = tokenCounts.get(vocabulary[id]);
+            index.put(vocabulary[id], id);
+        }
+
+        boolean isUnknownWord = false;
+        for (File file : files) {
+            LOGGER.info("Processing file: " + file.getName());
+            if (TokenWalkReader.isTokenWalkFile(file)) {
+                String[] fileVocabulary = TokenWalkReader.readVocabulary(file);
+                int[] toId = new int[fileVocabulary.length];
+                for (int i = 0; i < fileVocabulary.length; i++) {
+                    Integer id = index.get(fileVocabulary[i]);
+                    toId[i] = id == null ? -1 : id;
+                    if (id == null && !tokenCounts.containsKey(fileVocabulary[i])) isUnknownWord = true;
+                }
+                TokenWalkReader.forEachWalk(file, walk -> {
+                    int length = 0;
+                    for (int token : walk) {
+                        if (toId[token] >= 0) walk[length++] = toId[token];
+                    }
+                    corpus.add(walk, length);
+                });
+            } else {
+                int[] walk = new int[64];
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(file),
+                        StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int length = 0;
+                        for (String token : line.split(" ")) {
+                            if (token.isEmpty()) continue;
+                            Integer id = index.get(token);
+                            if (id == null) {
+                                if (!tokenCounts.containsKey(token)) isUnknownWord = true;
+                                continue;
+                            }
+                            if (length == walk.length) walk = Arrays.copyOf(walk, length * 2);
+                            walk[length++] = id;
+                        }
+                        corpus.add(walk, length);
+                    }
+                }
+            }
+        }
+        if (isUnknownWord) {
+            LOGGER.warn("Some tokens of the walks are not in the token counts; they are ignored. Are " +
+                    "the token counts outdated?");
+        }
+        return counts;
+    }
+
+    private static int getPreliminaryId(String word, HashMap<String, Integer> preliminaryIds,
+                                        List<String> preliminaryWords, long[][] preliminaryCounts) {
+        Integer id = preliminaryIds.get(word);
+        if (id != null) return id;
+        int newId = preliminaryWords.size();
+        preliminaryIds.put(word, newId);
+        preliminaryWords.add(word);
+        if (newId == preliminaryCounts[0].length) {
+            preliminaryCounts[0] = Arrays.copyOf(preliminaryCounts[0], newId * 2);
+        }
+        return newId;
+    }
+
+    /**
+     * Files in a walk directory which are not walk files: vocabularies of token walk files and training results.
+     *
+     * @param file The file to check.
+     * @return True if the file is read for the training.
+     */
+    private static boolean isWalkFile(File file) {
+        String name = file.getName();
+        return file.isFile() && !name.startsWith(".")
+                && !name.endsWith(TokenWalkReader.VOCABULARY_FILE_SUFFIX)
+                && !name.endsWith(".w2v") && !name.endsWith(".kv") && !name.endsWith(".npy")
+                && !name.equals("model") && !name.equals("vectors.txt");
+    }
+
+    private static InputStream open(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            return new GZIPInputStream(in, 1 << 16);
+        }
+        return in;
+    }
+
+    /**
+     * Random initialization of the word vector of the given row (the output weights are 0).
+     *
+     * @param row The matrix row.
+     */
+    private void initializeRow(int row) {
+        int dimension = vectors.getColumns();
+        long random = row * 0x9E3779B97F4A7C15L + 1;
+        for (int column = 0; column < dimension; column++) {
+            random = random * 25214903917L + 11;
+            vectors.set(row, column, ((((random >>> 16) & 0xFFFF) / 65536f) - 0.5f) / dimension);
+        }
+    }
+
+    /**
+     * Build the negative sampling table and the keep probabilities.
+     *
+     * @param rowCounts    Word frequencies by matrix row; rows with frequency 0 are neither drawn nor trained.
+     * @param numberOfRows The number of rows.
+     * @param sample       The sample threshold; 0 disables the down-sampling.
+     */
+    private void prepareSampling(long[] rowCounts, int numberOfRows, double sample) {
+        long[] counts = new long[vectorRows.length];
+        for (int i = 0; i < vectorRows.length; i++) {
+            counts[i] = rowCounts[vectorRows[i]];
+        }
+        int[] table = buildUnigramTable(counts);
+        for (int i = 0; i < table.length; i++) {
+            table[i] = vectorRows[table[i]];
+        }
+        unigramTable = table;
+        float[] probabilities = buildKeepProbabilities(counts, sample);
+        keepProbability = new float[numberOfRows];
+        for (int i = 0; i < vectorRows.length; i++) {
+            keepProbability[vectorRows[i]] = probabilities[i];
+        }
+    }
+
+    /**
+     * Run further epochs over the stored walks with all threads.
+     *
+     * @param corpus         The encoded walks in memory.
+     * @param files          Spill files with encoded walks.
+     * @param configuration  The configuration.
+     * @param epochs         The number of epochs.
+     * @param processedWords The number of words trained before (they count for the learning rate).
+     * @throws InterruptedException If interrupted.
+     * @throws ExecutionException   If a training thread failed.
+     */
+    private void trainEpochs(Corpus corpus, List<File> files, Word2VecConfiguration configuration, int epochs,
+                             long processedWords) throws InterruptedException, ExecutionException {
+        long wordsPerEpoch = corpus.getNumberOfWords();
+        if (!files.isEmpty()) wordsPerEpoch = processedWords;
+        long totalWords = processedWords + wordsPerEpoch * epochs;
+        AtomicInteger nextTask = new AtomicInteger(0);
+        AtomicLong processed = new AtomicLong(processedWords);
+        int numberOfParts = corpus.getNumberOfBlocks() + files.size();
+        int numberOfTasks = numberOfParts * epochs;
+        int numberOfThreads = Math.max(1, Math.min(configuration.getNumberOfThreads(), numberOfTasks));
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < numberOfThreads; thread++) {
+                Worker worker = new Worker(thread, configuration, processed, totalWords);
+                futures.add(executor.submit(() -> {
+                    int task;
+                    while ((task = nextTask.getAndIncrement()) < numberOfTasks) {
+                        int part = task % numberOfParts;
+                        if (part < corpus.getNumberOfBlocks()) {
+                            worker.trainBlock(corpus.getBlock(part), corpus.getBlockSize(part));
+                        } else {
+                            worker.trainFile(files.get(part - corpus.getNumberOfBlocks()));
+                        }
+                    }
+                    worker.updateAlpha();
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Table for drawing negative samples (unigram distribution raised to the power of 0.75).
+     *
+     * @param counts Word frequencies.
+     * @return Table of word IDs.
+     */
+    static int[] buildUnigramTable(long[] counts) {
+        int tableSize = (int) Math.min(100_000_000L, Math.max(1_000_000L, 100L * counts.length));
+        int[] table = new int[tableSize];
+        double total = 0;
+        for (long count : counts) {
+            total += Math.pow(count, 0.75);
+        }
+        int word = 0;
+        double cumulative = Math.pow(counts[0], 0.75) / total;
+        for (int i = 0; i < tableSize; i++) {
+            table[i] = word;
+            if (i / (double) tableSize > cumulative && word < counts.length - 1) {
+                word++;
+                cumulative += Math.pow(counts[word], 0.75) / total;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Probability to keep a word during the down-sampling of frequent words (like gensim).
+     *
+     * @param counts Word frequencies.
+     * @param sample The sample threshold; 0 disables the down-sampling.
+     * @return Probability by word ID.
+     */
+    static float[] buildKeepProbabilities(long[] counts, double sample) {
+        float[] result = new float[counts.length];
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            result[i] = keepProbability(counts[i], total, sample);
+        }
+        return result;
+    }
+
+    private static float keepProbability(long count, long total, double sample) {
+        if (sample <= 0) return 1f;
+        double thresholdCount = sample * total;
+        double probability = (Math.sqrt(count / thresholdCount) + 1) * (thresholdCount / count);
+        return (float) Math.min(1.0, probability);
+    }
+
+    /**
+     * Obtain the matrix row of a word of a streaming training; unknown words are added to the vocabulary.
+     *
+     * @param word The word.
+     * @return Row.
+     */
+    private int getStreamingId(String word) {
+        Integer id = streamingIds.get(word);
+        if (id != null) return id;
+        return streamingIds.computeIfAbsent(word, key -> {
+            synchronized (streamingWords) {
+                int row = streamingWords.size();
+                vectors.ensureRows(row + 1);
+                outputWeights.ensureRows(row + 1);
+                initializeRow(row);
+                AtomicLongArray[] counts = streamingCounts;
+                if (row / STREAMING_ROWS_PER_SEGMENT == counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length + 1);
+                    counts[counts.length - 1] = new AtomicLongArray(STREAMING_ROWS_PER_SEGMENT);
+                    streamingCounts = counts;
+                }
+                streamingWords.add(key);
+                numberOfStreamingWords = row + 1;
+                return row;
+            }
+        });
+    }
+
+    private long getStreamingCount(int row) {
+        return streamingCounts[row / STREAMING_ROWS_PER_SEGMENT].get(row % STREAMING_ROWS_PER_SEGMENT);
+    }
+
+    /**
+     * Rebuild the negative sampling table from the frequencies seen so far (by one thread only).
+     *
+     * @param processedWords The number of words streamed so far.
+     */
+    private void rebuildStreamingTable(long processedWords) {
+        if (processedWords < nextTableRebuild || !tableLock.tryLock()) return;
+        try {
+            if (processedWords < nextTableRebuild) return;
+            int numberOfRows = numberOfStreamingWords;
+            long[] counts = new long[numberOfRows];
+            for (int row = 0; row < numberOfRows; row++) {
+                counts[row] = getStreamingCount(row);
+            }
+            unigramTable = buildUnigramTable(counts);
+            nextTableRebuild = processedWords * 2;
+        } finally {
+            tableLock.unlock();
+        }
+    }
+
+    /**
+     * One training thread.
+     */
+    private class Worker {
+
+
+        final AtomicLong processedWords;
+        final long totalWords;
+        final boolean isSkipGram;
+        final int windowSize;
+        final int negatives;
+        final double sample;
+
+        final float[] hidden;
+        final float[] error;
+        int[] walk = new int[64];
+        long random;
+        float alpha = START_ALPHA;
+        long wordsSinceUpdate = 0;
+
+        /**
+         * Constructor
+         *
+         * @param thread         The number of the thread (seed of the random numbers).
+         * @param configuration  The configuration.
+         * @param processedWords The number of words trained by all threads.
+         * @param totalWords     The number of words of all epochs (0: the learning rate is not decreased).
+         */
+        Worker(int thread, Word2VecConfiguration configuration, AtomicLong processedWords, long totalWords) {
+            this.processedWords = processedWords;
+            this.totalWords = totalWords;
+            this.isSkipGram = configuration.getType() != Word2VecType.CBOW;
+            this.windowSize = configuration.getWindowSize();
+            this.negatives = configuration.getNegatives();
+            this.sample = configuration.getSample();
+            this.hidden = new float[configuration.getVectorDimension()];
+            this.error = new float[configuration.getVectorDimension()];
+            this.random = thread;
+            if (totalWords > 0) {
+                double progress = processedWords.get() / (double) (totalWords + 1);
+                this.alpha = (float) Math.max(MIN_ALPHA, START_ALPHA - (START_ALPHA - MIN_ALPHA) * progress);
+            }
+        }
+
+        void trainBlock(int[] block, int blockSize) {
+            int position = 0;
+            while (position < blockSize) {
+                int length = block[position];
+                trainWalk(block, position + 1, length);
+                position += length + 1;
+            }
+        }
+
+        void trainFile(File file) {
+            try {
+                TokenWalkReader.forEachWalk(file, ids -> trainWalk(ids, 0, ids.length));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Add the words since the last update to the processed words and update the learning rate.
+         */
+        void updateAlpha() {
+            long processed = processedWords.addAndGet(wordsSinceUpdate);
+            wordsSinceUpdate = 0;
+            if (totalWords > 0) {
+                double progress = processed / (double) (totalWords + 1);
+                alpha = (float) Math.max(MIN_ALPHA, START_ALPHA - (START_ALPHA - MIN_ALPHA) * progress);
+            }
+        }
+
+        int nextRandom(int bound) {
+            random = random * 25214903917L + 11;
+            return (int) ((random >>> 16) % bound);
+        }
+
+        private boolean isKept(int word) {
+            float probability;
+            if (keepProbability != null) {
+                probability = keepProbability[word];
+            } else {
+                // vocabulary in progress: down-sampling based on the frequencies seen so far
+                if (sample <= 0) return true;
+                probability = keepProbability(getStreamingCount(word), processedWords.get() + wordsSinceUpdate,
+                        sample);
+            }
+            return probability >= 1f || probability > nextRandom(1 << 16) / 65536f;
+        }
+
+        void trainWalk(int[] ids, int offset, int length) {
+            wordsSinceUpdate += length;
+            if (wordsSinceUpdate > ALPHA_UPDATE_INTERVAL) {
+                updateAlpha();
+            }
+
+            // down-sampling of frequent words
+            if (walk.length < length) walk = new int[length];
+            int walkLength = 0;
+            for (int i = 0; i < length; i++) {
+                int word = ids[offset + i];
+                if (isKept(word)) walk[walkLength++] = word;
+            }
+
+            for (int position = 0; position < walkLength; position++) {
+                int word = walk[position];
+                int reducedWindow = windowSize - nextRandom(windowSize);
+                int start = Math.max(0, position - reducedWindow);
+                int end = Math.min(walkLength - 1, position + reducedWindow);
+                if (isSkipGram) {
+                    for (int context = start; context <= end; context++) {
+                        if (context == position) continue;
+                        vectors.getRow(walk[context], hidden);
+                        Arrays.fill(error, 0f);
+                        trainNegativeSampling(word);
+                        vectors.addToRow(walk[context], error);
+                    }
+                } else {
+                    Arrays.fill(hidden, 0f);
+                    int numberOfContextWords = 0;
+                    for (int context = start; context <= end; context++) {
+                        if (context == position) continue;
+                        vectors.getRow(walk[context], error);
+                        for (int i = 0; i < hidden.length; i++) {
+                            hidden[i] += error[i];
+                        }
+                        numberOfContextWords++;
+                    }
+                    if (numberOfContextWords == 0) continue;
+                    for (int i = 0; i < hidden.length; i++) {
+                        hidden[i] /= numberOfContextWords;
+                    }
+                    Arrays.fill(error, 0f);
+                    trainNegativeSampling(word);
+                    for (int context = start; context <= end; context++) {
+                        if (context == position) continue;
+                        vectors.addToRow(walk[context], error);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Update the output weights of the word and of the negative samples given the hidden layer
+         * ({@link #hidden}); the error of the hidden layer is accumulated in {@link #error}.
+         *
+         * @param word The word to be predicted.
+         */
+        private void trainNegativeSampling(int word) {
+            int[] table = unigramTable;
+            int numberOfWords = table == null ? numberOfStreamingWords : 0;
+            for (int d = 0; d <= negatives; d++) {
+                int target;
+                int label;
+                if (d == 0) {
+                    target = word;
+                    label = 1;
+                } else {
+                    // uniform distribution until the first table of a streaming training is built
+                    target = table != null ? table[nextRandom(table.length)] : nextRandom(numberOfWords);
+                    if (target == word) continue;
+                    label = 0;
+                }
+                float f = outputWeights.dot(target, hidden);
+                float gradient;
+                if (f > MAX_EXP) gradient = (label - 1) * alpha;
+                else if (f < -MAX_EXP) gradient = label * alpha;
+                else gradient = (label - EXP_TABLE[(int) ((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))]) * alpha;
+                outputWeights.backPropagate(target, gradient, hidden, error);
+            }
+        }
+    }
+
+    /**
+     * Training thread of the streamed epoch: it takes the walks from the buffer, adds their words to the vocabulary,
+     * trains them, and keeps them for the further epochs.
+     */
+    private class StreamingWorker extends Worker implements Runnable {
+
+
+        private final WalkRingBuffer walks;
+
+        /**
+         * The walks of this thread for the further epochs (null: not kept or spilled).
+         */
+        private final Corpus corpus;
+
+        private final File spillFile;
+
+        StreamingWorker(int thread, Word2VecConfiguration configuration, AtomicLong processedWords,
+                        WalkRingBuffer walks, File spillFile, boolean isKeepWalks) {
+            super(thread, configuration, processedWords, 0);
+            this.walks = walks;
+            this.spillFile = spillFile;
+            this.corpus = (isKeepWalks && spillFile == null) ? new Corpus() : null;
+        }
+
+        @Override
+        public void run() {
+            try (DataOutputStream spill = spillFile == null ? null : new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(spillFile, false), 1 << 16))) {
+                if (spill != null) {
+                    spill.writeInt(TokenWalkReader.MAGIC);
+                    spill.writeInt(TokenWalkReader.VERSION);
+                }
+                int[] ids = new int[64];
+                List<String> entityWalks;
+                while ((entityWalks = walks.take()) != null) {
+                    for (String walkText : entityWalks) {
+                        int length = 0;
+                        for (String token : walkText.split(" ")) {
+                            if (token.isEmpty()) continue;
+                            int id = getStreamingId(token);
+                            streamingCounts[id / STREAMING_ROWS_PER_SEGMENT]
+                                    .incrementAndGet(id % STREAMING_ROWS_PER_SEGMENT);
+                            if (length == ids.length) ids = Arrays.copyOf(ids, length * 2);
+                            ids[length++] = id;
+                        }
+                        if (length == 0) continue;
+                        if (spill != null) {
+                            writeVarInt(spill, length);
+                            for (int i = 0; i < length; i++) {
+                                writeVarInt(spill, ids[i]);
+                            }
+                        } else if (corpus != null) {
+                            corpus.add(ids, length);
+                        }
+                        trainWalk(ids, 0, length);
+                    }
+                    rebuildStreamingTable(processedWords.get());
+                }
+                updateAlpha();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for walks.", e);
+            }
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Write the vectors in the word2vec text format (first line: number of vectors and dimension).
+     *
+     * @param fileToWrite The file to be written.
+     * @return True if the file was written.
+     */
+    private boolean writeW2vFile(String fileToWrite) {
+        try (Writer writer = newWriter(fileToWrite)) {
+            writer.write(vocabulary.length + " " + vectors.getColumns() + "\n");
+            StringBuilder sb = new StringBuilder();
+            for (int id = 0; id < vocabulary.length; id++) {
+                sb.setLength(0);
+                sb.append(vocabulary[id]);
+                appendVector(sb, vectorRows[id], false);
+                sb.append('\n');
+                writer.write(sb.toString());
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Could not write the vector file.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Writes the vectors of the last training to a human-readable text file.
+     *
+     * @param fileToWrite The file that will be written.
+     */
+    public void writeModelAsTextFile(String fileToWrite) {
+        writeModelAsTextFile(fileToWrite, null);
+    }
+
+    /**
+     * Writes the vectors of the last training to a human-readable text file (in the same format as
+     * {@link Gensim#writeModelAsTextFile(String, String, String)}).
+     *
+     * @param fileToWrite The file that will be written.
+     * @param entityFile  The vocabulary that shall appear in the text file (can be null if all words shall be written).
+     *                    The file must contain one word per line.
+     */
+    public void writeModelAsTextFile(String fileToWrite, String entityFile) {
+        if (vocabulary == null) {
+            LOGGER.error("There is no trained model. Call trainWord2VecModel() first.");
+            return;
+        }
+        try (Writer writer = newWriter(fileToWrite)) {
+            StringBuilder sb = new StringBuilder();
+            if (entityFile == null) {
+                for (int id = 0; id < vocabulary.length; id++) {
+                    if (vocabulary[id].trim().isEmpty()) continue;
+                    sb.setLength(0);
+                    sb.append(vocabulary[id]);
+                    appendVector(sb, vectorRows[id], true);
+                    sb.append('\n');
+                    writer.write(sb.toString());
+                }
+            } else {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new FileInputStream(entityFile), StandardCharsets.UTF_8))) {
+                    String concept;
+                    while ((concept = reader.readLine()) != null) {
+                        sb.setLength(0);
+                        Integer row = index.get(concept);
+                        if (row != null) {
+                            sb.append(concept);
+                            appendVector(sb, row, true);
+                        } else {
+                            LOGGER.info("WARN: The following concept has not been found in the vector space: "
+                                    + concept);
+                        }
+                        sb.append('\n');
+                        writer.write(sb.toString());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not write the vector text file.", e);
+        }
+    }
+
+    private void appendVector(StringBuilder sb, int row, boolean isTrailingSpace) {
+        for (int column = 0; column < vectors.getColumns(); column++) {
+            sb.append(' ').append(vectors.get(row, column));
+        }
+        if (isTrailingSpace) sb.append(' ');
+    }
+
+    private static Writer newWriter(String file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, false), StandardCharsets.UTF_8),
+                1 << 16);
+    }
+
+    /**
+     * Obtain the vector of the given concept from the last training.
+     *
+     * @param concept The concept.
+     * @return The vector or null if the concept is not in the vocabulary.
+     */
+    public Double[] getVector(String concept) {
+        Integer row = index == null ? null : index.get(concept);
+        if (row == null) return null;
+        Double[] result = new Double[vectors.getColumns()];
+        for (int column = 0; column < result.length; column++) {
+            result[column] = (double) vectors.get(row, column);
+        }
+        return result;
+    }
+
+    /**
+     * @param concept The concept.
+     * @return True if the concept is in the vocabulary of the last training.
+     */
+    public boolean isInVocabulary(String concept) {
+        return index != null && index.containsKey(concept);
+    }
+
+    /**
+     * @return The size of the vocabulary of the last training (0 if there was no training).
+     */
+    public int getVocabularySize() {
+        return vocabulary == null ? 0 : vocabulary.length;
+    }
+
+    /**
+     * The walks as word IDs, split into blocks. Within a block, every walk is stored as its length followed by the IDs.
+     */
+    private static class Corpus {
+
+
+        private final List<int[]> blocks = new ArrayList<>();
+        private final List<Integer> blockSizes = new ArrayList<>();
+        private int[] current = null;
+        private int currentSize = 0;
+        private long numberOfWords = 0;
+
+        void add(int[] walk, int length) {
+            if (length == 0) return;
+            if (current == null || currentSize + length + 1 > current.length) {
+                closeBlock();
+                current = new int[Math.max(BLOCK_SIZE, length + 1)];
+            }
+            current[currentSize++] = length;
+            System.arraycopy(walk, 0, current, currentSize, length);
+            currentSize += length;
+            numberOfWords += length;
+        }
+
+        /**
+         * Move all walks of the other corpus to this corpus.
+         *
+         * @param other The other corpus.
+         */
+        void addAll(Corpus other) {
+            closeBlock();
+            other.closeBlock();
+            blocks.addAll(other.blocks);
+            blockSizes.addAll(other.blockSizes);
+            numberOfWords += other.numberOfWords;
+        }
+
+        private void closeBlock() {
+            if (current != null) {
+                blocks.add(current);
+                blockSizes.add(currentSize);
+            }
+            current = null;
+            currentSize = 0;
+        }
+
+        /**
+         * Replace all IDs; words with the new ID -1 are removed.
+         *
+         * @param newIds New ID by old ID.
+         */
+        void replaceIds(int[] newIds) {
+            closeBlock();
+            numberOfWords = 0;
+            for (int b = 0; b < blocks.size(); b++) {
+                int[] block = blocks.get(b);
+                int size = blockSizes.get(b);
+                int read = 0;
+                int write = 0;
+                while (read < size) {
+                    int length = block[read++];
+                    int lengthPosition = write++;
+                    int newLength = 0;
+                    for (int i = 0; i < length; i++) {
+                        int id = newIds[block[read++]];
+                        if (id >= 0) {
+                            block[write++] = id;
+                            newLength++;
+                        }
+                    }
+                    if (newLength == 0) write--;
+                    else block[lengthPosition] = newLength;
+                    numberOfWords += newLength;
+                }
+                blockSizes.set(b, write);
+            }
+        }
+
+        int getNumberOfBlocks() {
+            return blocks.size();
+        }
+
+        int[] getBlock(int block) {
+            return blocks.get(block);
+        }
+
+        int getBlockSize(int block) {
+            return blockSizes.get(block);
+        }
+
+        long getNumberOfWords() {
+            return numberOfWords;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.training;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Dense float matrix which is held outside of the Java heap (direct buffers), so that large embedding matrices do not
+ * put pressure on the garbage collector. The matrix is split into segments since a single buffer cannot exceed 2 GB.
+ * <p>
+ * The matrix is not synchronized: the word2vec training updates it lock-free from multiple threads (Hogwild). Lost
+ * updates are rare for sparse updates and do not harm the convergence. Only the growth of the matrix
+ * ({@link #ensureRows(int)}) is synchronized.
+ */
+class OffHeapFloatMatrix {
+
+
+    /**
+     * Maximal number of floats per segment (1 GB).
+     */
+    private static final int MAX_SEGMENT_FLOATS = 1 << 28;
+
+    private volatile int rows;
+
+    private final int columns;
+
+    private final int rowsPerSegment;
+
+    private volatile FloatBuffer[] segments;
+
+    /**
+     * Constructor (all elements are 0).
+     *
+     * @param rows    Number of rows.
+     * @param columns Number of columns.
+     */
+    OffHeapFloatMatrix(int rows, int columns) {
+        this(rows, columns, MAX_SEGMENT_FLOATS / columns);
+    }
+
+    private OffHeapFloatMatrix(int rows, int columns, int rowsPerSegment) {
+        this.rows = rows;
+        this.columns = columns;
+        this.rowsPerSegment = Math.max(1, Math.min(rowsPerSegment, MAX_SEGMENT_FLOATS / columns));
+        int numberOfSegments = (rows + this.rowsPerSegment - 1) / this.rowsPerSegment;
+        this.segments = new FloatBuffer[numberOfSegments];
+        for (int i = 0; i < numberOfSegments; i++) {
+            int segmentRows = Math.min(this.rowsPerSegment, rows - i * this.rowsPerSegment);
+            segments[i] = allocate(segmentRows * columns);
+        }
+    }
+
+    /**
+     * Obtain a matrix without rows which grows on demand (see {@link #ensureRows(int)}).
+     *
+     * @param columns        Number of columns.
+     * @param rowsPerSegment Number of rows which are allocated at once.
+     * @return New matrix.
+     */
+    static OffHeapFloatMatrix growable(int columns, int rowsPerSegment) {
+        return new OffHeapFloatMatrix(0, columns, rowsPerSegment);
+    }
+
+    private static FloatBuffer allocate(int floats) {
+        return ByteBuffer.allocateDirect(floats * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    /**
+     * Grow the matrix so that it has at least the given number of rows; new rows are 0. Rows are allocated in full
+     * segments (only for matrices obtained through {@link #growable(int, int)}).
+     *
+     * @param minRows The number of rows required.
+     */
+    synchronized void ensureRows(int minRows) {
+        if (minRows <= rows) return;
+        int numberOfSegments = (minRows + rowsPerSegment - 1) / rowsPerSegment;
+        FloatBuffer[] grown = new FloatBuffer[numberOfSegments];
+        System.arraycopy(segments, 0, grown, 0, segments.length);
+        for (int i = segments.length; i < numberOfSegments; i++) {
+            grown[i] = allocate(rowsPerSegment * columns);
+        }
+        segments = grown;
+        rows = numberOfSegments * rowsPerSegment;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getColumns() {
+        return columns;
+    }
+
+    float get(int row, int column) {
+        return segments[row / rowsPerSegment].get((row % rowsPerSegment) * columns + column);
+    }
+
+    void set(int row, int column, float value) {
+        segments[row / rowsPerSegment].put((row % rowsPerSegment) * columns + column, value);
+    }
+
+    /**
+     * Copy a row into the given array.
+     *
+     * @param row    Row index.
+     * @param target Array of length {@link #getColumns()}.
+     */
+    void getRow(int row, float[] target) {
+        FloatBuffer segment = segments[row / rowsPerSegment];
+        int offset = (row % rowsPerSegment) * columns;
+        for (int i = 0; i < columns; i++) {
+            target[i] = segment.get(offset + i);
+        }
+    }
+
+    /**
+     * Add the given array to the row ({@code row += vector}).
+     *
+     * @param row    Row index.
+     * @param vector Array of length {@link #getColumns()}.
+     */
+    void addToRow(int row, float[] vector) {
+        FloatBuffer segment = segments[row / rowsPerSegment];
+        int offset = (row % rowsPerSegment) * columns;
+        for (int i = 0; i < columns; i++) {
+            segment.put(offset + i, segment.get(offset + i) + vector[i]);
+        }
+    }
+
+    /**
+     * Dot product of a row and the given array.
+     *
+     * @param row    Row index.
+     * @param vector Array of length {@link #getColumns()}.
+     * @return Dot product.
+     */
+    float dot(int row, float[] vector) {
+        FloatBuffer segment = segments[row / rowsPerSegment];
+        int offset = (row % rowsPerSegment) * columns;
+        float result = 0f;
+        for (int i = 0; i < columns; i++) {
+            result += segment.get(offset + i) * vector[i];
+        }
+        return result;
+    }
+
+    /**
+     * The output layer update of word2vec in one pass: {@code error += gradient * row} and
+     * {@code row += gradient * input}.
+     *
+     * @param row      Row index.
+     * @param gradient The gradient (already multiplied with the learning rate).
+     * @param input    The hidden layer.
+     * @param error    The accumulated error of the hidden layer (updated).
+     */
+    void backPropagate(int row, float gradient, float[] input, float[] error) {
+        FloatBuffer segment = segments[row / rowsPerSegment];
+        int offset = (row % rowsPerSegment) * columns;
+        for (int i = 0; i < columns; i++) {
+            float value = segment.get(offset + i);
+            error[i] += gradient * value;
+            segment.put(offset + i, value + gradient * input[i]);
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.training;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only store of trained vectors which answers vector, similarity, and vocabulary requests within the JVM (without
+ * the Python server). It reads the vectors.txt format of this framework and the word2vec text (.w2v) and binary
+ * (.bin) formats.
+ * <p>
+ * On the first use of a vector file, it is converted into a binary store file next to it
+ * ({@link #STORE_FILE_SUFFIX}); the vectors of this file are memory-mapped rather than loaded into the Java heap.
+ * Only the vocabulary is held in memory, together with an open-addressing index from the concept to its row.
+ * <p>
+ * All read methods are thread-safe.
+ */
+public class VectorStore {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VectorStore.class);
+
+    /**
+     * File ending of the binary store file which is written next to the vector file.
+     */
+    public static final String STORE_FILE_SUFFIX = ".vstore";
+
+    /**
+     * "R2VS"
+     */
+    static final int MAGIC = 0x52325653;
+
+    static final int VERSION = 1;
+
+    /**
+     * Magic number, version, number of rows, dimension (int32 each).
+     */
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * Maximal number of bytes mapped at once (a mapping cannot exceed 2 GB).
+     */
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    /**
+     * The concept of each row.
+     */
+    private final String[] concepts;
+
+    /**
+     * The hash of the concept of each row (see {@link #hash(String)}).
+     */
+    private final int[] conceptHashes;
+
+    /**
+     * Open-addressing (linear probing) hash table: the row of the concept or -1 if the slot is empty.
+     */
+    private final int[] slots;
+
+    private final int mask;
+
+    /**
+     * The number of distinct concepts (rows with a duplicate concept are not indexed).
+     */
+    private final int vocabularySize;
+
+    private final int dimension;
+
+    private final int rowsPerSegment;
+
+    private final FloatBuffer[] segments;
+
+    /**
+     * Lazily computed L2 norm of each row; negative if not yet computed.
+     */
+    private final float[] norms;
+
+    private VectorStore(String[] concepts, int dimension, FileChannel channel) throws IOException {
+        this.concepts = concepts;
+        this.dimension = dimension;
+        int rows = concepts.length;
+
+        // matrix
+        this.rowsPerSegment = Math.max(1, MAX_SEGMENT_BYTES / (dimension * Float.BYTES));
+        int numberOfSegments = (rows + rowsPerSegment - 1) / rowsPerSegment;
+        this.segments = new FloatBuffer[numberOfSegments];
+        for (int i = 0; i < numberOfSegments; i++) {
+            long segmentRows = Math.min(rowsPerSegment, rows - (long) i * rowsPerSegment);
+            long offset = HEADER_BYTES + (long) i * rowsPerSegment * dimension * Float.BYTES;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, segmentRows * dimension * Float.BYTES)
+                    .order(ByteOrder.BIG_ENDIAN).asFloatBuffer();
+        }
+        this.norms = new float[rows];
+        Arrays.fill(norms, -1f);
+
+        // index with a load factor of at most 0.5
+        int capacity = Integer.highestOneBit(Math.max(2, rows) * 2 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(slots, -1);
+        this.conceptHashes = new int[rows];
+        int distinct = 0;
+        for (int row = 0; row < rows; row++) {
+            int hash = hash(concepts[row]);
+            conceptHashes[row] = hash;
+            int slot = hash & mask;
+            boolean isDuplicate = false;
+            while (slots[slot] >= 0) {
+                int other = slots[slot];
+                if (conceptHashes[other] == hash && concepts[other].equals(concepts[row])) {
+                    isDuplicate = true;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (isDuplicate) {
+                LOGGER.warn("Duplicate concept in vector file (the first vector is used): " + concepts[row]);
+                continue;
+            }
+            slots[slot] = row;
+            distinct++;
+        }
+        this.vocabularySize = distinct;
+    }
+
+    /**
+     * Open the vector store of the given vector file. The store file is (re-)written if it does not exist or if it is
+     * older than the vector file.
+     *
+     * @param vectorFile vectors.txt file, word2vec text file (.w2v), or word2vec binary file (.bin).
+     * @return The store.
+     * @throws IOException If the vector file cannot be read or the store file cannot be written.
+     */
+    public static VectorStore open(File vectorFile) throws IOException {
+        if (!vectorFile.isFile()) {
+            throw new IOException("The vector file does not exist: " + vectorFile.getAbsolutePath());
+        }
+        File storeFile = new File(vectorFile.getPath() + STORE_FILE_SUFFIX);
+        if (!storeFile.exists() || storeFile.lastModified() < vectorFile.lastModified()) {
+            LOGGER.info("Writing vector store " + storeFile.getName() + "...");
+            writeStoreFile(vectorFile, storeFile);
+            LOGGER.info("Vector store written.");
+        }
+        return openStoreFile(storeFile);
+    }
+
+    /**
+     * Check whether the given file can be read by {@link #open(File)} (by its name). Gensim models and .kv files are
+     * not supported.
+     *
+     * @param filePath The path to the file.
+     * @return True if the file is a vector file.
+     */
+    public static boolean isVectorFile(String filePath) {
+        return filePath != null && (filePath.endsWith(".txt") || filePath.endsWith(".w2v")
+                || filePath.endsWith(".bin"));
+    }
+
+    /**
+     * Memory-map an existing store file.
+     *
+     * @param file The store file.
+     * @return The store.
+     * @throws IOException If the file cannot be read or is not a store file.
+     */
+    static VectorStore openStoreFile(File file) throws IOException {
+        int rows;
+        int dimension;
+        String[] concepts;
+        try (FileInputStream in = new FileInputStream(file)) {
+            DataInputStream header = new DataInputStream(in);
+            if (file.length() < HEADER_BYTES || header.readInt() != MAGIC) {
+                throw new IOException("The file '" + file.getName() + "' is not a vector store file.");
+            }
+            int version = header.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version of vector store file '" + file.getName() + "': "
+                        + version);
+            }
+            rows = header.readInt();
+            dimension = header.readInt();
+            in.getChannel().position(HEADER_BYTES + (long) rows * dimension * Float.BYTES);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+            concepts = new String[rows];
+            for (int row = 0; row < rows; row++) {
+                concepts[row] = reader.readLine();
+                if (concepts[row] == null) {
+                    throw new EOFException("The vocabulary of vector store file '" + file.getName()
+                            + "' is incomplete.");
+                }
+            }
+        }
+        try (RandomAccessFile storeFile = new RandomAccessFile(file, "r")) {
+            // the mapping remains valid after the file is closed
+            return new VectorStore(concepts, dimension, storeFile.getChannel());
+        }
+    }
+
+    /**
+     * Convert the vector file into a store file. Layout: header ({@link #MAGIC}, {@link #VERSION}, number of rows,
+     * dimension), the matrix (row-major, big-endian float32), and the vocabulary (UTF-8, one concept per line).
+     *
+     * @param vectorFile The vector file.
+     * @param storeFile  The store file to be written.
+     * @throws IOException If the vector file cannot be read or the store file cannot be written.
+     */
+    static void writeStoreFile(File vectorFile, File storeFile) throws IOException {
+        File temporaryFile = new File(storeFile.getPath() + ".tmp");
+        List<String> concepts = new ArrayList<>();
+        int dimension;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temporaryFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(0);
+            out.writeInt(0);
+            if (isBinaryWord2VecFile(vectorFile)) {
+                dimension = readBinaryWord2Vec(vectorFile, concepts, out);
+            } else {
+                dimension = readTextVectors(vectorFile, concepts, out);
+            }
+            for (String concept : concepts) {
+                out.write(concept.getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+            }
+        }
+        if (concepts.isEmpty()) {
+            Files.deleteIfExists(temporaryFile.toPath());
+            throw new IOException("The vector file does not contain vectors: " + vectorFile.getAbsolutePath());
+        }
+        try (RandomAccessFile file = new RandomAccessFile(temporaryFile, "rw")) {
+            file.seek(8);
+            file.writeInt(concepts.size());
+            file.writeInt(dimension);
+        }
+        Files.move(temporaryFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Read a vectors.txt file (concept followed by the space-separated vector) or a word2vec text file (the same with
+     * a header line "number_of_vectors dimension").
+     *
+     * @return The dimension.
+     */
+    private static int readTextVectors(File vectorFile, List<String> concepts, DataOutputStream out)
+            throws IOException {
+        int dimension = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(vectorFile),
+                StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            boolean isFirstLine = true;
+            while ((line = reader.readLine()) != null) {
+                String[] tokens = line.trim().split(" ");
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    if (isHeader(tokens)) continue;
+                }
+                if (tokens.length < 2) {
+                    LOGGER.warn("Problem while reading the following line: " + line);
+                    continue;
+                }
+                if (dimension == -1) {
+                    dimension = tokens.length - 1;
+                } else if (tokens.length - 1 != dimension) {
+                    LOGGER.warn("Inconsistent dimension (the vector is skipped): " + tokens[0]);
+                    continue;
+                }
+                float[] vector = new float[dimension];
+                try {
+                    for (int i = 0; i < dimension; i++) {
+                        vector[i] = Float.parseFloat(tokens[i + 1]);
+                    }
+                } catch (NumberFormatException nfe) {
+                    LOGGER.warn("Number format exception (the vector is skipped): " + tokens[0]);
+                    continue;
+                }
+                for (float value : vector) {
+                    out.writeFloat(value);
+                }
+                concepts.add(tokens[0]);
+            }
+        }
+        return dimension;
+    }
+
+    /**
+     * Read a word2vec binary file: a header line "number_of_vectors dimension", then every concept followed by a
+     * space and the vector as little-endian float32.
+     *
+     * @return The dimension.
+     */
+    private static int readBinaryWord2Vec(File vectorFile, List<String> concepts, DataOutputStream out)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(vectorFile),
+                1 << 16))) {
+            String[] header = readToken(in, '\n').trim().split(" ");
+            if (!isHeader(header)) {
+                throw new IOException("Missing header in word2vec binary file: " + vectorFile.getAbsolutePath());
+            }
+            int rows = Integer.parseInt(header[0]);
+            int dimension = Integer.parseInt(header[1]);
+            byte[] bytes = new byte[dimension * Float.BYTES];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            for (int row = 0; row < rows; row++) {
+                String concept = readToken(in, ' ');
+                in.readFully(bytes);
+                buffer.clear();
+                for (int i = 0; i < dimension; i++) {
+                    out.writeFloat(buffer.getFloat());
+                }
+                concepts.add(concept);
+            }
+            return dimension;
+        }
+    }
+
+    /**
+     * Read UTF-8 bytes up to the delimiter; leading line breaks are skipped.
+     */
+    private static String readToken(InputStream in, char delimiter) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == delimiter) break;
+            if (b == '\n' && bytes.size() == 0) continue;
+            bytes.write(b);
+        }
+        if (b == -1 && bytes.size() == 0) {
+            throw new EOFException("Unexpected end of word2vec binary file.");
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static boolean isHeader(String[] tokens) {
+        if (tokens.length != 2) return false;
+        try {
+            Integer.parseInt(tokens[0]);
+            Integer.parseInt(tokens[1]);
+            return true;
+        } catch (NumberFormatException nfe) {
+            return false;
+        }
+    }
+
+    /**
+     * A word2vec binary file has a header line and the remainder of the first record cannot be parsed as
+     * "dimension" numbers in text form.
+     */
+    static boolean isBinaryWord2VecFile(File vectorFile) throws IOException {
+        if (vectorFile.getName().endsWith(".bin")) return true;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(vectorFile))) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1 && b != '\n' && bytes.size() < 64) {
+                bytes.write(b);
+            }
+            String[] header = new String(bytes.toByteArray(), StandardCharsets.US_ASCII).trim().split(" ");
+            if (!isHeader(header)) return false;
+            int dimension = Integer.parseInt(header[1]);
+            while ((b = in.read()) != -1 && b != ' ') {
+                // skip the first concept
+            }
+            bytes.reset();
+            while ((b = in.read()) != -1 && b != '\n' && bytes.size() <= dimension * 32) {
+                bytes.write(b);
+            }
+            String[] tokens = new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1).trim().split(" ");
+            if (tokens.length != dimension) return true;
+            try {
+                for (String token : tokens) {
+                    Float.parseFloat(token);
+                }
+                return false;
+            } catch (NumberFormatException nfe) {
+                return true;
+            }
+        }
+    }
+
+    private static int hash(String concept) {
+        int h = concept.hashCode();
+        h ^= (h >>> 16);
+        return h * 0x9E3779B9;
+    }
+
+    /**
+     * Obtain the row of the given concept.
+     *
+     * @param concept The concept.
+     * @return The row or -1 if the concept is not in the vocabulary.
+     */
+    public int getRow(String concept) {
+        if (concept == null) return -1;
+        int hash = hash(concept);
+        int slot = hash & mask;
+        int row;
+        while ((row = slots[slot]) >= 0) {
+            if (conceptHashes[row] == hash && concepts[row].equals(concept)) return row;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @param concept The concept.
+     * @return True if the concept is in the vocabulary.
+     */
+    public boolean isInVocabulary(String concept) {
+        return getRow(concept) >= 0;
+    }
+
+    /**
+     * @param concept The concept.
+     * @return The vector or null if the concept is not in the vocabulary.
+     */
+    public float[] getVector(String concept) {
+        int row = getRow(concept);
+        if (row < 0) return null;
+        float[] result = new float[dimension];
+        getVector(row, result);
+        return result;
+    }
+
+    /**
+     * Copy the vector of the given row into the array.
+     *
+     * @param row    The row (see {@link #getRow(String)}).
+     * @param target Array of length {@link #getDimension()}.
+     */
+    public void getVector(int row, float[] target) {
+        FloatBuffer segment = segments[row / rowsPerSegment];
+        int offset = (row % rowsPerSegment) * dimension;
+        for (int i = 0; i < dimension; i++) {
+            target[i] = segment.get(offset + i);
+        }
+    }
+
+    /**
+     * Batch version of {@link #getVector(String)}.
+     *
+     * @param concepts The concepts.
+     * @return The vectors in the order of the concepts; null for concepts which are not in the vocabulary.
+     */
+    public float[][] getVectors(Collection<String> concepts) {
+        float[][] result = new float[concepts.size()][];
+        int i = 0;
+        for (String concept : concepts) {
+            result[i++] = getVector(concept);
+        }
+        return result;
+    }
+
+    /**
+     * Cosine similarity of two concepts.
+     *
+     * @param concept1 First concept.
+     * @param concept2 Second concept.
+     * @return Cosine similarity; {@link Double#NaN} if a concept is not in the vocabulary.
+     */
+    public double getSimilarity(String concept1, String concept2) {
+        int row1 = getRow(concept1);
+        int row2 = getRow(concept2);
+        if (row1 < 0 || row2 < 0) return Double.NaN;
+        return getSimilarity(row1, row2);
+    }
+
+    /**
+     * Cosine similarity of two rows (see {@link #getRow(String)}).
+     *
+     * @param row1 First row.
+     * @param row2 Second row.
+     * @return Cosine similarity.
+     */
+    public double getSimilarity(int row1, int row2) {
+        FloatBuffer segment1 = segments[row1 / rowsPerSegment];
+        int offset1 = (row1 % rowsPerSegment) * dimension;
+        FloatBuffer segment2 = segments[row2 / rowsPerSegment];
+        int offset2 = (row2 % rowsPerSegment) * dimension;
+        double dotProduct = 0.0;
+        for (int i = 0; i < dimension; i++) {
+            dotProduct += segment1.get(offset1 + i) * segment2.get(offset2 + i);
+        }
+        return dotProduct / ((double) getNorm(row1) * getNorm(row2));
+    }
+
+    /**
+     * Cosine similarities of one concept to many concepts.
+     *
+     * @param concept  The concept.
+     * @param concepts The concepts to compare with.
+     * @return Similarities in the order of the concepts; {@link Double#NaN} if a concept is not in the vocabulary.
+     */
+    public double[] getSimilarities(String concept, Collection<String> concepts) {
+        double[] result = new double[concepts.size()];
+        int row = getRow(concept);
+        int i = 0;
+        for (String other : concepts) {
+            int otherRow = getRow(other);
+            result[i++] = (row < 0 || otherRow < 0) ? Double.NaN : getSimilarity(row, otherRow);
+        }
+        return result;
+    }
+
+    /**
+     * Dot product of a row and the given vector.
+     *
+     * @param row    The row (see {@link #getRow(String)}).
+     * @param vector Array of length {@link #getDimension()}.
+     * @return Dot product.
+     */
+    public double dot(int row, float[] vector) {
+        FloatBuffer segment = segments[row / rowsPerSegment];
+        int offset = (row % rowsPerSegment) * dimension;
+        double result = 0.0;
+        for (int i = 0; i < dimension; i++) {
+            result += segment.get(offset + i) * vector[i];
+        }
+        return result;
+    }
+
+    /**
+     * @param row The row.
+     * @return The L2 norm of the vector of the row.
+     */
+    public float getNorm(int row) {
+        float norm = norms[row];
+        if (norm < 0) {
+            FloatBuffer segment = segments[row / rowsPerSegment];
+            int offset = (row % rowsPerSegment) * dimension;
+            double sum = 0.0;
+            for (int i = 0; i < dimension; i++) {
+                float value = segment.get(offset + i);
+                sum += value * value;
+            }
+            norm = (float) Math.sqrt(sum);
+            // benign race: all threads compute the same value
+            norms[row] = norm;
+        }
+        return norm;
+    }
+
+    /**
+     * @return All concepts of the vocabulary.
+     */
+    public Set<String> getVocabularyTerms() {
+        return new HashSet<>(Arrays.asList(concepts));
+    }
+
+    /**
+     * @param row The row.
+     * @return The concept of the row.
+     */
+    public String getConcept(int row) {
+        return concepts[row];
+    }
+
+    public int getVocabularySize() {
+        return vocabularySize;
+    }
+
+    /**
+     * @return The number of rows (equal to the vocabulary size unless the vector file contains duplicates).
+     */
+    public int getNumberOfRows() {
+        return concepts.length;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+}
@@ -342,6 +342,25 @@ public class Util {
         return isDatFileAvailable;
     }
 
+    /**
+     * Checks whether the specified directory is a TDB2 directory (TDB2 keeps the data in generation subdirectories
+     * such as {@code Data-0001}).
+     *
+     * @param directoryToCheck The directory that shall be checked.
+     * @return True if TDB2 directory, else false.
+     */
+    public static boolean isTdb2Directory(File directoryToCheck) {
+        if (directoryToCheck == null || !directoryToCheck.exists() || !directoryToCheck.isDirectory()) {
+            return false;
+        }
+        for (File file : directoryToCheck.listFiles()) {
+            if (file.isDirectory() && file.getName().startsWith("Data-") && isTdbDirectory(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Given a list of walks where a walk is represented as a List of strings, this method will convert that
      * into a list of strings where a walk is one string (and the elements are separated by spaces).
@@ -444,7 +463,19 @@ public class Util {
      * @return Drawn value of type T.
      */
     public static <T> T randomDrawFromSet(Set<T> setToDrawFrom) {
-        int randomNumber = ThreadLocalRandom.current().nextInt(setToDrawFrom.size());
+        return randomDrawFromSet(setToDrawFrom, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draw a random value from a HashSet.
+     *
+     * @param setToDrawFrom The set from which shall be drawn.
+     * @param random        The random number generator to be used.
+     * @param <T>           Type
+     * @return Drawn value of type T.
+     */
+    public static <T> T randomDrawFromSet(Set<T> setToDrawFrom, Random random) {
+        int randomNumber = random.nextInt(setToDrawFrom.size());
         Iterator<T> iterator = setToDrawFrom.iterator();
         for (int i = 0; i < randomNumber; i++) {
             iterator.next();
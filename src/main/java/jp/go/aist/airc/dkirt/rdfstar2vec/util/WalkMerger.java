@@ -1,5 +1,7 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.util;
 
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenWalkReader;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,7 +12,8 @@ import java.util.zip.GZIPInputStream;
 /**
  * Walk merger: By default, walks are written to various gzipped files.
  * For some applications, a raw (potentially huge) text file is required.
- * This class offers the functionality to generate such a file from walks.
+ * This class offers the functionality to generate such a file from walks. Binary token walk files
+ * ({@link TokenWalkReader}) are merged as text, too.
  */
 public class WalkMerger {
 
@@ -33,6 +36,20 @@ public class WalkMerger {
                 StandardCharsets.UTF_8))
         ) {
             for (File file : files) {
+                if (TokenWalkReader.isTokenWalkFile(file)) {
+                    try {
+                        TokenWalkReader.forEachTextWalk(file, line -> {
+                            try {
+                                writer.write(line + "\n");
+                            } catch (IOException ioe) {
+                                throw new UncheckedIOException(ioe);
+                            }
+                        });
+                    } catch (IOException | UncheckedIOException e) {
+                        LOGGER.error("Failed to read file '" + file.getName() + "'. Program will continue.");
+                    }
+                    continue;
+                }
                 if (!file.getAbsolutePath().endsWith(".gz")) {
                     LOGGER.info("Skipping file '" + file.getName() + "'");
                     continue;
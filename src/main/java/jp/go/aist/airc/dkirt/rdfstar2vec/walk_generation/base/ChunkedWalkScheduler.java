@@ -0,0 +1,200 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Bounded scheduler for the walk generation.
+ * <p>
+ * The entities are pulled from an iterator in chunks of {@link ChunkedWalkScheduler#getChunkSize()} entities. At most
+ * {@link ChunkedWalkScheduler#getMaxChunksInFlight()} chunks are queued or in progress at the same time; the
+ * iterator is not advanced further until a chunk is completed (backpressure), hence the memory needed for the
+ * scheduling does not depend on the number of entities. The chunks are processed by a work-stealing
+ * {@link ForkJoinPool}. Before every entity, a worker hands out the second half of the rest of its chunk if other
+ * workers are idle (lazy binary splitting); a hub entity thus never holds back the entities that follow it in the
+ * same chunk.
+ */
+public class ChunkedWalkScheduler {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedWalkScheduler.class);
+
+    /**
+     * Default number of entities per chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+
+    /**
+     * Default number of chunks per thread that may be in flight at the same time.
+     */
+    public static final int DEFAULT_CHUNKS_IN_FLIGHT_PER_THREAD = 4;
+
+    private final int numberOfThreads;
+
+    private final int chunkSize;
+
+    private final int maxChunksInFlight;
+
+    /**
+     * Constructor
+     *
+     * @param numberOfThreads The number of worker threads.
+     */
+    public ChunkedWalkScheduler(int numberOfThreads) {
+        this(numberOfThreads, DEFAULT_CHUNK_SIZE, numberOfThreads * DEFAULT_CHUNKS_IN_FLIGHT_PER_THREAD);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param numberOfThreads   The number of worker threads.
+     * @param chunkSize         The number of entities per chunk.
+     * @param maxChunksInFlight The number of chunks that may be queued or in progress at the same time.
+     */
+    public ChunkedWalkScheduler(int numberOfThreads, int chunkSize, int maxChunksInFlight) {
+        if (numberOfThreads < 1) {
+            LOGGER.warn("The number of threads must be at least 1. Using 1 thread.");
+            numberOfThreads = 1;
+        }
+        if (chunkSize < 1) {
+            LOGGER.warn("The chunk size must be at least 1. Using the default (" + DEFAULT_CHUNK_SIZE + ").");
+            chunkSize = DEFAULT_CHUNK_SIZE;
+        }
+        this.numberOfThreads = numberOfThreads;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = Math.max(1, maxChunksInFlight);
+    }
+
+    /**
+     * Process all entities of the given iterator. The method returns once all entities have been processed (or the
+     * timeout has elapsed).
+     *
+     * @param entities The entities to be processed.
+     * @param walker   The action to be performed for every entity (called concurrently).
+     * @param timeout  The maximal time to wait for the last chunks once all entities have been scheduled.
+     * @param unit     The unit of the timeout.
+     * @return The number of entities that have been scheduled.
+     */
+    public long run(Iterator<String> entities, Consumer<String> walker, long timeout, TimeUnit unit) {
+        ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+        Semaphore permits = new Semaphore(maxChunksInFlight);
+        long numberOfEntities = 0;
+        try {
+            while (entities.hasNext()) {
+                String[] chunk = new String[chunkSize];
+                int size = 0;
+                while (size < chunkSize && entities.hasNext()) {
+                    chunk[size++] = entities.next();
+                }
+                permits.acquire();
+                pool.execute(new ChunkTask(null, chunk, 0, size, walker, permits));
+                numberOfEntities += size;
+            }
+            if (!permits.tryAcquire(maxChunksInFlight, timeout, unit)) {
+                LOGGER.error("Timeout: Not all entities have been processed.");
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while scheduling the walk generation.", e);
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+        }
+        return numberOfEntities;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getMaxChunksInFlight() {
+        return maxChunksInFlight;
+    }
+
+    /**
+     * A range of a chunk. The root task of a chunk holds the permit which is released once the whole chunk
+     * (including all ranges split off) is completed.
+     */
+    private static class ChunkTask extends CountedCompleter<Void> {
+
+
+        private final String[] chunk;
+        private final int from;
+        private final int to;
+        private final Consumer<String> walker;
+
+        /**
+         * Null for split-off ranges.
+         */
+        private final Semaphore permits;
+
+        /**
+         * Guards the permit: ranges that are still running complete the root once more after a failure.
+         */
+        private final AtomicBoolean isReleased = new AtomicBoolean(false);
+
+        ChunkTask(ChunkTask parent, String[] chunk, int from, int to, Consumer<String> walker, Semaphore permits) {
+            super(parent);
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+            this.walker = walker;
+            this.permits = permits;
+        }
+
+        @Override
+        public void compute() {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                if (high - low > 1 && getSurplusQueuedTaskCount() <= 0) {
+                    // other workers would be idle: hand out the second half
+                    int middle = (low + high) >>> 1;
+                    addToPendingCount(1);
+                    new ChunkTask(this, chunk, middle, high, walker, null).fork();
+                    high = middle;
+                    continue;
+                }
+                String entity = chunk[low];
+                chunk[low++] = null;
+                try {
+                    walker.accept(entity);
+                } catch (RuntimeException e) {
+                    LOGGER.error("A problem occurred while generating the walks for entity " + entity + ".", e);
+                }
+            }
+            tryComplete();
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> caller) {
+            release();
+        }
+
+        @Override
+        public boolean onExceptionalCompletion(Throwable ex, CountedCompleter<?> caller) {
+            if (permits != null) {
+                LOGGER.error("A chunk could not be completed.", ex);
+                release();
+            }
+            return true;
+        }
+
+        private void release() {
+            if (permits != null && isReleased.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
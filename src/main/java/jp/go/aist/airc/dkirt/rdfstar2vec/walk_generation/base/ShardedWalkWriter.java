@@ -0,0 +1,317 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Walk writer without a global lock.
+ * <p>
+ * Every worker thread appends its walks to a buffer of its own. Full buffers are handed to a pool of compressor
+ * threads; each compressor owns a shard file {@code walk_file_<N>.txt.gz} and deflates independently of the others.
+ * A shard is rotated (closed and replaced by a file with the next free number) once it holds
+ * {@link ShardedWalkWriter#getLinesPerFile()} walks. The order of the walks within and across the files is not
+ * defined.
+ */
+public class ShardedWalkWriter {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardedWalkWriter.class);
+
+    /**
+     * The number of walks after which a walk file is rotated.
+     */
+    public static final int DEFAULT_LINES_PER_FILE = 3000000;
+
+    /**
+     * The number of characters after which a worker buffer is handed to the compressors.
+     */
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The number of full buffers per compressor that may wait for compression.
+     */
+    private static final int BUFFERS_PER_COMPRESSOR = 4;
+
+    /**
+     * Tells a compressor to close its shard and to stop.
+     */
+    private static final Batch END = new Batch(new StringBuilder(0), 0);
+
+    private final File walkDirectory;
+
+    private final int linesPerFile;
+
+    /**
+     * The number of the next shard file.
+     */
+    private final AtomicInteger nextFileNumber = new AtomicInteger(0);
+
+    private final AtomicLong processedEntities = new AtomicLong(0);
+
+    private final LongAdder processedWalks = new LongAdder();
+
+    /**
+     * Buffer of the calling worker thread.
+     */
+    private final ThreadLocal<Buffer> buffer;
+
+    /**
+     * All buffers that have been handed out (they are drained by {@link ShardedWalkWriter#flush()}).
+     */
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Full buffers waiting for compression.
+     */
+    private final BlockingQueue<Batch> batches;
+
+    private final Thread[] compressors;
+
+    private volatile boolean isClosed = false;
+
+    /**
+     * Constructor
+     *
+     * @param walkDirectory       The directory in which the walk files are written.
+     * @param numberOfCompressors The number of compressor threads (and of walk files written at the same time).
+     */
+    public ShardedWalkWriter(File walkDirectory, int numberOfCompressors) {
+        this(walkDirectory, numberOfCompressors, DEFAULT_LINES_PER_FILE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param walkDirectory       The directory in which the walk files are written.
+     * @param numberOfCompressors The number of compressor threads (and of walk files written at the same time).
+     * @param linesPerFile        The number of walks after which a walk file is rotated.
+     */
+    public ShardedWalkWriter(File walkDirectory, int numberOfCompressors, int linesPerFile) {
+        if (walkDirectory.mkdirs()) {
+            LOGGER.info("Directory created.");
+        }
+        numberOfCompressors = Math.max(1, numberOfCompressors);
+        this.walkDirectory = walkDirectory;
+        this.linesPerFile = Math.max(1, linesPerFile);
+        this.batches = new ArrayBlockingQueue<>(numberOfCompressors * BUFFERS_PER_COMPRESSOR);
+        this.buffer = ThreadLocal.withInitial(() -> {
+            Buffer newBuffer = new Buffer(Thread.currentThread());
+            buffers.add(newBuffer);
+            return newBuffer;
+        });
+        this.compressors = new Thread[numberOfCompressors];
+        for (int i = 0; i < numberOfCompressors; i++) {
+            compressors[i] = new Thread(new Compressor(), "walk-compressor-" + i);
+            compressors[i].setDaemon(true);
+            compressors[i].start();
+        }
+    }
+
+    /**
+     * Write the walks of one entity (thread-safe; only the buffer of the calling thread is locked).
+     *
+     * @param walksToWrite The walks to be written.
+     */
+    public void write(List<String> walksToWrite) {
+        if (isClosed) {
+            LOGGER.error("The writer is already closed. No walk will be written.");
+            return;
+        }
+        long entities = processedEntities.incrementAndGet();
+        processedWalks.add(walksToWrite.size());
+        Buffer threadBuffer = buffer.get();
+        Batch full = null;
+        synchronized (threadBuffer) {
+            for (String walk : walksToWrite) {
+                threadBuffer.text.append(walk).append('\n');
+            }
+            threadBuffer.lines += walksToWrite.size();
+            if (threadBuffer.text.length() >= BUFFER_SIZE) {
+                full = threadBuffer.takeBatch();
+            }
+        }
+        if (full != null) {
+            enqueue(full);
+        }
+        if (entities % 1000 == 0) {
+            LOGGER.info("TOTAL PROCESSED ENTITIES: " + entities);
+            LOGGER.info("TOTAL NUMBER OF PATHS : " + processedWalks.sum());
+        }
+    }
+
+    /**
+     * Hand the content of all worker buffers to the compressors. Buffers of terminated threads are dropped.
+     */
+    public void flush() {
+        for (Buffer threadBuffer : buffers) {
+            Batch batch;
+            synchronized (threadBuffer) {
+                batch = threadBuffer.lines == 0 ? null : threadBuffer.takeBatch();
+            }
+            if (batch != null) {
+                enqueue(batch);
+            }
+            if (!threadBuffer.owner.isAlive()) {
+                buffers.remove(threadBuffer);
+            }
+        }
+    }
+
+    /**
+     * Flush all buffers, wait for the compressors and close all walk files.
+     */
+    public void close() {
+        if (isClosed) return;
+        flush();
+        isClosed = true;
+        try {
+            for (int i = 0; i < compressors.length; i++) {
+                batches.put(END);
+            }
+            for (Thread compressor : compressors) {
+                compressor.join();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while closing the walk files.", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Batch batch) {
+        try {
+            batches.put(batch);
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted Exception. " + batch.lines + " walks are not written.");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private OutputStream openShard() throws IOException {
+        File file = new File(walkDirectory, "walk_file_" + nextFileNumber.getAndIncrement() + ".txt.gz");
+        return new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file, false), 1 << 16), 1 << 16);
+    }
+
+    public long getProcessedEntities() {
+        return processedEntities.get();
+    }
+
+    public long getProcessedWalks() {
+        return processedWalks.sum();
+    }
+
+    /**
+     * @return The number of walk files that have been opened so far.
+     */
+    public int getNumberOfFiles() {
+        return nextFileNumber.get();
+    }
+
+    public int getLinesPerFile() {
+        return linesPerFile;
+    }
+
+    /**
+     * Takes full buffers and writes them into its own shard.
+     */
+    private class Compressor implements Runnable {
+
+
+        @Override
+        public void run() {
+            OutputStream out = null;
+            long linesInFile = 0;
+            try {
+                Batch batch;
+                while ((batch = batches.take()) != END) {
+                    try {
+                        if (out == null) {
+                            out = openShard();
+                        }
+                        out.write(batch.text.toString().getBytes(StandardCharsets.UTF_8));
+                        linesInFile += batch.lines;
+                        if (linesInFile >= linesPerFile) {
+                            out.close();
+                            out = null;
+                            linesInFile = 0;
+                        }
+                    } catch (IOException e) {
+                        // keep on taking batches, the workers would block otherwise
+                        LOGGER.error("Could not write walk file. " + batch.lines + " walks are lost.", e);
+                        closeQuietly(out);
+                        out = null;
+                        linesInFile = 0;
+                    }
+                }
+            } catch (InterruptedException e) {
+                LOGGER.error("Interrupted Exception");
+                Thread.currentThread().interrupt();
+            } finally {
+                closeQuietly(out);
+            }
+        }
+
+        private void closeQuietly(OutputStream out) {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException e) {
+                LOGGER.error("Could not close walk file.", e);
+            }
+        }
+    }
+
+    /**
+     * The buffer of one worker thread.
+     */
+    private static class Buffer {
+
+
+        final Thread owner;
+        StringBuilder text = new StringBuilder(INITIAL_BUFFER_SIZE);
+        int lines = 0;
+
+        Buffer(Thread owner) {
+            this.owner = owner;
+        }
+
+        Batch takeBatch() {
+            Batch batch = new Batch(text, lines);
+            text = new StringBuilder(INITIAL_BUFFER_SIZE);
+            lines = 0;
+            return batch;
+        }
+    }
+
+    /**
+     * Walks handed to the compressors.
+     */
+    private static class Batch {
+
+
+        final StringBuilder text;
+        final int lines;
+
+        Batch(StringBuilder text, int lines) {
+            this.text = text;
+            this.lines = lines;
+        }
+    }
+}
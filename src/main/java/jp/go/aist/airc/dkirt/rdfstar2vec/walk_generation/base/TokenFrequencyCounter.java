@@ -0,0 +1,212 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the frequencies of the tokens while the walks are generated, so that the trainers do not need a separate
+ * pass over the walks to build their vocabulary.
+ * <p>
+ * The walk generation threads first count the walks of an entity in a thread-local map (the entity and the frequent
+ * predicates appear in most of its walks) and then add the counts to striped counters ({@link LongAdder}) which are
+ * shared by all threads.
+ * <p>
+ * Format of the counts file ({@link #COUNTS_FILE_NAME}): UTF-8, one token per line followed by a space and its
+ * frequency, ordered by descending frequency (like the vocabulary files of the original word2vec implementation).
+ */
+public class TokenFrequencyCounter {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenFrequencyCounter.class);
+
+    /**
+     * The name of the counts file in the walk directory. The file ending is the one of the vocabulary files of the
+     * binary token corpus so that it is not read as walk file.
+     */
+    public static final String COUNTS_FILE_NAME = "token_counts" + TokenWalkReader.VOCABULARY_FILE_SUFFIX;
+
+    private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    private final LongAdder numberOfTokens = new LongAdder();
+
+    private final LongAdder numberOfWalks = new LongAdder();
+
+    /**
+     * Counts of the walks currently added by a thread.
+     */
+    private final ThreadLocal<HashMap<String, long[]>> localCounts = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Obtain the counts file of the given walk directory.
+     *
+     * @param walkDirectory The walk directory.
+     * @return Counts file (it may not exist).
+     */
+    public static File getCountsFile(File walkDirectory) {
+        return new File(walkDirectory, COUNTS_FILE_NAME);
+    }
+
+    /**
+     * Count the tokens of the given walks. Thread-safe.
+     *
+     * @param walks The walks; the tokens of a walk are separated by spaces.
+     */
+    public void add(List<String> walks) {
+        HashMap<String, long[]> local = localCounts.get();
+        long tokens = 0;
+        for (String walk : walks) {
+            int start = 0;
+            int length = walk.length();
+            while (start < length) {
+                int end = walk.indexOf(' ', start);
+                if (end < 0) end = length;
+                if (end > start) {
+                    local.computeIfAbsent(walk.substring(start, end), token -> new long[1])[0]++;
+                    tokens++;
+                }
+                start = end + 1;
+            }
+        }
+        for (Map.Entry<String, long[]> entry : local.entrySet()) {
+            add(entry.getKey(), entry.getValue()[0]);
+        }
+        local.clear();
+        numberOfTokens.add(tokens);
+        numberOfWalks.add(walks.size());
+    }
+
+    private void add(String token, long count) {
+        LongAdder counter = counts.get(token);
+        if (counter == null) {
+            counter = counts.computeIfAbsent(token, t -> new LongAdder());
+        }
+        counter.add(count);
+    }
+
+    /**
+     * Add the counts of an existing counts file (e.g. of the walks of a previous run which are continued).
+     *
+     * @param countsFile The counts file.
+     * @throws IOException If the file cannot be read.
+     */
+    public void addAll(File countsFile) throws IOException {
+        for (Map.Entry<String, Long> entry : read(countsFile).entrySet()) {
+            add(entry.getKey(), entry.getValue());
+            numberOfTokens.add(entry.getValue());
+        }
+    }
+
+    /**
+     * @param token The token.
+     * @return The frequency of the token (0 if it did not appear).
+     */
+    public long getCount(String token) {
+        LongAdder counter = counts.get(token);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @return The number of distinct tokens.
+     */
+    public int getVocabularySize() {
+        return counts.size();
+    }
+
+    /**
+     * @return The total number of tokens.
+     */
+    public long getNumberOfTokens() {
+        return numberOfTokens.sum();
+    }
+
+    /**
+     * @return The number of walks counted (walks of an added counts file are not included).
+     */
+    public long getNumberOfWalks() {
+        return numberOfWalks.sum();
+    }
+
+    /**
+     * Write the counts. Must not be called while walks are added.
+     *
+     * @param countsFile The file to be written.
+     * @return True if the file was written.
+     */
+    public boolean write(File countsFile) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.size());
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().sum()));
+        }
+        // descending frequency; equal frequencies in lexicographical order so that the file is deterministic
+        entries.sort((e1, e2) -> {
+            int result = Long.compare(e2.getValue(), e1.getValue());
+            return result != 0 ? result : e1.getKey().compareTo(e2.getKey());
+        });
+        File directory = countsFile.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            LOGGER.error("Could not create directory " + directory.getAbsolutePath());
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(countsFile),
+                StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Long> entry : entries) {
+                writer.write(entry.getKey());
+                writer.write(' ');
+                writer.write(Long.toString(entry.getValue()));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not write the token counts to " + countsFile.getAbsolutePath(), e);
+            return false;
+        }
+        LOGGER.info("Token counts written (" + entries.size() + " tokens, " + getNumberOfTokens()
+                + " tokens in the walks).");
+        return true;
+    }
+
+    /**
+     * Read a counts file.
+     *
+     * @param countsFile The counts file.
+     * @return Frequency by token in the order of the file (descending frequency).
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    public static LinkedHashMap<String, Long> read(File countsFile) throws IOException {
+        LinkedHashMap<String, Long> result = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(countsFile),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                int separator = line.lastIndexOf(' ');
+                if (separator <= 0) {
+                    throw new IOException("Malformed line in counts file '" + countsFile.getName() + "': " + line);
+                }
+                try {
+                    result.put(line.substring(0, separator), Long.parseLong(line.substring(separator + 1)));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed line in counts file '" + countsFile.getName() + "': " + line);
+                }
+            }
+        }
+        return result;
+    }
+}
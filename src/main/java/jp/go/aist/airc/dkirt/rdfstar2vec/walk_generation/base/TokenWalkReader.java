@@ -0,0 +1,199 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reader for the binary token corpus written by {@link TokenWalkWriter}.
+ * <p>
+ * Format: A walk file ({@code *.walks}) starts with the magic number {@link TokenWalkReader#MAGIC} and the format
+ * version (two big-endian int32). Then, every walk follows as the number of its tokens and the token IDs, all encoded
+ * as unsigned LEB128 varints. The vocabulary file next to it ({@code *.vocab}) is UTF-8 encoded and holds one token
+ * per line; the line number (starting at 0) is the ID of the token.
+ */
+public class TokenWalkReader {
+
+
+    public static final String WALK_FILE_SUFFIX = ".walks";
+
+    public static final String VOCABULARY_FILE_SUFFIX = ".vocab";
+
+    /**
+     * "R2VW"
+     */
+    public static final int MAGIC = 0x52325657;
+
+    public static final int VERSION = 1;
+
+    /**
+     * Check whether the given file is a token walk file (by its name).
+     *
+     * @param file The file to be checked.
+     * @return True if the file is a token walk file.
+     */
+    public static boolean isTokenWalkFile(File file) {
+        return file != null && file.getName().endsWith(WALK_FILE_SUFFIX);
+    }
+
+    /**
+     * Obtain the vocabulary file which belongs to the given walk file.
+     *
+     * @param walkFile The walk file.
+     * @return Vocabulary file (it may not exist).
+     */
+    public static File getVocabularyFile(File walkFile) {
+        String name = walkFile.getName();
+        if (name.endsWith(WALK_FILE_SUFFIX)) {
+            name = name.substring(0, name.length() - WALK_FILE_SUFFIX.length());
+        }
+        return new File(walkFile.getParentFile(), name + VOCABULARY_FILE_SUFFIX);
+    }
+
+    /**
+     * Obtain all token walk files of the given directory.
+     *
+     * @param walkDirectory The walk directory.
+     * @return List of walk files; empty if there are none.
+     */
+    public static List<File> getWalkFiles(File walkDirectory) {
+        List<File> result = new ArrayList<>();
+        File[] files = walkDirectory == null ? null : walkDirectory.listFiles();
+        if (files == null) return result;
+        Arrays.sort(files);
+        for (File file : files) {
+            if (isTokenWalkFile(file)) result.add(file);
+        }
+        return result;
+    }
+
+    /**
+     * Read the vocabulary of the given walk file.
+     *
+     * @param walkFile The walk file.
+     * @return Array where the index is the token ID.
+     * @throws IOException If the vocabulary file cannot be read.
+     */
+    public static String[] readVocabulary(File walkFile) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(getVocabularyFile(walkFile)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                tokens.add(line);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Hand every walk of the given file as array of token IDs to the consumer.
+     *
+     * @param walkFile The walk file.
+     * @param consumer Consumer of the walks.
+     * @return The number of walks read.
+     * @throws IOException If the file cannot be read or is not a token walk file.
+     */
+    public static long forEachWalk(File walkFile, Consumer<int[]> consumer) throws IOException {
+        long numberOfWalks = 0;
+        try (VarIntInput in = new VarIntInput(new FileInputStream(walkFile))) {
+            if (in.readInt32() != MAGIC) {
+                throw new IOException("The file '" + walkFile.getName() + "' is not a token walk file.");
+            }
+            int version = in.readInt32();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version of token walk file '" + walkFile.getName() + "': "
+                        + version);
+            }
+            while (in.hasMore()) {
+                int numberOfTokens = in.readVarInt();
+                int[] walk = new int[numberOfTokens];
+                for (int i = 0; i < numberOfTokens; i++) {
+                    walk[i] = in.readVarInt();
+                }
+                consumer.accept(walk);
+                numberOfWalks++;
+            }
+        }
+        return numberOfWalks;
+    }
+
+    /**
+     * Hand every walk of the given file as space-separated text (like in the text walk files) to the consumer.
+     *
+     * @param walkFile The walk file.
+     * @param consumer Consumer of the walks.
+     * @return The number of walks read.
+     * @throws IOException If the file or its vocabulary cannot be read.
+     */
+    public static long forEachTextWalk(File walkFile, Consumer<String> consumer) throws IOException {
+        String[] vocabulary = readVocabulary(walkFile);
+        StringBuilder sb = new StringBuilder();
+        return forEachWalk(walkFile, walk -> {
+            sb.setLength(0);
+            for (int i = 0; i < walk.length; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(vocabulary[walk[i]]);
+            }
+            consumer.accept(sb.toString());
+        });
+    }
+
+    /**
+     * Buffered reading of varints.
+     */
+    private static class VarIntInput implements AutoCloseable {
+
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position = 0;
+        private int limit = 0;
+
+        VarIntInput(InputStream in) {
+            this.in = in;
+        }
+
+        boolean hasMore() throws IOException {
+            if (position < limit) return true;
+            limit = in.read(buffer);
+            position = 0;
+            return limit > 0;
+        }
+
+        int readByte() throws IOException {
+            if (!hasMore()) {
+                throw new EOFException("Unexpected end of token walk file.");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        int readInt32() throws IOException {
+            return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        }
+
+        int readVarInt() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IOException("Malformed varint in token walk file.");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
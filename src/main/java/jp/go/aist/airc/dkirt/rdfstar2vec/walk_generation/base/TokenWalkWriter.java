@@ -0,0 +1,295 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Walk writer for the binary token corpus: rather than space-separated text, every walk is written as a sequence of
+ * token IDs, the tokens themselves are written once into a vocabulary file. See {@link TokenWalkReader} for the
+ * format.
+ * <p>
+ * The walks are encoded in a buffer of the calling thread; only full buffers are appended to the walk file under a
+ * lock. The vocabulary is shared by all threads.
+ */
+public class TokenWalkWriter {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenWalkWriter.class);
+
+    /**
+     * The number of bytes after which a worker buffer is appended to the walk file.
+     */
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private final File walkFile;
+
+    private final File vocabularyFile;
+
+    private final DataOutputStream out;
+
+    /**
+     * Token to ID.
+     */
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * ID to token (the position in the list is the ID).
+     */
+    private final List<String> tokens = new ArrayList<>();
+
+    private final AtomicLong processedEntities = new AtomicLong(0);
+
+    private final LongAdder processedWalks = new LongAdder();
+
+    private final ThreadLocal<Buffer> buffer;
+
+    /**
+     * All buffers that have been handed out (they are drained by {@link TokenWalkWriter#flush()}).
+     */
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean isClosed = false;
+
+    /**
+     * Constructor
+     *
+     * @param walkDirectory The directory in which the walk file and its vocabulary are written.
+     * @param fileName      The name of the walk file without suffix, e.g. {@code walk_file_0}.
+     * @throws IOException If the walk file cannot be created.
+     */
+    public TokenWalkWriter(File walkDirectory, String fileName) throws IOException {
+        if (walkDirectory.mkdirs()) {
+            LOGGER.info("Directory created.");
+        }
+        this.walkFile = new File(walkDirectory, fileName + TokenWalkReader.WALK_FILE_SUFFIX);
+        this.vocabularyFile = TokenWalkReader.getVocabularyFile(walkFile);
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(walkFile, false), 1 << 16));
+        this.out.writeInt(TokenWalkReader.MAGIC);
+        this.out.writeInt(TokenWalkReader.VERSION);
+        this.buffer = ThreadLocal.withInitial(() -> {
+            Buffer newBuffer = new Buffer(Thread.currentThread());
+            buffers.add(newBuffer);
+            return newBuffer;
+        });
+    }
+
+    /**
+     * Write the walks of one entity (thread-safe).
+     *
+     * @param walksToWrite The walks to be written; the tokens of a walk are separated by spaces.
+     */
+    public void write(List<String> walksToWrite) {
+        if (isClosed) {
+            LOGGER.error("The writer is already closed. No walk will be written.");
+            return;
+        }
+        long entities = processedEntities.incrementAndGet();
+        processedWalks.add(walksToWrite.size());
+        Buffer threadBuffer = buffer.get();
+        byte[] full = null;
+        int fullLength = 0;
+        synchronized (threadBuffer) {
+            for (String walk : walksToWrite) {
+                threadBuffer.encode(walk);
+            }
+            if (threadBuffer.length >= BUFFER_SIZE) {
+                full = threadBuffer.bytes;
+                fullLength = threadBuffer.length;
+                threadBuffer.reset();
+            }
+        }
+        if (full != null) {
+            append(full, fullLength);
+        }
+        if (entities % 1000 == 0) {
+            LOGGER.info("TOTAL PROCESSED ENTITIES: " + entities);
+            LOGGER.info("TOTAL NUMBER OF PATHS : " + processedWalks.sum());
+        }
+    }
+
+    /**
+     * Append the content of all worker buffers to the walk file. Buffers of terminated threads are dropped.
+     */
+    public void flush() {
+        for (Buffer threadBuffer : buffers) {
+            byte[] bytes = null;
+            int length = 0;
+            synchronized (threadBuffer) {
+                if (threadBuffer.length > 0) {
+                    bytes = threadBuffer.bytes;
+                    length = threadBuffer.length;
+                    threadBuffer.reset();
+                }
+            }
+            if (bytes != null) {
+                append(bytes, length);
+            }
+            if (!threadBuffer.owner.isAlive()) {
+                buffers.remove(threadBuffer);
+            }
+        }
+        synchronized (out) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                LOGGER.error("Could not flush the walk file.", e);
+            }
+        }
+    }
+
+    /**
+     * Flush all buffers, close the walk file and write the vocabulary file.
+     */
+    public void close() {
+        if (isClosed) return;
+        flush();
+        isClosed = true;
+        synchronized (out) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                LOGGER.error("Could not close the walk file.", e);
+            }
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(vocabularyFile, false),
+                StandardCharsets.UTF_8))) {
+            synchronized (tokens) {
+                for (String token : tokens) {
+                    writer.write(token);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not write the vocabulary file. The walk file cannot be read without it.", e);
+        }
+    }
+
+    private void append(byte[] bytes, int length) {
+        synchronized (out) {
+            try {
+                out.write(bytes, 0, length);
+            } catch (IOException e) {
+                LOGGER.error("Could not write the walk file. Walks are lost.", e);
+            }
+        }
+    }
+
+    /**
+     * Obtain the ID of the given token; unknown tokens are added to the vocabulary.
+     *
+     * @param token The token.
+     * @return ID of the token.
+     */
+    int getId(String token) {
+        Integer id = ids.get(token);
+        if (id != null) return id;
+        return ids.computeIfAbsent(token, key -> {
+            synchronized (tokens) {
+                tokens.add(key);
+                return tokens.size() - 1;
+            }
+        });
+    }
+
+    public long getProcessedEntities() {
+        return processedEntities.get();
+    }
+
+    public long getProcessedWalks() {
+        return processedWalks.sum();
+    }
+
+    /**
+     * @return The number of distinct tokens written so far.
+     */
+    public int getVocabularySize() {
+        return ids.size();
+    }
+
+    public File getWalkFile() {
+        return walkFile;
+    }
+
+    public File getVocabularyFile() {
+        return vocabularyFile;
+    }
+
+    /**
+     * The buffer of one worker thread.
+     */
+    private class Buffer {
+
+
+        final Thread owner;
+        byte[] bytes = new byte[1 << 16];
+        int length = 0;
+
+        /**
+         * IDs of the walk that is currently encoded.
+         */
+        int[] walk = new int[64];
+
+        Buffer(Thread owner) {
+            this.owner = owner;
+        }
+
+        void encode(String walkText) {
+            int numberOfTokens = 0;
+            int start = 0;
+            int textLength = walkText.length();
+            while (start <= textLength) {
+                int end = walkText.indexOf(' ', start);
+                if (end < 0) end = textLength;
+                if (end > start) {
+                    if (numberOfTokens == walk.length) {
+                        walk = Arrays.copyOf(walk, walk.length * 2);
+                    }
+                    walk[numberOfTokens++] = getId(walkText.substring(start, end));
+                }
+                start = end + 1;
+            }
+            ensureCapacity(5 * (numberOfTokens + 1));
+            writeVarInt(numberOfTokens);
+            for (int i = 0; i < numberOfTokens; i++) {
+                writeVarInt(walk[i]);
+            }
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void ensureCapacity(int additionalBytes) {
+            if (length + additionalBytes > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additionalBytes));
+            }
+        }
+
+        void reset() {
+            bytes = new byte[1 << 16];
+            length = 0;
+        }
+    }
+}
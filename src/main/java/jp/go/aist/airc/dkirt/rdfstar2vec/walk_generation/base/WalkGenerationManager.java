@@ -1,9 +1,11 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.EdgeWeighting;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.ContinuationEntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.EntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.MemoryEntitySelector;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.Tdb2StarEntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.TdbEntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.runnables.*;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators.*;
@@ -16,9 +18,11 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.TimeUnit;
 import java.util.function.UnaryOperator;
 import java.util.zip.GZIPOutputStream;
@@ -88,6 +92,53 @@ public class WalkGenerationManager {
      */
     public Writer writer;
 
+    /**
+     * Writer of the sharded output mode (null if a single writer is used).
+     */
+    private ShardedWalkWriter shardedWalkWriter;
+
+    /**
+     * The number of compressor threads of the sharded output mode; 0 if all walks are written through
+     * {@link WalkGenerationManager#writer}.
+     */
+    private int numberOfWriterThreads = 0;
+
+    /**
+     * Writer of the binary token corpus (null if the walks are written as text).
+     */
+    private TokenWalkWriter tokenWalkWriter;
+
+    /**
+     * True if the walks shall be written as binary token corpus (see {@link TokenWalkWriter}) rather than as text.
+     */
+    private boolean isWriteTokenWalks = false;
+
+    /**
+     * If set, the walks are handed to this buffer (e.g. for a concurrent training) instead of being written to files.
+     */
+    private WalkRingBuffer walkBuffer;
+
+    /**
+     * True if the frequencies of the tokens shall be counted during the walk generation and written to the walk
+     * directory (see {@link TokenFrequencyCounter}).
+     */
+    private boolean isCountTokens = false;
+
+    /**
+     * Counter of the token frequencies (null if the tokens are not counted).
+     */
+    private TokenFrequencyCounter tokenFrequencyCounter;
+
+    /**
+     * True if the token counts do not cover all walks of the walk directory (existing walks without counts file).
+     */
+    private boolean isTokenCountIncomplete = false;
+
+    /**
+     * The seed of the walk generation (null if the walks shall differ between runs).
+     */
+    private Long seed = null;
+
     /**
      * File path to the walk file to be written.
      */
@@ -95,6 +146,21 @@ public class WalkGenerationManager {
 
     File walkDirectory;
 
+    /**
+     * The return parameter p of {@link WalkGenerationMode#NODE2VEC_WALKS}.
+     */
+    private double returnParameter = DEFAULT_NODE2VEC_PARAMETER;
+
+    /**
+     * The in-out parameter q of {@link WalkGenerationMode#NODE2VEC_WALKS}.
+     */
+    private double inOutParameter = DEFAULT_NODE2VEC_PARAMETER;
+
+    /**
+     * Default of the node2vec parameters p and q (unbiased walks).
+     */
+    public static final double DEFAULT_NODE2VEC_PARAMETER = 1.0;
+
     /**
      * Constructor
      *
@@ -150,6 +216,87 @@ public class WalkGenerationManager {
      */
     public WalkGenerationManager(URI knowledgeGraphResource, boolean isGenerateTextWalks,
                                  boolean isSetEntitySelector, File existingWalks, File newWalkDirectory) {
+        this(knowledgeGraphResource, isGenerateTextWalks, isSetEntitySelector, existingWalks, newWalkDirectory, false);
+    }
+
+    /**
+     * Main Constructor
+     *
+     * @param knowledgeGraphResource A URI representing the graph for which an embedding shall be trained.
+     * @param isGenerateTextWalks    True if text shall also appear in the embedding space.
+     * @param isSetEntitySelector    If true, an entity selector will be chosen automatically.
+     * @param existingWalks          If existing walks shall be parsed, the existing walk directory can be specified here.
+     * @param newWalkDirectory       The new walk directory that is to be written. If there are existing walks, those will
+     *                               be copied if the file is not corrupted.
+     * @param isUseCompactData       True if an RDF-star graph shall be held in the dictionary-encoded data structure.
+     */
+    public WalkGenerationManager(URI knowledgeGraphResource, boolean isGenerateTextWalks,
+                                 boolean isSetEntitySelector, File existingWalks, File newWalkDirectory,
+                                 boolean isUseCompactData) {
+        this(knowledgeGraphResource, isGenerateTextWalks, isSetEntitySelector, existingWalks, newWalkDirectory,
+                isUseCompactData, 1);
+    }
+
+    /**
+     * Main Constructor
+     *
+     * @param knowledgeGraphResource A URI representing the graph for which an embedding shall be trained.
+     * @param isGenerateTextWalks    True if text shall also appear in the embedding space.
+     * @param isSetEntitySelector    If true, an entity selector will be chosen automatically.
+     * @param existingWalks          If existing walks shall be parsed, the existing walk directory can be specified here.
+     * @param newWalkDirectory       The new walk directory that is to be written. If there are existing walks, those will
+     *                               be copied if the file is not corrupted.
+     * @param isUseCompactData       True if an RDF-star graph shall be held in the dictionary-encoded data structure.
+     * @param numberOfParserThreads  The number of threads used to parse a single RDF-star file.
+     */
+    public WalkGenerationManager(URI knowledgeGraphResource, boolean isGenerateTextWalks,
+                                 boolean isSetEntitySelector, File existingWalks, File newWalkDirectory,
+                                 boolean isUseCompactData, int numberOfParserThreads) {
+        this(knowledgeGraphResource, isGenerateTextWalks, isSetEntitySelector, existingWalks, newWalkDirectory,
+                isUseCompactData, numberOfParserThreads, null);
+    }
+
+    /**
+     * Main Constructor
+     *
+     * @param knowledgeGraphResource A URI representing the graph for which an embedding shall be trained.
+     * @param isGenerateTextWalks    True if text shall also appear in the embedding space.
+     * @param isSetEntitySelector    If true, an entity selector will be chosen automatically.
+     * @param existingWalks          If existing walks shall be parsed, the existing walk directory can be specified here.
+     * @param newWalkDirectory       The new walk directory that is to be written. If there are existing walks, those will
+     *                               be copied if the file is not corrupted.
+     * @param isUseCompactData       True if an RDF-star graph shall be held in the dictionary-encoded data structure.
+     * @param numberOfParserThreads  The number of threads used to parse a single RDF-star file.
+     * @param snapshotDirectory      Directory in which binary snapshots of parsed graph files are kept (null: no
+     *                               snapshots).
+     */
+    public WalkGenerationManager(URI knowledgeGraphResource, boolean isGenerateTextWalks,
+                                 boolean isSetEntitySelector, File existingWalks, File newWalkDirectory,
+                                 boolean isUseCompactData, int numberOfParserThreads, File snapshotDirectory) {
+        this(knowledgeGraphResource, isGenerateTextWalks, isSetEntitySelector, existingWalks, newWalkDirectory,
+                isUseCompactData, numberOfParserThreads, snapshotDirectory, null);
+    }
+
+    /**
+     * Main Constructor
+     *
+     * @param knowledgeGraphResource A URI representing the graph for which an embedding shall be trained.
+     * @param isGenerateTextWalks    True if text shall also appear in the embedding space.
+     * @param isSetEntitySelector    If true, an entity selector will be chosen automatically.
+     * @param existingWalks          If existing walks shall be parsed, the existing walk directory can be specified here.
+     * @param newWalkDirectory       The new walk directory that is to be written. If there are existing walks, those will
+     *                               be copied if the file is not corrupted.
+     * @param isUseCompactData       True if an RDF-star graph shall be held in the dictionary-encoded data structure.
+     * @param numberOfParserThreads  The number of threads used to parse a single RDF-star file.
+     * @param snapshotDirectory      Directory in which binary snapshots of parsed graph files are kept (null: no
+     *                               snapshots).
+     * @param prefix                 The namespaces which are replaced by prefix labels in RDF-star graphs (null:
+     *                               built-in namespaces).
+     */
+    public WalkGenerationManager(URI knowledgeGraphResource, boolean isGenerateTextWalks,
+                                 boolean isSetEntitySelector, File existingWalks, File newWalkDirectory,
+                                 boolean isUseCompactData, int numberOfParserThreads, File snapshotDirectory,
+                                 Prefix prefix) {
         if (Util.uriIsFile(knowledgeGraphResource)) {
             File knowledgeGraphFile = new File(knowledgeGraphResource);
             if (!knowledgeGraphFile.exists()) {
@@ -158,16 +305,36 @@ public class WalkGenerationManager {
             }
             if (knowledgeGraphFile.isDirectory()) {
                 // DIRECTORY OPTIONS
+                // (0) TDB2 (RDF-star)
                 // (1) TDB
                 // (2) Directory with multiple NT files
-                if (Util.isTdbDirectory(knowledgeGraphFile)) {
+                if (Util.isTdb2Directory(knowledgeGraphFile)) {
+                    // (0) TDB2
+                    LOGGER.info("TDB2 directory recognized. Using disk-based RDF-star walk generator.");
+                    Tdb2StarWalkGenerator tdb2WalkGenerator =
+                            new Tdb2StarWalkGenerator(knowledgeGraphFile.getAbsolutePath());
+                    if (prefix != null) {
+                        tdb2WalkGenerator.setPrefix(prefix);
+                    }
+                    this.walkGenerator = tdb2WalkGenerator;
+                    if (isSetEntitySelector) {
+                        EntitySelector entitySelector = new Tdb2StarEntitySelector(tdb2WalkGenerator);
+                        if (existingWalks == null) {
+                            this.entitySelector = entitySelector;
+                        } else {
+                            this.entitySelector = new ContinuationEntitySelector(existingWalks, newWalkDirectory,
+                                    entitySelector);
+                        }
+                    }
+                } else if (Util.isTdbDirectory(knowledgeGraphFile)) {
                     // (1) TDB
                     LOGGER.info("TDB directory recognized. Using disk-based TDB walk generator.");
-                    this.walkGenerator = new TdbWalkGenerator(knowledgeGraphResource);
+                    this.walkGenerator = new TdbWalkGenerator(knowledgeGraphFile.getAbsolutePath(), true,
+                            TdbWalkGenerator.DEFAULT_CACHE_SIZE);
                     if (isSetEntitySelector) {
                         LOGGER.info("Setting TDB entity selector...");
                         EntitySelector entitySelector =
-                                new TdbEntitySelector(((TdbWalkGenerator) walkGenerator).getTdbModel());
+                                new TdbEntitySelector(((TdbWalkGenerator) walkGenerator).getTdbDataset());
                         if (existingWalks == null) {
                             this.entitySelector = entitySelector;
                         } else {
@@ -195,7 +362,7 @@ public class WalkGenerationManager {
             } else {
                 // knowledge graph resource is a file
                 // decide on parser depending on file ending
-                Pair<IWalkGenerator, EntitySelector> parserSelectorPair = WalkGeneratorManager.parseSingleFile(knowledgeGraphFile, isGenerateTextWalks);
+                Pair<IWalkGenerator, EntitySelector> parserSelectorPair = WalkGeneratorManager.parseSingleFile(knowledgeGraphFile, isGenerateTextWalks, isUseCompactData, numberOfParserThreads, snapshotDirectory, prefix);
                 this.walkGenerator = parserSelectorPair.getValue0();
                 if (isSetEntitySelector) {
                     this.entitySelector = parserSelectorPair.getValue1();
@@ -263,17 +430,60 @@ public class WalkGenerationManager {
     public void generateWalks(WalkGenerationMode mode, int numberOfThreads, int numberOfWalksPerEntity, int depth,
     		File walkDirectory, double probabilityFromQtToSubject, double probabilityFromObjectToQt) {
     	this.walkDirectory = walkDirectory;
-    	generateWalksForEntities(entitySelector.getEntities(), numberOfThreads, numberOfWalksPerEntity, depth,
+    	generateWalksForEntities(getEntityIterator(), numberOfThreads, numberOfWalksPerEntity, depth,
     			mode, probabilityFromQtToSubject, probabilityFromObjectToQt);
     }
 
     public void generateWalks(WalkGenerationMode mode, int numberOfThreads, int numberOfWalksPerEntity, int depth,
                               File walkDirectory) {
         this.walkDirectory = walkDirectory;
-        generateWalksForEntities(entitySelector.getEntities(), numberOfThreads, numberOfWalksPerEntity, depth,
+        generateWalksForEntities(getEntityIterator(), numberOfThreads, numberOfWalksPerEntity, depth,
                 mode);
     }
 
+    /**
+     * Obtain the entities of the entity selector. The entities are pulled lazily from the spliterator of the
+     * selector, so selectors which enumerate their data structure directly are not materialized.
+     *
+     * @return Iterator over the entities.
+     */
+    private Iterator<String> getEntityIterator() {
+        Spliterator<String> entities = entitySelector.getEntitySpliterator();
+        if (entities.estimateSize() != Long.MAX_VALUE) {
+            LOGGER.info("Selected at most " + entities.estimateSize() + " entities.");
+        }
+        return Spliterators.iterator(entities);
+    }
+
+    /**
+     * Hand the seed (if any) to the walk generator.
+     */
+    private void prepareSeed() {
+        if (seed == null) return;
+        if (walkGenerator instanceof ISeedableWalkGenerator) {
+            ((ISeedableWalkGenerator) walkGenerator).setSeed(seed);
+        } else {
+            LOGGER.warn("The walk generator " + walkGenerator.getClass() + " cannot be seeded. The walks are not "
+                    + "reproducible.");
+        }
+    }
+
+    /**
+     * Set the edge weighting of the weighted mid-walk modes on the walk generator (this builds the alias tables of
+     * the memory walk generators).
+     *
+     * @param mode            The walk generation mode.
+     * @param numberOfThreads The number of threads that may be used.
+     */
+    private void prepareEdgeWeighting(WalkGenerationMode mode, int numberOfThreads) {
+        EdgeWeighting weighting = mode.getEdgeWeighting();
+        if (weighting == null || !(walkGenerator instanceof IMidWalkWeightedCapability)) return;
+        if (!((IMidWalkWeightedCapability) walkGenerator).setEdgeWeighting(weighting, numberOfThreads)) {
+            LOGGER.error("The edge weighting " + weighting + " is not supported by " + walkGenerator.getClass()
+                    + ". The options are weighted by their number instead.");
+        }
+    }
+
     /**
      * Generate walks for the entities.
      *
@@ -285,25 +495,27 @@ public class WalkGenerationManager {
      */
     public void generateWalksForEntities(Set<String> entities, int numberOfThreads, int numberOfWalks, int walkLength,
                                          WalkGenerationMode mode) {
-        setOutputFileWriter();
-
-        // thread pool
-        ThreadPoolExecutor pool = new ThreadPoolExecutor(numberOfThreads, numberOfThreads,
-                0, TimeUnit.SECONDS,
-                new java.util.concurrent.ArrayBlockingQueue<>(entities.size()));
+        generateWalksForEntities(entities.iterator(), numberOfThreads, numberOfWalks, walkLength, mode);
+    }
 
-        for (String entity : entities) {
-            DefaultEntityWalkRunnable th = new DefaultEntityWalkRunnable(this, entity, numberOfWalks, walkLength, mode);
-            pool.execute(th);
-        }
+    /**
+     * Generate walks for the entities.
+     *
+     * @param entities        The entities for which walks shall be generated (pulled lazily).
+     * @param numberOfThreads The number of threads involved in generating the walks.
+     * @param numberOfWalks   The number of walks to be generated per entity.
+     * @param walkLength      The length of each walk.
+     * @param mode            The walk generation mode.
+     */
+    public void generateWalksForEntities(Iterator<String> entities, int numberOfThreads, int numberOfWalks,
+                                         int walkLength, WalkGenerationMode mode) {
+        setOutputFileWriter();
+        prepareSeed();
+        prepareEdgeWeighting(mode, numberOfThreads);
 
-        pool.shutdown();
-        try {
-            pool.awaitTermination(10, TimeUnit.DAYS);
-        } catch (InterruptedException e) {
-            LOGGER.error("Interrupted Exception");
-            e.printStackTrace();
-        }
+        // one runnable serves all entities
+        DefaultEntityWalkRunnable runnable = new DefaultEntityWalkRunnable(this, null, numberOfWalks, walkLength, mode);
+        getScheduler(numberOfThreads).run(entities, runnable::run, timeout, timeoutUnit);
         flushWriter();
     }
     
@@ -320,25 +532,32 @@ public class WalkGenerationManager {
      */
     public void generateWalksForEntities(Set<String> entities, int numberOfThreads, int numberOfWalks, int walkLength,
                                          WalkGenerationMode mode, double probabilityFromQtToSubject, double probabilityFromObjectToQt) {
-        setOutputFileWriter();
-
-        // thread pool
-        ThreadPoolExecutor pool = new ThreadPoolExecutor(numberOfThreads, numberOfThreads,
-                0, TimeUnit.SECONDS,
-                new java.util.concurrent.ArrayBlockingQueue<>(entities.size()));
+        generateWalksForEntities(entities.iterator(), numberOfThreads, numberOfWalks, walkLength, mode,
+                probabilityFromQtToSubject, probabilityFromObjectToQt);
+    }
 
-        for (String entity : entities) {
-            DefaultEntityWalkRunnable th = new DefaultEntityWalkRunnable(this, entity, numberOfWalks, walkLength, mode, probabilityFromQtToSubject, probabilityFromObjectToQt);
-            pool.execute(th);
-        }
+    /**
+     * Generate walks for the entities.
+     *
+     * @param entities        				The entities for which walks shall be generated (pulled lazily).
+     * @param numberOfThreads 				The number of threads involved in generating the walks.
+     * @param numberOfWalks   				The number of walks to be generated per entity.
+     * @param walkLength      				The length of each walk.
+     * @param mode            				The walk generation mode.
+     * @param probabilityFromQtToSubject	The transition probability from a quoted triple (QT) node to its constituent subjects.
+     * @param probabilityFromObjectToQt		The transition probability from an object to a quoted triple (QT) node.
+     */
+    public void generateWalksForEntities(Iterator<String> entities, int numberOfThreads, int numberOfWalks,
+                                         int walkLength, WalkGenerationMode mode, double probabilityFromQtToSubject,
+                                         double probabilityFromObjectToQt) {
+        setOutputFileWriter();
+        prepareSeed();
+        prepareEdgeWeighting(mode, numberOfThreads);
 
-        pool.shutdown();
-        try {
-            pool.awaitTermination(10, TimeUnit.DAYS);
-        } catch (InterruptedException e) {
-            LOGGER.error("Interrupted Exception");
-            e.printStackTrace();
-        }
+        // one runnable serves all entities
+        DefaultEntityWalkRunnable runnable = new DefaultEntityWalkRunnable(this, null, numberOfWalks, walkLength, mode,
+                probabilityFromQtToSubject, probabilityFromObjectToQt);
+        getScheduler(numberOfThreads).run(entities, runnable::run, timeout, timeoutUnit);
         flushWriter();
     }
 
@@ -349,7 +568,7 @@ public class WalkGenerationManager {
     public void generateTextWalks(int numberOfThreads, int walkLength, File walkDirectory) {
         if (!isWalkGeneratorOk()) return;
         this.walkDirectory = walkDirectory;
-        generateTextWalksForEntities(entitySelector.getEntities(), numberOfThreads, walkLength);
+        generateTextWalksForEntities(getEntityIterator(), numberOfThreads, walkLength);
     }
 
     public IWalkGenerator getWalkGenerator() {
@@ -392,6 +611,30 @@ public class WalkGenerationManager {
         return s -> s;
     }
 
+    public double getReturnParameter() {
+        return returnParameter;
+    }
+
+    /**
+     * @param returnParameter The return parameter p of {@link WalkGenerationMode#NODE2VEC_WALKS} (&gt; 0). Low
+     *                        values make it more likely to return to the previous node.
+     */
+    public void setReturnParameter(double returnParameter) {
+        this.returnParameter = returnParameter;
+    }
+
+    public double getInOutParameter() {
+        return inOutParameter;
+    }
+
+    /**
+     * @param inOutParameter The in-out parameter q of {@link WalkGenerationMode#NODE2VEC_WALKS} (&gt; 0). Low
+     *                       values make it more likely to move away from the previous node.
+     */
+    public void setInOutParameter(double inOutParameter) {
+        this.inOutParameter = inOutParameter;
+    }
+
     public boolean isGenerateTextWalks() {
         return isGenerateTextWalks;
     }
@@ -403,6 +646,11 @@ public class WalkGenerationManager {
     private int timeout = 10;
     private TimeUnit timeoutUnit = TimeUnit.DAYS;
 
+    /**
+     * The number of entities that are handed to a thread at once.
+     */
+    private int chunkSize = ChunkedWalkScheduler.DEFAULT_CHUNK_SIZE;
+
     /**
      * Generates text walks for the given entities.
      *
@@ -411,31 +659,148 @@ public class WalkGenerationManager {
      * @param walkLength      The length of each walks
      */
     public void generateTextWalksForEntities(Set<String> entities, int numberOfThreads, int walkLength) {
+        generateTextWalksForEntities(entities.iterator(), numberOfThreads, walkLength);
+    }
+
+    /**
+     * Generates text walks for the given entities.
+     *
+     * @param entities        The entities for which text walks shall be generated (pulled lazily).
+     * @param numberOfThreads The number of threads to be used.
+     * @param walkLength      The length of each walks
+     */
+    public void generateTextWalksForEntities(Iterator<String> entities, int numberOfThreads, int walkLength) {
         setOutputFileWriter();
-        ThreadPoolExecutor pool = new ThreadPoolExecutor(numberOfThreads, numberOfThreads,
-                0, TimeUnit.SECONDS,
-                new java.util.concurrent.ArrayBlockingQueue<>(entities.size()));
-        for (String entity : entities) {
-            DatatypeEntityWalkRunnable runnable = new DatatypeEntityWalkRunnable(this, entity,
-                    walkLength);
-            pool.execute(runnable);
-        }
-        pool.shutdown();
-        try {
-            pool.awaitTermination(timeout, timeoutUnit);
-        } catch (InterruptedException e) {
-            LOGGER.error("Interrupted Exception");
-            e.printStackTrace();
-        }
+        DatatypeEntityWalkRunnable runnable = new DatatypeEntityWalkRunnable(this, null, walkLength);
+        getScheduler(numberOfThreads).run(entities, runnable::run, timeout, timeoutUnit);
         flushWriter();
     }
 
+    /**
+     * Obtain the scheduler which distributes the entities on the threads.
+     *
+     * @param numberOfThreads The number of threads.
+     * @return Scheduler with the configured chunk size.
+     */
+    private ChunkedWalkScheduler getScheduler(int numberOfThreads) {
+        return new ChunkedWalkScheduler(numberOfThreads, chunkSize,
+                numberOfThreads * ChunkedWalkScheduler.DEFAULT_CHUNKS_IN_FLIGHT_PER_THREAD);
+    }
+
+    public int getNumberOfWriterThreads() {
+        return numberOfWriterThreads;
+    }
+
+    /**
+     * @param numberOfWriterThreads The number of compressor threads; if &gt; 0, the walks are written into sharded
+     *                              files by a {@link ShardedWalkWriter} instead of a single synchronized writer. Must
+     *                              be set before the walk generation starts.
+     */
+    public void setNumberOfWriterThreads(int numberOfWriterThreads) {
+        this.numberOfWriterThreads = numberOfWriterThreads;
+    }
+
+    /**
+     * @return The number of entities for which walks have been written.
+     */
+    public long getProcessedEntities() {
+        if (walkBuffer != null) return walkBuffer.getProcessedEntities();
+        if (tokenWalkWriter != null) return tokenWalkWriter.getProcessedEntities();
+        return shardedWalkWriter != null ? shardedWalkWriter.getProcessedEntities() : processedEntities;
+    }
+
+    /**
+     * @return The number of walks that have been written.
+     */
+    public long getProcessedWalks() {
+        if (walkBuffer != null) return walkBuffer.getProcessedWalks();
+        if (tokenWalkWriter != null) return tokenWalkWriter.getProcessedWalks();
+        return shardedWalkWriter != null ? shardedWalkWriter.getProcessedWalks() : processedWalks;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public boolean isWriteTokenWalks() {
+        return isWriteTokenWalks;
+    }
+
+    /**
+     * @param writeTokenWalks True if the walks shall be written as binary token corpus ({@code *.walks} files with
+     *                        a {@code *.vocab} vocabulary, see {@link TokenWalkReader}) instead of gzipped text.
+     *                        Must be set before the walk generation starts.
+     */
+    public void setWriteTokenWalks(boolean writeTokenWalks) {
+        isWriteTokenWalks = writeTokenWalks;
+    }
+
+    public boolean isCountTokens() {
+        return isCountTokens;
+    }
+
+    /**
+     * @param countTokens True if the frequencies of the tokens shall be counted while the walks are written and
+     *                    persisted in the walk directory ({@link TokenFrequencyCounter#COUNTS_FILE_NAME}). Ignored
+     *                    if a walk buffer is set. Must be set before the walk generation starts.
+     */
+    public void setCountTokens(boolean countTokens) {
+        isCountTokens = countTokens;
+    }
+
+    /**
+     * @return The token counter of the walk generation (null if the tokens are not counted or the walk generation has
+     * not started yet).
+     */
+    public TokenFrequencyCounter getTokenFrequencyCounter() {
+        return tokenFrequencyCounter;
+    }
+
+    public WalkRingBuffer getWalkBuffer() {
+        return walkBuffer;
+    }
+
+    /**
+     * @param walkBuffer Buffer to which the walks are handed instead of being written to walk files (null: walk
+     *                   files). The buffer is closed together with this manager. Must be set before the walk
+     *                   generation starts.
+     */
+    public void setWalkBuffer(WalkRingBuffer walkBuffer) {
+        this.walkBuffer = walkBuffer;
+    }
+
+    /**
+     * @param seed The seed of the walk generation; the same seed leads to the same walks on the same graph,
+     *             independently of the number of threads. Null if the walks shall differ between runs.
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param chunkSize The number of entities that are handed to a thread at once (see {@link ChunkedWalkScheduler}).
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
 
     /**
      * Flushes the walk writer.
      */
     void flushWriter() {
-        if (this.writer != null) {
+        if (this.walkBuffer != null) {
+            return;
+        }
+        if (this.tokenWalkWriter != null) {
+            this.tokenWalkWriter.flush();
+        } else if (this.shardedWalkWriter != null) {
+            this.shardedWalkWriter.flush();
+        } else if (this.writer != null) {
             try {
                 this.writer.flush();
             } catch (IOException e) {
@@ -448,6 +813,30 @@ public class WalkGenerationManager {
      * Initialize {@link WalkGenerationManager#writer}.
      */
     void setOutputFileWriter() {
+        if (walkBuffer != null) {
+            // no files: the walks are consumed from the buffer
+            return;
+        }
+        if (isCountTokens && this.tokenFrequencyCounter == null) {
+            initializeTokenFrequencyCounter();
+        }
+        if (isWriteTokenWalks) {
+            if (this.tokenWalkWriter == null) {
+                try {
+                    this.tokenWalkWriter = new TokenWalkWriter(this.walkDirectory, "walk_file_0");
+                } catch (IOException e) {
+                    LOGGER.error("Could not initialize token walk writer. The walks are written as text instead.", e);
+                    isWriteTokenWalks = false;
+                }
+            }
+            if (this.tokenWalkWriter != null) return;
+        }
+        if (numberOfWriterThreads > 0) {
+            if (this.shardedWalkWriter == null) {
+                this.shardedWalkWriter = new ShardedWalkWriter(this.walkDirectory, numberOfWriterThreads);
+            }
+            return;
+        }
         // only act if the writer has not yet been initialized.
         if (this.writer == null) {
             File outputFile = new File(this.walkDirectory, "walk_file_0.txt.gz");
@@ -465,23 +854,68 @@ public class WalkGenerationManager {
         }
     }
 
+    /**
+     * Initialize {@link WalkGenerationManager#tokenFrequencyCounter}. If existing walks are continued, their counts
+     * are added.
+     */
+    private void initializeTokenFrequencyCounter() {
+        this.tokenFrequencyCounter = new TokenFrequencyCounter();
+        if (!(entitySelector instanceof ContinuationEntitySelector)) return;
+        File existingWalkDirectory = ((ContinuationEntitySelector) entitySelector).getExistingWalkDirectory();
+        if (existingWalkDirectory == null || !existingWalkDirectory.isDirectory()) return;
+        File countsFile = TokenFrequencyCounter.getCountsFile(existingWalkDirectory);
+        if (!countsFile.exists()) {
+            LOGGER.warn("The existing walks have no token counts. The token counts will not be written.");
+            isTokenCountIncomplete = true;
+            return;
+        }
+        try {
+            tokenFrequencyCounter.addAll(countsFile);
+        } catch (IOException e) {
+            LOGGER.error("Could not read the token counts of the existing walks. The token counts will not be " +
+                    "written.", e);
+            isTokenCountIncomplete = true;
+        }
+    }
+
     /**
      * Adds new walks to the list; If the list is filled, it is written to the
      * file.
      *
      * @param walksToWrite Entries that shall be written.
      */
-    public synchronized void writeToFile(List<String> walksToWrite) {
+    public void writeToFile(List<String> walksToWrite) {
         if(walksToWrite == null){
             LOGGER.error("walksToWrite null. No walk will be written.");
             return;
         }
+        if (tokenFrequencyCounter != null) {
+            tokenFrequencyCounter.add(walksToWrite);
+        }
+        if (walkBuffer != null) {
+            walkBuffer.put(walksToWrite);
+        } else if (tokenWalkWriter != null) {
+            tokenWalkWriter.write(walksToWrite);
+        } else if (shardedWalkWriter != null) {
+            shardedWalkWriter.write(walksToWrite);
+        } else {
+            writeToSingleFile(walksToWrite);
+        }
+    }
+
+    /**
+     * Writes the walks through {@link WalkGenerationManager#writer} and rotates the file every 3,000,000 walks.
+     *
+     * @param walksToWrite Entries that shall be written.
+     */
+    private synchronized void writeToSingleFile(List<String> walksToWrite) {
         processedEntities++;
         processedWalks += walksToWrite.size();
         fileProcessedLines += walksToWrite.size();
         for (String str : walksToWrite)
             try {
-                writer.write(str + "\n");
+                writer.write(str);
+                writer.write('\n');
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -513,12 +947,34 @@ public class WalkGenerationManager {
      * Close resources.
      */
     public void close() {
-        if (writer == null) return;
-        try {
-            writer.flush();
-            writer.close();
-        } catch (IOException ioe) {
-            LOGGER.error("There was an error when closing the writer.", ioe);
+        if (tokenFrequencyCounter != null) {
+            if (!isTokenCountIncomplete) {
+                tokenFrequencyCounter.write(TokenFrequencyCounter.getCountsFile(this.walkDirectory));
+            }
+        }
+        if (walkBuffer != null) {
+            walkBuffer.close();
+            processedEntities += walkBuffer.getProcessedEntities();
+            processedWalks += walkBuffer.getProcessedWalks();
+            walkBuffer = null;
+        } else if (tokenWalkWriter != null) {
+            tokenWalkWriter.close();
+            processedEntities += tokenWalkWriter.getProcessedEntities();
+            processedWalks += tokenWalkWriter.getProcessedWalks();
+            tokenWalkWriter = null;
+        } else if (shardedWalkWriter != null) {
+            shardedWalkWriter.close();
+            processedEntities += shardedWalkWriter.getProcessedEntities();
+            processedWalks += shardedWalkWriter.getProcessedWalks();
+            shardedWalkWriter = null;
+        } else {
+            if (writer == null) return;
+            try {
+                writer.flush();
+                writer.close();
+            } catch (IOException ioe) {
+                LOGGER.error("There was an error when closing the writer.", ioe);
+            }
         }
         if (getWalkGenerator() instanceof ICloseableWalkGenerator) {
             ((ICloseableWalkGenerator) this.walkGenerator).close();
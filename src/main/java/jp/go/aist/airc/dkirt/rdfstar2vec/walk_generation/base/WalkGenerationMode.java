@@ -1,5 +1,7 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base;
 
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.EdgeWeighting;
+
 
 /**
  * The available walk generation modes.
@@ -25,6 +27,13 @@ public enum WalkGenerationMode {
      * Duplicates are not allowed.
      */
     STAR_RANDOM_WALKS_DUPLICATE_FREE,
+
+    /**
+     * Like {@link WalkGenerationMode#STAR_RANDOM_WALKS_DUPLICATE_FREE} but the walks are drawn one by one and
+     * duplicates are rejected instead of expanding all paths: the memory is bounded by the number of walks times the
+     * depth, also for hubs. This can lead to less generated walks than originally specified.
+     */
+    STAR_RANDOM_WALKS_DUPLICATE_FREE_SAMPLED,
 	
 	/*
 	 * Mid-walk walk generation for RDF-star
@@ -62,6 +71,30 @@ public enum WalkGenerationMode {
      */
     MID_WALKS_WEIGHTED,
 
+    /**
+     * Like {@link WalkGenerationMode#MID_WALKS_WEIGHTED} but every edge is weighted by the frequency of its
+     * predicate: edges with frequent predicates are more likely to be drawn. Requires a memory walk generator.
+     */
+    MID_WALKS_WEIGHTED_PREDICATE_FREQUENCY,
+
+    /**
+     * Like {@link WalkGenerationMode#MID_WALKS_WEIGHTED} but every edge is weighted by the inverse frequency of its
+     * predicate: edges with rare predicates are more likely to be drawn. Requires a memory walk generator.
+     */
+    MID_WALKS_WEIGHTED_INVERSE_PREDICATE_FREQUENCY,
+
+    /**
+     * Like {@link WalkGenerationMode#MID_WALKS_WEIGHTED} but every edge is weighted by the degree of the node it
+     * leads to: hubs are more likely to be visited. Requires a memory walk generator.
+     */
+    MID_WALKS_WEIGHTED_DEGREE,
+
+    /**
+     * Like {@link WalkGenerationMode#MID_WALKS_WEIGHTED} but every edge is weighted by the inverse degree of the
+     * node it leads to: hubs are less likely to be visited. Requires a memory walk generator.
+     */
+    MID_WALKS_WEIGHTED_INVERSE_DEGREE,
+
     /**
      * Plain random walks generated in a forward-fashion (going backwards is not allowed).
      */
@@ -73,6 +106,20 @@ public enum WalkGenerationMode {
      */
     RANDOM_WALKS_DUPLICATE_FREE,
 
+    /**
+     * Like {@link WalkGenerationMode#RANDOM_WALKS_DUPLICATE_FREE} but the walks are drawn one by one and duplicates
+     * are rejected instead of expanding all paths: the memory is bounded by the number of walks times the depth,
+     * also for hubs. This can lead to less generated walks than originally specified.
+     */
+    RANDOM_WALKS_DUPLICATE_FREE_SAMPLED,
+
+    /**
+     * Second-order biased random walks (node2vec) generated in a forward-fashion: the return parameter p and the
+     * in-out parameter q control whether the walks stay close to the entity (BFS-like) or move away (DFS-like).
+     * Quoted triple nodes are handled like any other node.
+     */
+    NODE2VEC_WALKS,
+
     /**
      * Generates walks where every instance is replaced by its type except for the entity of interest.
      * Conceptually similar to {@link WalkGenerationMode#EXPERIMENTAL_MID_EDGE_WALKS_DUPLICATE_FREE} where
@@ -103,6 +150,8 @@ public enum WalkGenerationMode {
         		return STAR_RANDOM_WALKS;
         	case "star_random_walks_duplicate_free":
         		return STAR_RANDOM_WALKS_DUPLICATE_FREE;
+        	case "star_random_walks_duplicate_free_sampled":
+        		return STAR_RANDOM_WALKS_DUPLICATE_FREE_SAMPLED;
         	case "star_mid_walks":
         		return STAR_MID_WALKS;
         	case "star_mid_walks_duplicate_free":
@@ -113,10 +162,22 @@ public enum WalkGenerationMode {
                 return MID_WALKS_DUPLICATE_FREE;
             case "mid_walks_weighted":
                 return MID_WALKS_WEIGHTED;
+            case "mid_walks_weighted_predicate_frequency":
+                return MID_WALKS_WEIGHTED_PREDICATE_FREQUENCY;
+            case "mid_walks_weighted_inverse_predicate_frequency":
+                return MID_WALKS_WEIGHTED_INVERSE_PREDICATE_FREQUENCY;
+            case "mid_walks_weighted_degree":
+                return MID_WALKS_WEIGHTED_DEGREE;
+            case "mid_walks_weighted_inverse_degree":
+                return MID_WALKS_WEIGHTED_INVERSE_DEGREE;
             case "random_walks":
                 return RANDOM_WALKS;
             case "random_walks_duplicate_free":
                 return RANDOM_WALKS_DUPLICATE_FREE;
+            case "random_walks_duplicate_free_sampled":
+                return RANDOM_WALKS_DUPLICATE_FREE_SAMPLED;
+            case "node2vec_walks":
+                return NODE2VEC_WALKS;
             case "experimental_mid_edge_walks_duplicate_free":
             case "mid_edge_walks_duplicate_free":
                 return EXPERIMENTAL_MID_EDGE_WALKS_DUPLICATE_FREE;
@@ -131,6 +192,28 @@ public enum WalkGenerationMode {
         }
     }
 
+    /**
+     * Obtain the edge weighting of the weighted mid-walk modes.
+     *
+     * @return The edge weighting, null if this is not a weighted mid-walk mode.
+     */
+    public EdgeWeighting getEdgeWeighting() {
+        switch (this) {
+            case MID_WALKS_WEIGHTED:
+                return EdgeWeighting.UNIFORM;
+            case MID_WALKS_WEIGHTED_PREDICATE_FREQUENCY:
+                return EdgeWeighting.PREDICATE_FREQUENCY;
+            case MID_WALKS_WEIGHTED_INVERSE_PREDICATE_FREQUENCY:
+                return EdgeWeighting.INVERSE_PREDICATE_FREQUENCY;
+            case MID_WALKS_WEIGHTED_DEGREE:
+                return EdgeWeighting.DEGREE;
+            case MID_WALKS_WEIGHTED_INVERSE_DEGREE:
+                return EdgeWeighting.INVERSE_DEGREE;
+            default:
+                return null;
+        }
+    }
+
     /**
      * Get a string representation of all available modes.
      *
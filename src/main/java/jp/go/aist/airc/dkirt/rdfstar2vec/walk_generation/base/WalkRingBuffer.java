@@ -0,0 +1,191 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded ring buffer which hands the walks from the walk generation threads directly to a consumer (the training)
+ * instead of writing them to walk files. One element is the list of walks of one entity.
+ * <p>
+ * The walk generation threads block if the buffer is full (backpressure), the consumers block if it is empty. After
+ * {@link WalkRingBuffer#close()}, the consumers drain the remaining elements and then obtain null.
+ */
+public class WalkRingBuffer {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalkRingBuffer.class);
+
+    /**
+     * Default capacity (number of entities).
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final List<String>[] elements;
+
+    private int head = 0;
+
+    private int tail = 0;
+
+    private int size = 0;
+
+    private boolean isClosed = false;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final AtomicLong processedEntities = new AtomicLong(0);
+
+    private final LongAdder processedWalks = new LongAdder();
+
+    /**
+     * Time the producers waited for space (nanoseconds).
+     */
+    private final LongAdder producerWaitNanos = new LongAdder();
+
+    /**
+     * Time the consumers waited for walks (nanoseconds).
+     */
+    private final LongAdder consumerWaitNanos = new LongAdder();
+
+    /**
+     * Constructor
+     */
+    public WalkRingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param capacity The number of entities whose walks can be buffered.
+     */
+    @SuppressWarnings("unchecked")
+    public WalkRingBuffer(int capacity) {
+        if (capacity < 1) {
+            LOGGER.warn("The capacity must be at least 1. Using the default (" + DEFAULT_CAPACITY + ").");
+            capacity = DEFAULT_CAPACITY;
+        }
+        this.elements = (List<String>[]) new List[capacity];
+    }
+
+    /**
+     * Add the walks of one entity; blocks while the buffer is full.
+     *
+     * @param walks The walks; the tokens of a walk are separated by spaces.
+     */
+    public void put(List<String> walks) {
+        long before = System.nanoTime();
+        lock.lock();
+        try {
+            while (size == elements.length && !isClosed) {
+                notFull.awaitUninterruptibly();
+            }
+            if (isClosed) {
+                LOGGER.error("The walk buffer is already closed. The walks are lost.");
+                return;
+            }
+            elements[tail] = walks;
+            tail = (tail + 1) % elements.length;
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        producerWaitNanos.add(System.nanoTime() - before);
+        long entities = processedEntities.incrementAndGet();
+        processedWalks.add(walks.size());
+        if (entities % 1000 == 0) {
+            LOGGER.info("TOTAL PROCESSED ENTITIES: " + entities);
+            LOGGER.info("TOTAL NUMBER OF PATHS : " + processedWalks.sum());
+        }
+    }
+
+    /**
+     * Obtain the walks of the next entity; blocks while the buffer is empty.
+     *
+     * @return The walks or null if the buffer is closed and empty.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public List<String> take() throws InterruptedException {
+        long before = System.nanoTime();
+        lock.lockInterruptibly();
+        try {
+            while (size == 0 && !isClosed) {
+                notEmpty.await();
+            }
+            if (size == 0) return null;
+            List<String> result = elements[head];
+            elements[head] = null;
+            head = (head + 1) % elements.length;
+            size--;
+            notFull.signal();
+            return result;
+        } finally {
+            lock.unlock();
+            consumerWaitNanos.add(System.nanoTime() - before);
+        }
+    }
+
+    /**
+     * No further walks will be added. Waiting consumers obtain the remaining walks and then null.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (isClosed) return;
+            isClosed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        LOGGER.info("Walk buffer closed. Producers waited " + TimeUnit.NANOSECONDS.toSeconds(producerWaitNanos.sum())
+                + " s (thread time) for the training, the training waited "
+                + TimeUnit.NANOSECONDS.toSeconds(consumerWaitNanos.sum()) + " s (thread time) for walks.");
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return isClosed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return elements.length;
+    }
+
+    public long getProcessedEntities() {
+        return processedEntities.get();
+    }
+
+    public long getProcessedWalks() {
+        return processedWalks.sum();
+    }
+
+    /**
+     * @return The time (nanoseconds, summed over all threads) the walk generation was blocked by the consumers.
+     */
+    public long getProducerWaitNanos() {
+        return producerWaitNanos.sum();
+    }
+
+    /**
+     * @return The time (nanoseconds, summed over all threads) the consumers waited for walks.
+     */
+    public long getConsumerWaitNanos() {
+        return consumerWaitNanos.sum();
+    }
+}
@@ -0,0 +1,176 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Alias tables (Walker/Vose) for many discrete distributions at once, stored in flat arrays.
+ * <p>
+ * The distributions are laid out like the segments of a compressed sparse row (CSR) adjacency: segment {@code s}
+ * covers the edges {@code offsets[s]} (inclusive) to {@code offsets[s + 1]} (exclusive). Once built, drawing an
+ * edge of a segment proportionally to its weight is O(1) and does not allocate: one uniform position is drawn and
+ * either kept or replaced by its alias.
+ */
+public class AliasTable {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AliasTable.class);
+
+    /**
+     * Segment boundaries (shared, not copied).
+     */
+    private final int[] offsets;
+
+    /**
+     * Probability of keeping the drawn position.
+     */
+    private final float[] probability;
+
+    /**
+     * The alias of every position (relative to the segment start).
+     */
+    private final int[] alias;
+
+    /**
+     * Sum of the weights of every segment.
+     */
+    private final double[] totalWeights;
+
+    /**
+     * Constructor
+     *
+     * @param offsets         Segment boundaries: {@code offsets.length - 1} segments; the last entry is the number
+     *                        of edges.
+     * @param weights         Weight of every edge (non-negative). If all weights of a segment are 0, the segment is
+     *                        sampled uniformly.
+     * @param numberOfThreads The number of threads used to build the tables.
+     */
+    public AliasTable(int[] offsets, IntToDoubleFunction weights, int numberOfThreads) {
+        this.offsets = offsets;
+        int numberOfSegments = offsets.length - 1;
+        int numberOfEdges = offsets[numberOfSegments];
+        this.probability = new float[numberOfEdges];
+        this.alias = new int[numberOfEdges];
+        this.totalWeights = new double[numberOfSegments];
+
+        // split the segments into ranges of (roughly) the same number of edges
+        numberOfThreads = Math.max(1, Math.min(numberOfThreads, numberOfSegments));
+        Runnable[] tasks = new Runnable[numberOfThreads];
+        int from = 0;
+        for (int t = 0; t < numberOfThreads; t++) {
+            long targetEdge = (long) numberOfEdges * (t + 1) / numberOfThreads;
+            int to = from;
+            while (to < numberOfSegments && (t == numberOfThreads - 1 || offsets[to] < targetEdge)) {
+                to++;
+            }
+            final int rangeFrom = from;
+            final int rangeTo = to;
+            tasks[t] = () -> build(rangeFrom, rangeTo, weights);
+            from = to;
+        }
+        if (tasks.length == 1) {
+            tasks[0].run();
+        } else {
+            IngestBuffer.runInParallel(tasks);
+        }
+    }
+
+    /**
+     * Build the tables of the given segments (Vose's algorithm).
+     *
+     * @param fromSegment First segment (inclusive).
+     * @param toSegment   Last segment (exclusive).
+     * @param weights     Edge weights.
+     */
+    private void build(int fromSegment, int toSegment, IntToDoubleFunction weights) {
+        double[] scaled = new double[16];
+        int[] small = new int[16];
+        int[] large = new int[16];
+        for (int segment = fromSegment; segment < toSegment; segment++) {
+            int start = offsets[segment];
+            int n = offsets[segment + 1] - start;
+            if (n == 0) continue;
+            if (n > scaled.length) {
+                scaled = new double[n];
+                small = new int[n];
+                large = new int[n];
+            }
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                double weight = weights.applyAsDouble(start + i);
+                scaled[i] = weight > 0 && !Double.isInfinite(weight) ? weight : 0;
+                sum += scaled[i];
+            }
+            totalWeights[segment] = sum;
+            if (sum <= 0) {
+                Arrays.fill(scaled, 0, n, 1.0);
+                sum = n;
+            }
+            int numberOfSmall = 0;
+            int numberOfLarge = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = scaled[i] * n / sum;
+                if (scaled[i] < 1.0) small[numberOfSmall++] = i;
+                else large[numberOfLarge++] = i;
+            }
+            while (numberOfSmall > 0 && numberOfLarge > 0) {
+                int s = small[--numberOfSmall];
+                int l = large[--numberOfLarge];
+                probability[start + s] = (float) scaled[s];
+                alias[start + s] = l;
+                scaled[l] = scaled[l] + scaled[s] - 1.0;
+                if (scaled[l] < 1.0) small[numberOfSmall++] = l;
+                else large[numberOfLarge++] = l;
+            }
+            // remaining entries are 1 (up to rounding errors)
+            while (numberOfLarge > 0) {
+                int l = large[--numberOfLarge];
+                probability[start + l] = 1.0f;
+                alias[start + l] = l;
+            }
+            while (numberOfSmall > 0) {
+                int s = small[--numberOfSmall];
+                probability[start + s] = 1.0f;
+                alias[start + s] = s;
+            }
+        }
+    }
+
+    /**
+     * Draw a position of the given segment proportionally to the weights.
+     *
+     * @param segment The segment.
+     * @param random  The random number generator to be used.
+     * @return Position relative to the segment start, -1 if the segment is empty.
+     */
+    public int sample(int segment, Random random) {
+        int start = offsets[segment];
+        int n = offsets[segment + 1] - start;
+        if (n == 0) return -1;
+        int i = random.nextInt(n);
+        return random.nextFloat() < probability[start + i] ? i : alias[start + i];
+    }
+
+    /**
+     * Sum of the weights of the given segment.
+     *
+     * @param segment The segment.
+     * @return Total weight (0 if the segment is empty or all weights are 0).
+     */
+    public double getTotalWeight(int segment) {
+        return totalWeights[segment];
+    }
+
+    /**
+     * The number of segments.
+     *
+     * @return Number of segments.
+     */
+    public int getNumberOfSegments() {
+        return totalWeights.length;
+    }
+}
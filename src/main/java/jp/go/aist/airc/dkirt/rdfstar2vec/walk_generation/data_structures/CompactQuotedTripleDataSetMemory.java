@@ -0,0 +1,809 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A compact in-memory storage option for RDF-star object triples.
+ * <p>
+ * Every term is mapped once to an integer ID by a {@link TermDictionary}. Triples are first collected in
+ * primitive buffers and then (on {@link CompactQuotedTripleDataSetMemory#compact()}) turned into a compressed sparse
+ * row (CSR) layout: For every node, the outgoing edges are stored in {@code forwardPredicates}/{@code forwardObjects}
+ * at positions {@code forwardOffsets[node]} (inclusive) to {@code forwardOffsets[node + 1]} (exclusive); incoming
+ * edges are stored analogously in the backward arrays. This requires roughly 16 bytes per edge instead of the
+ * nested maps of {@link QuotedTripleDataSetMemory}.
+ * <p>
+ * Quoted triples are first-class nodes: the ID of the quoted triple node can be used like any other node ID and
+ * the constituents of the quoted triple can be obtained via the {@code getQuotedTriple*} methods.
+ * <p>
+ * The IDs depend on the order in which the terms were added (and hence on the number of parser threads). The edges of
+ * a node are therefore sorted by the canonical ranks of their terms ({@link CompactQuotedTripleDataSetMemory#termRanks})
+ * and not by the IDs, so that a seeded walk draws the same neighbours after every load.
+ * <p>
+ * Datatype triples are not stored.
+ */
+public class CompactQuotedTripleDataSetMemory {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactQuotedTripleDataSetMemory.class);
+
+    /**
+     * The predicate used by RDF-star-ext to attach a value to a quoted triple.
+     */
+    public static final String RDF_VALUE = "rdf:value";
+
+    /**
+     * Returned if a node, quoted triple, or term does not exist.
+     */
+    public static final int NONE = TermDictionary.UNKNOWN;
+
+    /**
+     * Dictionary for all terms (nodes, predicates, quoted triple nodes).
+     */
+    TermDictionary dictionary;
+
+    /**
+     * Triples added since the last compaction.
+     */
+    private final IntArrayList pendingSubjects;
+    private final IntArrayList pendingPredicates;
+    private final IntArrayList pendingObjects;
+
+    /**
+     * Quoted triples: the quoted triple with ordinal {@code i} has node ID {@code quotedTripleNodes.get(i)} and
+     * consists of the terms stored at position {@code i} in the subject/predicate/object lists.
+     */
+    final IntArrayList quotedTripleNodes;
+    final IntArrayList quotedTripleSubjects;
+    final IntArrayList quotedTriplePredicates;
+    final IntArrayList quotedTripleObjects;
+
+    /**
+     * Form: {@code node ID -> quoted triple ordinal} ({@link CompactQuotedTripleDataSetMemory#NONE} if the node is
+     * not a quoted triple).
+     */
+    int[] nodeToQuotedTriple;
+
+    /**
+     * Number of nodes covered by the CSR arrays.
+     */
+    int numberOfNodes;
+
+    int[] forwardOffsets;
+    int[] forwardPredicates;
+    int[] forwardObjects;
+
+    int[] backwardOffsets;
+    int[] backwardPredicates;
+    int[] backwardSubjects;
+
+    /**
+     * Form: {@code node ID -> rank of the term among all terms in lexicographic order}. The forward segments are
+     * sorted by the ranks of (predicate, object), the backward segments by the ranks of (subject, predicate).
+     */
+    int[] termRanks;
+
+    /**
+     * Form: {@code quoted triple ordinal -> quoted triple ordinal} which shall be used when walking from the quoted
+     * triple node into the quoted triple.
+     */
+    int[] expandedQuotedTriples;
+
+    /**
+     * Form: {@code quoted triple ordinal -> quoted triple ordinal} of the quoted triple which uses the given quoted
+     * triple as subject (if there are several, the one whose node has the smallest term rank).
+     */
+    int[] envelopingQuotedTriples;
+
+    /**
+     * Open addressing table {@code (s, p, o) -> quoted triple ordinal + 1} (0 = empty slot).
+     */
+    int[] quotedTripleTable;
+
+    /**
+     * True if there are no pending triples.
+     */
+    volatile boolean isCompacted;
+
+    /**
+     * The weighting applied by {@link CompactQuotedTripleDataSetMemory#sampleOutEdge(int, Random)} and
+     * {@link CompactQuotedTripleDataSetMemory#sampleInEdge(int, Random)}.
+     */
+    private volatile EdgeWeighting edgeWeighting = EdgeWeighting.UNIFORM;
+
+    /**
+     * The number of threads used to (re-)build the alias tables.
+     */
+    private int aliasTableThreads = 1;
+
+    /**
+     * Alias tables over the segments of the forward and backward CSR arrays (null if the weighting is uniform).
+     */
+    private volatile AliasTable forwardAliasTable;
+    private volatile AliasTable backwardAliasTable;
+
+    /**
+     * Constructor
+     */
+    public CompactQuotedTripleDataSetMemory() {
+        dictionary = new TermDictionary();
+        pendingSubjects = new IntArrayList();
+        pendingPredicates = new IntArrayList();
+        pendingObjects = new IntArrayList();
+        quotedTripleNodes = new IntArrayList();
+        quotedTripleSubjects = new IntArrayList();
+        quotedTriplePredicates = new IntArrayList();
+        quotedTripleObjects = new IntArrayList();
+        nodeToQuotedTriple = new int[0];
+        numberOfNodes = 0;
+        forwardOffsets = new int[1];
+        forwardPredicates = new int[0];
+        forwardObjects = new int[0];
+        backwardOffsets = new int[1];
+        termRanks = new int[0];
+        backwardPredicates = new int[0];
+        backwardSubjects = new int[0];
+        expandedQuotedTriples = new int[0];
+        envelopingQuotedTriples = new int[0];
+        quotedTripleTable = new int[0];
+        isCompacted = true;
+    }
+
+    /**
+     * Add the given triple (thread-safe). The triple will be available after the next compaction.
+     *
+     * @param subject   Subject
+     * @param predicate Predicate
+     * @param object    Object
+     */
+    public synchronized void addObjectTriple(String subject, String predicate, String object) {
+        pendingSubjects.add(dictionary.getOrAddId(subject));
+        pendingPredicates.add(dictionary.getOrAddId(predicate));
+        pendingObjects.add(dictionary.getOrAddId(object));
+        isCompacted = false;
+    }
+
+    /**
+     * Register a quoted triple (thread-safe). The quoted triple node itself is only added to the graph if it
+     * appears in an object triple.
+     *
+     * @param qt        Quoted triple node.
+     * @param subject   Subject
+     * @param predicate Predicate
+     * @param object    Object
+     */
+    public synchronized void addObjectQuotedTriple(String qt, String subject, String predicate, String object) {
+        int qtId = dictionary.getOrAddId(qt);
+        if (qtId < nodeToQuotedTriple.length && nodeToQuotedTriple[qtId] != NONE) {
+            return;
+        }
+        if (qtId >= nodeToQuotedTriple.length) {
+            int oldLength = nodeToQuotedTriple.length;
+            nodeToQuotedTriple = Arrays.copyOf(nodeToQuotedTriple, Math.max(qtId + 1, oldLength * 2));
+            Arrays.fill(nodeToQuotedTriple, oldLength, nodeToQuotedTriple.length, NONE);
+        }
+        int ordinal = quotedTripleNodes.size();
+        nodeToQuotedTriple[qtId] = ordinal;
+        quotedTripleNodes.add(qtId);
+        quotedTripleSubjects.add(dictionary.getOrAddId(subject));
+        quotedTriplePredicates.add(dictionary.getOrAddId(predicate));
+        quotedTripleObjects.add(dictionary.getOrAddId(object));
+        indexQuotedTripleStructure(ordinal);
+        isCompacted = false;
+    }
+
+    /**
+     * Add a batch of quoted triples and object triples under a single lock acquisition (thread-safe).
+     *
+     * @param quotedTriplesToAdd Quoted triples to be added.
+     * @param objectTriplesToAdd Object triples to be added.
+     */
+    public synchronized void addAll(Collection<QuotedTriple> quotedTriplesToAdd, Collection<Triple> objectTriplesToAdd) {
+        for (QuotedTriple quotedTriple : quotedTriplesToAdd) {
+            addObjectQuotedTriple(quotedTriple.qt, quotedTriple.subject, quotedTriple.predicate, quotedTriple.object);
+        }
+        for (Triple triple : objectTriplesToAdd) {
+            addObjectTriple(triple.subject, triple.predicate, triple.object);
+        }
+    }
+
+    /**
+     * Insert the given quoted triple into the structural lookup table (power of two capacity, load factor &lt;= 0.5).
+     *
+     * @param ordinal Quoted triple ordinal.
+     */
+    private void indexQuotedTripleStructure(int ordinal) {
+        if ((ordinal + 1) * 2 > quotedTripleTable.length) {
+            int capacity = Math.max(16, quotedTripleTable.length * 2);
+            quotedTripleTable = new int[capacity];
+            for (int q = 0; q < ordinal; q++) {
+                insertIntoQuotedTripleTable(q);
+            }
+        }
+        insertIntoQuotedTripleTable(ordinal);
+    }
+
+    private void insertIntoQuotedTripleTable(int ordinal) {
+        int mask = quotedTripleTable.length - 1;
+        int slot = hash(quotedTripleSubjects.get(ordinal), quotedTriplePredicates.get(ordinal),
+                quotedTripleObjects.get(ordinal)) & mask;
+        while (quotedTripleTable[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        quotedTripleTable[slot] = ordinal + 1;
+    }
+
+    /**
+     * Compacts the data set if there are pending changes. This method is cheap if nothing changed.
+     */
+    public void ensureCompacted() {
+        if (!isCompacted) {
+            compact();
+        }
+    }
+
+    /**
+     * Merge all pending triples into the CSR arrays and (re-)build the quoted triple indices. Duplicate triples
+     * are removed.
+     */
+    public synchronized void compact() {
+        if (isCompacted) return;
+        final int n = dictionary.size();
+        final int existingEdges = forwardObjects.length;
+        final int pendingEdges = pendingSubjects.size();
+
+        // (1) count outgoing edges per node
+        int[] offsets = new int[n + 1];
+        for (int node = 0; node < numberOfNodes; node++) {
+            offsets[node + 1] = forwardOffsets[node + 1] - forwardOffsets[node];
+        }
+        for (int i = 0; i < pendingEdges; i++) {
+            offsets[pendingSubjects.get(i) + 1]++;
+        }
+        for (int node = 0; node < n; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+
+        // (2) scatter (predicate, object) pairs into the subject segments; the pairs hold the ranks of the terms
+        int[] termsByRank = rankTerms();
+        long[] pairs = new long[existingEdges + pendingEdges];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int node = 0; node < numberOfNodes; node++) {
+            for (int i = forwardOffsets[node]; i < forwardOffsets[node + 1]; i++) {
+                pairs[cursor[node]++] = pack(termRanks[forwardPredicates[i]], termRanks[forwardObjects[i]]);
+            }
+        }
+        for (int i = 0; i < pendingEdges; i++) {
+            int subject = pendingSubjects.get(i);
+            pairs[cursor[subject]++] = pack(termRanks[pendingPredicates.get(i)], termRanks[pendingObjects.get(i)]);
+        }
+        pendingSubjects.clear();
+        pendingPredicates.clear();
+        pendingObjects.clear();
+
+        // (3) sort every segment and remove duplicates in place
+        int[] newOffsets = new int[n + 1];
+        int write = 0;
+        for (int node = 0; node < n; node++) {
+            int from = offsets[node];
+            int to = offsets[node + 1];
+            newOffsets[node] = write;
+            if (to - from > 1) {
+                Arrays.sort(pairs, from, to);
+            }
+            for (int i = from; i < to; i++) {
+                if (i == from || pairs[i] != pairs[i - 1]) {
+                    pairs[write++] = pairs[i];
+                }
+            }
+        }
+        newOffsets[n] = write;
+        cursor = null;
+
+        int[] newForwardPredicates = new int[write];
+        int[] newForwardObjects = new int[write];
+        for (int i = 0; i < write; i++) {
+            newForwardPredicates[i] = termsByRank[(int) (pairs[i] >>> 32)];
+            newForwardObjects[i] = termsByRank[(int) pairs[i]];
+        }
+        pairs = null;
+
+        // (4) backward index (the subjects are scattered in the order of their ranks, hence every segment is sorted by
+        // the rank of the subject)
+        int[] newBackwardOffsets = new int[n + 1];
+        for (int i = 0; i < write; i++) {
+            newBackwardOffsets[newForwardObjects[i] + 1]++;
+        }
+        for (int node = 0; node < n; node++) {
+            newBackwardOffsets[node + 1] += newBackwardOffsets[node];
+        }
+        int[] newBackwardPredicates = new int[write];
+        int[] newBackwardSubjects = new int[write];
+        int[] backwardCursor = Arrays.copyOf(newBackwardOffsets, n);
+        for (int rank = 0; rank < n; rank++) {
+            int subject = termsByRank[rank];
+            for (int i = newOffsets[subject]; i < newOffsets[subject + 1]; i++) {
+                int position = backwardCursor[newForwardObjects[i]]++;
+                newBackwardPredicates[position] = newForwardPredicates[i];
+                newBackwardSubjects[position] = subject;
+            }
+        }
+
+        // the alias tables refer to the old offsets
+        forwardAliasTable = null;
+        backwardAliasTable = null;
+        this.forwardOffsets = newOffsets;
+        this.forwardPredicates = newForwardPredicates;
+        this.forwardObjects = newForwardObjects;
+        this.backwardOffsets = newBackwardOffsets;
+        this.backwardPredicates = newBackwardPredicates;
+        this.backwardSubjects = newBackwardSubjects;
+        this.numberOfNodes = n;
+
+        buildQuotedTripleIndices(n);
+        if (edgeWeighting != EdgeWeighting.UNIFORM) {
+            buildAliasTables(edgeWeighting, aliasTableThreads);
+        }
+        isCompacted = true;
+        LOGGER.info("Compacted data set: " + n + " terms, " + write + " object triples, "
+                + quotedTripleNodes.size() + " quoted triples.");
+    }
+
+    /**
+     * Rank all terms in lexicographic order and store the ranks in {@link CompactQuotedTripleDataSetMemory#termRanks}.
+     * The terms ranked by the previous compaction keep their order; only the new terms are sorted and merged in (see
+     * {@link TermDictionary#sortTerms(int[])}).
+     *
+     * @return Form: {@code rank -> node ID}.
+     */
+    int[] rankTerms() {
+        int[] termsByRank = dictionary.sortTerms(termRanks);
+        int[] ranks = new int[termsByRank.length];
+        for (int rank = 0; rank < termsByRank.length; rank++) {
+            ranks[termsByRank[rank]] = rank;
+        }
+        termRanks = ranks;
+        return termsByRank;
+    }
+
+    /**
+     * Builds the expand and envelope indices for quoted triples.
+     *
+     * @param n The number of terms.
+     */
+    private void buildQuotedTripleIndices(int n) {
+        if (nodeToQuotedTriple.length < n) {
+            int oldLength = nodeToQuotedTriple.length;
+            nodeToQuotedTriple = Arrays.copyOf(nodeToQuotedTriple, n);
+            Arrays.fill(nodeToQuotedTriple, oldLength, n, NONE);
+        }
+        int numberOfQuotedTriples = quotedTripleNodes.size();
+        int rdfValue = dictionary.getId(RDF_VALUE);
+
+        expandedQuotedTriples = new int[numberOfQuotedTriples];
+        envelopingQuotedTriples = new int[numberOfQuotedTriples];
+        Arrays.fill(envelopingQuotedTriples, NONE);
+        for (int q = 0; q < numberOfQuotedTriples; q++) {
+            int subjectQuotedTriple = nodeToQuotedTriple[quotedTripleSubjects.get(q)];
+            boolean isRdfValue = rdfValue != NONE && quotedTriplePredicates.get(q) == rdfValue;
+            if (subjectQuotedTriple != NONE && isRdfValue
+                    && dictionary.getTerm(quotedTripleObjects.get(q)).endsWith("\"")) {
+                expandedQuotedTriples[q] = subjectQuotedTriple;
+            } else {
+                expandedQuotedTriples[q] = q;
+            }
+            if (subjectQuotedTriple != NONE) {
+                // the choice must not depend on the ordinals, which follow the order in which the triples were added
+                int current = envelopingQuotedTriples[subjectQuotedTriple];
+                if (current == NONE
+                        || termRanks[quotedTripleNodes.get(q)] < termRanks[quotedTripleNodes.get(current)]) {
+                    envelopingQuotedTriples[subjectQuotedTriple] = q;
+                }
+            }
+        }
+        for (int q = 0; q < numberOfQuotedTriples; q++) {
+            boolean isRdfValue = rdfValue != NONE && quotedTriplePredicates.get(q) == rdfValue;
+            if (isRdfValue || envelopingQuotedTriples[q] == NONE) {
+                envelopingQuotedTriples[q] = q;
+            }
+
+            // nested value annotations are resolved until a quoted triple is reached which is not an annotation
+            // (the number of steps is bounded to protect against malformed cycles)
+            int expanded = expandedQuotedTriples[q];
+            for (int step = 0; step < numberOfQuotedTriples && expandedQuotedTriples[expanded] != expanded; step++) {
+                expanded = expandedQuotedTriples[expanded];
+            }
+            expandedQuotedTriples[q] = expanded;
+        }
+    }
+
+    private static long pack(int predicate, int object) {
+        return ((long) predicate << 32) | (object & 0xFFFFFFFFL);
+    }
+
+    private static int hash(int subject, int predicate, int object) {
+        int h = subject * 0x9E3779B1;
+        h = (h ^ predicate) * 0x85EBCA77;
+        h = (h ^ object) * 0xC2B2AE3D;
+        return h ^ (h >>> 16);
+    }
+
+    // --------------------------------------------------------------------------------------------------------
+    // Dictionary
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * Obtain the ID of the given term.
+     *
+     * @param term The term.
+     * @return The ID or {@link CompactQuotedTripleDataSetMemory#NONE} if the term is unknown.
+     */
+    public int getId(String term) {
+        return dictionary.getId(term);
+    }
+
+    /**
+     * Obtain the term for the given ID.
+     *
+     * @param id The ID.
+     * @return The term.
+     */
+    public String getTerm(int id) {
+        return dictionary.getTerm(id);
+    }
+
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    // --------------------------------------------------------------------------------------------------------
+    // Adjacency (only valid after compaction)
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * Number of outgoing object triples of the given node.
+     *
+     * @param node Node ID.
+     * @return Out-degree (0 for unknown nodes).
+     */
+    public int getOutDegree(int node) {
+        if (node < 0 || node >= numberOfNodes) return 0;
+        return forwardOffsets[node + 1] - forwardOffsets[node];
+    }
+
+    /**
+     * Predicate of the i-th outgoing triple of the given node.
+     *
+     * @param node Node ID.
+     * @param i    Position in [0, out-degree).
+     * @return Predicate ID.
+     */
+    public int getOutPredicate(int node, int i) {
+        return forwardPredicates[forwardOffsets[node] + i];
+    }
+
+    /**
+     * Object of the i-th outgoing triple of the given node.
+     *
+     * @param node Node ID.
+     * @param i    Position in [0, out-degree).
+     * @return Object ID.
+     */
+    public int getOutObject(int node, int i) {
+        return forwardObjects[forwardOffsets[node] + i];
+    }
+
+    /**
+     * Number of incoming object triples of the given node.
+     *
+     * @param node Node ID.
+     * @return In-degree (0 for unknown nodes).
+     */
+    public int getInDegree(int node) {
+        if (node < 0 || node >= numberOfNodes) return 0;
+        return backwardOffsets[node + 1] - backwardOffsets[node];
+    }
+
+    /**
+     * Predicate of the i-th incoming triple of the given node.
+     *
+     * @param node Node ID.
+     * @param i    Position in [0, in-degree).
+     * @return Predicate ID.
+     */
+    public int getInPredicate(int node, int i) {
+        return backwardPredicates[backwardOffsets[node] + i];
+    }
+
+    /**
+     * Subject of the i-th incoming triple of the given node.
+     *
+     * @param node Node ID.
+     * @param i    Position in [0, in-degree).
+     * @return Subject ID.
+     */
+    public int getInSubject(int node, int i) {
+        return backwardSubjects[backwardOffsets[node] + i];
+    }
+
+    /**
+     * Check whether there is an object triple (with any predicate) from the given subject to the given object.
+     * The incoming edges of a node are sorted by the rank of the subject, hence this is a binary search in
+     * O(log(in-degree)).
+     *
+     * @param subject Subject ID.
+     * @param object  Object ID.
+     * @return True if the subject links to the object.
+     */
+    public boolean isLinked(int subject, int object) {
+        if (subject < 0 || object < 0 || subject >= numberOfNodes || object >= numberOfNodes) return false;
+        final int subjectRank = termRanks[subject];
+        int low = backwardOffsets[object];
+        int high = backwardOffsets[object + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int candidate = termRanks[backwardSubjects[middle]];
+            if (candidate < subjectRank) low = middle + 1;
+            else if (candidate > subjectRank) high = middle - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    // --------------------------------------------------------------------------------------------------------
+    // Weighted adjacency (only valid after compaction)
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * Set the weighting of {@link CompactQuotedTripleDataSetMemory#sampleOutEdge(int, Random)} and
+     * {@link CompactQuotedTripleDataSetMemory#sampleInEdge(int, Random)} and build the alias tables of all nodes
+     * (in parallel). The tables share the offsets of the CSR arrays; they are rebuilt on every compaction.
+     *
+     * @param weighting       The edge weighting.
+     * @param numberOfThreads The number of threads used to build the tables.
+     */
+    public synchronized void buildAliasTables(EdgeWeighting weighting, int numberOfThreads) {
+        this.edgeWeighting = weighting;
+        this.aliasTableThreads = Math.max(1, numberOfThreads);
+        if (weighting == EdgeWeighting.UNIFORM) {
+            forwardAliasTable = null;
+            backwardAliasTable = null;
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        final int[] predicateFrequencies;
+        if (weighting.isPredicateBased()) {
+            predicateFrequencies = new int[numberOfNodes];
+            for (int predicate : forwardPredicates) {
+                if (predicate < numberOfNodes) predicateFrequencies[predicate]++;
+            }
+        } else {
+            predicateFrequencies = null;
+        }
+        forwardAliasTable = new AliasTable(forwardOffsets, i -> getWeight(weighting, predicateFrequencies,
+                forwardPredicates[i], forwardObjects[i]), aliasTableThreads);
+        backwardAliasTable = new AliasTable(backwardOffsets, i -> getWeight(weighting, predicateFrequencies,
+                backwardPredicates[i], backwardSubjects[i]), aliasTableThreads);
+        LOGGER.info("Built alias tables (" + weighting + ") in " + (System.currentTimeMillis() - startTime) + " ms.");
+    }
+
+    private double getWeight(EdgeWeighting weighting, int[] predicateFrequencies, int predicate, int target) {
+        if (predicateFrequencies != null) {
+            return weighting.getWeight(predicate < predicateFrequencies.length ? predicateFrequencies[predicate] : 0, 0);
+        }
+        return weighting.getWeight(0, (long) getOutDegree(target) + getInDegree(target));
+    }
+
+    public EdgeWeighting getEdgeWeighting() {
+        return edgeWeighting;
+    }
+
+    /**
+     * Draw an outgoing edge of the given node proportionally to the weights of the current {@link EdgeWeighting}
+     * (O(1), no objects are allocated).
+     *
+     * @param node   Node ID.
+     * @param random The random number generator to be used.
+     * @return Position of the edge in [0, out-degree), -1 if the node has no outgoing edges.
+     */
+    public int sampleOutEdge(int node, Random random) {
+        int degree = getOutDegree(node);
+        if (degree == 0) return -1;
+        AliasTable table = forwardAliasTable;
+        return table == null ? random.nextInt(degree) : table.sample(node, random);
+    }
+
+    /**
+     * Draw an incoming edge of the given node proportionally to the weights of the current {@link EdgeWeighting}
+     * (O(1), no objects are allocated).
+     *
+     * @param node   Node ID.
+     * @param random The random number generator to be used.
+     * @return Position of the edge in [0, in-degree), -1 if the node has no incoming edges.
+     */
+    public int sampleInEdge(int node, Random random) {
+        int degree = getInDegree(node);
+        if (degree == 0) return -1;
+        AliasTable table = backwardAliasTable;
+        return table == null ? random.nextInt(degree) : table.sample(node, random);
+    }
+
+    /**
+     * Sum of the weights of the outgoing edges of the given node.
+     *
+     * @param node Node ID.
+     * @return Total weight (the out-degree if the weighting is uniform).
+     */
+    public double getOutWeight(int node) {
+        AliasTable table = forwardAliasTable;
+        if (table == null || node < 0 || node >= table.getNumberOfSegments()) return getOutDegree(node);
+        return table.getTotalWeight(node);
+    }
+
+    /**
+     * Sum of the weights of the incoming edges of the given node.
+     *
+     * @param node Node ID.
+     * @return Total weight (the in-degree if the weighting is uniform).
+     */
+    public double getInWeight(int node) {
+        AliasTable table = backwardAliasTable;
+        if (table == null || node < 0 || node >= table.getNumberOfSegments()) return getInDegree(node);
+        return table.getTotalWeight(node);
+    }
+
+    // --------------------------------------------------------------------------------------------------------
+    // Quoted triples (only valid after compaction)
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * Check whether the given node is a quoted triple node.
+     *
+     * @param node Node ID.
+     * @return True if the node is a quoted triple.
+     */
+    public boolean isQuotedTriple(int node) {
+        return node >= 0 && node < nodeToQuotedTriple.length && nodeToQuotedTriple[node] != NONE;
+    }
+
+    /**
+     * Obtain the quoted triple node for the given constituents without building any string.
+     *
+     * @param subject   Subject ID.
+     * @param predicate Predicate ID.
+     * @param object    Object ID.
+     * @return The quoted triple node ID or {@link CompactQuotedTripleDataSetMemory#NONE}.
+     */
+    public int getQuotedTriple(int subject, int predicate, int object) {
+        int capacity = quotedTripleTable.length;
+        if (capacity == 0) return NONE;
+        int slot = hash(subject, predicate, object) & (capacity - 1);
+        int entry;
+        while ((entry = quotedTripleTable[slot]) != 0) {
+            int q = entry - 1;
+            if (quotedTripleSubjects.get(q) == subject && quotedTriplePredicates.get(q) == predicate
+                    && quotedTripleObjects.get(q) == object) {
+                return quotedTripleNodes.get(q);
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return NONE;
+    }
+
+    /**
+     * Obtain the quoted triple node for the given constituents. This lookup is also available before compaction
+     * (e.g. while parsing) and does not build the {@code "<<s-p-o>>"} string.
+     *
+     * @param subject   Subject.
+     * @param predicate Predicate.
+     * @param object    Object.
+     * @return The quoted triple node ID or {@link CompactQuotedTripleDataSetMemory#NONE}.
+     */
+    public int getQuotedTriple(String subject, String predicate, String object) {
+        int s = dictionary.getId(subject);
+        int p = dictionary.getId(predicate);
+        int o = dictionary.getId(object);
+        if (s == NONE || p == NONE || o == NONE) return NONE;
+        return getQuotedTriple(s, p, o);
+    }
+
+    public int getQuotedTripleSubject(int qtNode) {
+        return quotedTripleSubjects.get(nodeToQuotedTriple[qtNode]);
+    }
+
+    public int getQuotedTriplePredicate(int qtNode) {
+        return quotedTriplePredicates.get(nodeToQuotedTriple[qtNode]);
+    }
+
+    public int getQuotedTripleObject(int qtNode) {
+        return quotedTripleObjects.get(nodeToQuotedTriple[qtNode]);
+    }
+
+    /**
+     * Equivalent of {@link QuotedTripleDataSetMemory#expandQuotedTriple(QuotedTriple)}: If the quoted triple annotates
+     * another quoted triple with an {@code rdf:value} literal, the annotated quoted triple is returned (nested
+     * annotations are resolved completely).
+     *
+     * @param qtNode Quoted triple node ID.
+     * @return Quoted triple node ID to be used when walking into the quoted triple.
+     */
+    public int expandQuotedTriple(int qtNode) {
+        return quotedTripleNodes.get(expandedQuotedTriples[nodeToQuotedTriple[qtNode]]);
+    }
+
+    /**
+     * Equivalent of {@link QuotedTripleDataSetMemory#envelopeQuotedTriple(QuotedTriple)}: Returns the quoted triple
+     * which uses the given quoted triple as subject (unless the predicate is {@code rdf:value}).
+     *
+     * @param qtNode Quoted triple node ID.
+     * @return The enveloping quoted triple node ID, or {@code qtNode} itself if there is none.
+     */
+    public int envelopeQuotedTriple(int qtNode) {
+        return quotedTripleNodes.get(envelopingQuotedTriples[nodeToQuotedTriple[qtNode]]);
+    }
+
+    public int getNumberOfQuotedTriples() {
+        return quotedTripleNodes.size();
+    }
+
+    // --------------------------------------------------------------------------------------------------------
+    // Statistics and entity selection
+    // --------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of managed object triples. Before compaction, pending duplicates are included.
+     *
+     * @return The number of managed object triples.
+     */
+    public long getObjectTripleSize() {
+        return (long) forwardObjects.length + pendingSubjects.size();
+    }
+
+    /**
+     * Number of node IDs covered by the adjacency arrays.
+     *
+     * @return Number of nodes.
+     */
+    public int getNumberOfNodes() {
+        ensureCompacted();
+        return numberOfNodes;
+    }
+
+    /**
+     * Check whether the given node is the subject or the object of at least one object triple.
+     *
+     * @param node Node ID.
+     * @return True if the node participates in an object triple.
+     */
+    public boolean isEntity(int node) {
+        return getOutDegree(node) > 0 || getInDegree(node) > 0;
+    }
+
+    /**
+     * Obtain a set of all subjects and objects. The strings are only materialized here, not during walk generation.
+     *
+     * @return Set of subjects and objects.
+     */
+    public Set<String> getUniqueObjectTripleSubjectsAndObjects() {
+        return streamUniqueObjectTripleSubjectsAndObjects().collect(Collectors.toSet());
+    }
+
+    /**
+     * Obtain all subjects and objects lazily. The stream runs over the node IDs, so its spliterator knows an upper
+     * bound of its size and splits into ranges of IDs; a string is decoded only when its node is consumed.
+     *
+     * @return Stream of subjects and objects.
+     */
+    public Stream<String> streamUniqueObjectTripleSubjectsAndObjects() {
+        ensureCompacted();
+        return IntStream.range(0, numberOfNodes).filter(this::isEntity).mapToObj(dictionary::getTerm);
+    }
+}
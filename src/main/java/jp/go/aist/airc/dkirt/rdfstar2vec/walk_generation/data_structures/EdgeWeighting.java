@@ -0,0 +1,65 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures;
+
+/**
+ * Weighting schemes for edges which are used by the weighted neighbour samplers of the in-memory stores (see
+ * {@link AliasTable}). The weight of an edge is derived from the frequency of its predicate in the graph or from the
+ * degree (in-degree + out-degree) of the node the edge leads to.
+ */
+public enum EdgeWeighting {
+
+    /**
+     * All edges have the same weight.
+     */
+    UNIFORM,
+
+    /**
+     * Edges with frequent predicates are preferred.
+     */
+    PREDICATE_FREQUENCY,
+
+    /**
+     * Edges with rare predicates are preferred.
+     */
+    INVERSE_PREDICATE_FREQUENCY,
+
+    /**
+     * Edges leading to hubs are preferred.
+     */
+    DEGREE,
+
+    /**
+     * Edges leading to nodes with few neighbours are preferred.
+     */
+    INVERSE_DEGREE;
+
+    /**
+     * Obtain the weight of an edge.
+     *
+     * @param predicateFrequency The number of object triples with the predicate of the edge.
+     * @param targetDegree       The degree of the node the edge leads to.
+     * @return The (non-negative) weight.
+     */
+    public double getWeight(long predicateFrequency, long targetDegree) {
+        switch (this) {
+            case PREDICATE_FREQUENCY:
+                return predicateFrequency;
+            case INVERSE_PREDICATE_FREQUENCY:
+                return predicateFrequency == 0 ? 0 : 1.0 / predicateFrequency;
+            case DEGREE:
+                return targetDegree;
+            case INVERSE_DEGREE:
+                return targetDegree == 0 ? 0 : 1.0 / targetDegree;
+            default:
+                return 1.0;
+        }
+    }
+
+    /**
+     * True if the predicate frequencies are required to compute the weights.
+     *
+     * @return True for the predicate frequency based weightings.
+     */
+    public boolean isPredicateBased() {
+        return this == PREDICATE_FREQUENCY || this == INVERSE_PREDICATE_FREQUENCY;
+    }
+}
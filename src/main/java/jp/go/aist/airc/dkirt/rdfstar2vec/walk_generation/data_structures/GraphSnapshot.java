@@ -0,0 +1,501 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Versioned binary snapshot of a parsed graph. The snapshot holds the term dictionary, the CSR adjacency arrays, and
+ * the quoted triple table of a {@link CompactQuotedTripleDataSetMemory}; the String-keyed stores are converted when
+ * they are written and rebuilt when they are read. Reopening a snapshot does not involve any parsing of the graph
+ * file, and the canonical term ranks are stored as well, so the terms need not be sorted again. Note, however, that
+ * the snapshot is not used in place: the integer sections are mapped with {@link FileChannel#map} and copied onto
+ * the heap, and every term is decoded and added to a new {@link TermDictionary}, so reading takes time linear in the
+ * size of the snapshot and the data set needs as much memory as a parsed one.
+ * <p>
+ * A snapshot is only valid for the parser settings it was written with (e.g. the namespaces which are replaced by
+ * prefix labels); the caller passes a fingerprint of these settings which is stored in the header and compared by
+ * {@link GraphSnapshot#isUpToDate(File, File, long)}.
+ * <p>
+ * Layout (big endian): a fixed header of {@link GraphSnapshot#HEADER_BYTES} bytes, the integer arrays (in the order
+ * of {@link GraphSnapshot#write(CompactQuotedTripleDataSetMemory, boolean, File, File, long)}, the term ranks being
+ * the last one), and finally the terms (length in bytes followed by the UTF-8 bytes of every term). Datatype triples
+ * are not part of a snapshot; for quoted triples, a bit set records which of them were added as datatype quoted
+ * triples.
+ * <p>
+ * A snapshot is written to a temporary file next to the snapshot file which is then moved into place, so that an
+ * interrupted write never leaves a truncated snapshot behind.
+ */
+public class GraphSnapshot {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphSnapshot.class);
+
+    /**
+     * Magic bytes at the beginning of every snapshot file.
+     */
+    private static final byte[] MAGIC = "RS2VSNAP".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The version of the snapshot format. Snapshots of other versions are not read.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * File ending of snapshot files.
+     */
+    public static final String FILE_ENDING = ".snapshot";
+
+    static final int HEADER_BYTES = 64;
+
+    private static final int FLAG_RDF_STAR = 1;
+
+    /**
+     * Maximal number of integers that are mapped at once (1 GiB).
+     */
+    private static final int MAX_INTS_PER_MAPPING = 1 << 28;
+
+    /**
+     * Obtain the snapshot file for the given source file.
+     *
+     * @param snapshotDirectory The directory in which snapshots are kept.
+     * @param sourceFile        The graph file.
+     * @return Snapshot file (which does not necessarily exist).
+     */
+    public static File getSnapshotFile(File snapshotDirectory, File sourceFile) {
+        return new File(snapshotDirectory, sourceFile.getName() + FILE_ENDING);
+    }
+
+    /**
+     * Write the given compact data set.
+     *
+     * @param data           The data set.
+     * @param isRdfStar      True if the graph is an RDF-star graph (determines the walk generator on reload).
+     * @param snapshotFile   The file to be written.
+     * @param sourceFile     The graph file from which the data set was parsed (used to detect outdated snapshots), may
+     *                       be null.
+     * @param parserSettings Fingerprint of the parser settings with which the data set was parsed (used to detect
+     *                       outdated snapshots).
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(CompactQuotedTripleDataSetMemory data, boolean isRdfStar, File snapshotFile,
+                             File sourceFile, long parserSettings) throws IOException {
+        write(data, isRdfStar, snapshotFile, sourceFile, parserSettings, null);
+    }
+
+    /**
+     * Write the given compact data set.
+     *
+     * @param datatypeQuotedTriples Bit set of the ordinals of the quoted triples which are datatype quoted triples,
+     *                              null if there are none.
+     */
+    private static void write(CompactQuotedTripleDataSetMemory data, boolean isRdfStar, File snapshotFile,
+                              File sourceFile, long parserSettings, int[] datatypeQuotedTriples) throws IOException {
+        data.ensureCompacted();
+        File parent = snapshotFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        int numberOfTerms = data.dictionary.size();
+        int numberOfQuotedTriples = data.quotedTripleNodes.size();
+        if (datatypeQuotedTriples == null) {
+            datatypeQuotedTriples = new int[getBitSetLength(numberOfQuotedTriples)];
+        }
+        File temporaryFile = File.createTempFile(snapshotFile.getName() + ".part", ".tmp", parent);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), 1 << 16))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(isRdfStar ? FLAG_RDF_STAR : 0);
+            out.writeLong(sourceFile == null ? 0L : sourceFile.length());
+            out.writeLong(sourceFile == null ? 0L : sourceFile.lastModified());
+            out.writeLong(parserSettings);
+            out.writeInt(numberOfTerms);
+            out.writeInt(data.numberOfNodes);
+            out.writeInt(data.forwardObjects.length);
+            out.writeInt(numberOfQuotedTriples);
+            out.writeInt(data.quotedTripleTable.length);
+            out.writeInt(0); // reserved
+
+            byte[] buffer = new byte[1 << 16];
+            writeInts(out, data.forwardOffsets, buffer);
+            writeInts(out, data.forwardPredicates, buffer);
+            writeInts(out, data.forwardObjects, buffer);
+            writeInts(out, data.backwardOffsets, buffer);
+            writeInts(out, data.backwardPredicates, buffer);
+            writeInts(out, data.backwardSubjects, buffer);
+            writeInts(out, data.quotedTripleNodes.toArray(), buffer);
+            writeInts(out, data.quotedTripleSubjects.toArray(), buffer);
+            writeInts(out, data.quotedTriplePredicates.toArray(), buffer);
+            writeInts(out, data.quotedTripleObjects.toArray(), buffer);
+            writeInts(out, data.expandedQuotedTriples, buffer);
+            writeInts(out, data.envelopingQuotedTriples, buffer);
+            writeInts(out, data.quotedTripleTable, buffer);
+            writeInts(out, datatypeQuotedTriples, buffer);
+            writeInts(out, data.termRanks, buffer);
+
+            for (int id = 0; id < numberOfTerms; id++) {
+                byte[] term = data.dictionary.getTerm(id).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(term.length);
+                out.write(term);
+            }
+        } catch (IOException e) {
+            temporaryFile.delete();
+            throw e;
+        }
+        moveIntoPlace(temporaryFile, snapshotFile);
+        LOGGER.info("Snapshot written: " + snapshotFile.getAbsolutePath());
+    }
+
+    /**
+     * Move the completely written temporary file to the snapshot file (atomically if the file system supports it).
+     *
+     * @param temporaryFile The temporary file.
+     * @param snapshotFile  The snapshot file which is replaced.
+     * @throws IOException If the file cannot be moved.
+     */
+    private static void moveIntoPlace(File temporaryFile, File snapshotFile) throws IOException {
+        try {
+            try {
+                Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            temporaryFile.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Write the object triples of the given data set.
+     *
+     * @param data         The data set.
+     * @param snapshotFile The file to be written.
+     * @param sourceFile   The graph file from which the data set was parsed, may be null.
+     * @param parserSettings Fingerprint of the parser settings with which the data set was parsed.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(TripleDataSetMemory data, File snapshotFile, File sourceFile, long parserSettings)
+            throws IOException {
+        CompactQuotedTripleDataSetMemory compactData = new CompactQuotedTripleDataSetMemory();
+        for (Triple triple : data.getAllObjectTriples()) {
+            compactData.addObjectTriple(triple.subject, triple.predicate, triple.object);
+        }
+        write(compactData, false, snapshotFile, sourceFile, parserSettings);
+    }
+
+    /**
+     * Write the quoted triples and the object triples of the given data set.
+     *
+     * @param data         The data set.
+     * @param snapshotFile The file to be written.
+     * @param sourceFile   The graph file from which the data set was parsed, may be null.
+     * @param parserSettings Fingerprint of the parser settings with which the data set was parsed.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(QuotedTripleDataSetMemory data, File snapshotFile, File sourceFile, long parserSettings)
+            throws IOException {
+        CompactQuotedTripleDataSetMemory compactData = new CompactQuotedTripleDataSetMemory();
+        Collection<QuotedTriple> quotedTriples = data.getQuotedTriples().values();
+        compactData.addAll(quotedTriples, data.getAllObjectTriples());
+        int[] datatypeQuotedTriples = new int[getBitSetLength(compactData.quotedTripleNodes.size())];
+        for (QuotedTriple quotedTriple : quotedTriples) {
+            if (data.datatypeTriples.contains(quotedTriple)) {
+                int ordinal = compactData.nodeToQuotedTriple[compactData.getId(quotedTriple.qt)];
+                datatypeQuotedTriples[ordinal >>> 5] |= 1 << (ordinal & 31);
+            }
+        }
+        write(compactData, true, snapshotFile, sourceFile, parserSettings, datatypeQuotedTriples);
+    }
+
+    /**
+     * Read the header of the given snapshot file.
+     *
+     * @param snapshotFile The snapshot file.
+     * @return The header.
+     * @throws IOException If the file is no snapshot file of the current version.
+     */
+    public static Header readHeader(File snapshotFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(MAGIC, magic)) {
+                throw new IOException("Not a snapshot file: " + snapshotFile.getAbsolutePath());
+            }
+            Header header = new Header();
+            header.version = in.readInt();
+            if (header.version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + header.version + " (supported: " + VERSION + ").");
+            }
+            header.isRdfStar = (in.readInt() & FLAG_RDF_STAR) != 0;
+            header.sourceLength = in.readLong();
+            header.sourceLastModified = in.readLong();
+            header.parserSettings = in.readLong();
+            header.numberOfTerms = in.readInt();
+            header.numberOfNodes = in.readInt();
+            header.numberOfEdges = in.readInt();
+            header.numberOfQuotedTriples = in.readInt();
+            header.quotedTripleTableLength = in.readInt();
+            return header;
+        }
+    }
+
+    /**
+     * Check whether there is a readable snapshot for the given source file which is not older than the source file
+     * and which was written with the same parser settings.
+     *
+     * @param snapshotFile   The snapshot file.
+     * @param sourceFile     The graph file.
+     * @param parserSettings Fingerprint of the parser settings with which the source file would be parsed.
+     * @return True if the snapshot can be used instead of parsing the source file.
+     */
+    public static boolean isUpToDate(File snapshotFile, File sourceFile, long parserSettings) {
+        if (!snapshotFile.isFile()) return false;
+        try {
+            Header header = readHeader(snapshotFile);
+            if (header.parserSettings != parserSettings) {
+                LOGGER.info("Snapshot " + snapshotFile.getAbsolutePath() + " was written with other parser settings.");
+                return false;
+            }
+            return header.sourceLength == sourceFile.length() && header.sourceLastModified == sourceFile.lastModified();
+        } catch (IOException e) {
+            LOGGER.warn("Snapshot " + snapshotFile.getAbsolutePath() + " cannot be used: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Read the given snapshot file. The integer sections (including the term ranks) are copied onto the heap and the
+     * terms are added to a new dictionary (see the class comment).
+     *
+     * @param snapshotFile The snapshot file.
+     * @return The compacted data set.
+     * @throws IOException If the file cannot be read.
+     */
+    public static CompactQuotedTripleDataSetMemory read(File snapshotFile) throws IOException {
+        Header header = readHeader(snapshotFile);
+        CompactQuotedTripleDataSetMemory data = new CompactQuotedTripleDataSetMemory();
+        final int n = header.numberOfNodes;
+        final int e = header.numberOfEdges;
+        final int q = header.numberOfQuotedTriples;
+
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            long position = HEADER_BYTES;
+            data.forwardOffsets = readInts(channel, position, n + 1);
+            position += 4L * (n + 1);
+            data.forwardPredicates = readInts(channel, position, e);
+            position += 4L * e;
+            data.forwardObjects = readInts(channel, position, e);
+            position += 4L * e;
+            data.backwardOffsets = readInts(channel, position, n + 1);
+            position += 4L * (n + 1);
+            data.backwardPredicates = readInts(channel, position, e);
+            position += 4L * e;
+            data.backwardSubjects = readInts(channel, position, e);
+            position += 4L * e;
+            data.quotedTripleNodes.addAll(readInts(channel, position, q));
+            position += 4L * q;
+            data.quotedTripleSubjects.addAll(readInts(channel, position, q));
+            position += 4L * q;
+            data.quotedTriplePredicates.addAll(readInts(channel, position, q));
+            position += 4L * q;
+            data.quotedTripleObjects.addAll(readInts(channel, position, q));
+            position += 4L * q;
+            data.expandedQuotedTriples = readInts(channel, position, q);
+            position += 4L * q;
+            data.envelopingQuotedTriples = readInts(channel, position, q);
+            position += 4L * q;
+            data.quotedTripleTable = readInts(channel, position, header.quotedTripleTableLength);
+            position += 4L * header.quotedTripleTableLength;
+            position += 4L * getBitSetLength(q);
+            data.termRanks = readInts(channel, position, header.numberOfTerms);
+            position += 4L * header.numberOfTerms;
+
+            channel.position(position);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            TermDictionary dictionary = new TermDictionary(header.numberOfTerms);
+            byte[] buffer = new byte[256];
+            for (int id = 0; id < header.numberOfTerms; id++) {
+                int length = in.readInt();
+                if (length > buffer.length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, length);
+                dictionary.getOrAddId(new String(buffer, 0, length, StandardCharsets.UTF_8));
+            }
+            data.dictionary = dictionary;
+        }
+
+        data.numberOfNodes = n;
+        data.nodeToQuotedTriple = new int[header.numberOfTerms];
+        Arrays.fill(data.nodeToQuotedTriple, CompactQuotedTripleDataSetMemory.NONE);
+        for (int ordinal = 0; ordinal < q; ordinal++) {
+            data.nodeToQuotedTriple[data.quotedTripleNodes.get(ordinal)] = ordinal;
+        }
+        data.isCompacted = true;
+        LOGGER.info("Snapshot read: " + header.numberOfTerms + " terms, " + e + " object triples, " + q
+                + " quoted triples.");
+        return data;
+    }
+
+    /**
+     * Read the given snapshot file into the given data set.
+     *
+     * @param snapshotFile The snapshot file.
+     * @param data         The data set to which the object triples will be added.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void readInto(File snapshotFile, TripleDataSetMemory data) throws IOException {
+        CompactQuotedTripleDataSetMemory compactData = read(snapshotFile);
+        data.beginConcurrentBuild();
+        try {
+            for (int subject = 0; subject < compactData.numberOfNodes; subject++) {
+                String subjectTerm = compactData.getTerm(subject);
+                for (int i = 0; i < compactData.getOutDegree(subject); i++) {
+                    data.addObjectTriple(subjectTerm, compactData.getTerm(compactData.getOutPredicate(subject, i)),
+                            compactData.getTerm(compactData.getOutObject(subject, i)));
+                }
+            }
+        } finally {
+            data.finishConcurrentBuild();
+        }
+    }
+
+    /**
+     * Read the given snapshot file into the given data set.
+     *
+     * @param snapshotFile The snapshot file.
+     * @param data         The data set to which the quoted triples and object triples will be added.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void readInto(File snapshotFile, QuotedTripleDataSetMemory data) throws IOException {
+        CompactQuotedTripleDataSetMemory compactData = read(snapshotFile);
+        int[] datatypeQuotedTriples = readDatatypeQuotedTriples(snapshotFile);
+        data.beginConcurrentBuild();
+        try {
+            for (int ordinal = 0; ordinal < compactData.quotedTripleNodes.size(); ordinal++) {
+                QuotedTriple quotedTriple = new QuotedTriple(
+                        compactData.getTerm(compactData.quotedTripleNodes.get(ordinal)),
+                        compactData.getTerm(compactData.quotedTripleSubjects.get(ordinal)),
+                        compactData.getTerm(compactData.quotedTriplePredicates.get(ordinal)),
+                        compactData.getTerm(compactData.quotedTripleObjects.get(ordinal)));
+                if ((datatypeQuotedTriples[ordinal >>> 5] & (1 << (ordinal & 31))) != 0) {
+                    data.addDatatypeQuotedTriple(quotedTriple);
+                } else {
+                    data.addObjectQuotedTriple(quotedTriple);
+                }
+            }
+            for (int subject = 0; subject < compactData.numberOfNodes; subject++) {
+                String subjectTerm = compactData.getTerm(subject);
+                for (int i = 0; i < compactData.getOutDegree(subject); i++) {
+                    data.addObjectTriple(subjectTerm, compactData.getTerm(compactData.getOutPredicate(subject, i)),
+                            compactData.getTerm(compactData.getOutObject(subject, i)));
+                }
+            }
+        } finally {
+            data.finishConcurrentBuild();
+        }
+    }
+
+    /**
+     * Read the bit set of the ordinals of the quoted triples which were added as datatype quoted triples.
+     *
+     * @param snapshotFile The snapshot file.
+     * @return The bit set.
+     * @throws IOException If the file cannot be read.
+     */
+    private static int[] readDatatypeQuotedTriples(File snapshotFile) throws IOException {
+        Header header = readHeader(snapshotFile);
+        long position = HEADER_BYTES + 4L * (2L * (header.numberOfNodes + 1) + 4L * header.numberOfEdges
+                + 6L * header.numberOfQuotedTriples + header.quotedTripleTableLength);
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            return readInts(channel, position, getBitSetLength(header.numberOfQuotedTriples));
+        }
+    }
+
+    private static int getBitSetLength(int numberOfBits) {
+        return (numberOfBits + 31) >>> 5;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, byte[] buffer) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        int perChunk = buffer.length / 4;
+        for (int from = 0; from < values.length; from += perChunk) {
+            int length = Math.min(perChunk, values.length - from);
+            byteBuffer.clear();
+            byteBuffer.asIntBuffer().put(values, from, length);
+            out.write(buffer, 0, length * 4);
+        }
+    }
+
+    private static int[] readInts(FileChannel channel, long position, int length) throws IOException {
+        int[] result = new int[length];
+        for (int from = 0; from < length; from += MAX_INTS_PER_MAPPING) {
+            int chunk = Math.min(MAX_INTS_PER_MAPPING, length - from);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * from, 4L * chunk);
+            mapped.asIntBuffer().get(result, from, chunk);
+        }
+        return result;
+    }
+
+    /**
+     * The header of a snapshot file.
+     */
+    public static class Header {
+
+
+        int version;
+        boolean isRdfStar;
+        long sourceLength;
+        long sourceLastModified;
+        long parserSettings;
+        int numberOfTerms;
+        int numberOfNodes;
+        int numberOfEdges;
+        int numberOfQuotedTriples;
+        int quotedTripleTableLength;
+
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * @return True if the snapshot was written for an RDF-star graph.
+         */
+        public boolean isRdfStar() {
+            return isRdfStar;
+        }
+
+        /**
+         * @return The fingerprint of the parser settings with which the snapshot was written.
+         */
+        public long getParserSettings() {
+            return parserSettings;
+        }
+
+        public int getNumberOfTerms() {
+            return numberOfTerms;
+        }
+
+        public int getNumberOfEdges() {
+            return numberOfEdges;
+        }
+
+        public int getNumberOfQuotedTriples() {
+            return numberOfQuotedTriples;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Buffer for the concurrent build mode of the in-memory triple stores. Every ingesting thread appends into its own
+ * shard without any locking; the shards are merged into the indices of the store once all threads are done
+ * (see {@link TripleDataSetMemory#finishConcurrentBuild()} and
+ * {@link QuotedTripleDataSetMemory#finishConcurrentBuild()}).
+ */
+public class IngestBuffer {
+
+
+    /**
+     * All shards that have been created so far (one per thread).
+     */
+    private final Queue<Shard> shards = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The shard of the calling thread.
+     */
+    private final ThreadLocal<Shard> localShard = ThreadLocal.withInitial(this::newShard);
+
+    private Shard newShard() {
+        Shard shard = new Shard(Thread.currentThread().getName());
+        shards.add(shard);
+        return shard;
+    }
+
+    public void addObjectTriple(Triple triple) {
+        Shard shard = localShard.get();
+        shard.objectTriples.add(triple);
+        shard.count();
+    }
+
+    public void addDatatypeTriple(Triple triple) {
+        Shard shard = localShard.get();
+        shard.datatypeTriples.add(triple);
+        shard.count();
+    }
+
+    public void addObjectQuotedTriple(QuotedTriple quotedTriple) {
+        Shard shard = localShard.get();
+        shard.objectQuotedTriples.add(quotedTriple);
+        shard.count();
+    }
+
+    public void addDatatypeQuotedTriple(QuotedTriple quotedTriple) {
+        Shard shard = localShard.get();
+        shard.datatypeQuotedTriples.add(quotedTriple);
+        shard.count();
+    }
+
+    /**
+     * Add a batch of quoted triples and object triples to the shard of the calling thread.
+     *
+     * @param quotedTriplesToAdd Quoted triples.
+     * @param objectTriplesToAdd Object triples.
+     */
+    public void addAll(Collection<QuotedTriple> quotedTriplesToAdd, Collection<Triple> objectTriplesToAdd) {
+        Shard shard = localShard.get();
+        shard.objectQuotedTriples.addAll(quotedTriplesToAdd);
+        shard.objectTriples.addAll(objectTriplesToAdd);
+        shard.count(quotedTriplesToAdd.size() + objectTriplesToAdd.size());
+    }
+
+    /**
+     * Obtain the shards. Must only be called once all ingesting threads are done.
+     *
+     * @return All shards.
+     */
+    Collection<Shard> getShards() {
+        return shards;
+    }
+
+    /**
+     * Ingest throughput per thread.
+     *
+     * @return Map of the form {@code thread name -> triples per second}.
+     */
+    public Map<String, Double> getTriplesPerSecondPerThread() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Shard shard : shards) {
+            String name = shard.threadName;
+            if (result.containsKey(name)) {
+                name = name + "#" + result.size();
+            }
+            result.put(name, shard.getTriplesPerSecond());
+        }
+        return result;
+    }
+
+    /**
+     * Log the ingest throughput per thread.
+     *
+     * @param logger The logger to be used.
+     */
+    void logThroughput(Logger logger) {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.numberOfTriples;
+            logger.info(String.format("Ingest thread %s: %d triples in %.2f s (%.0f triples/s)", shard.threadName,
+                    shard.numberOfTriples, shard.getDurationNanos() / 1e9, shard.getTriplesPerSecond()));
+        }
+        logger.info("Concurrent build: " + total + " triples ingested by " + shards.size() + " threads.");
+    }
+
+    /**
+     * Run the given tasks in parallel and wait for their completion. If a task fails, the remaining tasks are
+     * cancelled and the failure is rethrown, so that a half-built index is never used.
+     *
+     * @param tasks The tasks (they must not work on the same data structures).
+     * @throws IllegalStateException If a task failed or the calling thread has been interrupted.
+     */
+    static void runInParallel(Runnable... tasks) {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.length);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(pool.submit(task));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A parallel task failed.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the parallel tasks.", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The buffer of a single thread.
+     */
+    static class Shard {
+
+
+        /**
+         * The number of triples after which the clock is read again.
+         */
+        static final int CLOCK_INTERVAL = 4096;
+
+        Shard(String threadName) {
+            this.threadName = threadName;
+        }
+
+        final String threadName;
+        final List<Triple> objectTriples = new ArrayList<>();
+        final List<Triple> datatypeTriples = new ArrayList<>();
+        final List<QuotedTriple> objectQuotedTriples = new ArrayList<>();
+        final List<QuotedTriple> datatypeQuotedTriples = new ArrayList<>();
+
+        long numberOfTriples;
+        private long firstNanos;
+        private long lastNanos;
+
+        /**
+         * The number of triples at the time of {@link #lastNanos}.
+         */
+        private long timedTriples;
+
+        void count() {
+            count(1);
+        }
+
+        /**
+         * Count the given triples. The clock is read for the first {@link #CLOCK_INTERVAL} triples and then only once
+         * per block of {@link #CLOCK_INTERVAL} triples.
+         *
+         * @param numberOfNewTriples The number of triples added.
+         */
+        void count(int numberOfNewTriples) {
+            long before = numberOfTriples;
+            numberOfTriples += numberOfNewTriples;
+            if (before < CLOCK_INTERVAL || before / CLOCK_INTERVAL != numberOfTriples / CLOCK_INTERVAL) {
+                long now = System.nanoTime();
+                if (before == 0) {
+                    firstNanos = now;
+                }
+                lastNanos = now;
+                timedTriples = numberOfTriples;
+            }
+        }
+
+        long getDurationNanos() {
+            return lastNanos - firstNanos;
+        }
+
+        double getTriplesPerSecond() {
+            return timedTriples * 1e9 / Math.max(1, getDurationNanos());
+        }
+    }
+}
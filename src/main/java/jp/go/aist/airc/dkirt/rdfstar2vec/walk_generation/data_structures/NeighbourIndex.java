@@ -0,0 +1,148 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Random-access neighbour view of the in-memory triple stores ({@link TripleDataSetMemory} and
+ * {@link QuotedTripleDataSetMemory}): the object triples of every subject and of every object as segments of one flat
+ * array per direction. The view is built in one pass once loading is finished (see
+ * {@code ensureNeighbourIndex()} of the stores) and replaced as a whole if the object triples change afterwards; it
+ * shares the node strings and triples of the store.
+ * <p>
+ * Memory: in addition to the {@code Set<Triple>} indices of the store (which answer the (S, P, ?) and (?, P, O)
+ * queries and are therefore kept), every direction needs one reference per object triple, and one map entry, one
+ * {@link Integer}, and one offset per node. The alias tables of a non-uniform weighting ({@link WeightedTripleIndex})
+ * are built on the same segments.
+ * <p>
+ * The triples of a node are sorted by their terms ({@link NeighbourIndex#OUT_ORDER}, {@link NeighbourIndex#IN_ORDER})
+ * and not kept in the iteration order of the hash sets, which depends on the order in which the triples were added
+ * (and hence on the number of parser threads). Therefore, a seeded walk draws the same neighbours after every load.
+ */
+final class NeighbourIndex {
+
+
+    /**
+     * Canonical order of the outgoing triples of a node: by predicate, then by object.
+     */
+    static final Comparator<Triple> OUT_ORDER = Comparator.comparing((Triple triple) -> triple.predicate)
+            .thenComparing(triple -> triple.object);
+
+    /**
+     * Canonical order of the incoming triples of a node: by predicate, then by subject.
+     */
+    static final Comparator<Triple> IN_ORDER = Comparator.comparing((Triple triple) -> triple.predicate)
+            .thenComparing(triple -> triple.subject);
+
+    /**
+     * The object triples grouped by subject.
+     */
+    final Segments out;
+
+    /**
+     * The object triples grouped by object.
+     */
+    final Segments in;
+
+    /**
+     * Constructor
+     *
+     * @param subjectToObjectTriples The subject index of the store ({@code subject -> predicate -> triples}).
+     * @param objectToObjectTriples  The object index of the store ({@code object -> predicate -> triples}).
+     */
+    NeighbourIndex(Map<String, Map<String, Set<Triple>>> subjectToObjectTriples,
+                   Map<String, Map<String, Set<Triple>>> objectToObjectTriples) {
+        this.out = new Segments(subjectToObjectTriples, OUT_ORDER);
+        this.in = new Segments(objectToObjectTriples, IN_ORDER);
+    }
+
+    /**
+     * The triples of one direction: the node with segment {@code s} owns the triples {@code offsets[s]} (inclusive)
+     * to {@code offsets[s + 1]} (exclusive).
+     */
+    static final class Segments {
+
+
+        private final Map<String, Integer> nodeToSegment;
+        final int[] offsets;
+        final Triple[] triples;
+
+        Segments(Map<String, Map<String, Set<Triple>>> index, Comparator<Triple> order) {
+            nodeToSegment = new HashMap<>(index.size() * 4 / 3 + 1);
+            int numberOfSegments = 0;
+            int numberOfTriples = 0;
+            for (Map.Entry<String, Map<String, Set<Triple>>> entry : index.entrySet()) {
+                int size = 0;
+                for (Set<Triple> triples : entry.getValue().values()) {
+                    size += triples.size();
+                }
+                if (size == 0) continue;
+                nodeToSegment.put(entry.getKey(), numberOfSegments++);
+                numberOfTriples += size;
+            }
+            offsets = new int[numberOfSegments + 1];
+            triples = new Triple[numberOfTriples];
+            int i = 0;
+            for (Map.Entry<String, Map<String, Set<Triple>>> entry : index.entrySet()) {
+                Integer segment = nodeToSegment.get(entry.getKey());
+                if (segment == null) continue;
+                int from = i;
+                for (Set<Triple> set : entry.getValue().values()) {
+                    for (Triple triple : set) {
+                        triples[i++] = triple;
+                    }
+                }
+                if (i - from > 1) Arrays.sort(triples, from, i, order);
+                offsets[segment + 1] = i;
+            }
+        }
+
+        /**
+         * @param node The node.
+         * @return The segment of the node, -1 if the node has no triples in this direction.
+         */
+        int getSegment(String node) {
+            if (node == null) return -1;
+            Integer segment = nodeToSegment.get(node);
+            return segment == null ? -1 : segment;
+        }
+
+        /**
+         * @param node The node.
+         * @return The number of triples of the node.
+         */
+        int size(String node) {
+            int segment = getSegment(node);
+            return segment < 0 ? 0 : offsets[segment + 1] - offsets[segment];
+        }
+
+        /**
+         * @param node The node.
+         * @param i    Index in the range [0, {@link Segments#size(String)}).
+         * @return The i-th triple of the node.
+         */
+        Triple get(String node, int i) {
+            int segment = getSegment(node);
+            if (segment < 0 || i < 0 || i >= offsets[segment + 1] - offsets[segment]) {
+                throw new IndexOutOfBoundsException("Index " + i + " for node " + node);
+            }
+            return triples[offsets[segment] + i];
+        }
+
+        /**
+         * @param node   The node.
+         * @param random The random number generator to be used.
+         * @return A uniformly drawn triple of the node, null if the node has no triples.
+         */
+        Triple sample(String node, Random random) {
+            int segment = getSegment(node);
+            if (segment < 0) return null;
+            int from = offsets[segment];
+            return triples[from + random.nextInt(offsets[segment + 1] - from)];
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Character trie over namespace IRIs which maps every namespace to its prefix label (e.g.
+ * {@code http://www.w3.org/2000/01/rdf-schema# -> rdfs:}). The longest namespace of a term is found in O(length of
+ * the term), independently of the number of namespaces.
+ */
+public class PrefixTrie {
+
+
+    /**
+     * The root node (empty namespace).
+     */
+    private final Node root = new Node();
+
+    /**
+     * The number of namespaces.
+     */
+    private int size = 0;
+
+    /**
+     * Add the given namespace. If the namespace is already known, its label is replaced.
+     *
+     * @param namespace The namespace IRI.
+     * @param label     The label which replaces the namespace, e.g. {@code rdfs:}.
+     */
+    public void put(String namespace, String label) {
+        Node node = root;
+        for (int i = 0; i < namespace.length(); i++) {
+            node = node.getOrAddChild(namespace.charAt(i));
+        }
+        if (node.label == null) {
+            size++;
+        }
+        node.label = label;
+    }
+
+    /**
+     * Obtain the label of the given namespace.
+     *
+     * @param namespace The namespace IRI.
+     * @return The label, null if the namespace is not known.
+     */
+    public String get(String namespace) {
+        Node node = root;
+        for (int i = 0; i < namespace.length() && node != null; i++) {
+            node = node.getChild(namespace.charAt(i));
+        }
+        return node == null ? null : node.label;
+    }
+
+    /**
+     * Replace the longest known namespace at the beginning of the term by its label.
+     *
+     * @param term The term.
+     * @return The shortened term, the very same instance if no namespace matches.
+     */
+    public String shorten(String term) {
+        return shorten(term, 0);
+    }
+
+    /**
+     * Replace the longest known namespace starting at the given position of the term by its label.
+     *
+     * @param term The term.
+     * @param from The position at which the namespace has to start.
+     * @return The shortened term, the very same instance if no namespace matches.
+     */
+    public String shorten(String term, int from) {
+        Node node = root;
+        String label = null;
+        int end = from;
+        for (int i = from; i < term.length(); i++) {
+            node = node.getChild(term.charAt(i));
+            if (node == null) break;
+            if (node.label != null) {
+                label = node.label;
+                end = i + 1;
+            }
+        }
+        if (label == null) {
+            return term;
+        }
+        return term.substring(0, from) + label + term.substring(end);
+    }
+
+    /**
+     * The number of namespaces.
+     *
+     * @return Number of namespaces.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Obtain all namespaces.
+     *
+     * @return Sorted map of the form {@code namespace -> label}.
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> result = new TreeMap<>();
+        collect(root, new StringBuilder(), result);
+        return result;
+    }
+
+    private static void collect(Node node, StringBuilder path, Map<String, String> result) {
+        if (node.label != null) {
+            result.put(path.toString(), node.label);
+        }
+        for (int i = 0; i < node.keys.length; i++) {
+            path.append(node.keys[i]);
+            collect(node.children[i], path, result);
+            path.setLength(path.length() - 1);
+        }
+    }
+
+    /**
+     * A node of the trie. The children are kept in sorted arrays (most IRI characters have few successors).
+     */
+    private static class Node {
+
+
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+
+        /**
+         * The label if the path to this node is a namespace, else null.
+         */
+        String label;
+
+        Node getChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+
+        Node getOrAddChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int insertionPoint = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertionPoint);
+            System.arraycopy(children, 0, newChildren, 0, insertionPoint);
+            System.arraycopy(keys, insertionPoint, newKeys, insertionPoint + 1, keys.length - insertionPoint);
+            System.arraycopy(children, insertionPoint, newChildren, insertionPoint + 1, children.length - insertionPoint);
+            Node child = new Node();
+            newKeys[insertionPoint] = c;
+            newChildren[insertionPoint] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
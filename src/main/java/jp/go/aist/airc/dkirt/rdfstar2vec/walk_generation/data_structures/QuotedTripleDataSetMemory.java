@@ -31,6 +31,8 @@ public class QuotedTripleDataSetMemory {
         datatypeTriples = new HashSet<>();
         objectNodes = new HashSet<>();
         quotedTriples = new HashMap<>();
+        subjectToEnclosingQuotedTriple = new HashMap<>();
+        structuralQuotedTripleIndex = new QuotedTriple[16];
     }
 
     /**
@@ -72,6 +74,63 @@ public class QuotedTripleDataSetMemory {
      */
     Map<String, QuotedTriple> quotedTriples;
 
+    /**
+     * Reverse index for nested quoted triples (built while parsing).
+     * Form:
+     * {@code quoted triple node -> quoted triple which uses the node as subject} (if there are several, the one with
+     * the smallest node, see {@link QuotedTripleDataSetMemory#getEnclosingQuotedTriple(String)})
+     */
+    Map<String, QuotedTriple> subjectToEnclosingQuotedTriple;
+
+    /**
+     * Structural index of the quoted triples: open addressing table (linear probing) keyed on the constituents
+     * (s, p, o) so that a quoted triple can be found without building its {@code "<<s-p-o>>"} string.
+     */
+    private QuotedTriple[] structuralQuotedTripleIndex;
+
+    /**
+     * Number of entries in {@link QuotedTripleDataSetMemory#structuralQuotedTripleIndex}.
+     */
+    private int structuralQuotedTripleIndexSize;
+
+    /**
+     * The predicate used by RDF-star-ext to attach a value to a quoted triple.
+     */
+    public static final String RDF_VALUE = "rdf:value";
+
+    /**
+     * Random-access neighbour view. It is built when the concurrent build is finished or by
+     * {@link QuotedTripleDataSetMemory#ensureNeighbourIndex()}; null if the object triples changed since it was built.
+     */
+    private volatile NeighbourIndex neighbourIndex;
+
+    /**
+     * The weighting applied by {@link QuotedTripleDataSetMemory#sampleWeightedNeighbour(String, Random)} and
+     * {@link QuotedTripleDataSetMemory#sampleWeightedPredecessor(String, Random)}.
+     */
+    private volatile EdgeWeighting edgeWeighting = EdgeWeighting.UNIFORM;
+
+    /**
+     * The number of threads used to (re-)build the alias tables.
+     */
+    private int aliasTableThreads = 1;
+
+    /**
+     * Alias tables of the edge weighting (built on the segments of the neighbour view). Null if the weighting is
+     * uniform or if the object triples changed since the tables were built.
+     */
+    private volatile WeightedTripleIndex weightedTripleIndex;
+
+    /**
+     * Buffer of the concurrent build mode, null if the store is not in the concurrent build mode.
+     */
+    private volatile IngestBuffer ingestBuffer;
+
+    /**
+     * Number of (nested) {@link QuotedTripleDataSetMemory#beginConcurrentBuild()} calls that have not been finished yet.
+     */
+    private int concurrentBuildDepth;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(QuotedTripleDataSetMemory.class);
     
     /**
@@ -111,9 +170,23 @@ public class QuotedTripleDataSetMemory {
      *
      * @param tripleToAdd QuotedTriple where the object is a string.
      */
-    public synchronized void addDatatypeQuotedTriple(QuotedTriple tripleToAdd) {
+    public void addDatatypeQuotedTriple(QuotedTriple tripleToAdd) {
+        IngestBuffer buffer = ingestBuffer;
+        if (buffer != null) {
+            buffer.addDatatypeQuotedTriple(tripleToAdd);
+            return;
+        }
+        synchronized (this) {
+            putDatatypeQuotedTriple(tripleToAdd);
+        }
+    }
+
+    private void putDatatypeQuotedTriple(QuotedTriple tripleToAdd) {
         this.objectNodes.add(tripleToAdd.subject);
-        this.quotedTriples.put(tripleToAdd.qt, tripleToAdd);
+        if (this.quotedTriples.put(tripleToAdd.qt, tripleToAdd) == null) {
+            indexQuotedTripleStructure(tripleToAdd);
+        }
+        indexEnclosingQuotedTriple(tripleToAdd);
         if (this.subjectToDatatypeTriples.containsKey(tripleToAdd.subject)) {
             Map<String, Set<String>> propertyMap = this.subjectToDatatypeTriples.get(tripleToAdd.subject);
 
@@ -147,7 +220,18 @@ public class QuotedTripleDataSetMemory {
      *
      * @param tripleToAdd Triple where the object is a string.
      */
-    public synchronized void addDatatypeTriple(Triple tripleToAdd) {
+    public void addDatatypeTriple(Triple tripleToAdd) {
+        IngestBuffer buffer = ingestBuffer;
+        if (buffer != null) {
+            buffer.addDatatypeTriple(tripleToAdd);
+            return;
+        }
+        synchronized (this) {
+            putDatatypeTriple(tripleToAdd);
+        }
+    }
+
+    private void putDatatypeTriple(Triple tripleToAdd) {
         this.objectNodes.add(tripleToAdd.subject);
         if (this.subjectToDatatypeTriples.containsKey(tripleToAdd.subject)) {
             Map<String, Set<String>> propertyMap = this.subjectToDatatypeTriples.get(tripleToAdd.subject);
@@ -177,12 +261,45 @@ public class QuotedTripleDataSetMemory {
         datatypeTriples.add(tripleToAdd);
     }
     
+    /**
+     * Add a batch of quoted triples and object triples under a single lock acquisition (thread-safe).
+     *
+     * @param quotedTriplesToAdd Quoted triples to be added.
+     * @param objectTriplesToAdd Object triples to be added.
+     */
+    public void addAll(Collection<QuotedTriple> quotedTriplesToAdd, Collection<Triple> objectTriplesToAdd) {
+        IngestBuffer buffer = ingestBuffer;
+        if (buffer != null) {
+            buffer.addAll(quotedTriplesToAdd, objectTriplesToAdd);
+            return;
+        }
+        synchronized (this) {
+            for (QuotedTriple quotedTriple : quotedTriplesToAdd) {
+                putObjectQuotedTriple(quotedTriple);
+            }
+            for (Triple triple : objectTriplesToAdd) {
+                putObjectTriple(triple);
+            }
+        }
+    }
+
     /**
      * Add the given triple (thread-safe).
      *
      * @param tripleToAdd QuotedTriple to be added.
      */
-    public synchronized void addObjectQuotedTriple(QuotedTriple tripleToAdd) {
+    public void addObjectQuotedTriple(QuotedTriple tripleToAdd) {
+        IngestBuffer buffer = ingestBuffer;
+        if (buffer != null) {
+            buffer.addObjectQuotedTriple(tripleToAdd);
+            return;
+        }
+        synchronized (this) {
+            putObjectQuotedTriple(tripleToAdd);
+        }
+    }
+
+    private void putObjectQuotedTriple(QuotedTriple tripleToAdd) {
         if (this.quotedTriples.containsKey(tripleToAdd.qt)) {
             return;
         }
@@ -190,6 +307,8 @@ public class QuotedTripleDataSetMemory {
 //        this.objectNodes.add(tripleToAdd.object);
 //        this.objectNodes.add(tripleToAdd.qt);
         this.quotedTriples.put(tripleToAdd.qt, tripleToAdd);
+        indexQuotedTripleStructure(tripleToAdd);
+        indexEnclosingQuotedTriple(tripleToAdd);
         
 //        Map<String, Set<Triple>> subjectPredicateToTripleMap = subjectToObjectTriples.get(tripleToAdd.subject);
 //
@@ -249,63 +368,104 @@ public class QuotedTripleDataSetMemory {
      *
      * @param tripleToAdd Triple to be added.
      */
-    public synchronized void addObjectTriple(Triple tripleToAdd) {
-        if (this.objectTriples.contains(tripleToAdd)) {
+    public void addObjectTriple(Triple tripleToAdd) {
+        IngestBuffer buffer = ingestBuffer;
+        if (buffer != null) {
+            buffer.addObjectTriple(tripleToAdd);
+            return;
+        }
+        synchronized (this) {
+            putObjectTriple(tripleToAdd);
+        }
+    }
+
+    private void putObjectTriple(Triple tripleToAdd) {
+        if (!this.objectTriples.add(tripleToAdd)) {
             return;
         }
         this.objectNodes.add(tripleToAdd.subject);
         this.objectNodes.add(tripleToAdd.object);
-        Map<String, Set<Triple>> subjectPredicateToTripleMap = subjectToObjectTriples.get(tripleToAdd.subject);
-
-        if (subjectPredicateToTripleMap == null) {
-            Map<String, Set<Triple>> predicateToObjectMap = new HashMap<>();
-            Set<Triple> triples = new HashSet<>();
-            triples.add(tripleToAdd);
-            predicateToObjectMap.put(tripleToAdd.predicate, triples);
-            subjectToObjectTriples.put(tripleToAdd.subject, predicateToObjectMap);
-        } else {
-            // there is already an entry for the subject
-            // check for predicate
-            if (subjectPredicateToTripleMap.containsKey(tripleToAdd.predicate)) {
-                // predicate contained, add our object
-                subjectPredicateToTripleMap.get(tripleToAdd.predicate).add(tripleToAdd);
-            } else {
-                // predicate not contained, add predicate -> object
-                Set<Triple> triples = new HashSet<>();
-                triples.add(tripleToAdd);
-                subjectPredicateToTripleMap.put(tripleToAdd.predicate, triples);
-            }
+        indexBySubject(tripleToAdd);
+        indexByPredicate(tripleToAdd);
+        indexByObject(tripleToAdd);
+        if (neighbourIndex != null) neighbourIndex = null;
+        if (weightedTripleIndex != null) weightedTripleIndex = null;
+    }
+
+    private void indexBySubject(Triple tripleToAdd) {
+        subjectToObjectTriples.computeIfAbsent(tripleToAdd.subject, k -> new HashMap<>())
+                .computeIfAbsent(tripleToAdd.predicate, k -> new HashSet<>())
+                .add(tripleToAdd);
+    }
+
+    private void indexByPredicate(Triple tripleToAdd) {
+        predicateToObjectTriples.computeIfAbsent(tripleToAdd.predicate, k -> new ArrayList<>()).add(tripleToAdd);
+    }
+
+    private void indexByObject(Triple tripleToAdd) {
+        objectToObjectTriples.computeIfAbsent(tripleToAdd.object, k -> new HashMap<>())
+                .computeIfAbsent(tripleToAdd.predicate, k -> new HashSet<>())
+                .add(tripleToAdd);
+    }
+
+    /**
+     * Switch to the concurrent build mode: the add methods no longer lock the store but append into a buffer of
+     * the calling thread. The triples become visible after {@link QuotedTripleDataSetMemory#finishConcurrentBuild()}.
+     * Calls may be nested; the buffers are merged when the outermost build is finished.
+     */
+    public synchronized void beginConcurrentBuild() {
+        if (concurrentBuildDepth++ == 0) {
+            ingestBuffer = new IngestBuffer();
         }
+    }
 
-        List<Triple> predicateToTripleList = predicateToObjectTriples.get(tripleToAdd.predicate);
-        if (predicateToTripleList == null) {
-            ArrayList<Triple> newList = new ArrayList<>();
-            newList.add(tripleToAdd);
-            predicateToObjectTriples.put(tripleToAdd.predicate, newList);
-        } else predicateToTripleList.add(tripleToAdd);
-
-        Map<String, Set<Triple>> objectPredicateToTripleMap = objectToObjectTriples.get(tripleToAdd.object);
-        if (objectPredicateToTripleMap == null) {
-            Map<String, Set<Triple>> predicateToObjectMap = new HashMap<>();
-            Set<Triple> triples = new HashSet<>();
-            triples.add(tripleToAdd);
-            predicateToObjectMap.put(tripleToAdd.predicate, triples);
-            objectToObjectTriples.put(tripleToAdd.object, predicateToObjectMap);
-        } else {
-            // there is already an entry for the object
-            // check for predicate
-            if (objectPredicateToTripleMap.containsKey(tripleToAdd.predicate)) {
-                // predicate contained, add our object
-                objectPredicateToTripleMap.get(tripleToAdd.predicate).add(tripleToAdd);
-            } else {
-                // predicate not contained, add predicate -> object
-                Set<Triple> triples = new HashSet<>();
-                triples.add(tripleToAdd);
-                objectPredicateToTripleMap.put(tripleToAdd.predicate, triples);
-            }
+    /**
+     * Finish the concurrent build mode. If this is the outermost build, the buffers of all ingesting threads are
+     * merged into the store; the individual indices are built in parallel. Must only be called once the threads
+     * that ingest into the build are done.
+     *
+     * @return Ingest throughput (triples per second) per thread, empty if the buffers were not merged (yet).
+     */
+    public synchronized Map<String, Double> finishConcurrentBuild() {
+        if (concurrentBuildDepth == 0 || --concurrentBuildDepth > 0) {
+            return new HashMap<>();
+        }
+        IngestBuffer buffer = ingestBuffer;
+        ingestBuffer = null;
 
+        // deduplication against the existing triples
+        List<Triple> newObjectTriples = new ArrayList<>();
+        for (IngestBuffer.Shard shard : buffer.getShards()) {
+            for (Triple triple : shard.objectTriples) {
+                if (objectTriples.add(triple)) {
+                    newObjectTriples.add(triple);
+                }
+            }
         }
-        objectTriples.add(tripleToAdd);
+
+        // the indices are independent of each other
+        IngestBuffer.runInParallel(
+                () -> newObjectTriples.forEach(this::indexBySubject),
+                () -> newObjectTriples.forEach(this::indexByPredicate),
+                () -> newObjectTriples.forEach(this::indexByObject),
+                () -> {
+                    for (Triple triple : newObjectTriples) {
+                        objectNodes.add(triple.subject);
+                        objectNodes.add(triple.object);
+                    }
+                    for (IngestBuffer.Shard shard : buffer.getShards()) {
+                        shard.objectQuotedTriples.forEach(this::putObjectQuotedTriple);
+                        shard.datatypeQuotedTriples.forEach(this::putDatatypeQuotedTriple);
+                        shard.datatypeTriples.forEach(this::putDatatypeTriple);
+                    }
+                });
+        // the neighbour view (and the alias tables) are built once, now that loading is finished
+        neighbourIndex = null;
+        weightedTripleIndex = null;
+        buildNeighbourIndex();
+
+        buffer.logThroughput(LOGGER);
+        return buffer.getTriplesPerSecondPerThread();
     }
 
     /**
@@ -350,6 +510,222 @@ public class QuotedTripleDataSetMemory {
         return result;
     }
 
+    /**
+     * Obtain the number of object triples in which the given node is the subject.
+     * In contrast to {@link QuotedTripleDataSetMemory#getObjectTriplesInvolvingSubject(String)}, no list is created.
+     *
+     * @param subject The subject.
+     * @return Number of outgoing object triples (0 if the subject is unknown).
+     */
+    public int getOutDegree(String subject) {
+        return getNeighbourIndex().out.size(subject);
+    }
+
+    /**
+     * Obtain the i-th object triple in which the given node is the subject.
+     *
+     * @param subject The subject.
+     * @param i       Index in the range [0, {@link QuotedTripleDataSetMemory#getOutDegree(String)}).
+     * @return The triple.
+     */
+    public Triple getOutTriple(String subject, int i) {
+        return getNeighbourIndex().out.get(subject, i);
+    }
+
+    /**
+     * Obtain the number of object triples in which the given node is the object.
+     *
+     * @param object The object.
+     * @return Number of incoming object triples (0 if the object is unknown).
+     */
+    public int getInDegree(String object) {
+        return getNeighbourIndex().in.size(object);
+    }
+
+    /**
+     * Obtain the i-th object triple in which the given node is the object.
+     *
+     * @param object The object.
+     * @param i      Index in the range [0, {@link QuotedTripleDataSetMemory#getInDegree(String)}).
+     * @return The triple.
+     */
+    public Triple getInTriple(String object, int i) {
+        return getNeighbourIndex().in.get(object, i);
+    }
+
+    /**
+     * Draw an outgoing object triple of the given node uniformly at random. No objects are allocated.
+     *
+     * @param subject The subject.
+     * @param random  The random number generator to be used.
+     * @return Drawn triple, null if the node has no outgoing object triples.
+     */
+    public Triple sampleNeighbour(String subject, Random random) {
+        return getNeighbourIndex().out.sample(subject, random);
+    }
+
+    /**
+     * Draw an incoming object triple of the given node uniformly at random. No objects are allocated.
+     *
+     * @param object The object.
+     * @param random The random number generator to be used.
+     * @return Drawn triple, null if the node has no incoming object triples.
+     */
+    public Triple samplePredecessor(String object, Random random) {
+        return getNeighbourIndex().in.sample(object, random);
+    }
+
+    /**
+     * Check whether there is an object triple (with any predicate) from the given subject to the given object.
+     * Only the predicates of the node with fewer predicates are probed.
+     *
+     * @param subject The subject.
+     * @param object  The object.
+     * @return True if the subject links to the object.
+     */
+    public boolean isLinked(String subject, String object) {
+        if (subject == null || object == null) return false;
+        Map<String, Set<Triple>> subjectPredicates = subjectToObjectTriples.get(subject);
+        if (subjectPredicates == null) return false;
+        Map<String, Set<Triple>> objectPredicates = objectToObjectTriples.get(object);
+        if (objectPredicates == null) return false;
+        Map<String, Set<Triple>> predicates = subjectPredicates.size() <= objectPredicates.size() ?
+                subjectPredicates : objectPredicates;
+        for (String predicate : predicates.keySet()) {
+            if (objectTriples.contains(new Triple(subject, predicate, object))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Set the weighting of {@link QuotedTripleDataSetMemory#sampleWeightedNeighbour(String, Random)} and
+     * {@link QuotedTripleDataSetMemory#sampleWeightedPredecessor(String, Random)} and build the alias tables of all nodes
+     * (in parallel). If triples are added later on, the tables are rebuilt by
+     * {@link QuotedTripleDataSetMemory#ensureNeighbourIndex()}.
+     *
+     * @param weighting       The edge weighting.
+     * @param numberOfThreads The number of threads used to build the tables.
+     */
+    public synchronized void buildAliasTables(EdgeWeighting weighting, int numberOfThreads) {
+        this.edgeWeighting = weighting;
+        this.aliasTableThreads = Math.max(1, numberOfThreads);
+        this.weightedTripleIndex = null;
+        buildNeighbourIndex();
+    }
+
+    /**
+     * Builds the neighbour view (and the alias tables of a non-uniform weighting) if the object triples changed
+     * since they were built. This happens automatically when a concurrent build is finished; after adding or
+     * removing triples outside of a concurrent build, this method shall be called before walks are generated (else
+     * the view is rebuilt on the next access, i.e., on a walker thread). It is cheap if nothing changed and does
+     * nothing within a concurrent build.
+     */
+    public void ensureNeighbourIndex() {
+        if (ingestBuffer != null) return;
+        if (neighbourIndex == null || (weightedTripleIndex == null && edgeWeighting != EdgeWeighting.UNIFORM)) {
+            buildNeighbourIndex();
+        }
+    }
+
+    /**
+     * Build the missing parts of the neighbour view and of the alias tables.
+     *
+     * @return The neighbour view.
+     */
+    private synchronized NeighbourIndex buildNeighbourIndex() {
+        if (neighbourIndex == null) {
+            neighbourIndex = new NeighbourIndex(subjectToObjectTriples, objectToObjectTriples);
+        }
+        if (weightedTripleIndex == null && edgeWeighting != EdgeWeighting.UNIFORM) {
+            long startTime = System.currentTimeMillis();
+            weightedTripleIndex = new WeightedTripleIndex(neighbourIndex, predicateToObjectTriples, edgeWeighting,
+                    aliasTableThreads);
+            LOGGER.info("Built alias tables (" + edgeWeighting + ") in " + (System.currentTimeMillis() - startTime)
+                    + " ms.");
+        }
+        return neighbourIndex;
+    }
+
+    public EdgeWeighting getEdgeWeighting() {
+        return edgeWeighting;
+    }
+
+    /**
+     * Draw an outgoing object triple of the given node proportionally to the weights of the current
+     * {@link EdgeWeighting} (O(1), no objects are allocated).
+     *
+     * @param subject The subject.
+     * @param random  The random number generator to be used.
+     * @return Drawn triple, null if the node has no outgoing object triples.
+     */
+    public Triple sampleWeightedNeighbour(String subject, Random random) {
+        WeightedTripleIndex index = getWeightedTripleIndex();
+        return index == null ? sampleNeighbour(subject, random) : index.sampleOut(subject, random);
+    }
+
+    /**
+     * Draw an incoming object triple of the given node proportionally to the weights of the current
+     * {@link EdgeWeighting} (O(1), no objects are allocated).
+     *
+     * @param object The object.
+     * @param random The random number generator to be used.
+     * @return Drawn triple, null if the node has no incoming object triples.
+     */
+    public Triple sampleWeightedPredecessor(String object, Random random) {
+        WeightedTripleIndex index = getWeightedTripleIndex();
+        return index == null ? samplePredecessor(object, random) : index.sampleIn(object, random);
+    }
+
+    /**
+     * Obtain the sum of the weights of the outgoing object triples of the given node.
+     *
+     * @param subject The subject.
+     * @return Total weight (the out-degree if the weighting is uniform).
+     */
+    public double getOutWeight(String subject) {
+        WeightedTripleIndex index = getWeightedTripleIndex();
+        return index == null ? getOutDegree(subject) : index.getOutWeight(subject);
+    }
+
+    /**
+     * Obtain the sum of the weights of the incoming object triples of the given node.
+     *
+     * @param object The object.
+     * @return Total weight (the in-degree if the weighting is uniform).
+     */
+    public double getInWeight(String object) {
+        WeightedTripleIndex index = getWeightedTripleIndex();
+        return index == null ? getInDegree(object) : index.getInWeight(object);
+    }
+
+    private WeightedTripleIndex getWeightedTripleIndex() {
+        WeightedTripleIndex index = weightedTripleIndex;
+        if (index != null || edgeWeighting == EdgeWeighting.UNIFORM) return index;
+        synchronized (this) {
+            if (weightedTripleIndex == null && edgeWeighting != EdgeWeighting.UNIFORM) {
+                logRebuildOnAccess();
+                buildNeighbourIndex();
+            }
+            return weightedTripleIndex;
+        }
+    }
+
+    private NeighbourIndex getNeighbourIndex() {
+        NeighbourIndex index = neighbourIndex;
+        if (index != null) return index;
+        synchronized (this) {
+            if (neighbourIndex == null) {
+                logRebuildOnAccess();
+            }
+            return buildNeighbourIndex();
+        }
+    }
+
+    private void logRebuildOnAccess() {
+        LOGGER.warn("The object triples changed after the neighbour index was built; it is rebuilt on access. "
+                + "Call ensureNeighbourIndex() once the triples are added.");
+    }
+
     /**
      * This method allows stating (S, P, ?) queries for object property triples.
      * It will not return datatype triples.
@@ -456,6 +832,8 @@ public class QuotedTripleDataSetMemory {
             return;
         }
         objectTriples.remove(tripleToBeRemoved);
+        neighbourIndex = null;
+        weightedTripleIndex = null;
 
         // remove from sp index
         Map<String, Set<Triple>> sPredicateTripleMap = subjectToObjectTriples.get(tripleToBeRemoved.subject);
@@ -539,6 +917,150 @@ public class QuotedTripleDataSetMemory {
     	return quotedTriples;
     }
 
+    /**
+     * Registers the given quoted triple as enclosing quoted triple of its subject (if the subject is a quoted triple).
+     * Among several enclosing quoted triples, the one with the smallest node is kept, so that the choice does not
+     * depend on the order in which the quoted triples were added (which varies with the number of parser threads).
+     *
+     * @param quotedTriple The quoted triple that was added.
+     */
+    private void indexEnclosingQuotedTriple(QuotedTriple quotedTriple) {
+        if (quotedTriple.subject.startsWith("<<")) {
+            QuotedTriple current = subjectToEnclosingQuotedTriple.get(quotedTriple.subject);
+            if (current == null || quotedTriple.qt.compareTo(current.qt) < 0) {
+                subjectToEnclosingQuotedTriple.put(quotedTriple.subject, quotedTriple);
+            }
+        }
+    }
+
+    /**
+     * Obtain the quoted triple with the given constituents. In contrast to a lookup in
+     * {@link QuotedTripleDataSetMemory#getQuotedTriples()}, no {@code "<<s-p-o>>"} string has to be built.
+     *
+     * @param subject   Subject of the quoted triple.
+     * @param predicate Predicate of the quoted triple.
+     * @param object    Object of the quoted triple.
+     * @return The quoted triple, null if there is none.
+     */
+    public QuotedTriple getQuotedTriple(String subject, String predicate, String object) {
+        if (subject == null || predicate == null || object == null) return null;
+        QuotedTriple[] table = structuralQuotedTripleIndex;
+        int mask = table.length - 1;
+        int slot = structuralHash(subject, predicate, object) & mask;
+        QuotedTriple candidate;
+        while ((candidate = table[slot]) != null) {
+            if (candidate.subject.equals(subject) && candidate.predicate.equals(predicate)
+                    && candidate.object.equals(object)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private void indexQuotedTripleStructure(QuotedTriple quotedTriple) {
+        if ((structuralQuotedTripleIndexSize + 1) * 2 > structuralQuotedTripleIndex.length) {
+            // keep the load factor below 0.5
+            QuotedTriple[] oldTable = structuralQuotedTripleIndex;
+            structuralQuotedTripleIndex = new QuotedTriple[oldTable.length * 2];
+            for (QuotedTriple entry : oldTable) {
+                if (entry != null) insertIntoStructuralIndex(entry);
+            }
+        }
+        insertIntoStructuralIndex(quotedTriple);
+        structuralQuotedTripleIndexSize++;
+    }
+
+    private void insertIntoStructuralIndex(QuotedTriple quotedTriple) {
+        int mask = structuralQuotedTripleIndex.length - 1;
+        int slot = structuralHash(quotedTriple.subject, quotedTriple.predicate, quotedTriple.object) & mask;
+        while (structuralQuotedTripleIndex[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        structuralQuotedTripleIndex[slot] = quotedTriple;
+    }
+
+    /**
+     * Hash of the constituents of a quoted triple. The hash codes of strings are cached by the JVM, hence this is
+     * cheap also for long (nested) quoted triple nodes.
+     */
+    private static int structuralHash(String subject, String predicate, String object) {
+        int h = subject.hashCode() * 0x9E3779B1;
+        h = (h ^ predicate.hashCode()) * 0x85EBCA77;
+        h = (h ^ object.hashCode()) * 0xC2B2AE3D;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Obtain the quoted triple which uses the given quoted triple node as subject (constant time). If there are
+     * several, the one whose node is the smallest in lexicographic order is returned (as in
+     * {@link CompactQuotedTripleDataSetMemory}).
+     *
+     * @param qt The quoted triple node.
+     * @return The enclosing quoted triple, null if there is none.
+     */
+    public QuotedTriple getEnclosingQuotedTriple(String qt) {
+        return subjectToEnclosingQuotedTriple.get(qt);
+    }
+
+    /**
+     * Checks whether the given quoted triple attaches a literal value to another quoted triple
+     * ({@code << <<s p o>> rdf:value "v" >>}).
+     *
+     * @param quotedTriple The quoted triple.
+     * @return True if the quoted triple is a value annotation.
+     */
+    public static boolean isValueAnnotation(QuotedTriple quotedTriple) {
+        return quotedTriple.subject.startsWith("<<") && quotedTriple.predicate.equals(RDF_VALUE)
+                && quotedTriple.object.endsWith("\"");
+    }
+
+    /**
+     * Returns the quoted triple to be used when walking into the given quoted triple: Value annotations are resolved
+     * to the annotated quoted triple. Nested annotations are resolved until a quoted triple is reached which is not
+     * a value annotation.
+     *
+     * @param quotedTriple The quoted triple.
+     * @return The expanded quoted triple.
+     */
+    public QuotedTriple expandQuotedTriple(QuotedTriple quotedTriple) {
+        return expandQuotedTriple(quotedTriple, quotedTriples);
+    }
+
+    /**
+     * Returns the quoted triple to be used when walking into the given quoted triple, see
+     * {@link QuotedTripleDataSetMemory#expandQuotedTriple(QuotedTriple)}.
+     *
+     * @param quotedTriple  The quoted triple.
+     * @param quotedTriples Form: {@code qt -> QuotedTriple}
+     * @return The expanded quoted triple.
+     */
+    public static QuotedTriple expandQuotedTriple(QuotedTriple quotedTriple, Map<String, QuotedTriple> quotedTriples) {
+        // the number of steps is bounded by the number of quoted triples (protection against malformed cycles)
+        int remainingSteps = quotedTriples.size();
+        while (isValueAnnotation(quotedTriple) && remainingSteps-- > 0) {
+            QuotedTriple annotated = quotedTriples.get(quotedTriple.subject);
+            if (annotated == null) break;
+            quotedTriple = annotated;
+        }
+        return quotedTriple;
+    }
+
+    /**
+     * Returns the quoted triple which envelopes (uses as subject) the given quoted triple. Value annotations are not
+     * enveloped.
+     *
+     * @param quotedTriple The quoted triple.
+     * @return The enveloping quoted triple or the given quoted triple if there is none.
+     */
+    public QuotedTriple envelopeQuotedTriple(QuotedTriple quotedTriple) {
+        if (quotedTriple.predicate.equals(RDF_VALUE)) {
+            return quotedTriple;
+        }
+        QuotedTriple enclosing = subjectToEnclosingQuotedTriple.get(quotedTriple.qt);
+        return enclosing == null ? quotedTriple : enclosing;
+    }
+
     /**
      * Get a set of subjects given a set of triples.
      *
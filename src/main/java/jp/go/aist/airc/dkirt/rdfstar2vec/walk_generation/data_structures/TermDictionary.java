@@ -0,0 +1,547 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Dictionary which maps every term (URI, blank node, quoted triple node) to a dense integer ID and back.
+ * IDs are assigned in insertion order starting at 0.
+ * <p>
+ * The terms are not kept as {@link String} objects. They are UTF-8 encoded and front-coded in buckets of
+ * {@link TermDictionary#BUCKET_SIZE} terms (every term stores only the suffix which differs from its predecessor;
+ * the first term of a bucket is stored completely) in direct (off-heap) pages. The only on-heap structures are the
+ * bucket positions and an open-addressing hash table of the form {@code hash -> ID}, i.e. about 20 bytes per term.
+ * Note that the direct memory is limited by {@code -XX:MaxDirectMemorySize} (default: the maximum heap size).
+ */
+public class TermDictionary {
+
+
+    /**
+     * Returned by {@link TermDictionary#getId(String)} if the term is not known.
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * The number of terms which are front-coded together. A term is decoded by reading at most this number of
+     * entries.
+     */
+    static final int BUCKET_SIZE = 16;
+
+    /**
+     * The size of an off-heap page in bytes. Entries never cross page boundaries.
+     */
+    private static final int PAGE_SIZE = 1 << 22;
+
+    /**
+     * Marks the end of the used part of a page (an entry never starts with a zero byte).
+     */
+    private static final byte END_OF_PAGE = 0;
+
+    /**
+     * The off-heap pages.
+     */
+    private ByteBuffer[] pages = new ByteBuffer[16];
+
+    /**
+     * The number of pages in use.
+     */
+    private int numberOfPages = 0;
+
+    /**
+     * The next write position in the last page.
+     */
+    private int writeOffset = 0;
+
+    /**
+     * Start position of every bucket in the form {@code page << 32 | offset}.
+     */
+    private long[] bucketPositions;
+
+    /**
+     * The UTF-8 bytes of the last term that was added (the front-coding reference).
+     */
+    private byte[] previousTerm = new byte[0];
+
+    /**
+     * Hash table; each entry is of the form {@code hash << 32 | (ID + 1)}, 0 is the empty slot.
+     * The reference is replaced on every resize which allows for lock-free reads.
+     */
+    private volatile long[] table;
+
+    /**
+     * The number of terms. Written after a term has been completely stored.
+     */
+    private volatile int size = 0;
+
+    /**
+     * The number of bytes that are used in the off-heap pages.
+     */
+    private long numberOfBytes = 0;
+
+    /**
+     * Buffer in which the terms are decoded.
+     */
+    private static final ThreadLocal<byte[]> DECODE_BUFFER = ThreadLocal.withInitial(() -> new byte[256]);
+
+    /**
+     * Constructor
+     */
+    public TermDictionary() {
+        this(1024);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expectedNumberOfTerms The number of terms that will be added (used to size the internal maps).
+     */
+    public TermDictionary(int expectedNumberOfTerms) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedNumberOfTerms) * 2 - 1) << 1;
+        table = new long[capacity];
+        bucketPositions = new long[Math.max(1, expectedNumberOfTerms / BUCKET_SIZE + 1)];
+    }
+
+    /**
+     * Obtain the ID of the given term. If the term is not yet known, a new ID is assigned (thread-safe).
+     *
+     * @param term The term.
+     * @return ID of the term.
+     */
+    public synchronized int getOrAddId(String term) {
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(term);
+        long[] t = table;
+        int mask = t.length - 1;
+        int slot = hash & mask;
+        long entry;
+        while ((entry = t[slot]) != 0) {
+            if ((int) (entry >>> 32) == hash && equalsTerm((int) entry - 1, bytes)) {
+                return (int) entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int newId = size;
+        append(bytes);
+        t[slot] = ((long) hash << 32) | (newId + 1);
+        if (newId + 1 > t.length / 2) {
+            resize();
+        }
+        size = newId + 1;
+        return newId;
+    }
+
+    /**
+     * Obtain the ID of the given term. This method does not block, also not while terms are added concurrently.
+     *
+     * @param term The term.
+     * @return ID of the term, {@link TermDictionary#UNKNOWN} if the term is not known.
+     */
+    public int getId(String term) {
+        if (term == null) return UNKNOWN;
+        // all terms with an ID below this size are completely visible
+        int visibleSize = size;
+        long[] t = table;
+        int mask = t.length - 1;
+        int hash = hash(term);
+        int slot = hash & mask;
+        byte[] bytes = null;
+        long entry;
+        while ((entry = t[slot]) != 0) {
+            if ((int) (entry >>> 32) == hash) {
+                int id = (int) entry - 1;
+                if (id >= visibleSize) {
+                    // added concurrently
+                    return getIdSynchronized(term);
+                }
+                if (bytes == null) bytes = term.getBytes(StandardCharsets.UTF_8);
+                if (equalsTerm(id, bytes)) return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return UNKNOWN;
+    }
+
+    private synchronized int getIdSynchronized(String term) {
+        return getId(term);
+    }
+
+    /**
+     * Obtain the term for the given ID.
+     *
+     * @param id The ID.
+     * @return The term.
+     */
+    public String getTerm(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown term ID: " + id);
+        }
+        int length = decode(id);
+        return new String(DECODE_BUFFER.get(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The number of terms in the dictionary. This is also the next ID to be assigned.
+     *
+     * @return Number of terms.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sort the terms in the order of {@link String#compareTo(String)} without creating {@link String} objects. Only
+     * the terms which were added since the ranks were determined are sorted (on their UTF-8 bytes, in parallel) and
+     * then merged into the given order.
+     *
+     * @param ranks Form: {@code ID -> rank} of the terms with the IDs 0 to {@code ranks.length - 1} (e.g. of a
+     *              previous call); may be empty.
+     * @return Form: {@code rank -> ID} of all terms.
+     */
+    public int[] sortTerms(int[] ranks) {
+        final int n = size;
+        final int numberOfRankedTerms = ranks.length;
+        TermBytes newTerms = new TermBytes(numberOfRankedTerms, n);
+        int[] sortedNewTerms = new int[n - numberOfRankedTerms];
+        for (int i = 0; i < sortedNewTerms.length; i++) {
+            sortedNewTerms[i] = numberOfRankedTerms + i;
+        }
+        ForkJoinPool.commonPool().invoke(new SortTask(newTerms, sortedNewTerms, new int[sortedNewTerms.length],
+                0, sortedNewTerms.length));
+
+        int[] termsByRank = new int[n];
+        int[] rankedTerms = new int[numberOfRankedTerms];
+        for (int id = 0; id < numberOfRankedTerms; id++) {
+            rankedTerms[ranks[id]] = id;
+        }
+        // merge; every ranked term is decoded once
+        int i = 0;
+        int j = 0;
+        int length = numberOfRankedTerms > 0 ? decode(rankedTerms[0]) : 0;
+        for (int rank = 0; rank < n; rank++) {
+            if (j == sortedNewTerms.length || (i < numberOfRankedTerms
+                    && newTerms.compareTo(sortedNewTerms[j], DECODE_BUFFER.get(), length) > 0)) {
+                termsByRank[rank] = rankedTerms[i++];
+                if (i < numberOfRankedTerms) {
+                    length = decode(rankedTerms[i]);
+                }
+            } else {
+                termsByRank[rank] = sortedNewTerms[j++];
+            }
+        }
+        return termsByRank;
+    }
+
+    /**
+     * Compare two UTF-8 encoded strings in the order of {@link String#compareTo(String)}, i.e. by UTF-16 code units.
+     * This is the order of the bytes except that supplementary characters (lead bytes {@code 0xF0} to {@code 0xF4})
+     * come before the characters {@code U+E000} to {@code U+FFFF} (lead bytes {@code 0xEE} and {@code 0xEF}).
+     */
+    private static int compareUtf8(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            int x = a[aOffset + i] & 0xFF;
+            int y = b[bOffset + i] & 0xFF;
+            if (x != y) {
+                if (x >= 0xEE && y >= 0xEE) {
+                    // lead bytes of both characters (the preceding bytes are equal)
+                    x = x >= 0xF0 ? x - 0x10 : x;
+                    y = y >= 0xF0 ? y - 0x10 : y;
+                }
+                return x - y;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    /**
+     * The UTF-8 bytes of a range of terms, copied into on-heap chunks (without an object per term).
+     */
+    private class TermBytes {
+
+
+        private static final int CHUNK_SIZE = 1 << 24;
+
+        private final int firstId;
+        private final byte[][] chunks;
+        private final int[] chunkOfTerm;
+        private final int[] offsetOfTerm;
+        private final int[] lengthOfTerm;
+
+        /**
+         * Constructor
+         *
+         * @param firstId The first ID (inclusive).
+         * @param endId   The last ID (exclusive).
+         */
+        TermBytes(int firstId, int endId) {
+            this.firstId = firstId;
+            int numberOfTerms = endId - firstId;
+            chunkOfTerm = new int[numberOfTerms];
+            offsetOfTerm = new int[numberOfTerms];
+            lengthOfTerm = new int[numberOfTerms];
+            byte[][] chunkArray = new byte[16][];
+            int numberOfChunks = 0;
+            byte[] chunk = null;
+            int offset = 0;
+            for (int i = 0; i < numberOfTerms; i++) {
+                int length = decode(firstId + i);
+                if (chunk == null || offset + length > chunk.length) {
+                    if (numberOfChunks == chunkArray.length) {
+                        chunkArray = Arrays.copyOf(chunkArray, numberOfChunks * 2);
+                    }
+                    chunk = new byte[Math.max(CHUNK_SIZE, length)];
+                    chunkArray[numberOfChunks++] = chunk;
+                    offset = 0;
+                }
+                System.arraycopy(DECODE_BUFFER.get(), 0, chunk, offset, length);
+                chunkOfTerm[i] = numberOfChunks - 1;
+                offsetOfTerm[i] = offset;
+                lengthOfTerm[i] = length;
+                offset += length;
+            }
+            chunks = Arrays.copyOf(chunkArray, numberOfChunks);
+        }
+
+        int compare(int id1, int id2) {
+            int i = id1 - firstId;
+            int j = id2 - firstId;
+            return compareUtf8(chunks[chunkOfTerm[i]], offsetOfTerm[i], lengthOfTerm[i],
+                    chunks[chunkOfTerm[j]], offsetOfTerm[j], lengthOfTerm[j]);
+        }
+
+        int compareTo(int id, byte[] term, int length) {
+            int i = id - firstId;
+            return compareUtf8(chunks[chunkOfTerm[i]], offsetOfTerm[i], lengthOfTerm[i], term, 0, length);
+        }
+    }
+
+    /**
+     * Merge sort of term IDs; the halves of large ranges are sorted in parallel.
+     */
+    private static class SortTask extends RecursiveAction {
+
+
+        private static final int SEQUENTIAL_THRESHOLD = 1 << 13;
+
+        private static final int INSERTION_SORT_THRESHOLD = 16;
+
+        private final TermBytes terms;
+        private final int[] ids;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+
+        SortTask(TermBytes terms, int[] ids, int[] buffer, int from, int to) {
+            this.terms = terms;
+            this.ids = ids;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                sort(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(terms, ids, buffer, from, middle), new SortTask(terms, ids, buffer, middle, to));
+            merge(from, middle, to);
+        }
+
+        private void sort(int from, int to) {
+            if (to - from <= INSERTION_SORT_THRESHOLD) {
+                for (int i = from + 1; i < to; i++) {
+                    int id = ids[i];
+                    int j = i - 1;
+                    while (j >= from && terms.compare(ids[j], id) > 0) {
+                        ids[j + 1] = ids[j];
+                        j--;
+                    }
+                    ids[j + 1] = id;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            sort(from, middle);
+            sort(middle, to);
+            merge(from, middle, to);
+        }
+
+        private void merge(int from, int middle, int to) {
+            if (terms.compare(ids[middle - 1], ids[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(ids, from, buffer, from, middle - from);
+            int i = from;
+            int j = middle;
+            int write = from;
+            while (i < middle && j < to) {
+                ids[write++] = terms.compare(buffer[i], ids[j]) <= 0 ? buffer[i++] : ids[j++];
+            }
+            while (i < middle) {
+                ids[write++] = buffer[i++];
+            }
+        }
+    }
+
+    /**
+     * The number of off-heap bytes used for the front-coded terms.
+     *
+     * @return Number of bytes.
+     */
+    public long getNumberOfBytes() {
+        return numberOfBytes;
+    }
+
+    /**
+     * Append the given term to the pages.
+     *
+     * @param term UTF-8 bytes of the term.
+     */
+    private void append(byte[] term) {
+        int id = size;
+        boolean isBucketStart = id % BUCKET_SIZE == 0;
+        int shared = 0;
+        if (!isBucketStart) {
+            int max = Math.min(previousTerm.length, term.length);
+            while (shared < max && previousTerm[shared] == term[shared]) {
+                shared++;
+            }
+        }
+        int suffixLength = term.length - shared;
+        int entryLength = varIntLength(shared + 1) + varIntLength(suffixLength) + suffixLength;
+
+        ByteBuffer page = numberOfPages == 0 ? null : pages[numberOfPages - 1];
+        if (page == null || writeOffset + entryLength > page.capacity()) {
+            if (page != null && writeOffset < page.capacity()) {
+                page.put(writeOffset, END_OF_PAGE);
+            }
+            page = addPage(Math.max(PAGE_SIZE, entryLength));
+        }
+        if (isBucketStart) {
+            int bucket = id / BUCKET_SIZE;
+            if (bucket == bucketPositions.length) {
+                bucketPositions = Arrays.copyOf(bucketPositions, bucketPositions.length * 2);
+            }
+            bucketPositions[bucket] = ((long) (numberOfPages - 1) << 32) | writeOffset;
+        }
+        writeOffset = writeVarInt(page, writeOffset, shared + 1);
+        writeOffset = writeVarInt(page, writeOffset, suffixLength);
+        for (int i = shared; i < term.length; i++) {
+            page.put(writeOffset++, term[i]);
+        }
+        numberOfBytes += entryLength;
+        previousTerm = term;
+    }
+
+    private ByteBuffer addPage(int capacity) {
+        if (numberOfPages == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length * 2);
+        }
+        ByteBuffer page = ByteBuffer.allocateDirect(capacity);
+        pages[numberOfPages++] = page;
+        writeOffset = 0;
+        return page;
+    }
+
+    /**
+     * Decode the term with the given ID into the decode buffer of the calling thread.
+     *
+     * @param id The ID.
+     * @return The number of bytes of the term.
+     */
+    private int decode(int id) {
+        long position = bucketPositions[id / BUCKET_SIZE];
+        int pageIndex = (int) (position >>> 32);
+        int offset = (int) position;
+        byte[] buffer = DECODE_BUFFER.get();
+        int length = 0;
+        for (int i = id - id % BUCKET_SIZE; i <= id; i++) {
+            ByteBuffer page = pages[pageIndex];
+            if (offset == page.capacity() || page.get(offset) == END_OF_PAGE) {
+                page = pages[++pageIndex];
+                offset = 0;
+            }
+            int shared = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = page.get(offset++);
+                shared |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            shared--;
+            int suffixLength = 0;
+            shift = 0;
+            do {
+                b = page.get(offset++);
+                suffixLength |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            length = shared + suffixLength;
+            if (length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+                DECODE_BUFFER.set(buffer);
+            }
+            for (int j = shared; j < length; j++) {
+                buffer[j] = page.get(offset++);
+            }
+        }
+        return length;
+    }
+
+    private boolean equalsTerm(int id, byte[] term) {
+        int length = decode(id);
+        if (length != term.length) return false;
+        byte[] buffer = DECODE_BUFFER.get();
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] != term[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Double the hash table. The stored hashes are reused, no term is decoded.
+     */
+    private void resize() {
+        long[] oldTable = table;
+        long[] newTable = new long[oldTable.length * 2];
+        int mask = newTable.length - 1;
+        for (long entry : oldTable) {
+            if (entry == 0) continue;
+            int slot = (int) (entry >>> 32) & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = entry;
+        }
+        table = newTable;
+    }
+
+    private static int hash(String term) {
+        int h = term.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarInt(ByteBuffer page, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            page.put(offset++, (byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        page.put(offset++, (byte) value);
+        return offset;
+    }
+}
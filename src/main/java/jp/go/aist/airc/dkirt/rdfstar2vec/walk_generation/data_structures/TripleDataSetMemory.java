@@ -65,6 +65,39 @@ public class TripleDataSetMemory {
      */
     Map<String, Map<String, Set<String>>> subjectToDatatypeTriples;
 
+    /**
+     * Random-access neighbour view. It is built when the concurrent build is finished or by
+     * {@link TripleDataSetMemory#ensureNeighbourIndex()}; null if the object triples changed since it was built.
+     */
+    private volatile NeighbourIndex neighbourIndex;
+
+    /**
+     * The weighting applied by {@link TripleDataSetMemory#sampleWeightedNeighbour(String, Random)} and
+     * {@link TripleDataSetMemory#sampleWeightedPredecessor(String, Random)}.
+     */
+    private volatile EdgeWeighting edgeWeighting = EdgeWeighting.UNIFORM;
+
+    /**
+     * The number of threads used to (re-)build the alias tables.
+     */
+    private int aliasTableThreads = 1;
+
+    /**
+     * Alias tables of the edge weighting (built on the segments of the neighbour view). Null if the weighting is
+     * uniform or if the object triples changed since the tables were built.
+     */
+    private volatile WeightedTripleIndex weightedTripleIndex;
+
+    /**
+     * Buffer of the concurrent build mode, null if the store is not in the concurrent build mode.
+     */
+    private volatile IngestBuffer ingestBuffer;
+
+    /**
+     * Number of (nested) {@link TripleDataSetMemory#beginConcurrentBuild()} calls that have not been finished yet.
+     */
+    private int concurrentBuildDepth;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(TripleDataSetMemory.class);
 
     /**
@@ -87,7 +120,18 @@ public class TripleDataSetMemory {
      *
      * @param tripleToAdd Triple where the object is a string.
      */
-    public synchronized void addDatatypeTriple(Triple tripleToAdd) {
+    public void addDatatypeTriple(Triple tripleToAdd) {
+        IngestBuffer buffer = ingestBuffer;
+        if (buffer != null) {
+            buffer.addDatatypeTriple(tripleToAdd);
+            return;
+        }
+        synchronized (this) {
+            putDatatypeTriple(tripleToAdd);
+        }
+    }
+
+    private void putDatatypeTriple(Triple tripleToAdd) {
         this.objectNodes.add(tripleToAdd.subject);
         if (this.subjectToDatatypeTriples.containsKey(tripleToAdd.subject)) {
             Map<String, Set<String>> propertyMap = this.subjectToDatatypeTriples.get(tripleToAdd.subject);
@@ -122,63 +166,102 @@ public class TripleDataSetMemory {
      *
      * @param tripleToAdd Triple to be added.
      */
-    public synchronized void addObjectTriple(Triple tripleToAdd) {
-        if (this.objectTriples.contains(tripleToAdd)) {
+    public void addObjectTriple(Triple tripleToAdd) {
+        IngestBuffer buffer = ingestBuffer;
+        if (buffer != null) {
+            buffer.addObjectTriple(tripleToAdd);
+            return;
+        }
+        synchronized (this) {
+            putObjectTriple(tripleToAdd);
+        }
+    }
+
+    private void putObjectTriple(Triple tripleToAdd) {
+        if (!this.objectTriples.add(tripleToAdd)) {
             return;
         }
         this.objectNodes.add(tripleToAdd.subject);
         this.objectNodes.add(tripleToAdd.object);
-        Map<String, Set<Triple>> subjectPredicateToTripleMap = subjectToObjectTriples.get(tripleToAdd.subject);
-
-        if (subjectPredicateToTripleMap == null) {
-            Map<String, Set<Triple>> predicateToObjectMap = new HashMap<>();
-            Set<Triple> triples = new HashSet<>();
-            triples.add(tripleToAdd);
-            predicateToObjectMap.put(tripleToAdd.predicate, triples);
-            subjectToObjectTriples.put(tripleToAdd.subject, predicateToObjectMap);
-        } else {
-            // there is already an entry for the subject
-            // check for predicate
-            if (subjectPredicateToTripleMap.containsKey(tripleToAdd.predicate)) {
-                // predicate contained, add our object
-                subjectPredicateToTripleMap.get(tripleToAdd.predicate).add(tripleToAdd);
-            } else {
-                // predicate not contained, add predicate -> object
-                Set<Triple> triples = new HashSet<>();
-                triples.add(tripleToAdd);
-                subjectPredicateToTripleMap.put(tripleToAdd.predicate, triples);
-            }
+        indexBySubject(tripleToAdd);
+        indexByPredicate(tripleToAdd);
+        indexByObject(tripleToAdd);
+        if (neighbourIndex != null) neighbourIndex = null;
+        if (weightedTripleIndex != null) weightedTripleIndex = null;
+    }
+
+    private void indexBySubject(Triple tripleToAdd) {
+        subjectToObjectTriples.computeIfAbsent(tripleToAdd.subject, k -> new HashMap<>())
+                .computeIfAbsent(tripleToAdd.predicate, k -> new HashSet<>())
+                .add(tripleToAdd);
+    }
+
+    private void indexByPredicate(Triple tripleToAdd) {
+        predicateToObjectTriples.computeIfAbsent(tripleToAdd.predicate, k -> new ArrayList<>()).add(tripleToAdd);
+    }
+
+    private void indexByObject(Triple tripleToAdd) {
+        objectToObjectTriples.computeIfAbsent(tripleToAdd.object, k -> new HashMap<>())
+                .computeIfAbsent(tripleToAdd.predicate, k -> new HashSet<>())
+                .add(tripleToAdd);
+    }
+
+    /**
+     * Switch to the concurrent build mode: the add methods no longer lock the store but append into a buffer of
+     * the calling thread. The triples become visible after {@link TripleDataSetMemory#finishConcurrentBuild()}.
+     * Calls may be nested; the buffers are merged when the outermost build is finished.
+     */
+    public synchronized void beginConcurrentBuild() {
+        if (concurrentBuildDepth++ == 0) {
+            ingestBuffer = new IngestBuffer();
         }
+    }
 
-        List<Triple> predicateToTripleList = predicateToObjectTriples.get(tripleToAdd.predicate);
-        if (predicateToTripleList == null) {
-            ArrayList<Triple> newList = new ArrayList<>();
-            newList.add(tripleToAdd);
-            predicateToObjectTriples.put(tripleToAdd.predicate, newList);
-        } else predicateToTripleList.add(tripleToAdd);
-
-        Map<String, Set<Triple>> objectPredicateToTripleMap = objectToObjectTriples.get(tripleToAdd.object);
-        if (objectPredicateToTripleMap == null) {
-            Map<String, Set<Triple>> predicateToObjectMap = new HashMap<>();
-            Set<Triple> triples = new HashSet<>();
-            triples.add(tripleToAdd);
-            predicateToObjectMap.put(tripleToAdd.predicate, triples);
-            objectToObjectTriples.put(tripleToAdd.object, predicateToObjectMap);
-        } else {
-            // there is already an entry for the object
-            // check for predicate
-            if (objectPredicateToTripleMap.containsKey(tripleToAdd.predicate)) {
-                // predicate contained, add our object
-                objectPredicateToTripleMap.get(tripleToAdd.predicate).add(tripleToAdd);
-            } else {
-                // predicate not contained, add predicate -> object
-                Set<Triple> triples = new HashSet<>();
-                triples.add(tripleToAdd);
-                objectPredicateToTripleMap.put(tripleToAdd.predicate, triples);
+    /**
+     * Finish the concurrent build mode. If this is the outermost build, the buffers of all ingesting threads are
+     * merged into the store; the individual indices are built in parallel. Must only be called once the threads
+     * that ingest into the build are done.
+     *
+     * @return Ingest throughput (triples per second) per thread, empty if the buffers were not merged (yet).
+     */
+    public synchronized Map<String, Double> finishConcurrentBuild() {
+        if (concurrentBuildDepth == 0 || --concurrentBuildDepth > 0) {
+            return new HashMap<>();
+        }
+        IngestBuffer buffer = ingestBuffer;
+        ingestBuffer = null;
+
+        // deduplication against the existing triples
+        List<Triple> newObjectTriples = new ArrayList<>();
+        for (IngestBuffer.Shard shard : buffer.getShards()) {
+            for (Triple triple : shard.objectTriples) {
+                if (objectTriples.add(triple)) {
+                    newObjectTriples.add(triple);
+                }
             }
-
         }
-        objectTriples.add(tripleToAdd);
+
+        // the indices are independent of each other
+        IngestBuffer.runInParallel(
+                () -> newObjectTriples.forEach(this::indexBySubject),
+                () -> newObjectTriples.forEach(this::indexByPredicate),
+                () -> newObjectTriples.forEach(this::indexByObject),
+                () -> {
+                    for (Triple triple : newObjectTriples) {
+                        objectNodes.add(triple.subject);
+                        objectNodes.add(triple.object);
+                    }
+                    for (IngestBuffer.Shard shard : buffer.getShards()) {
+                        shard.datatypeTriples.forEach(this::putDatatypeTriple);
+                    }
+                });
+        // the neighbour view (and the alias tables) are built once, now that loading is finished
+        neighbourIndex = null;
+        weightedTripleIndex = null;
+        buildNeighbourIndex();
+
+        buffer.logThroughput(LOGGER);
+        return buffer.getTriplesPerSecondPerThread();
     }
 
     /**
@@ -223,6 +306,222 @@ public class TripleDataSetMemory {
         return result;
     }
 
+    /**
+     * Obtain the number of object triples in which the given node is the subject.
+     * In contrast to {@link TripleDataSetMemory#getObjectTriplesInvolvingSubject(String)}, no list is created.
+     *
+     * @param subject The subject.
+     * @return Number of outgoing object triples (0 if the subject is unknown).
+     */
+    public int getOutDegree(String subject) {
+        return getNeighbourIndex().out.size(subject);
+    }
+
+    /**
+     * Obtain the i-th object triple in which the given node is the subject.
+     *
+     * @param subject The subject.
+     * @param i       Index in the range [0, {@link TripleDataSetMemory#getOutDegree(String)}).
+     * @return The triple.
+     */
+    public Triple getOutTriple(String subject, int i) {
+        return getNeighbourIndex().out.get(subject, i);
+    }
+
+    /**
+     * Obtain the number of object triples in which the given node is the object.
+     *
+     * @param object The object.
+     * @return Number of incoming object triples (0 if the object is unknown).
+     */
+    public int getInDegree(String object) {
+        return getNeighbourIndex().in.size(object);
+    }
+
+    /**
+     * Obtain the i-th object triple in which the given node is the object.
+     *
+     * @param object The object.
+     * @param i      Index in the range [0, {@link TripleDataSetMemory#getInDegree(String)}).
+     * @return The triple.
+     */
+    public Triple getInTriple(String object, int i) {
+        return getNeighbourIndex().in.get(object, i);
+    }
+
+    /**
+     * Draw an outgoing object triple of the given node uniformly at random. No objects are allocated.
+     *
+     * @param subject The subject.
+     * @param random  The random number generator to be used.
+     * @return Drawn triple, null if the node has no outgoing object triples.
+     */
+    public Triple sampleNeighbour(String subject, Random random) {
+        return getNeighbourIndex().out.sample(subject, random);
+    }
+
+    /**
+     * Draw an incoming object triple of the given node uniformly at random. No objects are allocated.
+     *
+     * @param object The object.
+     * @param random The random number generator to be used.
+     * @return Drawn triple, null if the node has no incoming object triples.
+     */
+    public Triple samplePredecessor(String object, Random random) {
+        return getNeighbourIndex().in.sample(object, random);
+    }
+
+    /**
+     * Check whether there is an object triple (with any predicate) from the given subject to the given object.
+     * Only the predicates of the node with fewer predicates are probed.
+     *
+     * @param subject The subject.
+     * @param object  The object.
+     * @return True if the subject links to the object.
+     */
+    public boolean isLinked(String subject, String object) {
+        if (subject == null || object == null) return false;
+        Map<String, Set<Triple>> subjectPredicates = subjectToObjectTriples.get(subject);
+        if (subjectPredicates == null) return false;
+        Map<String, Set<Triple>> objectPredicates = objectToObjectTriples.get(object);
+        if (objectPredicates == null) return false;
+        Map<String, Set<Triple>> predicates = subjectPredicates.size() <= objectPredicates.size() ?
+                subjectPredicates : objectPredicates;
+        for (String predicate : predicates.keySet()) {
+            if (objectTriples.contains(new Triple(subject, predicate, object))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Set the weighting of {@link TripleDataSetMemory#sampleWeightedNeighbour(String, Random)} and
+     * {@link TripleDataSetMemory#sampleWeightedPredecessor(String, Random)} and build the alias tables of all nodes
+     * (in parallel). If triples are added later on, the tables are rebuilt by
+     * {@link TripleDataSetMemory#ensureNeighbourIndex()}.
+     *
+     * @param weighting       The edge weighting.
+     * @param numberOfThreads The number of threads used to build the tables.
+     */
+    public synchronized void buildAliasTables(EdgeWeighting weighting, int numberOfThreads) {
+        this.edgeWeighting = weighting;
+        this.aliasTableThreads = Math.max(1, numberOfThreads);
+        this.weightedTripleIndex = null;
+        buildNeighbourIndex();
+    }
+
+    /**
+     * Builds the neighbour view (and the alias tables of a non-uniform weighting) if the object triples changed
+     * since they were built. This happens automatically when a concurrent build is finished; after adding or
+     * removing triples outside of a concurrent build, this method shall be called before walks are generated (else
+     * the view is rebuilt on the next access, i.e., on a walker thread). It is cheap if nothing changed and does
+     * nothing within a concurrent build.
+     */
+    public void ensureNeighbourIndex() {
+        if (ingestBuffer != null) return;
+        if (neighbourIndex == null || (weightedTripleIndex == null && edgeWeighting != EdgeWeighting.UNIFORM)) {
+            buildNeighbourIndex();
+        }
+    }
+
+    /**
+     * Build the missing parts of the neighbour view and of the alias tables.
+     *
+     * @return The neighbour view.
+     */
+    private synchronized NeighbourIndex buildNeighbourIndex() {
+        if (neighbourIndex == null) {
+            neighbourIndex = new NeighbourIndex(subjectToObjectTriples, objectToObjectTriples);
+        }
+        if (weightedTripleIndex == null && edgeWeighting != EdgeWeighting.UNIFORM) {
+            long startTime = System.currentTimeMillis();
+            weightedTripleIndex = new WeightedTripleIndex(neighbourIndex, predicateToObjectTriples, edgeWeighting,
+                    aliasTableThreads);
+            LOGGER.info("Built alias tables (" + edgeWeighting + ") in " + (System.currentTimeMillis() - startTime)
+                    + " ms.");
+        }
+        return neighbourIndex;
+    }
+
+    public EdgeWeighting getEdgeWeighting() {
+        return edgeWeighting;
+    }
+
+    /**
+     * Draw an outgoing object triple of the given node proportionally to the weights of the current
+     * {@link EdgeWeighting} (O(1), no objects are allocated).
+     *
+     * @param subject The subject.
+     * @param random  The random number generator to be used.
+     * @return Drawn triple, null if the node has no outgoing object triples.
+     */
+    public Triple sampleWeightedNeighbour(String subject, Random random) {
+        WeightedTripleIndex index = getWeightedTripleIndex();
+        return index == null ? sampleNeighbour(subject, random) : index.sampleOut(subject, random);
+    }
+
+    /**
+     * Draw an incoming object triple of the given node proportionally to the weights of the current
+     * {@link EdgeWeighting} (O(1), no objects are allocated).
+     *
+     * @param object The object.
+     * @param random The random number generator to be used.
+     * @return Drawn triple, null if the node has no incoming object triples.
+     */
+    public Triple sampleWeightedPredecessor(String object, Random random) {
+        WeightedTripleIndex index = getWeightedTripleIndex();
+        return index == null ? samplePredecessor(object, random) : index.sampleIn(object, random);
+    }
+
+    /**
+     * Obtain the sum of the weights of the outgoing object triples of the given node.
+     *
+     * @param subject The subject.
+     * @return Total weight (the out-degree if the weighting is uniform).
+     */
+    public double getOutWeight(String subject) {
+        WeightedTripleIndex index = getWeightedTripleIndex();
+        return index == null ? getOutDegree(subject) : index.getOutWeight(subject);
+    }
+
+    /**
+     * Obtain the sum of the weights of the incoming object triples of the given node.
+     *
+     * @param object The object.
+     * @return Total weight (the in-degree if the weighting is uniform).
+     */
+    public double getInWeight(String object) {
+        WeightedTripleIndex index = getWeightedTripleIndex();
+        return index == null ? getInDegree(object) : index.getInWeight(object);
+    }
+
+    private WeightedTripleIndex getWeightedTripleIndex() {
+        WeightedTripleIndex index = weightedTripleIndex;
+        if (index != null || edgeWeighting == EdgeWeighting.UNIFORM) return index;
+        synchronized (this) {
+            if (weightedTripleIndex == null && edgeWeighting != EdgeWeighting.UNIFORM) {
+                logRebuildOnAccess();
+                buildNeighbourIndex();
+            }
+            return weightedTripleIndex;
+        }
+    }
+
+    private NeighbourIndex getNeighbourIndex() {
+        NeighbourIndex index = neighbourIndex;
+        if (index != null) return index;
+        synchronized (this) {
+            if (neighbourIndex == null) {
+                logRebuildOnAccess();
+            }
+            return buildNeighbourIndex();
+        }
+    }
+
+    private void logRebuildOnAccess() {
+        LOGGER.warn("The object triples changed after the neighbour index was built; it is rebuilt on access. "
+                + "Call ensureNeighbourIndex() once the triples are added.");
+    }
+
     /**
      * This method allows stating (S, P, ?) queries for object property triples.
      * It will not return datatype triples.
@@ -329,6 +628,8 @@ public class TripleDataSetMemory {
             return;
         }
         objectTriples.remove(tripleToBeRemoved);
+        neighbourIndex = null;
+        weightedTripleIndex = null;
 
         // remove from sp index
         Map<String, Set<Triple>> sPredicateTripleMap = subjectToObjectTriples.get(tripleToBeRemoved.subject);
@@ -0,0 +1,102 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted neighbour sampler of the String-based in-memory stores ({@link TripleDataSetMemory} and
+ * {@link QuotedTripleDataSetMemory}). {@link AliasTable}s are built on the segments of the {@link NeighbourIndex}
+ * (the triples are not copied again), hence every draw is O(1) and does not allocate.
+ */
+class WeightedTripleIndex {
+
+
+    /**
+     * The weighting the tables were built with.
+     */
+    final EdgeWeighting weighting;
+
+    /**
+     * The neighbour view the tables were built on.
+     */
+    final NeighbourIndex neighbours;
+
+    private final AliasTable forward;
+    private final AliasTable backward;
+
+    /**
+     * Constructor
+     *
+     * @param neighbours               The neighbour view of the store.
+     * @param predicateToObjectTriples Form: {@code predicate -> List<Triple>}
+     * @param weighting                The weighting to be applied.
+     * @param numberOfThreads          The number of threads used to build the alias tables.
+     */
+    WeightedTripleIndex(NeighbourIndex neighbours, Map<String, List<Triple>> predicateToObjectTriples,
+                        EdgeWeighting weighting, int numberOfThreads) {
+        this.weighting = weighting;
+        this.neighbours = neighbours;
+        NeighbourIndex.Segments out = neighbours.out;
+        NeighbourIndex.Segments in = neighbours.in;
+        this.forward = new AliasTable(out.offsets, i -> {
+            Triple triple = out.triples[i];
+            return getWeight(triple, triple.object, predicateToObjectTriples);
+        }, numberOfThreads);
+        this.backward = new AliasTable(in.offsets, i -> {
+            Triple triple = in.triples[i];
+            return getWeight(triple, triple.subject, predicateToObjectTriples);
+        }, numberOfThreads);
+    }
+
+    private double getWeight(Triple triple, String target, Map<String, List<Triple>> predicateToObjectTriples) {
+        long predicateFrequency = 0;
+        long targetDegree = 0;
+        if (weighting.isPredicateBased()) {
+            List<Triple> triples = predicateToObjectTriples.get(triple.predicate);
+            predicateFrequency = triples == null ? 0 : triples.size();
+        } else {
+            targetDegree = neighbours.out.size(target) + neighbours.in.size(target);
+        }
+        return weighting.getWeight(predicateFrequency, targetDegree);
+    }
+
+    /**
+     * Draw an outgoing object triple of the given node proportionally to its weight.
+     *
+     * @param subject The subject.
+     * @param random  The random number generator to be used.
+     * @return Drawn triple, null if the node has no outgoing object triples.
+     */
+    Triple sampleOut(String subject, Random random) {
+        return sample(neighbours.out, forward, subject, random);
+    }
+
+    /**
+     * Draw an incoming object triple of the given node proportionally to its weight.
+     *
+     * @param object The object.
+     * @param random The random number generator to be used.
+     * @return Drawn triple, null if the node has no incoming object triples.
+     */
+    Triple sampleIn(String object, Random random) {
+        return sample(neighbours.in, backward, object, random);
+    }
+
+    double getOutWeight(String subject) {
+        int segment = neighbours.out.getSegment(subject);
+        return segment < 0 ? 0 : forward.getTotalWeight(segment);
+    }
+
+    double getInWeight(String object) {
+        int segment = neighbours.in.getSegment(object);
+        return segment < 0 ? 0 : backward.getTotalWeight(segment);
+    }
+
+    private static Triple sample(NeighbourIndex.Segments segments, AliasTable aliasTable, String node, Random random) {
+        int segment = segments.getSegment(node);
+        if (segment < 0) return null;
+        int i = aliasTable.sample(segment, random);
+        return i < 0 ? null : segments.triples[segments.offsets[segment] + i];
+    }
+}
@@ -1,5 +1,7 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector;
 
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenWalkReader;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,15 +11,22 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.StreamSupport;
 import java.util.zip.GZIPInputStream;
 
 /**
  * The ContinuationEntitySelector is required if the previous walk generation has been stopped after some time.
  * In order to not restart the walk generation process, walks will only be created for entities for which walks have
  * not yet been generated. This process does not work for mid walks.
+ * <p>
+ * The entities of the actual entity selector are filtered lazily ({@link #getEntitySpliterator()}); only the
+ * entities of the existing walks are held in memory.
  */
-public class ContinuationEntitySelector implements EntitySelector {
+public class ContinuationEntitySelector implements StreamingEntitySelector {
 
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ContinuationEntitySelector.class);
@@ -43,20 +52,56 @@ public class ContinuationEntitySelector implements EntitySelector {
     @Override
     public Set<String> getEntities() {
         Set<String> entities = actualEntitySelector.getEntities();
+        Set<String> existingEntities = readExistingEntities();
+        if(existingEntities == null){
+            return entities;
+        }
+        LOGGER.info("Entities before: " + entities.size());
+        entities.removeAll(existingEntities);
+        LOGGER.info("Entities after removing existing ones: " + entities.size());
+        return entities;
+    }
+
+    @Override
+    public Iterator<String> getEntityIterator() {
+        return Spliterators.iterator(getEntitySpliterator());
+    }
+
+    /**
+     * The entities of the actual entity selector are filtered lazily.
+     * @return Lazy spliterator over the entities for which no walks exist.
+     */
+    @Override
+    public Spliterator<String> getEntitySpliterator() {
+        Spliterator<String> entities = actualEntitySelector.getEntitySpliterator();
+        Set<String> existingEntities = readExistingEntities();
+        if(existingEntities == null){
+            return entities;
+        }
+        return StreamSupport.stream(entities, false)
+                .filter(entity -> !existingEntities.contains(entity))
+                .spliterator();
+    }
+
+    /**
+     * Read the entities of the existing walks and copy the existing walk files to the new walk directory.
+     * @return The entities for which walks exist; null if continuation cannot be applied.
+     */
+    private Set<String> readExistingEntities(){
         if(existingWalkDirectory == null){
             LOGGER.error("The provided walk directory does not contain any walks. Continuation will not be applied " +
                     "(new walks will be generated for all entities).");
-            return entities;
+            return null;
         }
         if(!existingWalkDirectory.exists()){
             LOGGER.error("The provided walk directory does not exist. Continuation will not be applied "+
                     "(new walks will be generated for all entities).");
-            return entities;
+            return null;
         }
         if(!existingWalkDirectory.isDirectory()){
             LOGGER.error("The provided walk directory is not a directory. Continuation will not be applied "+
                     "(new walks will be generated for all entities).");
-            return entities;
+            return null;
         }
         if(!newWalkDirectory.exists()){
             if(newWalkDirectory.mkdirs()){
@@ -68,6 +113,10 @@ public class ContinuationEntitySelector implements EntitySelector {
 
         Set<String> existingEntities = new HashSet<>();
         for(File file : existingWalkDirectory.listFiles()){
+            if(TokenWalkReader.isTokenWalkFile(file)){
+                addTokenWalkEntities(file, existingEntities);
+                continue;
+            }
             if(!file.getName().endsWith(".gz")){
                 LOGGER.info("Skipping file '" + file.getName() + "' (no .gz file).");
                 continue;
@@ -102,10 +151,41 @@ public class ContinuationEntitySelector implements EntitySelector {
         }
 
         LOGGER.info("Walks already generated for " + existingEntities.size() + " entities.");
-        LOGGER.info("Entities before: " + entities.size());
-        entities.removeAll(existingEntities);
-        LOGGER.info("Entities after removing existing ones: " + entities.size());
-        return entities;
+        return existingEntities;
+    }
+
+    /**
+     * Add the first token of every walk in the given token walk file to the entities and copy the file (and its
+     * vocabulary) to the new walk directory.
+     * @param file Token walk file.
+     * @param existingEntities Entities for which walks exist.
+     */
+    private void addTokenWalkEntities(File file, Set<String> existingEntities){
+        try {
+            String[] vocabulary = TokenWalkReader.readVocabulary(file);
+            Set<Integer> firstTokens = new HashSet<>();
+            TokenWalkReader.forEachWalk(file, walk -> {
+                if(walk.length > 0) firstTokens.add(walk[0]);
+            });
+            for(int id : firstTokens){
+                existingEntities.add(vocabulary[id]);
+            }
+        } catch (Exception e) {
+            LOGGER.error("An exception occurred while reading walk file '" + file.getName() + "'. Continue with " +
+                    "next file.");
+            return;
+        }
+        File newFile = new File(newWalkDirectory, changeFilePathForCopy(file.getName()));
+        try {
+            LOGGER.info("Copy file " + newFile.toString() + " to walk directory.");
+            Files.copy(file.toPath(), newFile.toPath());
+            Files.copy(TokenWalkReader.getVocabularyFile(file).toPath(),
+                    TokenWalkReader.getVocabularyFile(newFile).toPath());
+            LOGGER.info("Copy operation completed.");
+        } catch (IOException e) {
+            LOGGER.error("Could not copy file '" + file.getAbsolutePath() + "' to directory '" +
+                    newWalkDirectory.getAbsolutePath() + "'", e);
+        }
     }
 
     /**
@@ -115,11 +195,21 @@ public class ContinuationEntitySelector implements EntitySelector {
      * @return New file name.
      */
     public static String changeFilePathForCopy(String name){
-        if(name.endsWith(".txt.gz")) {
+        if(name.endsWith(TokenWalkReader.WALK_FILE_SUFFIX)) {
+            return name.substring(0, name.length() - TokenWalkReader.WALK_FILE_SUFFIX.length()) + "_copied"
+                    + TokenWalkReader.WALK_FILE_SUFFIX;
+        } else if(name.endsWith(".txt.gz")) {
             return name.substring(0, name.length() - 7) + "_copied.txt.gz";
         } else {
             return name.substring(0, name.length() - 3) + "_copied.txt.gz";
         }
     }
 
+    /**
+     * @return The walk directory where existing walks reside.
+     */
+    public File getExistingWalkDirectory() {
+        return existingWalkDirectory;
+    }
+
 }
@@ -1,6 +1,7 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector;
 
 import java.util.Set;
+import java.util.Spliterator;
 
 /**
  * An EntitySelector determines the entities for which walks shall be generated.
@@ -13,4 +14,19 @@ public interface EntitySelector {
      * @return The entities to be returned.
      */
     Set<String> getEntities();
+
+    /**
+     * Obtain a new spliterator over all entities for which walks shall be generated. Every entity is returned once.
+     * Selectors which can enumerate their entities from the underlying data structure override this method so that
+     * the entities are produced lazily, without building a set first; {@link Spliterator#estimateSize()} gives the
+     * (estimated) number of entities and {@link Spliterator#trySplit()} hands out parts of the entities for parallel
+     * consumption.
+     * <p>
+     * The default implementation materializes {@link #getEntities()}.
+     *
+     * @return Spliterator over the entities.
+     */
+    default Spliterator<String> getEntitySpliterator() {
+        return getEntities().spliterator();
+    }
 }
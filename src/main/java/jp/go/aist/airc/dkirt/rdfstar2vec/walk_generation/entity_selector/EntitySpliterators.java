@@ -0,0 +1,40 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector;
+
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+/**
+ * Helpers for the spliterators of the entity selectors ({@link EntitySelector#getEntitySpliterator()}).
+ */
+final class EntitySpliterators {
+
+
+    private EntitySpliterators() {
+        // static helpers only
+    }
+
+    /**
+     * Lazy union of the given sets: an element of a set is returned unless it is contained in one of the sets before
+     * it. The sets are not copied; the result is split like the spliterators of the sets and its size estimate is the
+     * sum of the set sizes.
+     *
+     * @param sets The sets (typically key sets of the indices of a data set). They must not be modified while the
+     *             spliterator is in use.
+     * @return Spliterator over the union of the sets.
+     */
+    static Spliterator<String> union(List<Set<String>> sets) {
+        if (sets.isEmpty()) {
+            return Stream.<String>empty().spliterator();
+        }
+        // only the spliterators of parallel pipelines split; the pipelines are never evaluated as streams
+        Stream<String> result = sets.get(0).parallelStream();
+        for (int i = 1; i < sets.size(); i++) {
+            List<Set<String>> before = sets.subList(0, i);
+            result = Stream.concat(result, sets.get(i).parallelStream()
+                    .filter(element -> before.stream().noneMatch(set -> set.contains(element))));
+        }
+        return result.spliterator();
+    }
+}
@@ -13,7 +13,8 @@ import java.util.HashSet;
 import java.util.Set;
 
 /**
- * Selects HDT entities.
+ * Selects HDT entities (subjects only). The {@link HdtStreamingEntitySelector} enumerates the dictionary instead of
+ * the triples and also selects objects.
  */
 public class HdtEntitySelector implements EntitySelector {
 
@@ -50,7 +51,7 @@ public class HdtEntitySelector implements EntitySelector {
         try {
             iterator = hdtDataSet.search("", "", "");
             TripleString ts;
-            // TODO: We currently miss objects in this selector (can lead to vocab loss in some cases)
+            // objects are missed in this selector (can lead to vocab loss in some cases): see HdtStreamingEntitySelector
             while (iterator.hasNext()) {
                 ts = iterator.next();
                 result.add(ts.getSubject().toString());
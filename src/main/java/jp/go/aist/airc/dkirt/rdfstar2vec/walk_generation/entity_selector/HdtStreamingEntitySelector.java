@@ -0,0 +1,215 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators.HdtIdWalker;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Selects HDT entities by enumerating the sections of the HDT dictionary rather than the triples: the shared
+ * subject/object IDs, the subject-only IDs, and the object-only IDs which are not literals. Every entity appears
+ * exactly once in the dictionary, so no set is needed to remove duplicates, and the entities are decoded one by one
+ * while the walk generation pulls them ({@link #getEntityIterator()}).
+ * <p>
+ * Unlike the {@link HdtEntitySelector}, objects which never appear as subject are selected as well (they are part of
+ * the vocabulary of the walks).
+ */
+public class HdtStreamingEntitySelector implements StreamingEntitySelector {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HdtStreamingEntitySelector.class);
+
+    /**
+     * The data set to be used by the selector.
+     */
+    private final HDT hdtDataSet;
+
+    /**
+     * True if objects which do not appear as subject are selected.
+     */
+    private final boolean isIncludeObjects;
+
+    /**
+     * Constructor. The HDT file is memory-mapped.
+     *
+     * @param hdtFilePath Path to the HDT file.
+     * @throws IOException IOException
+     */
+    public HdtStreamingEntitySelector(String hdtFilePath) throws IOException {
+        this(hdtFilePath, true);
+    }
+
+    /**
+     * Constructor. The HDT file is memory-mapped.
+     *
+     * @param hdtFilePath      Path to the HDT file.
+     * @param isIncludeObjects True if objects which do not appear as subject shall be selected.
+     * @throws IOException IOException
+     */
+    public HdtStreamingEntitySelector(String hdtFilePath, boolean isIncludeObjects) throws IOException {
+        try {
+            this.hdtDataSet = HDTManager.mapHDT(hdtFilePath);
+        } catch (IOException e) {
+            LOGGER.error("Failed to load HDT file: " + hdtFilePath + "\nProgram will fail.", e);
+            throw e;
+        }
+        this.isIncludeObjects = isIncludeObjects;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param hdtDataSet       The data set (e.g. the one of the walk generator).
+     * @param isIncludeObjects True if objects which do not appear as subject shall be selected.
+     */
+    public HdtStreamingEntitySelector(HDT hdtDataSet, boolean isIncludeObjects) {
+        this.hdtDataSet = hdtDataSet;
+        this.isIncludeObjects = isIncludeObjects;
+    }
+
+    @Override
+    public Iterator<String> getEntityIterator() {
+        return Spliterators.iterator(getEntitySpliterator());
+    }
+
+    /**
+     * The spliterator splits the dictionary IDs into ranges; its initial size estimate is
+     * {@link #getNumberOfEntities()}.
+     *
+     * @return Lazy spliterator over the entities.
+     */
+    @Override
+    public Spliterator<String> getEntitySpliterator() {
+        return new DictionarySpliterator(hdtDataSet.getDictionary(), isIncludeObjects);
+    }
+
+    /**
+     * Materialize all entities. Prefer {@link #getEntityIterator()} for large data sets.
+     *
+     * @return The entities.
+     */
+    @Override
+    public Set<String> getEntities() {
+        Set<String> result = new HashSet<>();
+        Iterator<String> iterator = getEntityIterator();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of entities (if the literals are not a range of the dictionary, the object-only literals
+     * are included in this number).
+     */
+    public long getNumberOfEntities() {
+        Dictionary dictionary = hdtDataSet.getDictionary();
+        if (!isIncludeObjects) return dictionary.getNsubjects();
+        long lastLiteralId = HdtIdWalker.findLastLiteralId(dictionary);
+        long literals = lastLiteralId < 0 ? 0 : lastLiteralId - dictionary.getNshared();
+        return dictionary.getNsubjects() + dictionary.getNobjects() - dictionary.getNshared() - literals;
+    }
+
+    /**
+     * Walks through the subject section (which begins with the shared section) and then through the non-literal part
+     * of the object-only section. The two ID ranges are concatenated to one range of positions which is split in
+     * halves.
+     */
+    private static class DictionarySpliterator implements Spliterator<String> {
+
+
+        private final Dictionary dictionary;
+
+        /**
+         * Positions below this number are subject IDs (position + 1).
+         */
+        private final long numberOfSubjects;
+
+        /**
+         * The object ID of the first position after the subjects.
+         */
+        private final long firstObjectId;
+
+        /**
+         * True if the literals are not a range and every object has to be checked.
+         */
+        private final boolean isCheckLiterals;
+
+        private long position;
+
+        private final long end;
+
+        DictionarySpliterator(Dictionary dictionary, boolean isIncludeObjects) {
+            this.dictionary = dictionary;
+            this.numberOfSubjects = dictionary.getNsubjects();
+            if (isIncludeObjects) {
+                long lastLiteralId = HdtIdWalker.findLastLiteralId(dictionary);
+                this.isCheckLiterals = lastLiteralId < 0;
+                this.firstObjectId = isCheckLiterals ? dictionary.getNshared() + 1 : lastLiteralId + 1;
+                this.end = numberOfSubjects + Math.max(0, dictionary.getNobjects() - firstObjectId + 1);
+            } else {
+                this.isCheckLiterals = false;
+                this.firstObjectId = 1;
+                this.end = numberOfSubjects;
+            }
+            this.position = 0;
+        }
+
+        private DictionarySpliterator(DictionarySpliterator other, long position, long end) {
+            this.dictionary = other.dictionary;
+            this.numberOfSubjects = other.numberOfSubjects;
+            this.firstObjectId = other.firstObjectId;
+            this.isCheckLiterals = other.isCheckLiterals;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            while (position < end) {
+                long current = position++;
+                if (current < numberOfSubjects) {
+                    action.accept(dictionary.idToString(current + 1, TripleComponentRole.SUBJECT).toString());
+                    return true;
+                }
+                CharSequence object = dictionary.idToString(firstObjectId + current - numberOfSubjects,
+                        TripleComponentRole.OBJECT);
+                if (isCheckLiterals && HdtIdWalker.isLiteralString(object)) continue;
+                action.accept(object.toString());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            long middle = (position + end) >>> 1;
+            if (middle <= position) return null;
+            DictionarySpliterator prefix = new DictionarySpliterator(this, position, middle);
+            position = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - position;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = DISTINCT | NONNULL | IMMUTABLE;
+            return isCheckLiterals ? characteristics : characteristics | SIZED | SUBSIZED;
+        }
+    }
+}
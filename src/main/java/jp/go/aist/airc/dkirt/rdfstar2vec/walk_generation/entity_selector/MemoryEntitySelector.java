@@ -1,7 +1,9 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Spliterator;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TripleDataSetMemory;
 
@@ -23,9 +25,19 @@ public class MemoryEntitySelector implements EntitySelector {
 
     @Override
     public Set<String> getEntities() {
-        Set<String> result = new HashSet<>();
-        result.addAll(data.getUniqueSubjects());
-        result.addAll(data.getUniqueObjectTripleObjects());
+        Spliterator<String> entities = getEntitySpliterator();
+        Set<String> result = new HashSet<>((int) Math.min(Integer.MAX_VALUE, entities.estimateSize()));
+        entities.forEachRemaining(result::add);
         return result;
     }
+
+    /**
+     * The entities are read directly from the subject and object indices of the data set (no copy).
+     * @return Lazy spliterator over the entities.
+     */
+    @Override
+    public Spliterator<String> getEntitySpliterator() {
+        return EntitySpliterators.union(Arrays.asList(data.getUniqueObjectTripleSubjects(),
+                data.getUniqueDatatypeTripleSubjects(), data.getUniqueObjectTripleObjects()));
+    }
 }
@@ -1,10 +1,12 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Spliterator;
 
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTripleDataSetMemory;
-import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TripleDataSetMemory;
 
 /**
  * This entity selector selects all unique nodes.
@@ -20,13 +22,41 @@ public class MemoryStarEntitySelector implements EntitySelector {
         this.data = data;
     }
 
+    /**
+     * Constructor.
+     * @param compactData Dictionary-encoded triple data set to be used.
+     */
+    public MemoryStarEntitySelector(CompactQuotedTripleDataSetMemory compactData){
+        this.compactData = compactData;
+    }
+
     private QuotedTripleDataSetMemory data;
 
+    private CompactQuotedTripleDataSetMemory compactData;
+
     @Override
     public Set<String> getEntities() {
-        Set<String> result = new HashSet<>();
-        result.addAll(data.getUniqueSubjects());
-        result.addAll(data.getUniqueObjectTripleObjects());
+        if (compactData != null) {
+            return compactData.getUniqueObjectTripleSubjectsAndObjects();
+        }
+        Spliterator<String> entities = getEntitySpliterator();
+        Set<String> result = new HashSet<>((int) Math.min(Integer.MAX_VALUE, entities.estimateSize()));
+        entities.forEachRemaining(result::add);
         return result;
     }
+
+    /**
+     * The entities are read directly from the subject and object indices (or from the node IDs of the compact data
+     * set); no set is built.
+     * @return Lazy spliterator over the entities.
+     */
+    @Override
+    public Spliterator<String> getEntitySpliterator() {
+        if (compactData != null) {
+            // the spliterator of a parallel pipeline splits the range of node IDs
+            return compactData.streamUniqueObjectTripleSubjectsAndObjects().parallel().spliterator();
+        }
+        return EntitySpliterators.union(Arrays.asList(data.getUniqueObjectTripleSubjects(),
+                data.getUniqueDatatypeTripleSubjects(), data.getUniqueObjectTripleObjects()));
+    }
 }
@@ -4,6 +4,9 @@ import org.apache.jena.ontology.OntModel;
 import org.apache.jena.query.*;
 
 import java.util.HashSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 
 /**
  * Get all entities using a Jena OntModel.
@@ -23,6 +26,12 @@ public class OntModelEntitySelector implements EntitySelector {
      */
     OntModel model;
 
+    /**
+     * Subjects and (non-literal) objects in one query, so that the query engine removes the duplicates.
+     */
+    private static final String ENTITY_QUERY = "SELECT DISTINCT ?e WHERE { { ?e ?p ?o . } UNION { ?s ?p ?e . } " +
+            "FILTER(isIRI(?e)) . }";
+
     @Override
     /**
      * Obtain the entities in this case: Lexical Entry instances.
@@ -32,29 +41,45 @@ public class OntModelEntitySelector implements EntitySelector {
      */
     public HashSet<String> getEntities() {
         HashSet<String> result = new HashSet<>(100000);
+        getEntitySpliterator().forEachRemaining(result::add);
+        return result;
+    }
+
+    /**
+     * The entities are read from the result set of the query while the spliterator is traversed.
+     *
+     * @return Lazy spliterator over the entities.
+     */
+    @Override
+    public Spliterator<String> getEntitySpliterator() {
+        return new ResultSetSpliterator();
+    }
+
+    private class ResultSetSpliterator extends Spliterators.AbstractSpliterator<String> {
 
-        // (1) Subjects
-        String queryString = "SELECT distinct ?s WHERE { ?s ?p ?o . }";
-        Query query = QueryFactory.create(queryString);
-        QueryExecution queryExecution = QueryExecutionFactory.create(query, model);
-        ResultSet queryResult = queryExecution.execSelect();
-        while (queryResult.hasNext()) {
-            String conceptUri = queryResult.next().getResource("s").getURI();
-            if(conceptUri == null) continue;
-            result.add(conceptUri);
-        }
 
-        // (2) Objects
-        queryString = "SELECT distinct ?o WHERE {?s ?p ?o . FILTER(!isLiteral(?o)) .}";
-        query = QueryFactory.create(queryString);
-        queryExecution = QueryExecutionFactory.create(query, model);
-        queryResult = queryExecution.execSelect();
-        while (queryResult.hasNext()) {
-            String conceptUri = queryResult.next().getResource("o").getURI();
-            if(conceptUri == null) continue;
-            result.add(conceptUri);
+        private QueryExecution queryExecution;
+
+        private ResultSet queryResult;
+
+        ResultSetSpliterator() {
+            super(Long.MAX_VALUE, Spliterator.DISTINCT | Spliterator.NONNULL);
         }
 
-        return result;
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (queryExecution == null) {
+                queryExecution = QueryExecutionFactory.create(QueryFactory.create(ENTITY_QUERY), model);
+                queryResult = queryExecution.execSelect();
+            }
+            if (queryResult == null) return false;
+            if (queryResult.hasNext()) {
+                action.accept(queryResult.next().getResource("e").getURI());
+                return true;
+            }
+            queryExecution.close();
+            queryResult = null;
+            return false;
+        }
     }
 }
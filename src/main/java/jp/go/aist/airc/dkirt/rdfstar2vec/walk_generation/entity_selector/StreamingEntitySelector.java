@@ -0,0 +1,32 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * An EntitySelector which can enumerate its entities lazily. The walk generation pulls the entities from
+ * {@link #getEntityIterator()} in chunks, so the entities are never held in memory all at once.
+ */
+public interface StreamingEntitySelector extends EntitySelector {
+
+
+    /**
+     * Obtain a new iterator over all entities for which walks shall be generated. Every entity is returned once.
+     * The iterator is used by one thread only.
+     *
+     * @return Lazy iterator over the entities.
+     */
+    Iterator<String> getEntityIterator();
+
+    /**
+     * Wraps {@link #getEntityIterator()}; the size is unknown and the spliterator splits off batches of entities it
+     * has pulled from the iterator.
+     *
+     * @return Lazy spliterator over the entities.
+     */
+    @Override
+    default Spliterator<String> getEntitySpliterator() {
+        return Spliterators.spliteratorUnknownSize(getEntityIterator(), Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+}
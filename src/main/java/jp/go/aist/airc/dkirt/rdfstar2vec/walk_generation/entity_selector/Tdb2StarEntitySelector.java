@@ -0,0 +1,110 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators.Tdb2StarWalkGenerator;
+import org.apache.jena.atlas.lib.Pair;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.sys.TDBInternal;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Selects the nodes of a TDB2 RDF-star graph which are the subject or the object of an object triple (like the
+ * {@link MemoryStarEntitySelector}), including quoted triple nodes. The entities are enumerated from the node table
+ * of TDB2, which holds every node once, so no set is needed to remove duplicates
+ * ({@link #getEntityIterator()}).
+ */
+public class Tdb2StarEntitySelector implements StreamingEntitySelector {
+
+
+    private final Tdb2StarWalkGenerator walkGenerator;
+
+    /**
+     * Constructor
+     *
+     * @param walkGenerator The walk generator (whose data set and labels are used).
+     */
+    public Tdb2StarEntitySelector(Tdb2StarWalkGenerator walkGenerator) {
+        this.walkGenerator = walkGenerator;
+    }
+
+    /**
+     * Obtain a new iterator over the entities. The iterator reads in a read transaction of the thread that consumes
+     * it; the transaction ends once the iterator is exhausted.
+     *
+     * @return Lazy iterator over the entities.
+     */
+    @Override
+    public Iterator<String> getEntityIterator() {
+        return new NodeTableIterator();
+    }
+
+    /**
+     * Materialize all entities. Prefer {@link #getEntityIterator()} for large data sets.
+     *
+     * @return The entities.
+     */
+    @Override
+    public Set<String> getEntities() {
+        Set<String> result = new HashSet<>();
+        Iterator<String> iterator = getEntityIterator();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    private class NodeTableIterator implements Iterator<String> {
+
+
+        private Iterator<Pair<NodeId, Node>> nodes;
+
+        /**
+         * True if the iterator began the transaction (the consuming thread has not been in a transaction).
+         */
+        private boolean isOwnTransaction;
+
+        private boolean isFinished = false;
+
+        /**
+         * The next entity; null if it has not been determined yet.
+         */
+        private String next;
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (isFinished) return false;
+            Dataset dataset = walkGenerator.getTdbDataset();
+            if (nodes == null) {
+                isOwnTransaction = !dataset.isInTransaction();
+                if (isOwnTransaction) dataset.begin(ReadWrite.READ);
+                nodes = TDBInternal.getDatasetGraphTDB(dataset).getTripleTable().getNodeTupleTable().getNodeTable()
+                        .all();
+            }
+            while (nodes.hasNext()) {
+                Node node = nodes.next().getRight();
+                if (walkGenerator.isInObjectTriple(node)) {
+                    next = walkGenerator.toLabel(node);
+                    return true;
+                }
+            }
+            isFinished = true;
+            if (isOwnTransaction) dataset.end();
+            return false;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String result = next;
+            next = null;
+            return result;
+        }
+    }
+}
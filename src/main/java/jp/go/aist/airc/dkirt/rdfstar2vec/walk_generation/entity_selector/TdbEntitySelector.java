@@ -1,40 +1,131 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector;
 
+import org.apache.jena.atlas.lib.Pair;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb.store.NodeId;
+import org.apache.jena.tdb.sys.TDBInternal;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 
 public class TdbEntitySelector implements EntitySelector {
 
 
     private Model tdbModel;
 
+    /**
+     * The data set of the model if the entities shall be selected in a read transaction, else null.
+     */
+    private Dataset tdbDataset;
+
     public TdbEntitySelector(Model tdbModel){
         this.tdbModel = tdbModel;
     }
 
+    /**
+     * Constructor. The entities are selected in a read transaction (required if the data set is read in
+     * transactions by the walk generator).
+     *
+     * @param tdbDataset The TDB data set.
+     */
+    public TdbEntitySelector(Dataset tdbDataset){
+        this.tdbDataset = tdbDataset;
+        this.tdbModel = tdbDataset.getDefaultModel();
+    }
+
     @Override
     public Set<String> getEntities() {
+        if (tdbDataset != null) {
+            return Txn.calculateRead(tdbDataset, () -> {
+                Set<String> result = new HashSet<>();
+                getEntitySpliterator().forEachRemaining(result::add);
+                return result;
+            });
+        }
+        return selectEntities();
+    }
+
+    /**
+     * If the selector has been created with the data set, the entities are enumerated from the node table of TDB,
+     * which holds every node once, so no set is needed to remove duplicates. The spliterator reads in a read
+     * transaction of the thread that traverses it (the transaction ends once the spliterator is exhausted); hence,
+     * it has to be traversed and split by one thread, whereas the batches it splits off can be consumed by any
+     * thread.
+     *
+     * @return Lazy spliterator over the entities (materialized if the selector has been created with a model).
+     */
+    @Override
+    public Spliterator<String> getEntitySpliterator() {
+        if (tdbDataset == null) {
+            return selectEntities().spliterator();
+        }
+        return new NodeTableSpliterator();
+    }
+
+    private Set<String> selectEntities() {
         Set<String> result = new HashSet<>();
-        result.addAll(
-                tdbModel.listSubjects()
-                .filterKeep(x -> x.isURIResource())
-                .toSet()
-                .stream()
-                .map(x -> x.getURI())
-                .collect(Collectors.toSet())
-        );
-        result.addAll(
-                tdbModel.listObjects()
-                        .filterKeep(x -> x.isURIResource())
-                        .toSet()
-                        .stream()
-                        .map(x -> ((Resource) x).getURI())
-                        .collect(Collectors.toSet())
-        );
+        tdbModel.listSubjects()
+                .filterKeep(RDFNode::isURIResource)
+                .forEachRemaining(x -> result.add(x.getURI()));
+        tdbModel.listObjects()
+                .filterKeep(RDFNode::isURIResource)
+                .forEachRemaining(x -> result.add(((Resource) x).getURI()));
         return result;
     }
+
+    /**
+     * Selects the URI nodes of the node table which are the subject or the object of a triple in the default graph.
+     */
+    private class NodeTableSpliterator extends Spliterators.AbstractSpliterator<String> {
+
+
+        private Iterator<Pair<NodeId, Node>> nodes;
+
+        private Graph graph;
+
+        /**
+         * True if the spliterator began the transaction (the traversing thread has not been in a transaction).
+         */
+        private boolean isOwnTransaction;
+
+        private boolean isFinished = false;
+
+        NodeTableSpliterator() {
+            super(Long.MAX_VALUE, Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (isFinished) return false;
+            if (nodes == null) {
+                isOwnTransaction = !tdbDataset.isInTransaction();
+                if (isOwnTransaction) tdbDataset.begin(ReadWrite.READ);
+                graph = tdbDataset.asDatasetGraph().getDefaultGraph();
+                nodes = TDBInternal.getBaseDatasetGraphTDB(tdbDataset.asDatasetGraph()).getTripleTable()
+                        .getNodeTupleTable().getNodeTable().all();
+            }
+            while (nodes.hasNext()) {
+                Node node = nodes.next().getRight();
+                if (node.isURI() && (graph.contains(node, Node.ANY, Node.ANY)
+                        || graph.contains(Node.ANY, Node.ANY, node))) {
+                    action.accept(node.getURI());
+                    return true;
+                }
+            }
+            isFinished = true;
+            if (isOwnTransaction) tdbDataset.end();
+            return false;
+        }
+    }
 }
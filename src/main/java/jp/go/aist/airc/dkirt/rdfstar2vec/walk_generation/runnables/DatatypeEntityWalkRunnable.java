@@ -48,6 +48,15 @@ public class DatatypeEntityWalkRunnable implements Runnable {
 
     @Override
     public void run() {
+        run(entity);
+    }
+
+    /**
+     * Generate and write the text walks for the given entity with the settings of this runnable (thread-safe).
+     *
+     * @param entity The entity to be processed.
+     */
+    public void run(String entity) {
         if (walkGenerator.getWalkGenerator() instanceof MemoryWalkGenerator) {
             // datatype walks are only implemented for memory options
             // yes, the depth and # of walks parameters are this way
@@ -86,6 +86,16 @@ public class DefaultEntityWalkRunnable implements Runnable {
      * Actual thread execution.
      */
     public void run() {
+        run(entity);
+    }
+
+    /**
+     * Generate and write the walks for the given entity with the settings of this runnable. The settings are not
+     * changed, hence one instance can serve any number of entities concurrently.
+     *
+     * @param entity The entity to be processed.
+     */
+    public void run(String entity) {
         switch (walkGenerationMode) {
         	case STAR_MID_WALKS:
         		if (walkGenerationManager.getWalkGenerator() instanceof IStarMidWalkCapability) {
@@ -121,6 +131,30 @@ public class DefaultEntityWalkRunnable implements Runnable {
                             " it implements IRandomWalkDuplicateFreeCapability.");
                 }
                 break;
+        	case STAR_RANDOM_WALKS_DUPLICATE_FREE_SAMPLED:
+                if (walkGenerationManager.getWalkGenerator() instanceof IStarSampledRandomWalkDuplicateFreeCapability) {
+                    walkGenerationManager
+                            .writeToFile(
+                                    ((IStarSampledRandomWalkDuplicateFreeCapability) walkGenerationManager.getWalkGenerator())
+                                            .generateSampledDuplicateFreeStarRandomWalksForEntity(walkGenerationManager.shortenUri(entity), numberOfWalks, this.depth, this.probabilityFromQtToSubject, this.probabilityFromObjectToQt));
+                } else {
+                    LOGGER.error("NOT YET IMPLEMENTED FOR THIS WALK GENERATOR (" + walkGenerationManager.getWalkGenerator().getClass() + ")!" +
+                            " Make sure" +
+                            " it implements IStarSampledRandomWalkDuplicateFreeCapability.");
+                }
+                break;
+        	case RANDOM_WALKS_DUPLICATE_FREE_SAMPLED:
+                if (walkGenerationManager.getWalkGenerator() instanceof ISampledRandomWalkDuplicateFreeCapability) {
+                    walkGenerationManager
+                            .writeToFile(
+                                    ((ISampledRandomWalkDuplicateFreeCapability) walkGenerationManager.getWalkGenerator())
+                                            .generateSampledDuplicateFreeRandomWalksForEntity(walkGenerationManager.shortenUri(entity), numberOfWalks, this.depth));
+                } else {
+                    LOGGER.error("NOT YET IMPLEMENTED FOR THIS WALK GENERATOR (" + walkGenerationManager.getWalkGenerator().getClass() + ")!" +
+                            " Make sure" +
+                            " it implements ISampledRandomWalkDuplicateFreeCapability.");
+                }
+                break;
         	case RANDOM_WALKS_DUPLICATE_FREE:
                 if (walkGenerationManager.getWalkGenerator() instanceof IRandomWalkDuplicateFreeCapability) {
                     walkGenerationManager
@@ -156,12 +190,28 @@ public class DefaultEntityWalkRunnable implements Runnable {
                 }
                 break;
             case MID_WALKS_WEIGHTED:
+            case MID_WALKS_WEIGHTED_PREDICATE_FREQUENCY:
+            case MID_WALKS_WEIGHTED_INVERSE_PREDICATE_FREQUENCY:
+            case MID_WALKS_WEIGHTED_DEGREE:
+            case MID_WALKS_WEIGHTED_INVERSE_DEGREE:
                 if (walkGenerationManager.getWalkGenerator() instanceof IMidWalkWeightedCapability) {
                     walkGenerationManager.writeToFile(((IMidWalkWeightedCapability) walkGenerationManager.getWalkGenerator()).generateWeightedMidWalksForEntity(walkGenerationManager.shortenUri(entity), this.numberOfWalks, this.depth));
                 } else {
                     printNotImplementedWarning();
                 }
                 break;
+            case NODE2VEC_WALKS:
+                if (walkGenerationManager.getWalkGenerator() instanceof INode2VecWalkCapability) {
+                    walkGenerationManager.writeToFile(
+                            ((INode2VecWalkCapability) walkGenerationManager.getWalkGenerator())
+                                    .generateNode2VecWalksForEntity(walkGenerationManager.shortenUri(entity),
+                                            this.numberOfWalks, this.depth,
+                                            walkGenerationManager.getReturnParameter(),
+                                            walkGenerationManager.getInOutParameter()));
+                } else {
+                    printNotImplementedWarning();
+                }
+                break;
             case EXPERIMENTAL_MID_TYPE_WALKS_DUPLICATE_FREE:
                 if (walkGenerationManager.getWalkGenerator() instanceof IMidTypeWalkDuplicateFreeCapability) {
                     walkGenerationManager.writeToFile(
@@ -0,0 +1,438 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.ResultEstimationType;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.triples.IteratorTripleID;
+import org.rdfhdt.hdt.triples.TripleID;
+import org.rdfhdt.hdt.triples.Triples;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mid walks on an HDT data set which work on the dictionary IDs rather than on strings: the neighbors of a node are
+ * found with {@link TripleID} patterns on the bitmap triples (subject adjacency for successors, object index for
+ * predecessors), and the drawn neighbor is reached directly by its position in the result
+ * ({@link IteratorTripleID#goTo(long)}) instead of copying all neighbors into a set. The components of a walk are
+ * only decoded to strings once the walk is complete.
+ * <p>
+ * A node is held as signed ID: a positive ID is the ID of the node in the subject role (shared subject/object IDs are
+ * the same in both roles), a negative ID is the negated ID of a node which only appears as object.
+ * <p>
+ * Literal objects are skipped. In the four-section dictionary, the literals are the first IDs of the object section
+ * (they start with a quote which sorts before IRIs and blank nodes), so a literal is recognized by its ID range.
+ * <p>
+ * Predecessors are found quickly only if the HDT file was loaded with its index ({@code .hdt.index.v1-1}).
+ */
+public class HdtIdWalker {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HdtIdWalker.class);
+
+    /**
+     * Number of attempts to draw a non-literal successor by its position before all successors are scanned.
+     */
+    private static final int MAX_DRAW_ATTEMPTS = 8;
+
+    private final Triples triples;
+
+    private final Dictionary dictionary;
+
+    /**
+     * Number of IDs shared by subjects and objects.
+     */
+    private final long numberOfShared;
+
+    /**
+     * The literals are the object IDs in ]{@link #numberOfShared}, {@link #lastLiteralId}]; -1 if the literals are
+     * not a range of the dictionary (they are detected by decoding the object in this case).
+     */
+    private final long lastLiteralId;
+
+    /**
+     * Constructor
+     *
+     * @param hdtDataSet The data set (should be loaded with its index so that predecessors can be found quickly).
+     */
+    public HdtIdWalker(HDT hdtDataSet) {
+        this.triples = hdtDataSet.getTriples();
+        this.dictionary = hdtDataSet.getDictionary();
+        this.numberOfShared = dictionary.getNshared();
+        this.lastLiteralId = findLastLiteralId(dictionary);
+    }
+
+    /**
+     * Determine the range of the literals in the object section of the dictionary: binary search for the end of the
+     * literals at the beginning of the object section.
+     *
+     * @param dictionary The dictionary.
+     * @return Last literal ID ({@link Dictionary#getNshared()} if there are no literals); -1 if the dictionary is not a
+     * four-section dictionary (the literals are not a range then).
+     */
+    public static long findLastLiteralId(Dictionary dictionary) {
+        String type = dictionary.getType();
+        if (type == null || !type.contains("dictionaryFour")) {
+            LOGGER.info("Dictionary type " + type + ": literals are detected by decoding the objects.");
+            return -1;
+        }
+        long low = dictionary.getNshared() + 1;
+        long high = dictionary.getNobjects() + 1;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (isLiteralString(dictionary.idToString(middle, TripleComponentRole.OBJECT))) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        LOGGER.info((low - 1 - dictionary.getNshared()) + " literals in the dictionary.");
+        return low - 1;
+    }
+
+    /**
+     * @param value Decoded term.
+     * @return True if the term is a literal.
+     */
+    public static boolean isLiteralString(CharSequence value) {
+        return value != null && value.length() > 0 && value.charAt(0) == '"';
+    }
+
+    /**
+     * @param objectId Object ID.
+     * @return True if the object is a literal.
+     */
+    boolean isLiteral(long objectId) {
+        if (objectId <= numberOfShared) return false;
+        if (lastLiteralId >= 0) return objectId <= lastLiteralId;
+        return isLiteralString(dictionary.idToString(objectId, TripleComponentRole.OBJECT));
+    }
+
+    /**
+     * Obtain the node of the given entity.
+     *
+     * @param entity The entity.
+     * @return Signed node ID; 0 if the entity does not appear in the data set.
+     */
+    long getNode(String entity) {
+        long subjectId = dictionary.stringToId(entity, TripleComponentRole.SUBJECT);
+        if (subjectId > 0) return subjectId;
+        long objectId = dictionary.stringToId(entity, TripleComponentRole.OBJECT);
+        if (objectId > 0) return getNodeOfObject(objectId);
+        return 0;
+    }
+
+    private long getNodeOfObject(long objectId) {
+        return objectId <= numberOfShared ? objectId : -objectId;
+    }
+
+    /**
+     * @param node Signed node ID.
+     * @return The subject ID of the node; 0 if the node does not appear as subject.
+     */
+    private long getSubjectId(long node) {
+        return node > 0 ? node : 0;
+    }
+
+    /**
+     * @param node Signed node ID.
+     * @return The object ID of the node; 0 if the node does not appear as object.
+     */
+    private long getObjectId(long node) {
+        if (node < 0) return -node;
+        return node <= numberOfShared ? node : 0;
+    }
+
+    private String decodeNode(long node) {
+        return node > 0 ? dictionary.idToString(node, TripleComponentRole.SUBJECT).toString() :
+                dictionary.idToString(-node, TripleComponentRole.OBJECT).toString();
+    }
+
+    private String decodePredicate(long predicate) {
+        return dictionary.idToString(predicate, TripleComponentRole.PREDICATE).toString();
+    }
+
+    /**
+     * Generates walks. Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param numberOfWalks The number of walks to be performed.
+     * @param isWeighted    True: the direction of each hop is drawn in proportion to the number of predecessors and
+     *                      successors; false: both directions are equally likely.
+     * @param random        The random number generator to be used.
+     * @return Walks as lists of components.
+     */
+    public List<List<String>> generateMidWalks(String entity, int depth, int numberOfWalks, boolean isWeighted,
+                                               Random random) {
+        List<List<String>> result = new ArrayList<>();
+        long node = getNode(entity);
+        if (node == 0) return result;
+        IdWalk walk = new IdWalk(depth);
+        for (int i = 0; i < numberOfWalks; i++) {
+            walk.reset(node);
+            if (isWeighted) {
+                walkWeighted(walk, depth, random);
+            } else {
+                walk(walk, depth, random);
+            }
+            if (walk.size() > 1) {
+                result.add(decode(walk, entity));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Generates a single walk.
+     *
+     * @param entity     The entity for which a walk shall be generated.
+     * @param depth      The depth of the walk.
+     * @param isWeighted True for a weighted walk (see {@link #generateMidWalks(String, int, int, boolean, Random)}).
+     * @param random     The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateMidWalk(String entity, int depth, boolean isWeighted, Random random) {
+        long node = getNode(entity);
+        if (node == 0) {
+            List<String> result = new ArrayList<>();
+            result.add(entity);
+            return result;
+        }
+        IdWalk walk = new IdWalk(depth);
+        walk.reset(node);
+        if (isWeighted) {
+            walkWeighted(walk, depth, random);
+        } else {
+            walk(walk, depth, random);
+        }
+        return decode(walk, entity);
+    }
+
+    private List<String> decode(IdWalk walk, String entity) {
+        List<String> result = new ArrayList<>(walk.size());
+        for (int i = walk.head; i < walk.tail; i++) {
+            if (i == walk.entityIndex) {
+                result.add(entity);
+            } else if ((i - walk.entityIndex) % 2 != 0) {
+                result.add(decodePredicate(walk.ids[i]));
+            } else {
+                result.add(decodeNode(walk.ids[i]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Each hop goes backwards or forwards with equal probability; if there is no neighbor in the drawn direction, the
+     * hop is skipped.
+     */
+    private void walk(IdWalk walk, int depth, Random random) {
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            if (random.nextInt(2) == 0) {
+                long objectId = getObjectId(walk.first());
+                if (objectId == 0) continue;
+                long[] predecessor = drawPredecessor(objectId, random);
+                if (predecessor != null) walk.addFirst(predecessor[1], predecessor[0]);
+            } else {
+                long subjectId = getSubjectId(walk.last());
+                if (subjectId == 0) continue;
+                long[] successor = drawSuccessor(subjectId, random);
+                if (successor != null) walk.addLast(successor[0], getNodeOfObject(successor[1]));
+            }
+        }
+    }
+
+    /**
+     * The direction of each hop is drawn in proportion to the number of predecessors of the first node and the number
+     * of (non-literal) successors of the last node. The walk ends early if there are neither.
+     */
+    private void walkWeighted(IdWalk walk, int depth, Random random) {
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            double randomPickZeroOne = random.nextDouble();
+
+            long objectId = getObjectId(walk.first());
+            IteratorTripleID predecessors = null;
+            long numberOfPredecessors = 0;
+            if (objectId != 0) {
+                predecessors = triples.search(new TripleID(0, 0, objectId));
+                numberOfPredecessors = countIfNotExact(predecessors);
+                if (predecessors.numResultEstimation() != ResultEstimationType.EXACT) {
+                    predecessors = triples.search(new TripleID(0, 0, objectId));
+                }
+            }
+
+            // the successors are counted in one scan which also draws one of them (reservoir sampling)
+            long subjectId = getSubjectId(walk.last());
+            long numberOfSuccessors = 0;
+            long drawnPredicate = 0;
+            long drawnObject = 0;
+            if (subjectId != 0) {
+                IteratorTripleID successors = triples.search(new TripleID(subjectId, 0, 0));
+                while (successors.hasNext()) {
+                    TripleID triple = successors.next();
+                    if (isLiteral(triple.getObject())) continue;
+                    numberOfSuccessors++;
+                    if (random.nextDouble() * numberOfSuccessors < 1.0) {
+                        drawnPredicate = triple.getPredicate();
+                        drawnObject = triple.getObject();
+                    }
+                }
+            }
+
+            if (numberOfPredecessors == 0 && numberOfSuccessors == 0) return;
+            double cutOffPoint = (double) numberOfPredecessors / (numberOfPredecessors + numberOfSuccessors);
+            if (randomPickZeroOne <= cutOffPoint) {
+                long[] predecessor = drawFrom(predecessors, numberOfPredecessors, random);
+                if (predecessor != null) walk.addFirst(predecessor[1], predecessor[0]);
+            } else {
+                walk.addLast(drawnPredicate, getNodeOfObject(drawnObject));
+            }
+        }
+    }
+
+    /**
+     * @return The number of results; if the estimation of the iterator is not exact, the iterator is consumed.
+     */
+    private static long countIfNotExact(IteratorTripleID iterator) {
+        if (iterator.numResultEstimation() == ResultEstimationType.EXACT) {
+            return iterator.estimatedNumResults();
+        }
+        long count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Draw a triple with the given object.
+     *
+     * @return Subject ID and predicate ID; null if there is no such triple.
+     */
+    private long[] drawPredecessor(long objectId, Random random) {
+        IteratorTripleID iterator = triples.search(new TripleID(0, 0, objectId));
+        if (iterator.numResultEstimation() == ResultEstimationType.EXACT && iterator.canGoTo()) {
+            return drawFrom(iterator, iterator.estimatedNumResults(), random);
+        }
+        // no exact count (e.g. no object index): draw while scanning
+        long[] result = null;
+        long count = 0;
+        while (iterator.hasNext()) {
+            TripleID triple = iterator.next();
+            count++;
+            if (random.nextDouble() * count < 1.0) {
+                result = new long[]{triple.getSubject(), triple.getPredicate()};
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Draw the triple at a random position of a fresh iterator with the given number of results.
+     *
+     * @return Subject ID and predicate ID; null if there are no results.
+     */
+    private long[] drawFrom(IteratorTripleID iterator, long numberOfResults, Random random) {
+        if (iterator == null || numberOfResults <= 0) return null;
+        long position = (long) (random.nextDouble() * numberOfResults);
+        if (iterator.canGoTo()) {
+            iterator.goTo(position);
+        } else {
+            for (long i = 0; i < position && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+        }
+        if (!iterator.hasNext()) return null;
+        TripleID triple = iterator.next();
+        return new long[]{triple.getSubject(), triple.getPredicate()};
+    }
+
+    /**
+     * Draw a triple with the given subject and a non-literal object. Positions are drawn until a non-literal object
+     * is hit; subjects with mostly literals are scanned instead. Both ways draw uniformly from the non-literal
+     * successors.
+     *
+     * @return Predicate ID and object ID; null if there is no such triple.
+     */
+    private long[] drawSuccessor(long subjectId, Random random) {
+        IteratorTripleID iterator = triples.search(new TripleID(subjectId, 0, 0));
+        if (iterator.numResultEstimation() == ResultEstimationType.EXACT && iterator.canGoTo()) {
+            long numberOfResults = iterator.estimatedNumResults();
+            if (numberOfResults <= 0) return null;
+            for (int attempt = 0; attempt < MAX_DRAW_ATTEMPTS; attempt++) {
+                iterator.goTo((long) (random.nextDouble() * numberOfResults));
+                if (!iterator.hasNext()) break;
+                TripleID triple = iterator.next();
+                if (!isLiteral(triple.getObject())) {
+                    return new long[]{triple.getPredicate(), triple.getObject()};
+                }
+            }
+            iterator = triples.search(new TripleID(subjectId, 0, 0));
+        }
+        long[] result = null;
+        long count = 0;
+        while (iterator.hasNext()) {
+            TripleID triple = iterator.next();
+            if (isLiteral(triple.getObject())) continue;
+            count++;
+            if (random.nextDouble() * count < 1.0) {
+                result = new long[]{triple.getPredicate(), triple.getObject()};
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A walk of IDs which grows in both directions: nodes (signed IDs) and predicates alternate.
+     */
+    private static final class IdWalk {
+
+
+        final long[] ids;
+
+        final int entityIndex;
+
+        int head;
+
+        int tail;
+
+        IdWalk(int depth) {
+            ids = new long[4 * depth + 1];
+            entityIndex = 2 * depth;
+        }
+
+        void reset(long node) {
+            head = entityIndex;
+            tail = entityIndex + 1;
+            ids[entityIndex] = node;
+        }
+
+        long first() {
+            return ids[head];
+        }
+
+        long last() {
+            return ids[tail - 1];
+        }
+
+        void addFirst(long predicate, long node) {
+            ids[--head] = predicate;
+            ids[--head] = node;
+        }
+
+        void addLast(long predicate, long node) {
+            ids[tail++] = predicate;
+            ids[tail++] = node;
+        }
+
+        int size() {
+            return tail - head;
+        }
+    }
+}
@@ -17,9 +17,12 @@ import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A parser for HDT files.
+ * <p>
+ * By default, the walks are generated on the dictionary IDs ({@link HdtIdWalker}); the string-based search of the
+ * original implementation can be used with {@link #setIdWalks(boolean)}.
  */
 public class HdtWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMidWalkDuplicateFreeCapability,
-IMidWalkWeightedCapability {
+IMidWalkWeightedCapability, ISeedableWalkGenerator {
 
 
     /**
@@ -32,6 +35,21 @@ IMidWalkWeightedCapability {
      */
     HDT hdtDataSet;
 
+    /**
+     * Walk engine working on dictionary IDs.
+     */
+    private final HdtIdWalker idWalker;
+
+    /**
+     * True if the walks are generated on dictionary IDs rather than on strings.
+     */
+    private boolean isIdWalks = true;
+
+    /**
+     * The global seed from which the random number generator of every entity is derived.
+     */
+    private long seed = WalkRandom.newSeed();
+
     /**
      * Constructor
      *
@@ -40,11 +58,13 @@ IMidWalkWeightedCapability {
      */
     public HdtWalkGenerator(String hdtFilePath) throws IOException {
         try {
-            hdtDataSet = HDTManager.loadHDT(hdtFilePath);
+            // the index (created next to the file if it does not exist) is required to find predecessors quickly
+            hdtDataSet = HDTManager.loadIndexedHDT(hdtFilePath);
         } catch (IOException e) {
             LOGGER.error("Failed to load HDT file: " + hdtFilePath + "\nProgram will fail.", e);
             throw e;
         }
+        idWalker = new HdtIdWalker(hdtDataSet);
     }
 
     /**
@@ -88,10 +108,25 @@ IMidWalkWeightedCapability {
      * @param numberOfWalks The number of walks to be performed.
      * @return A data structure describing the walks.
      */
-    public List<List<String>> generateMidWalkForEntityAsArray(String entity, int depth, int numberOfWalks){
+    public List<List<String>> generateMidWalkForEntityAsArray(String entity, int depth, int numberOfWalks) {
+        return generateMidWalkForEntityAsArray(entity, depth, numberOfWalks, getRandom(entity));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     * @param entity The entity for which walks shall be generated.
+     * @param depth The depth of each walk (where the depth is the number of hops).
+     * @param numberOfWalks The number of walks to be performed.
+     * @param random        The random number generator to be used.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateMidWalkForEntityAsArray(String entity, int depth, int numberOfWalks, Random random) {
+        if (isIdWalks) {
+            return idWalker.generateMidWalks(entity, depth, numberOfWalks, false, random);
+        }
         List<List<String>> result = new ArrayList<>();
         for(int i = 0; i < numberOfWalks; i++){
-            List<String> walk = generateMidWalkForEntity(entity, depth);
+            List<String> walk = generateMidWalkForEntity(entity, depth, random);
             if(walk.size() > 1) {
                 result.add(walk);
             }
@@ -106,6 +141,21 @@ IMidWalkWeightedCapability {
      * @return One walk as list where each element is a walk component.
      */
     public List<String> generateMidWalkForEntity(String entity, int depth) {
+        return generateMidWalkForEntity(entity, depth, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a single walk for the given entity with the given depth.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will have three walk components.
+     * @param random The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateMidWalkForEntity(String entity, int depth, Random random) {
+        if (isIdWalks) {
+            return idWalker.generateMidWalk(entity, depth, false, random);
+        }
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -121,7 +171,7 @@ IMidWalkWeightedCapability {
             currentDepth++;
 
             // randomly decide whether to use predecessors or successors
-            int randomPickZeroOne = ThreadLocalRandom.current().nextInt(2);
+            int randomPickZeroOne = random.nextInt(2);
 
             if (randomPickZeroOne == 0) {
                 // predecessor
@@ -137,7 +187,7 @@ IMidWalkWeightedCapability {
                     }
 
                     if (candidates.size() > 0) {
-                        TripleString drawnTriple = Util.randomDrawFromSet(candidates);
+                        TripleString drawnTriple = Util.randomDrawFromSet(candidates, random);
 
                         // add walks from the front (walk started before entity)
                         result.addFirst(drawnTriple.getPredicate().toString());
@@ -165,7 +215,7 @@ IMidWalkWeightedCapability {
                         candidates.add(ts);
                     }
                     if (candidates.size() > 0) {
-                        TripleString stringToAdd = Util.randomDrawFromSet(candidates);
+                        TripleString stringToAdd = Util.randomDrawFromSet(candidates, random);
 
                         // add next walk iteration
                         result.addLast(stringToAdd.getPredicate().toString());
@@ -228,9 +278,25 @@ IMidWalkWeightedCapability {
      * @return A data structure describing the walks.
      */
     public List<List<String>> generateWeightedMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth) {
+        return generateWeightedMidWalkForEntityAsArray(entity, numberOfWalks, depth, getRandom(entity));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be performed.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param random        The random number generator to be used.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateWeightedMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth, Random random) {
+        if (isIdWalks) {
+            return idWalker.generateMidWalks(entity, depth, numberOfWalks, true, random);
+        }
         List<List<String>> result = new ArrayList<>();
         for (int i = 0; i < numberOfWalks; i++) {
-            List<String> walk = generateWeightedMidWalkForEntity(entity, depth);
+            List<String> walk = generateWeightedMidWalkForEntity(entity, depth, random);
             if (walk.size() > 1) {
                 result.add(walk);
             }
@@ -247,6 +313,21 @@ IMidWalkWeightedCapability {
      * @return One walk as list where each element is a walk component.
      */
     public List<String> generateWeightedMidWalkForEntity(String entity, int depth) {
+        return generateWeightedMidWalkForEntity(entity, depth, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a single walk for the given entity with the given depth.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will have three walk components.
+     * @param random The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateWeightedMidWalkForEntity(String entity, int depth, Random random) {
+        if (isIdWalks) {
+            return idWalker.generateMidWalk(entity, depth, true, random);
+        }
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -262,7 +343,7 @@ IMidWalkWeightedCapability {
             currentDepth++;
 
             // randomly decide whether to use predecessors or successors
-            double randomPickZeroOne = ThreadLocalRandom.current().nextDouble(0.0, 1.00000001);
+            double randomPickZeroOne = random.nextDouble();
 
             // predecessor candidates
             Set<TripleString> candidatesPredecessor = new HashSet<>();
@@ -314,7 +395,7 @@ IMidWalkWeightedCapability {
             if (randomPickZeroOne <= cutOffPoint) {
                 // predecessor
                 if (candidatesPredecessor != null && candidatesPredecessor.size() > 0) {
-                    TripleString drawnTriple = Util.randomDrawFromSet(candidatesPredecessor);
+                    TripleString drawnTriple = Util.randomDrawFromSet(candidatesPredecessor, random);
 
                     // add walks from the front (walk started before entity)
                     result.addFirst(drawnTriple.getPredicate().toString());
@@ -324,7 +405,7 @@ IMidWalkWeightedCapability {
             } else {
                 // successor
                 if (candidatesSuccessor != null && candidatesSuccessor.size() > 0) {
-                    TripleString drawnTriple = Util.randomDrawFromSet(candidatesSuccessor);
+                    TripleString drawnTriple = Util.randomDrawFromSet(candidatesSuccessor, random);
 
                     // add next walk iteration
                     result.addLast(drawnTriple.getPredicate().toString());
@@ -335,4 +416,39 @@ IMidWalkWeightedCapability {
         }
         return result;
     }
+
+    /**
+     * Obtain the random number generator of the given entity (derived from the seed and the entity).
+     *
+     * @param entity The entity for which walks are generated.
+     * @return New random number generator.
+     */
+    WalkRandom getRandom(String entity) {
+        return WalkRandom.forEntity(seed, entity);
+    }
+
+    /**
+     * @return True if the walks are generated on dictionary IDs (default), false if they are generated with string
+     * searches.
+     */
+    public boolean isIdWalks() {
+        return isIdWalks;
+    }
+
+    /**
+     * @param idWalks True if the walks shall be generated on dictionary IDs, false for string searches.
+     */
+    public void setIdWalks(boolean idWalks) {
+        isIdWalks = idWalks;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
 }
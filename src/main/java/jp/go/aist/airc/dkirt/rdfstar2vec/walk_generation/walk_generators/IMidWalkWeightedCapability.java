@@ -1,5 +1,7 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
 
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.EdgeWeighting;
+
 import java.util.List;
 
 public interface IMidWalkWeightedCapability extends IWalkGenerationCapability{
@@ -15,4 +17,18 @@ public interface IMidWalkWeightedCapability extends IWalkGenerationCapability{
      * @return List of walks.
      */
     List<String> generateWeightedMidWalksForEntity(String entity,  int numberOfWalks, int depth);
+
+    /**
+     * Set the weighting of the edges that are drawn by
+     * {@link IMidWalkWeightedCapability#generateWeightedMidWalksForEntity(String, int, int)}. Must be called before
+     * the walks are generated.
+     *
+     * @param weighting       The edge weighting.
+     * @param numberOfThreads The number of threads that may be used to prepare the weighting.
+     * @return True if the weighting is supported. By default, only {@link EdgeWeighting#UNIFORM} is supported
+     * (the direction is chosen by the number of options, the edges are drawn uniformly).
+     */
+    default boolean setEdgeWeighting(EdgeWeighting weighting, int numberOfThreads) {
+        return weighting == EdgeWeighting.UNIFORM;
+    }
 }
@@ -0,0 +1,22 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import java.util.List;
+
+public interface INode2VecWalkCapability extends IWalkGenerationCapability{
+
+
+    /**
+     * Second-order biased random walks (node2vec) generated in a forward-fashion. Having walked from node t to node
+     * v, the next node x is chosen with an unnormalized probability of 1/p if x = t, 1 if x is a neighbour of t,
+     * and 1/q otherwise.
+     *
+     * @param entity          The entity for which walks shall be generated.
+     * @param numberOfWalks   Number of walks to be performed per entity.
+     * @param depth           The depth of each walk (where the depth is the number of hops).
+     * @param returnParameter The return parameter p: low values keep the walk local (BFS-like).
+     * @param inOutParameter  The in-out parameter q: low values let the walk move outwards (DFS-like).
+     * @return List of walks.
+     */
+    List<String> generateNode2VecWalksForEntity(String entity, int numberOfWalks, int depth, double returnParameter,
+                                                double inOutParameter);
+}
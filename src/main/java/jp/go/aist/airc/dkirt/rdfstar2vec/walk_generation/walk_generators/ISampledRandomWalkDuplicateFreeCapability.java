@@ -0,0 +1,27 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import java.util.List;
+
+public interface ISampledRandomWalkDuplicateFreeCapability extends IWalkGenerationCapability{
+
+
+    /**
+     * The number of walks that are drawn per requested walk at most; if the entity has fewer distinct walks than
+     * requested, the sampling stops after this many attempts.
+     */
+    int SAMPLING_ATTEMPTS_PER_WALK = 10;
+
+    /**
+     * Duplicate-free random walks generated in a forward-fashion. Unlike
+     * {@link IRandomWalkDuplicateFreeCapability}, the walks are not obtained by expanding all paths and trimming
+     * them: random walks are drawn and rejected if they were drawn before. Hence, the memory is bounded by
+     * numberOfWalks × depth, also for hubs. This can lead to less generated walks than originally specified.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be generated.
+     * @param depth         The number of hops to nodes (!).
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    List<String> generateSampledDuplicateFreeRandomWalksForEntity(String entity, int numberOfWalks, int depth);
+}
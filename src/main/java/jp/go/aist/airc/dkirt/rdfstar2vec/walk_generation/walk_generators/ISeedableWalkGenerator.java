@@ -0,0 +1,25 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+/**
+ * Walk generator whose walks are reproducible: every entity draws from its own {@link WalkRandom} which is derived
+ * from the seed and the entity.
+ */
+public interface ISeedableWalkGenerator extends IWalkGenerator {
+
+
+    /**
+     * Set the global seed. The same seed leads to the same walks on the same graph, independently of the number of
+     * walker threads and of the number of parser threads: the in-memory data structures keep the neighbours of a node
+     * in an order which only depends on the terms, not on the order in which the triples were loaded.
+     *
+     * @param seed The seed.
+     */
+    void setSeed(long seed);
+
+    /**
+     * Obtain the global seed.
+     *
+     * @return The seed.
+     */
+    long getSeed();
+}
@@ -0,0 +1,23 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import java.util.List;
+
+public interface IStarSampledRandomWalkDuplicateFreeCapability extends IWalkGenerationCapability{
+
+
+    /**
+     * Duplicate-free RDF-star random walks which are drawn one by one and rejected if they were drawn before (see
+     * {@link ISampledRandomWalkDuplicateFreeCapability}).
+     *
+     * @param entity                     The entity for which walks shall be generated.
+     * @param numberOfWalks              The number of walks to be generated.
+     * @param depth                      The number of hops to nodes (!).
+     * @param probabilityFromQtToSubject The transition probability from a quoted triple (QT) node to its constituent subjects.
+     * @param probabilityFromObjectToQt  The transition probability from an object to a quoted triple (QT) node.
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    List<String> generateSampledDuplicateFreeStarRandomWalksForEntity(String entity, int numberOfWalks, int depth,
+                                                                      double probabilityFromQtToSubject,
+                                                                      double probabilityFromObjectToQt);
+}
@@ -165,5 +165,6 @@ public class JenaOntModelMemoryWalkGenerator extends MemoryWalkGenerator {
 
             data.addObjectTriple(new Triple(subject, predicate, object));
         }
+        data.ensureNeighbourIndex();
     }
 }
@@ -1,6 +1,10 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.EdgeWeighting;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.GraphSnapshot;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.IntArrayList;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTriple;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTripleDataSetMemory;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.Triple;
@@ -9,6 +13,8 @@ import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TripleD
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.UnaryOperator;
@@ -23,7 +29,9 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
         IMidWalkWeightedCapability, IMidEdgeWalkDuplicateFreeCapability, IRandomWalkCapability,
         IMidTypeWalkDuplicateFreeCapability, INodeWalksDuplicateFreeCapability, 
         IStarMidWalkCapability, IStarMidWalkDuplicateFreeCapability, 
-        IStarRandomWalkCapability, IStarRandomWalkDuplicateFreeCapability {
+        IStarRandomWalkCapability, IStarRandomWalkDuplicateFreeCapability, INode2VecWalkCapability,
+        ISampledRandomWalkDuplicateFreeCapability, IStarSampledRandomWalkDuplicateFreeCapability,
+        ISeedableWalkGenerator {
 
 
     /**
@@ -31,6 +39,12 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      */
     QuotedTripleDataSetMemory data;
 
+    /**
+     * Optional dictionary-encoded data structure. If set, all walks are generated on this data structure using
+     * integer IDs and {@link MemoryStarWalkGenerator#data} is not used.
+     */
+    CompactQuotedTripleDataSetMemory compactData;
+
     /**
      * Default logger
      */
@@ -64,6 +78,11 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
 
     private static final String[] DEFAULT_TYPE_PROPERTIES = {"http://www.w3.org/1999/02/22-rdf-syntax-ns#type"};
 
+    /**
+     * The global seed from which the random number generator of every entity is derived.
+     */
+    private long seed = WalkRandom.newSeed();
+
     /**
      * Constructor
      */
@@ -83,7 +102,27 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
     @Override
     public List<String> generateWeightedMidWalksForEntity(String entity, int numberOfWalks, int depth) {
         return Util.convertToStringWalksDuplicateFree(generateWeightedMidWalkForEntityAsArray(entity, numberOfWalks,
-                depth));
+                depth, getRandom(entity)));
+    }
+
+    /**
+     * Builds the alias tables of the data set, i.e. the edges of every node are drawn in O(1) proportionally to
+     * the given weighting.
+     *
+     * @param weighting       The edge weighting.
+     * @param numberOfThreads The number of threads used to build the alias tables.
+     * @return True if the weighting was applied.
+     */
+    @Override
+    public boolean setEdgeWeighting(EdgeWeighting weighting, int numberOfThreads) {
+        if (compactData != null) {
+            compactData.ensureCompacted();
+            compactData.buildAliasTables(weighting, numberOfThreads);
+            return true;
+        }
+        if (data == null) return false;
+        data.buildAliasTables(weighting, numberOfThreads);
+        return true;
     }
 
     /**
@@ -95,9 +134,22 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return A data structure describing the walks.
      */
     public List<List<String>> generateWeightedMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth) {
+        return generateWeightedMidWalkForEntityAsArray(entity, numberOfWalks, depth, getRandom(entity));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be performed.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param random        The random number generator to be used.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateWeightedMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth, Random random) {
         List<List<String>> result = new ArrayList<>();
         for (int i = 0; i < numberOfWalks; i++) {
-            List<String> walk = generateWeightedMidWalkForEntity(entity, depth);
+            List<String> walk = generateWeightedMidWalkForEntity(entity, depth, random);
             if (walk.size() > 1) {
                 result.add(walk);
             }
@@ -113,6 +165,21 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return One walk as list where each element is a walk component.
      */
     public List<String> generateWeightedMidWalkForEntity(String entity, int depth) {
+        return generateWeightedMidWalkForEntity(entity, depth, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a single walk for the given entity with the given depth.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will have three walk components.
+     * @param random The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateWeightedMidWalkForEntity(String entity, int depth, Random random) {
+        if (compactData != null) {
+            return generateWeightedMidWalkForEntityCompact(entity, depth, random);
+        }
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -128,19 +195,11 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
             currentDepth++;
 
             // randomly decide whether to use predecessors or successors
-            double randomPickZeroOne = ThreadLocalRandom.current().nextDouble(0.0, 1.00000001);
-
-            // predecessor candidates
-            List<Triple> candidatesPredecessor = data.getObjectTriplesInvolvingObject(nextElementPredecessor);
-
-            // successor candidates
-            List<Triple> candidatesSuccessor = data.getObjectTriplesInvolvingSubject(nextElementSuccessor);
+            double randomPickZeroOne = random.nextDouble();
 
-            double numberOfPredecessors = 0.0;
-            double numberOfSuccessors = 0.0;
-
-            if (candidatesPredecessor != null) numberOfPredecessors = candidatesPredecessor.size();
-            if (candidatesSuccessor != null) numberOfSuccessors = candidatesSuccessor.size();
+            // weight of the predecessor and successor candidates (their number if the edge weighting is uniform)
+            double numberOfPredecessors = data.getInWeight(nextElementPredecessor);
+            double numberOfSuccessors = data.getOutWeight(nextElementSuccessor);
 
             // if there are no successors and predecessors: return current walk
             if (numberOfPredecessors == 0 && numberOfSuccessors == 0) return result;
@@ -150,8 +209,8 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
 
             if (randomPickZeroOne <= cutOffPoint) {
                 // predecessor
-                if (candidatesPredecessor != null && candidatesPredecessor.size() > 0) {
-                    Triple drawnTriple = randomDrawFromList(candidatesPredecessor);
+                Triple drawnTriple = data.sampleWeightedPredecessor(nextElementPredecessor, random);
+                if (drawnTriple != null) {
 
                     // add walks from the front (walk started before entity)
                     result.addFirst(drawnTriple.predicate);
@@ -160,8 +219,8 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                 }
             } else {
                 // successor
-                if (candidatesSuccessor != null && candidatesSuccessor.size() > 0) {
-                    Triple tripleToAdd = randomDrawFromList(candidatesSuccessor);
+                Triple tripleToAdd = data.sampleWeightedNeighbour(nextElementSuccessor, random);
+                if (tripleToAdd != null) {
 
                     // add next walk iteration
                     result.addLast(tripleToAdd.predicate);
@@ -206,7 +265,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      */
     @Override
     public List<String> generateStarMidWalksForEntity(String entity, int numberOfWalks, int depth, double probabilityFromQtToSubject, double probabilityFromObjectToQt) {
-        return Util.convertToStringWalks(generateStarMidWalkForEntityAsArray(entity, numberOfWalks, depth, probabilityFromQtToSubject, probabilityFromObjectToQt));
+        return Util.convertToStringWalks(generateStarMidWalkForEntityAsArray(entity, numberOfWalks, depth, probabilityFromQtToSubject, probabilityFromObjectToQt, getRandom(entity)));
     }
     
     /**
@@ -218,9 +277,22 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return A data structure describing the walks.
      */
     public List<List<String>> generateStarMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth, double probabilityFromQtToSubject, double probabilityFromObjectToQt) {
+        return generateStarMidWalkForEntityAsArray(entity, numberOfWalks, depth, probabilityFromQtToSubject, probabilityFromObjectToQt, getRandom(entity));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be performed.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param random        The random number generator to be used.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateStarMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth, double probabilityFromQtToSubject, double probabilityFromObjectToQt, Random random) {
         List<List<String>> result = new ArrayList<>();
         for (int i = 0; i < numberOfWalks; i++) {
-            List<String> walk = generateStarMidWalkForEntity(entity, depth, probabilityFromQtToSubject, probabilityFromObjectToQt);
+            List<String> walk = generateStarMidWalkForEntity(entity, depth, probabilityFromQtToSubject, probabilityFromObjectToQt, random);
             if (walk.size() > 1) {
                 result.add(walk);
             }
@@ -238,7 +310,8 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      */
     @Override
     public List<String> generateMidWalksForEntity(String entity, int numberOfWalks, int depth) {
-        return Util.convertToStringWalks(generateMidWalkForEntityAsArray(entity, numberOfWalks, depth));
+        return Util.convertToStringWalks(generateMidWalkForEntityAsArray(entity, numberOfWalks, depth,
+                getRandom(entity)));
     }
 
     /**
@@ -250,9 +323,22 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return A data structure describing the walks.
      */
     public List<List<String>> generateMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth) {
+        return generateMidWalkForEntityAsArray(entity, numberOfWalks, depth, getRandom(entity));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be performed.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param random        The random number generator to be used.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth, Random random) {
         List<List<String>> result = new ArrayList<>();
         for (int i = 0; i < numberOfWalks; i++) {
-            List<String> walk = generateMidWalkForEntity(entity, depth);
+            List<String> walk = generateMidWalkForEntity(entity, depth, random);
             if (walk.size() > 1) {
                 result.add(walk);
             }
@@ -270,7 +356,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      */
     @Override
     public List<String> generateStarMidWalksForEntityDuplicateFree(String entity, int numberOfWalks, int depth, double probabilityFromQtToSubject, double probabilityFromObjectToQt) {
-        return Util.convertToStringWalksDuplicateFree(generateStarMidWalkForEntityAsArray(entity, numberOfWalks, depth, probabilityFromQtToSubject, probabilityFromObjectToQt));
+        return Util.convertToStringWalksDuplicateFree(generateStarMidWalkForEntityAsArray(entity, numberOfWalks, depth, probabilityFromQtToSubject, probabilityFromObjectToQt, getRandom(entity)));
     }
 
     /**
@@ -283,7 +369,8 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      */
     @Override
     public List<String> generateMidWalksForEntityDuplicateFree(String entity, int numberOfWalks, int depth) {
-        return Util.convertToStringWalksDuplicateFree(generateMidWalkForEntityAsArray(entity, numberOfWalks, depth));
+        return Util.convertToStringWalksDuplicateFree(generateMidWalkForEntityAsArray(entity, numberOfWalks, depth,
+                getRandom(entity)));
     }
 
     /**
@@ -296,7 +383,8 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      */
     @Override
     public List<String> generateMidEdgeWalksForEntityDuplicateFree(String entity, int numberOfWalks, int depth) {
-        List<List<String>> walksWithNodes = generateMidWalkForEntityAsArray(entity, numberOfWalks, depth);
+        Random random = getRandom(entity);
+        List<List<String>> walksWithNodes = generateMidWalkForEntityAsArray(entity, numberOfWalks, depth, random);
         List<List<String>> result = new ArrayList<>();
         for (List<String> walkWithNodes : walksWithNodes) {
 
@@ -305,7 +393,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
             int appearances = getNumberOfAppearances(entity, walkWithNodes);
 
             // draw the desired position to keep
-            int choice = getRandomNumberBetweenZeroAndX(appearances);
+            int choice = getRandomNumberBetweenZeroAndX(appearances, random);
 
             List<String> walk = new ArrayList<>();
             int currentNodeOfInterestPosition = 0;
@@ -354,32 +442,60 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return Integer
      */
     static int getRandomNumberBetweenZeroAndX(int x) {
-        return ThreadLocalRandom.current().nextInt(x);
+        return getRandomNumberBetweenZeroAndX(x, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Returns a random number between 0 and x (exclusive!).
+     *
+     * @param x      Integer upper bound (exclusive).
+     * @param random The random number generator to be used.
+     * @return Integer
+     */
+    static int getRandomNumberBetweenZeroAndX(int x, Random random) {
+        return random.nextInt(x);
     }
     
+    /**
+     * Resolves value annotations to the annotated quoted triple.
+     *
+     * @param quotedTriple  The quoted triple.
+     * @param quotedTriples Form: {@code qt -> QuotedTriple}
+     * @return The expanded quoted triple.
+     * @deprecated Use {@link QuotedTripleDataSetMemory#expandQuotedTriple(QuotedTriple)}.
+     */
+    @Deprecated
     static QuotedTriple expandQuotedTriple(QuotedTriple quotedTriple, Map<String, QuotedTriple> quotedTriples) {
-    	// TODO: RDF-star-extかどうかのオプション
-    	if (quotedTriple.subject.contains("<<") && quotedTriple.predicate.equals("rdf:value") && quotedTriple.object.endsWith("\"")) {
-			quotedTriple = quotedTriples.get(quotedTriple.subject);
-			// recursive method
-			expandQuotedTriple(quotedTriple, quotedTriples);
-		}
-    	return quotedTriple;
+        return QuotedTripleDataSetMemory.expandQuotedTriple(quotedTriple, quotedTriples);
     }
-    
+
+    /**
+     * Returns the quoted triple which envelopes (uses as subject) the given quoted triple.
+     *
+     * @param quotedTriple  The quoted triple.
+     * @param quotedTriples Form: {@code qt -> QuotedTriple}
+     * @return The enveloping quoted triple or the given quoted triple if there is none.
+     * @deprecated Use {@link QuotedTripleDataSetMemory#envelopeQuotedTriple(QuotedTriple)} which does not scan all
+     * quoted triples.
+     */
+    @Deprecated
     public QuotedTriple envelopeQuotedTriple(QuotedTriple quotedTriple, Map<String, QuotedTriple> quotedTriples) {
-    	// TODO: RDF-star-extかどうかのオプション
-    	if (!quotedTriple.predicate.equals("rdf:value")) {
-    		for (String key : quotedTriples.keySet()) {
-    			QuotedTriple qt_tmp = quotedTriples.get(key);
-    			if (quotedTriple.qt.equals(qt_tmp.subject)) {
-    				return qt_tmp;
-    			}
-    		}
-		}
-    	return quotedTriple;
+        if (data != null && quotedTriples == data.getQuotedTriples()) {
+            return data.envelopeQuotedTriple(quotedTriple);
+        }
+        // a map which is not the one of the data set: linear scan with the same (canonical) choice
+        QuotedTriple enclosing = null;
+        if (!quotedTriple.predicate.equals(QuotedTripleDataSetMemory.RDF_VALUE)) {
+            for (QuotedTriple candidate : quotedTriples.values()) {
+                if (quotedTriple.qt.equals(candidate.subject)
+                        && (enclosing == null || candidate.qt.compareTo(enclosing.qt) < 0)) {
+                    enclosing = candidate;
+                }
+            }
+        }
+        return enclosing == null ? quotedTriple : enclosing;
     }
-    
+
     /**
      * Generates a single star-walk for the given entity with the given depth.
      *
@@ -388,7 +504,24 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return One walk as list where each element is a walk component.
      */
     public List<String> generateStarMidWalkForEntity(String entity, int depth, double probabilityFromQtToSubject, double probabilityFromObjectToQt) {
+        return generateStarMidWalkForEntity(entity, depth, probabilityFromQtToSubject, probabilityFromObjectToQt,
+                ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a single star-walk for the given entity with the given depth.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will have three walk components.
+     * @param random The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateStarMidWalkForEntity(String entity, int depth, double probabilityFromQtToSubject,
+                                                     double probabilityFromObjectToQt, Random random) {
 //    	LOGGER.info(Double.toString(probabilityFromQtToSubject));
+        if (compactData != null) {
+            return generateStarMidWalkForEntityCompact(entity, depth, probabilityFromQtToSubject, probabilityFromObjectToQt, random);
+        }
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -406,23 +539,19 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
             currentDepth++;
 
             // randomly decide whether to use predecessors or successors
-            int randomPickZeroOne = ThreadLocalRandom.current().nextInt(2);
+            int randomPickZeroOne = random.nextInt(2);
 
             if (randomPickZeroOne == 0) {
                 // predecessor
-                List<Triple> candidates = data.getObjectTriplesInvolvingObject(nextElementPredecessor);
-                Triple drawnTriple = null;
-                if (candidates != null && candidates.size() > 0) {
-                    drawnTriple = randomDrawFromList(candidates);
-                }
+                Triple drawnTriple = data.samplePredecessor(nextElementPredecessor, random);
 
                 if (nextElementPredecessor.contains("<<")) {
                 	// entity is a QT node.
-                	double randFromObjectToQt = Math.random();
+                	double randFromObjectToQt = random.nextDouble();
                 	if (randFromObjectToQt < probabilityFromObjectToQt) {
                 		// walk from QT to subject
                 		QuotedTriple quotedTriple = quotedTriples.get(nextElementPredecessor);
-                		quotedTriple = expandQuotedTriple(quotedTriple, quotedTriples);
+                		quotedTriple = data.expandQuotedTriple(quotedTriple);
                 		
                 		result.addFirst(quotedTriple.object);
                 		
@@ -437,7 +566,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                         result.addFirst(quotedTriple.subject);
                         nextElementPredecessor = quotedTriple.subject;
                 	} else {
-                		if (candidates != null && candidates.size() > 0) {
+                		if (drawnTriple != null) {
                          // add walks from the front (walk started before entity)
                     		result.addFirst(drawnTriple.predicate);
                             result.addFirst(drawnTriple.subject);
@@ -445,7 +574,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                 		}
                 	}
                 } else {
-                	if (candidates != null && candidates.size() > 0) {
+                	if (drawnTriple != null) {
                         // add walks from the front (walk started before entity)
                         result.addFirst(drawnTriple.predicate);
                         result.addFirst(drawnTriple.subject);
@@ -456,17 +585,16 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                 
             } else {
                 // successor
-                List<Triple> candidates = data.getObjectTriplesInvolvingSubject(nextElementSuccessor);
-                if (candidates != null && candidates.size() > 0) {
-                    Triple tripleToAdd = randomDrawFromList(candidates);
+                Triple tripleToAdd = data.sampleNeighbour(nextElementSuccessor, random);
+                if (tripleToAdd != null) {
 
                     if (nextElementSuccessor.contains("<<")) {
                     	// entity is a QT node.
-                    	double randFromQtToSubject = Math.random();
+                    	double randFromQtToSubject = random.nextDouble();
                     	if (randFromQtToSubject < probabilityFromQtToSubject) {
                     		// walk from QT to subject
                     		QuotedTriple quotedTriple = quotedTriples.get(nextElementSuccessor);
-                    		quotedTriple = expandQuotedTriple(quotedTriple, quotedTriples);
+                    		quotedTriple = data.expandQuotedTriple(quotedTriple);
                     		
                     		result.addLast(quotedTriple.subject);
                     		
@@ -501,6 +629,21 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return One walk as list where each element is a walk component.
      */
     public List<String> generateMidWalkForEntity(String entity, int depth) {
+        return generateMidWalkForEntity(entity, depth, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a single walk for the given entity with the given depth.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will have three walk components.
+     * @param random The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateMidWalkForEntity(String entity, int depth, Random random) {
+        if (compactData != null) {
+            return generateMidWalkForEntityCompact(entity, depth, random);
+        }
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -516,14 +659,13 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
             currentDepth++;
 
             // randomly decide whether to use predecessors or successors
-            int randomPickZeroOne = ThreadLocalRandom.current().nextInt(2);
+            int randomPickZeroOne = random.nextInt(2);
 
             if (randomPickZeroOne == 0) {
                 // predecessor
-                List<Triple> candidates = data.getObjectTriplesInvolvingObject(nextElementPredecessor);
+                Triple drawnTriple = data.samplePredecessor(nextElementPredecessor, random);
 
-                if (candidates != null && candidates.size() > 0) {
-                    Triple drawnTriple = randomDrawFromList(candidates);
+                if (drawnTriple != null) {
 
                     // add walks from the front (walk started before entity)
                     result.addFirst(drawnTriple.predicate);
@@ -532,9 +674,8 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                 }
             } else {
                 // successor
-                List<Triple> candidates = data.getObjectTriplesInvolvingSubject(nextElementSuccessor);
-                if (candidates != null && candidates.size() > 0) {
-                    Triple tripleToAdd = randomDrawFromList(candidates);
+                Triple tripleToAdd = data.sampleNeighbour(nextElementSuccessor, random);
+                if (tripleToAdd != null) {
 
                     // add next walk iteration
                     result.addLast(tripleToAdd.predicate);
@@ -554,7 +695,19 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return Drawn value of type T.
      */
     public static <T> T randomDrawFromList(List<T> listToDrawFrom) {
-        int randomNumber = ThreadLocalRandom.current().nextInt(listToDrawFrom.size());
+        return randomDrawFromList(listToDrawFrom, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draw a random value from a List.
+     *
+     * @param listToDrawFrom The list from which shall be drawn.
+     * @param random         The random number generator to be used.
+     * @param <T>            Type
+     * @return Drawn value of type T.
+     */
+    public static <T> T randomDrawFromList(List<T> listToDrawFrom, Random random) {
+        int randomNumber = random.nextInt(listToDrawFrom.size());
         return listToDrawFrom.get(randomNumber);
     }
 
@@ -566,7 +719,19 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return Drawn value of type T.
      */
     public static<T> T randomDrawFromSet(Set<T> setToDrawFrom) {
-        int randomNumber = ThreadLocalRandom.current().nextInt(setToDrawFrom.size());
+        return randomDrawFromSet(setToDrawFrom, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draw a random value from a set.
+     *
+     * @param setToDrawFrom The set from which shall be drawn.
+     * @param random        The random number generator to be used.
+     * @param <T> Type
+     * @return Drawn value of type T.
+     */
+    public static<T> T randomDrawFromSet(Set<T> setToDrawFrom, Random random) {
+        int randomNumber = random.nextInt(setToDrawFrom.size());
         int i = 0;
         for(T t : setToDrawFrom){
             if(i == randomNumber){
@@ -586,14 +751,14 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
     public Triple getRandomTripleForSubject(String subject) {
         if (subject == null) return null;
         subject = uriShortenerFunction.apply(removeTags(subject));
-        List<Triple> queryResult = data.getObjectTriplesInvolvingSubject(subject);
-        if (queryResult == null) {
+        int degree = data.getOutDegree(subject);
+        if (degree == 0) {
             // no triple found
             return null;
         }
-        int randomNumber = ThreadLocalRandom.current().nextInt(queryResult.size());
+        int randomNumber = ThreadLocalRandom.current().nextInt(degree);
         LOGGER.info("(" + Thread.currentThread().getName() + ") " + randomNumber);
-        return queryResult.get(randomNumber);
+        return data.getOutTriple(subject, randomNumber);
     }
 
     /**
@@ -654,22 +819,26 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * spaces.
      */
     public List<String> generateDuplicateFreeStarRandomWalksForEntity(String entity, int numberOfWalks, int depth, double probabilityFromQtToSubject, double probabilityFromObjectToQt) {
+        if (compactData != null) {
+            return generateStarRandomWalksForEntityCompact(entity, numberOfWalks, depth, probabilityFromQtToSubject, probabilityFromObjectToQt, true);
+        }
+        Random random = getRandom(entity);
     	List<List<String>> walks = new ArrayList<>();
         boolean isFirstIteration = true;
         Map<String, QuotedTriple> quotedTriples = data.getQuotedTriples();
         for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
             // initialize with first node
             if (isFirstIteration) {
-                List<Triple> neighbours = data.getObjectTriplesInvolvingSubject(entity);
-                if (neighbours == null || neighbours.size() == 0) {
+                int numberOfNeighbours = data.getOutDegree(entity);
+                if (numberOfNeighbours == 0) {
                     return new ArrayList<>();
                 }
-                double randFromQtToSubject = Math.random();
+                double randFromQtToSubject = random.nextDouble();
                 if (entity.contains("<<") && (randFromQtToSubject < probabilityFromQtToSubject)) {
                 	// entity is a QT node.
                 	// walk from QT to subject
                 	QuotedTriple quotedTriple = quotedTriples.get(entity);
-                	QuotedTriple quotedTriple_expanded = expandQuotedTriple(quotedTriple, quotedTriples);
+                	QuotedTriple quotedTriple_expanded = data.expandQuotedTriple(quotedTriple);
 
                 	ArrayList<String> individualWalk = new ArrayList<>();
                 	individualWalk.add(quotedTriple.qt);
@@ -678,7 +847,8 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                 	individualWalk.add(quotedTriple_expanded.object);
                 	walks.add(individualWalk);
                 } else {
-                	for (Triple neighbour : neighbours) {
+                	for (int i = 0; i < numberOfNeighbours; i++) {
+                        Triple neighbour = data.getOutTriple(entity, i);
                         ArrayList<String> individualWalk = new ArrayList<>();
                         individualWalk.add(neighbour.subject);
                         individualWalk.add(neighbour.predicate);
@@ -699,14 +869,13 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                 	String lastTriplePredicate = walk.get(walk.size() - 2);
                     String lastTripleObject = walk.get(walk.size() - 1);
                     
-                    String qt_str = "<<" + lastTripleSubject + "-" + lastTriplePredicate + "-" + lastTripleObject + ">>";
-                    double randFromObjectToQt = Math.random();
-                    double randFromQtToSubject = Math.random();
-                    if (quotedTriples.containsKey(qt_str) && (randFromObjectToQt < probabilityFromObjectToQt)) {
+                    QuotedTriple lastQuotedTriple = data.getQuotedTriple(lastTripleSubject, lastTriplePredicate, lastTripleObject);
+                    double randFromObjectToQt = random.nextDouble();
+                    double randFromQtToSubject = random.nextDouble();
+                    if (lastQuotedTriple != null && (randFromObjectToQt < probabilityFromObjectToQt)) {
                     	// entity is included in a QT node.
                     	// walk from object to QT
-                    	QuotedTriple quotedTriple = quotedTriples.get(qt_str);
-                    	quotedTriple = envelopeQuotedTriple(quotedTriple, quotedTriples);
+                    	QuotedTriple quotedTriple = data.envelopeQuotedTriple(lastQuotedTriple);
                     	//context-oriented
                     	List<String> newWalk = new ArrayList<>(walk);
                     	newWalk.add(quotedTriple.qt);
@@ -715,7 +884,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                     } else if (lastTripleObject.contains("<<") && (randFromQtToSubject < probabilityFromQtToSubject)) {
                     	// walk from QT to subject
                     	QuotedTriple quotedTriple = quotedTriples.get(lastTripleObject);
-                    	QuotedTriple quotedTriple_expanded = expandQuotedTriple(quotedTriple, quotedTriples);
+                    	QuotedTriple quotedTriple_expanded = data.expandQuotedTriple(quotedTriple);
 
                     	List<String> newWalk = new ArrayList<>(walk);
                     	newWalk.add(quotedTriple_expanded.subject);
@@ -723,10 +892,11 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                     	newWalk.add(quotedTriple_expanded.object);
                     	walks.add(newWalk);
                     } else {
-                    	List<Triple> nextIteration = data.getObjectTriplesInvolvingSubject(lastTripleObject);
-                        if (nextIteration != null) {
+                    	int numberOfNextSteps = data.getOutDegree(lastTripleObject);
+                        if (numberOfNextSteps > 0) {
                             walks.remove(walk); // check whether this works
-                            for (Triple nextStep : nextIteration) {
+                            for (int i = 0; i < numberOfNextSteps; i++) {
+                                Triple nextStep = data.getOutTriple(lastTripleObject, i);
                                 List<String> newWalk = new ArrayList<>(walk);
                                 newWalk.add(nextStep.predicate);
                                 newWalk.add(nextStep.object);
@@ -740,7 +910,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
 
             // trim the list
             while (walks.size() > numberOfWalks) {
-                int randomNumber = ThreadLocalRandom.current().nextInt(walks.size());
+                int randomNumber = random.nextInt(walks.size());
                 walks.remove(randomNumber);
             }
         } // depth loop
@@ -754,6 +924,81 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
         return result;
     }
 
+    /**
+     * Generates duplicate-free RDF-star walks for the given entity by drawing random walks and rejecting the ones
+     * that were drawn before (see {@link IStarSampledRandomWalkDuplicateFreeCapability}).
+     *
+     * @param entity                     The entity for which walks shall be generated.
+     * @param numberOfWalks              The number of walks to be generated.
+     * @param depth                      The number of hops to nodes (!).
+     * @param probabilityFromQtToSubject The transition probability from a quoted triple (QT) node to its constituent subjects.
+     * @param probabilityFromObjectToQt  The transition probability from an object to a quoted triple (QT) node.
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    @Override
+    public List<String> generateSampledDuplicateFreeStarRandomWalksForEntity(String entity, int numberOfWalks,
+                                                                             int depth,
+                                                                             double probabilityFromQtToSubject,
+                                                                             double probabilityFromObjectToQt) {
+        if (compactData != null) {
+            return generateSampledDuplicateFreeStarRandomWalksForEntityCompact(entity, numberOfWalks, depth,
+                    probabilityFromQtToSubject, probabilityFromObjectToQt);
+        }
+        int numberOfNeighbours = data.getOutDegree(entity);
+        if (numberOfNeighbours == 0) {
+            return new ArrayList<>();
+        }
+        Random random = getRandom(entity);
+        Map<String, QuotedTriple> quotedTriples = data.getQuotedTriples();
+        Set<String> walks = new LinkedHashSet<>();
+        List<String> walk = new ArrayList<>();
+        long maxAttempts = (long) numberOfWalks * SAMPLING_ATTEMPTS_PER_WALK;
+        for (long attempt = 0; attempt < maxAttempts && walks.size() < numberOfWalks; attempt++) {
+            walk.clear();
+            if (entity.contains("<<") && random.nextDouble() < probabilityFromQtToSubject) {
+                // entity is a QT node: walk from QT to subject
+                QuotedTriple quotedTriple = quotedTriples.get(entity);
+                QuotedTriple quotedTriple_expanded = data.expandQuotedTriple(quotedTriple);
+                walk.add(quotedTriple.qt);
+                walk.add(quotedTriple_expanded.subject);
+                walk.add(quotedTriple_expanded.predicate);
+                walk.add(quotedTriple_expanded.object);
+            } else {
+                Triple neighbour = data.getOutTriple(entity, random.nextInt(numberOfNeighbours));
+                walk.add(neighbour.subject);
+                walk.add(neighbour.predicate);
+                walk.add(neighbour.object);
+            }
+            for (int currentDepth = 1; currentDepth < depth; currentDepth++) {
+                int size = walk.size();
+                String lastTripleObject = walk.get(size - 1);
+                QuotedTriple lastQuotedTriple = data.getQuotedTriple(walk.get(size - 3), walk.get(size - 2),
+                        lastTripleObject);
+                double randFromObjectToQt = random.nextDouble();
+                double randFromQtToSubject = random.nextDouble();
+                if (lastQuotedTriple != null && randFromObjectToQt < probabilityFromObjectToQt) {
+                    // walk from object to (enveloping) QT
+                    walk.add(data.envelopeQuotedTriple(lastQuotedTriple).qt);
+                } else if (lastTripleObject.contains("<<") && randFromQtToSubject < probabilityFromQtToSubject) {
+                    // walk from QT to subject
+                    QuotedTriple quotedTriple_expanded = data.expandQuotedTriple(quotedTriples.get(lastTripleObject));
+                    walk.add(quotedTriple_expanded.subject);
+                    walk.add(quotedTriple_expanded.predicate);
+                    walk.add(quotedTriple_expanded.object);
+                } else {
+                    int numberOfNextSteps = data.getOutDegree(lastTripleObject);
+                    if (numberOfNextSteps == 0) break;
+                    Triple nextStep = data.getOutTriple(lastTripleObject, random.nextInt(numberOfNextSteps));
+                    walk.add(nextStep.predicate);
+                    walk.add(nextStep.object);
+                }
+            }
+            walks.add(String.join(" ", walk));
+        }
+        return new ArrayList<>(walks);
+    }
+
     /**
      * Generates duplicate-free walks for the given entity.
      *
@@ -764,16 +1009,21 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * spaces.
      */
     public List<String> generateDuplicateFreeRandomWalksForEntity(String entity, int numberOfWalks, int depth) {
+        if (compactData != null) {
+            return generateDuplicateFreeRandomWalksForEntityCompact(entity, numberOfWalks, depth);
+        }
+        Random random = getRandom(entity);
         List<List<Triple>> walks = new ArrayList<>();
         boolean isFirstIteration = true;
         for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
             // initialize with first node
             if (isFirstIteration) {
-                List<Triple> neighbours = data.getObjectTriplesInvolvingSubject(entity);
-                if (neighbours == null || neighbours.size() == 0) {
+                int numberOfNeighbours = data.getOutDegree(entity);
+                if (numberOfNeighbours == 0) {
                     return new ArrayList<>();
                 }
-                for (Triple neighbour : neighbours) {
+                for (int i = 0; i < numberOfNeighbours; i++) {
+                    Triple neighbour = data.getOutTriple(entity, i);
                     ArrayList<Triple> individualWalk = new ArrayList<>();
                     individualWalk.add(neighbour);
                     walks.add(individualWalk);
@@ -787,10 +1037,11 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                 for (List<Triple> walk : walks_tmp) {
                     // get last entity
                     Triple lastTriple = walk.get(walk.size() - 1);
-                    List<Triple> nextIteration = data.getObjectTriplesInvolvingSubject(lastTriple.object);
-                    if (nextIteration != null) {
+                    int numberOfNextSteps = data.getOutDegree(lastTriple.object);
+                    if (numberOfNextSteps > 0) {
                         walks.remove(walk); // check whether this works
-                        for (Triple nextStep : nextIteration) {
+                        for (int i = 0; i < numberOfNextSteps; i++) {
+                            Triple nextStep = data.getOutTriple(lastTriple.object, i);
                             List<Triple> newWalk = new ArrayList<>(walk);
                             newWalk.add(nextStep);
                             walks.add(newWalk);
@@ -801,7 +1052,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
 
             // trim the list
             while (walks.size() > numberOfWalks) {
-                int randomNumber = ThreadLocalRandom.current().nextInt(walks.size());
+                int randomNumber = random.nextInt(walks.size());
                 walks.remove(randomNumber);
             }
         } // depth loop
@@ -810,9 +1061,50 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
         return Util.convertToStringWalks(walks, entity, isUnifyAnonymousNodes());
     }
 
+    /**
+     * Generates duplicate-free walks for the given entity by drawing random walks and rejecting the ones that were
+     * drawn before (see {@link ISampledRandomWalkDuplicateFreeCapability}).
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be generated.
+     * @param depth         The number of hops to nodes (!).
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    @Override
+    public List<String> generateSampledDuplicateFreeRandomWalksForEntity(String entity, int numberOfWalks, int depth) {
+        if (compactData != null) {
+            return generateSampledDuplicateFreeRandomWalksForEntityCompact(entity, numberOfWalks, depth);
+        }
+        if (data.getOutDegree(entity) == 0) {
+            return new ArrayList<>();
+        }
+        Random random = getRandom(entity);
+        Set<String> walks = new LinkedHashSet<>();
+        long maxAttempts = (long) numberOfWalks * SAMPLING_ATTEMPTS_PER_WALK;
+        for (long attempt = 0; attempt < maxAttempts && walks.size() < numberOfWalks; attempt++) {
+            StringBuilder walk = new StringBuilder(entity);
+            String lastObject = entity;
+            for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+                int degree = data.getOutDegree(lastObject);
+                if (degree == 0) break;
+                Triple po = data.getOutTriple(lastObject, random.nextInt(degree));
+                String object = po.object;
+                if (isUnifyAnonymousNodes() && Util.isAnonymousNode(object)) {
+                    object = "ANode";
+                }
+                walk.append(" ").append(po.predicate).append(" ").append(object);
+                lastObject = po.object;
+            }
+            walks.add(walk.toString());
+        }
+        return new ArrayList<>(walks);
+    }
+
     @Override
     public List<String> generateMidTypeWalksForEntityDuplicateFree(String entity, int numberOfWalks, int depth){
-        List<List<String>> walksWithNodes = generateMidWalkForEntityAsArray(entity, numberOfWalks, depth);
+        Random random = getRandom(entity);
+        List<List<String>> walksWithNodes = generateMidWalkForEntityAsArray(entity, numberOfWalks, depth, random);
         List<List<String>> result = new ArrayList<>();
         for (List<String> walkWithNodes : walksWithNodes) {
 
@@ -820,7 +1112,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
             int appearances = getNumberOfAppearances(entity, walkWithNodes);
 
             // draw the desired position to keep
-            int choice = getRandomNumberBetweenZeroAndX(appearances);
+            int choice = getRandomNumberBetweenZeroAndX(appearances, random);
 
             List<String> walk = new ArrayList<>();
             int currentNodeOfInterestPosition = 0;
@@ -834,7 +1126,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                             currentNodeOfInterestPosition++;
                         } else {
                             // -> we will not add the node of interest this time but instead its supertype
-                            String type = getRandomSupertypeOfEntity(node);
+                            String type = getRandomSupertypeOfEntity(node, random);
                             if(type != null){
                                 walk.add(type);
                             }
@@ -842,7 +1134,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                         }
                     } else {
                         // we have a normal node that is not a node of interest
-                        String type = getRandomSupertypeOfEntity(node);
+                        String type = getRandomSupertypeOfEntity(node, random);
                         if(type != null){
                             walk.add(type);
                         }
@@ -863,9 +1155,22 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return Type. Null if there is no type.
      */
     public String getRandomSupertypeOfEntity(String entity){
+        return getRandomSupertypeOfEntity(entity, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draw a random supertype. Note that the predicates of {@link MemoryStarWalkGenerator#typeProperties} are used.
+     * @param entity The entity for which the type shall be obtained.
+     * @param random The random number generator to be used.
+     * @return Type. Null if there is no type.
+     */
+    public String getRandomSupertypeOfEntity(String entity, Random random){
         if(entity == null){
             return null;
         }
+        if (compactData != null) {
+            return getRandomSupertypeOfEntityCompact(entity, random);
+        }
         Set<String> candidates = new HashSet<>();
         for(String property : getTypeProperties()) {
             Set<Triple> triples = this.getData().getObjectTriplesWithSubjectPredicate(entity, property);
@@ -878,7 +1183,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
         if(candidates.size() == 0){
             return null;
         } else {
-            return randomDrawFromSet(candidates);
+            return randomDrawFromSet(candidates, random);
         }
     }
     
@@ -895,22 +1200,26 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      */
     @Override
     public List<String> generateStarRandomWalksForEntity(String entity, int numberOfWalks, int depth, double probabilityFromQtToSubject, double probabilityFromObjectToQt){
+        if (compactData != null) {
+            return generateStarRandomWalksForEntityCompact(entity, numberOfWalks, depth, probabilityFromQtToSubject, probabilityFromObjectToQt, false);
+        }
+        Random random = getRandom(entity);
     	List<List<String>> walks = new ArrayList<>();
         boolean isFirstIteration = true;
         Map<String, QuotedTriple> quotedTriples = data.getQuotedTriples();
         for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
             // initialize with first node
             if (isFirstIteration) {
-                List<Triple> neighbours = data.getObjectTriplesInvolvingSubject(entity);
-                if (neighbours == null || neighbours.size() == 0) {
+                int numberOfNeighbours = data.getOutDegree(entity);
+                if (numberOfNeighbours == 0) {
                     return new ArrayList<>();
                 }
-                double randFromQtToSubject = Math.random();
+                double randFromQtToSubject = random.nextDouble();
                 if (entity.contains("<<") && (randFromQtToSubject < probabilityFromQtToSubject)) {
                 	// entity is a QT node.
                 	// walk from QT to subject
                 	QuotedTriple quotedTriple = quotedTriples.get(entity);
-                	QuotedTriple quotedTriple_expanded = expandQuotedTriple(quotedTriple, quotedTriples);
+                	QuotedTriple quotedTriple_expanded = data.expandQuotedTriple(quotedTriple);
 
                 	ArrayList<String> individualWalk = new ArrayList<>();
                 	individualWalk.add(quotedTriple.qt);
@@ -919,7 +1228,8 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                 	individualWalk.add(quotedTriple_expanded.object);
                 	walks.add(individualWalk);
                 } else {
-                	for (Triple neighbour : neighbours) {
+                	for (int i = 0; i < numberOfNeighbours; i++) {
+                        Triple neighbour = data.getOutTriple(entity, i);
                         ArrayList<String> individualWalk = new ArrayList<>();
                         individualWalk.add(neighbour.subject);
                         individualWalk.add(neighbour.predicate);
@@ -940,14 +1250,13 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                 	String lastTriplePredicate = walk.get(walk.size() - 2);
                     String lastTripleObject = walk.get(walk.size() - 1);
                     
-                    String qt_str = "<<" + lastTripleSubject + "-" + lastTriplePredicate + "-" + lastTripleObject + ">>";
-                    double randFromObjectToQt = Math.random();
-                    double randFromQtToSubject = Math.random();
-                    if (quotedTriples.containsKey(qt_str) && (randFromObjectToQt < probabilityFromObjectToQt)) {
+                    QuotedTriple lastQuotedTriple = data.getQuotedTriple(lastTripleSubject, lastTriplePredicate, lastTripleObject);
+                    double randFromObjectToQt = random.nextDouble();
+                    double randFromQtToSubject = random.nextDouble();
+                    if (lastQuotedTriple != null && (randFromObjectToQt < probabilityFromObjectToQt)) {
                     	// entity is included in a QT node.
                     	// walk from object to QT
-                    	QuotedTriple quotedTriple = quotedTriples.get(qt_str);
-                    	quotedTriple = envelopeQuotedTriple(quotedTriple, quotedTriples);
+                    	QuotedTriple quotedTriple = data.envelopeQuotedTriple(lastQuotedTriple);
                     	//context-oriented
                     	List<String> newWalk = new ArrayList<>(walk);
                     	newWalk.add(quotedTriple.qt);
@@ -955,7 +1264,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                     } else if (lastTripleObject.contains("<<") && (randFromQtToSubject < probabilityFromQtToSubject)) {
                     	// walk from QT to subject
                     	QuotedTriple quotedTriple = quotedTriples.get(lastTripleObject);
-                    	QuotedTriple quotedTriple_expanded = expandQuotedTriple(quotedTriple, quotedTriples);
+                    	QuotedTriple quotedTriple_expanded = data.expandQuotedTriple(quotedTriple);
 
                     	List<String> newWalk = new ArrayList<>(walk);
                     	newWalk.add(quotedTriple_expanded.subject);
@@ -963,9 +1272,10 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
                     	newWalk.add(quotedTriple_expanded.object);
                     	walks.add(newWalk);
                     } else {
-                    	List<Triple> nextIteration = data.getObjectTriplesInvolvingSubject(lastTripleObject);
-                        if (nextIteration != null) {
-                            for (Triple nextStep : nextIteration) {
+                    	int numberOfNextSteps = data.getOutDegree(lastTripleObject);
+                        if (numberOfNextSteps > 0) {
+                            for (int i = 0; i < numberOfNextSteps; i++) {
+                                Triple nextStep = data.getOutTriple(lastTripleObject, i);
                                 List<String> newWalk = new ArrayList<>(walk);
                                 newWalk.add(nextStep.predicate);
                                 newWalk.add(nextStep.object);
@@ -979,7 +1289,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
 
             // trim the list
             while (walks.size() > numberOfWalks) {
-                int randomNumber = ThreadLocalRandom.current().nextInt(walks.size());
+                int randomNumber = random.nextInt(walks.size());
                 walks.remove(randomNumber);
             }
         } // depth loop
@@ -995,6 +1305,10 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
 
     @Override
     public List<String> generateRandomWalksForEntity(String entity, int numberOfWalks, int depth){
+        if (compactData != null) {
+            return generateRandomWalksForEntityCompact(entity, numberOfWalks, depth);
+        }
+        Random random = getRandom(entity);
         List<String> result = new ArrayList<>();
         int currentDepth;
         String currentWalk;
@@ -1008,7 +1322,7 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
             currentDepth = 0;
             while (currentDepth < depth) {
                 currentDepth++;
-                Triple po = getRandomTripleForSubjectWithoutTags(lastObject);
+                Triple po = getRandomTripleForSubjectWithoutTags(lastObject, random);
                 if(po != null){
                     currentWalk += " " + uriShortenerFunction.apply(po.predicate) + " " + uriShortenerFunction.apply(po.object);
                     lastObject = po.object;
@@ -1023,6 +1337,67 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
         return result;
     }
 
+    /**
+     * Node2vec walks (see {@link INode2VecWalkCapability}). The next edge is proposed uniformly and accepted with
+     * probability alpha / max(alpha) where alpha is 1/p for the way back, 1 for neighbours of the previous node,
+     * and 1/q otherwise (rejection sampling: nothing is precomputed, also not for high-degree nodes).
+     *
+     * @param entity          The entity for which walks shall be generated.
+     * @param numberOfWalks   Number of walks to be performed per entity.
+     * @param depth           The depth of each walk (where the depth is the number of hops).
+     * @param returnParameter The return parameter p (&gt; 0).
+     * @param inOutParameter  The in-out parameter q (&gt; 0).
+     * @return List of walks.
+     */
+    @Override
+    public List<String> generateNode2VecWalksForEntity(String entity, int numberOfWalks, int depth,
+                                                       double returnParameter, double inOutParameter) {
+        if (compactData != null) {
+            return generateNode2VecWalksForEntityCompact(entity, numberOfWalks, depth, returnParameter,
+                    inOutParameter);
+        }
+        List<String> result = new ArrayList<>();
+        if (!MemoryWalkGenerator.isValidNode2VecParameter(returnParameter)
+                || !MemoryWalkGenerator.isValidNode2VecParameter(inOutParameter)) {
+            LOGGER.error("The node2vec parameters p and q must be positive and finite (p: " + returnParameter
+                    + ", q: " + inOutParameter + ").");
+            return result;
+        }
+        Random random = getRandom(entity);
+        double returnWeight = 1.0 / returnParameter;
+        double inOutWeight = 1.0 / inOutParameter;
+        double maxWeight = Math.max(1.0, Math.max(returnWeight, inOutWeight));
+        for (int currentWalkNumber = 0; currentWalkNumber < numberOfWalks; currentWalkNumber++) {
+            StringBuilder currentWalk = new StringBuilder(entity);
+            String previous = null;
+            String current = entity;
+            for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+                Triple next = data.sampleNeighbour(current, random);
+                // first order step at the beginning of the walk
+                while (next != null && previous != null) {
+                    double weight;
+                    if (next.object.equals(previous)) {
+                        weight = returnWeight;
+                    } else if (data.isLinked(previous, next.object) || data.isLinked(next.object, previous)) {
+                        weight = 1.0;
+                    } else {
+                        weight = inOutWeight;
+                    }
+                    if (random.nextDouble() * maxWeight < weight) break;
+                    next = data.sampleNeighbour(current, random);
+                }
+                if (next == null) break;
+                currentWalk.append(" ").append(uriShortenerFunction.apply(next.predicate))
+                        .append(" ").append(uriShortenerFunction.apply(next.object));
+                previous = current;
+                current = next.object;
+            }
+            // walks that contain only the entity are ignored
+            if (currentWalk.length() != entity.length()) result.add(currentWalk.toString());
+        }
+        return result;
+    }
+
     /**
      * Faster version of {@link NtMemoryWalkGenerator#getRandomTripleForSubject(String)}.
      * Note that there cannot be any leading less-than or trailing greater-than signs around the subject.
@@ -1032,15 +1407,26 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
      * @return Predicate and object, randomly obtained for the given subject.
      */
     public Triple getRandomTripleForSubjectWithoutTags(String subject) {
+        return getRandomTripleForSubjectWithoutTags(subject, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Obtain a random triple for the given subject (see {@link MemoryStarWalkGenerator#getRandomTripleForSubjectWithoutTags(String)}).
+     *
+     * @param subject The subject for which a random predicate and object shall be found.
+     * @param random  The random number generator to be used.
+     * @return Predicate and object, randomly obtained for the given subject.
+     */
+    public Triple getRandomTripleForSubjectWithoutTags(String subject, Random random) {
         if (subject == null) return null;
-        List<Triple> queryResult = data.getObjectTriplesInvolvingSubject(subject);
-        if (queryResult == null) {
+        int degree = data.getOutDegree(subject);
+        if (degree == 0) {
             // no triple found
             return null;
         }
-        int randomNumber = ThreadLocalRandom.current().nextInt(queryResult.size());
-        //System.out.println("(" + Thread.currentThread().getName() + ") " + randomNumber + "[" + queryResult.size() + "]");
-        return queryResult.get(randomNumber);
+        int randomNumber = random.nextInt(degree);
+        //System.out.println("(" + Thread.currentThread().getName() + ") " + randomNumber + "[" + degree + "]");
+        return data.getOutTriple(subject, randomNumber);
     }
 
     /**
@@ -1056,8 +1442,687 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
         return stringToBeEdited;
     }
 
+    // walks on the dictionary-encoded data structure below
+    // (the walk loops operate on integer IDs only, strings are materialized once per finished walk)
+
+    /**
+     * Integer-ID version of {@link MemoryStarWalkGenerator#generateWeightedMidWalkForEntity(String, int)}.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk.
+     * @return One walk as list where each element is a walk component.
+     */
+    List<String> generateWeightedMidWalkForEntityCompact(String entity, int depth, Random random) {
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int entityId = graph.getId(entity);
+        if (entityId == CompactQuotedTripleDataSetMemory.NONE) {
+            return new ArrayList<>(Collections.singletonList(entity));
+        }
+        int[] walk = new int[4 * depth + 1];
+        int head = 2 * depth;
+        int tail = head + 1;
+        walk[head] = entityId;
+        int predecessor = entityId;
+        int successor = entityId;
+
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            // randomly decide whether to use predecessors or successors
+            double randomPickZeroOne = random.nextDouble();
+            double numberOfPredecessors = graph.getInWeight(predecessor);
+            double numberOfSuccessors = graph.getOutWeight(successor);
+
+            // if there are no successors and predecessors: return current walk
+            if (numberOfPredecessors == 0 && numberOfSuccessors == 0) break;
+
+            double cutOffPoint = numberOfPredecessors / (numberOfPredecessors + numberOfSuccessors);
+            if (randomPickZeroOne <= cutOffPoint) {
+                int i = graph.sampleInEdge(predecessor, random);
+                if (i >= 0) {
+                    walk[--head] = graph.getInPredicate(predecessor, i);
+                    walk[--head] = graph.getInSubject(predecessor, i);
+                    predecessor = walk[head];
+                }
+            } else {
+                int i = graph.sampleOutEdge(successor, random);
+                if (i >= 0) {
+                    walk[tail++] = graph.getOutPredicate(successor, i);
+                    walk[tail++] = graph.getOutObject(successor, i);
+                    successor = walk[tail - 1];
+                }
+            }
+        }
+        return renderWalk(walk, head, tail);
+    }
+
+    /**
+     * Integer-ID version of {@link MemoryStarWalkGenerator#generateMidWalkForEntity(String, int)}.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk.
+     * @return One walk as list where each element is a walk component.
+     */
+    List<String> generateMidWalkForEntityCompact(String entity, int depth, Random random) {
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int entityId = graph.getId(entity);
+        if (entityId == CompactQuotedTripleDataSetMemory.NONE) {
+            return new ArrayList<>(Collections.singletonList(entity));
+        }
+        int[] walk = new int[4 * depth + 1];
+        int head = 2 * depth;
+        int tail = head + 1;
+        walk[head] = entityId;
+        int predecessor = entityId;
+        int successor = entityId;
+
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            if (random.nextInt(2) == 0) {
+                // predecessor
+                int degree = graph.getInDegree(predecessor);
+                if (degree > 0) {
+                    int i = random.nextInt(degree);
+                    walk[--head] = graph.getInPredicate(predecessor, i);
+                    walk[--head] = graph.getInSubject(predecessor, i);
+                    predecessor = walk[head];
+                }
+            } else {
+                // successor
+                int degree = graph.getOutDegree(successor);
+                if (degree > 0) {
+                    int i = random.nextInt(degree);
+                    walk[tail++] = graph.getOutPredicate(successor, i);
+                    walk[tail++] = graph.getOutObject(successor, i);
+                    successor = walk[tail - 1];
+                }
+            }
+        }
+        return renderWalk(walk, head, tail);
+    }
+
+    /**
+     * Integer-ID version of {@link MemoryStarWalkGenerator#generateStarMidWalkForEntity(String, int, double, double)}.
+     *
+     * @param entity                     The entity for which a walk shall be generated.
+     * @param depth                      The depth of the walk.
+     * @param probabilityFromQtToSubject The transition probability from a quoted triple (QT) node to its constituent subjects.
+     * @param probabilityFromObjectToQt  The transition probability from an object to a quoted triple (QT) node.
+     * @return One walk as list where each element is a walk component.
+     */
+    List<String> generateStarMidWalkForEntityCompact(String entity, int depth, double probabilityFromQtToSubject,
+                                                     double probabilityFromObjectToQt, Random random) {
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int entityId = graph.getId(entity);
+        if (entityId == CompactQuotedTripleDataSetMemory.NONE) {
+            return new ArrayList<>(Collections.singletonList(entity));
+        }
+
+        // a quoted triple hop adds three walk components
+        int[] walk = new int[6 * depth + 1];
+        int head = 3 * depth;
+        int tail = head + 1;
+        walk[head] = entityId;
+        int predecessor = entityId;
+        int successor = entityId;
+
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            if (random.nextInt(2) == 0) {
+                // predecessor
+                int degree = graph.getInDegree(predecessor);
+                if (graph.isQuotedTriple(predecessor) && random.nextDouble() < probabilityFromObjectToQt) {
+                    // walk from QT to its constituents
+                    int qt = graph.expandQuotedTriple(predecessor);
+                    walk[--head] = graph.getQuotedTripleObject(qt);
+                    walk[--head] = graph.getQuotedTriplePredicate(qt);
+                    walk[--head] = graph.getQuotedTripleSubject(qt);
+                    predecessor = walk[head];
+                } else if (degree > 0) {
+                    int i = random.nextInt(degree);
+                    walk[--head] = graph.getInPredicate(predecessor, i);
+                    walk[--head] = graph.getInSubject(predecessor, i);
+                    predecessor = walk[head];
+                }
+            } else {
+                // successor
+                int degree = graph.getOutDegree(successor);
+                if (degree > 0) {
+                    if (graph.isQuotedTriple(successor) && random.nextDouble() < probabilityFromQtToSubject) {
+                        // walk from QT to subject
+                        int qt = graph.expandQuotedTriple(successor);
+                        walk[tail++] = graph.getQuotedTripleSubject(qt);
+                        walk[tail++] = graph.getQuotedTriplePredicate(qt);
+                        walk[tail++] = graph.getQuotedTripleObject(qt);
+                    } else {
+                        int i = random.nextInt(degree);
+                        walk[tail++] = graph.getOutPredicate(successor, i);
+                        walk[tail++] = graph.getOutObject(successor, i);
+                    }
+                    successor = walk[tail - 1];
+                }
+            }
+        }
+        return renderWalk(walk, head, tail);
+    }
+
+    /**
+     * Integer-ID version of the (duplicate-free) RDF-star random walks.
+     *
+     * @param entity                     The entity for which walks shall be generated.
+     * @param numberOfWalks              The number of walks to be generated.
+     * @param depth                      The number of hops to nodes (!).
+     * @param probabilityFromQtToSubject The transition probability from a quoted triple (QT) node to its constituent subjects.
+     * @param probabilityFromObjectToQt  The transition probability from an object to a quoted triple (QT) node.
+     * @param isDuplicateFree            True if a walk shall be replaced (rather than kept) once it is extended.
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    List<String> generateStarRandomWalksForEntityCompact(String entity, int numberOfWalks, int depth,
+                                                         double probabilityFromQtToSubject,
+                                                         double probabilityFromObjectToQt,
+                                                         boolean isDuplicateFree) {
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int entityId = graph.getId(entity);
+        int entityDegree = graph.getOutDegree(entityId);
+        if (entityDegree == 0) {
+            return new ArrayList<>();
+        }
+        Random random = getRandom(entity);
+        List<int[]> walks = new ArrayList<>();
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            if (currentDepth == 0) {
+                if (graph.isQuotedTriple(entityId) && random.nextDouble() < probabilityFromQtToSubject) {
+                    // entity is a QT node: walk from QT to subject
+                    int qt = graph.expandQuotedTriple(entityId);
+                    walks.add(new int[]{entityId, graph.getQuotedTripleSubject(qt),
+                            graph.getQuotedTriplePredicate(qt), graph.getQuotedTripleObject(qt)});
+                } else {
+                    for (int i = 0; i < entityDegree; i++) {
+                        walks.add(new int[]{entityId, graph.getOutPredicate(entityId, i),
+                                graph.getOutObject(entityId, i)});
+                    }
+                }
+            } else {
+                List<int[]> walksTmp = new ArrayList<>(walks);
+                for (int[] walk : walksTmp) {
+                    int length = walk.length;
+                    int lastObject = walk[length - 1];
+                    int qt = graph.getQuotedTriple(walk[length - 3], walk[length - 2], lastObject);
+                    double randFromObjectToQt = random.nextDouble();
+                    double randFromQtToSubject = random.nextDouble();
+                    if (qt != CompactQuotedTripleDataSetMemory.NONE && randFromObjectToQt < probabilityFromObjectToQt) {
+                        // walk from object to (enveloping) QT
+                        int[] newWalk = Arrays.copyOf(walk, length + 1);
+                        newWalk[length] = graph.envelopeQuotedTriple(qt);
+                        if (isDuplicateFree) walks.remove(walk);
+                        walks.add(newWalk);
+                    } else if (graph.isQuotedTriple(lastObject) && randFromQtToSubject < probabilityFromQtToSubject) {
+                        // walk from QT to subject
+                        int expanded = graph.expandQuotedTriple(lastObject);
+                        int[] newWalk = Arrays.copyOf(walk, length + 3);
+                        newWalk[length] = graph.getQuotedTripleSubject(expanded);
+                        newWalk[length + 1] = graph.getQuotedTriplePredicate(expanded);
+                        newWalk[length + 2] = graph.getQuotedTripleObject(expanded);
+                        walks.add(newWalk);
+                    } else {
+                        int degree = graph.getOutDegree(lastObject);
+                        if (degree > 0) {
+                            if (isDuplicateFree) walks.remove(walk);
+                            for (int i = 0; i < degree; i++) {
+                                int[] newWalk = Arrays.copyOf(walk, length + 2);
+                                newWalk[length] = graph.getOutPredicate(lastObject, i);
+                                newWalk[length + 1] = graph.getOutObject(lastObject, i);
+                                walks.add(newWalk);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // trim the list
+            while (walks.size() > numberOfWalks) {
+                walks.remove(random.nextInt(walks.size()));
+            }
+        }
+
+        List<String> result = new ArrayList<>(walks.size());
+        for (int[] walk : walks) {
+            result.add(joinWalk(walk, 0, walk.length));
+        }
+        return result;
+    }
+
+    /**
+     * Integer-ID version of {@link MemoryStarWalkGenerator#generateDuplicateFreeRandomWalksForEntity(String, int, int)}.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be generated.
+     * @param depth         The number of hops to nodes (!).
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    List<String> generateDuplicateFreeRandomWalksForEntityCompact(String entity, int numberOfWalks, int depth) {
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int entityId = graph.getId(entity);
+        int entityDegree = graph.getOutDegree(entityId);
+        if (entityDegree == 0) {
+            return new ArrayList<>();
+        }
+        Random random = getRandom(entity);
+
+        // every walk is stored as sequence of (predicate, object) pairs
+        List<int[]> walks = new ArrayList<>();
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            if (currentDepth == 0) {
+                for (int i = 0; i < entityDegree; i++) {
+                    walks.add(new int[]{graph.getOutPredicate(entityId, i), graph.getOutObject(entityId, i)});
+                }
+            } else {
+                List<int[]> walksTmp = new ArrayList<>(walks);
+                for (int[] walk : walksTmp) {
+                    int length = walk.length;
+                    int lastObject = walk[length - 1];
+                    int degree = graph.getOutDegree(lastObject);
+                    if (degree > 0) {
+                        walks.remove(walk);
+                        for (int i = 0; i < degree; i++) {
+                            int[] newWalk = Arrays.copyOf(walk, length + 2);
+                            newWalk[length] = graph.getOutPredicate(lastObject, i);
+                            newWalk[length + 1] = graph.getOutObject(lastObject, i);
+                            walks.add(newWalk);
+                        }
+                    }
+                }
+            }
+
+            // trim the list
+            while (walks.size() > numberOfWalks) {
+                walks.remove(random.nextInt(walks.size()));
+            }
+        }
+
+        List<String> result = new ArrayList<>(walks.size());
+        for (int[] walk : walks) {
+            StringBuilder finalSentence = new StringBuilder(entity);
+            for (int i = 0; i < walk.length; i += 2) {
+                String object = graph.getTerm(walk[i + 1]);
+                if (isUnifyAnonymousNodes() && Util.isAnonymousNode(object)) {
+                    object = "ANode";
+                }
+                finalSentence.append(" ").append(graph.getTerm(walk[i])).append(" ").append(object);
+            }
+            result.add(finalSentence.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Integer-ID version of
+     * {@link MemoryStarWalkGenerator#generateSampledDuplicateFreeRandomWalksForEntity(String, int, int)}. Walks are
+     * compared by their IDs rather than by their text (see {@link WalkIdSet}).
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be generated.
+     * @param depth         The number of hops to nodes (!).
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    List<String> generateSampledDuplicateFreeRandomWalksForEntityCompact(String entity, int numberOfWalks, int depth) {
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int entityId = graph.getId(entity);
+        List<String> result = new ArrayList<>();
+        if (graph.getOutDegree(entityId) == 0) {
+            return result;
+        }
+        Random random = getRandom(entity);
+        WalkIdSet drawnWalks = new WalkIdSet();
+
+        // the walk is stored as sequence of (predicate, object) pairs
+        int[] walk = new int[2 * depth];
+        long maxAttempts = (long) numberOfWalks * SAMPLING_ATTEMPTS_PER_WALK;
+        for (long attempt = 0; attempt < maxAttempts && result.size() < numberOfWalks; attempt++) {
+            int length = 0;
+            int lastObject = entityId;
+            for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+                int degree = graph.getOutDegree(lastObject);
+                if (degree == 0) break;
+                int i = random.nextInt(degree);
+                walk[length++] = graph.getOutPredicate(lastObject, i);
+                walk[length++] = graph.getOutObject(lastObject, i);
+                lastObject = walk[length - 1];
+            }
+            if (!drawnWalks.add(walk, length)) continue;
+            StringBuilder finalSentence = new StringBuilder(entity);
+            for (int i = 0; i < length; i += 2) {
+                String object = graph.getTerm(walk[i + 1]);
+                if (isUnifyAnonymousNodes() && Util.isAnonymousNode(object)) {
+                    object = "ANode";
+                }
+                finalSentence.append(" ").append(graph.getTerm(walk[i])).append(" ").append(object);
+            }
+            result.add(finalSentence.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Integer-ID version of
+     * {@link MemoryStarWalkGenerator#generateSampledDuplicateFreeStarRandomWalksForEntity(String, int, int, double, double)}.
+     *
+     * @param entity                     The entity for which walks shall be generated.
+     * @param numberOfWalks              The number of walks to be generated.
+     * @param depth                      The number of hops to nodes (!).
+     * @param probabilityFromQtToSubject The transition probability from a quoted triple (QT) node to its constituent subjects.
+     * @param probabilityFromObjectToQt  The transition probability from an object to a quoted triple (QT) node.
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    List<String> generateSampledDuplicateFreeStarRandomWalksForEntityCompact(String entity, int numberOfWalks,
+                                                                             int depth,
+                                                                             double probabilityFromQtToSubject,
+                                                                             double probabilityFromObjectToQt) {
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int entityId = graph.getId(entity);
+        int entityDegree = graph.getOutDegree(entityId);
+        List<String> result = new ArrayList<>();
+        if (entityDegree == 0) {
+            return result;
+        }
+        Random random = getRandom(entity);
+        WalkIdSet drawnWalks = new WalkIdSet();
+
+        // one hop appends at most three IDs
+        int[] walk = new int[3 * depth + 1];
+        long maxAttempts = (long) numberOfWalks * SAMPLING_ATTEMPTS_PER_WALK;
+        for (long attempt = 0; attempt < maxAttempts && result.size() < numberOfWalks; attempt++) {
+            int length = 0;
+            walk[length++] = entityId;
+            if (graph.isQuotedTriple(entityId) && random.nextDouble() < probabilityFromQtToSubject) {
+                // entity is a QT node: walk from QT to subject
+                int qt = graph.expandQuotedTriple(entityId);
+                walk[length++] = graph.getQuotedTripleSubject(qt);
+                walk[length++] = graph.getQuotedTriplePredicate(qt);
+                walk[length++] = graph.getQuotedTripleObject(qt);
+            } else {
+                int i = random.nextInt(entityDegree);
+                walk[length++] = graph.getOutPredicate(entityId, i);
+                walk[length++] = graph.getOutObject(entityId, i);
+            }
+            for (int currentDepth = 1; currentDepth < depth; currentDepth++) {
+                int lastObject = walk[length - 1];
+                int qt = graph.getQuotedTriple(walk[length - 3], walk[length - 2], lastObject);
+                double randFromObjectToQt = random.nextDouble();
+                double randFromQtToSubject = random.nextDouble();
+                if (qt != CompactQuotedTripleDataSetMemory.NONE && randFromObjectToQt < probabilityFromObjectToQt) {
+                    // walk from object to (enveloping) QT
+                    walk[length++] = graph.envelopeQuotedTriple(qt);
+                } else if (graph.isQuotedTriple(lastObject) && randFromQtToSubject < probabilityFromQtToSubject) {
+                    // walk from QT to subject
+                    int expanded = graph.expandQuotedTriple(lastObject);
+                    walk[length++] = graph.getQuotedTripleSubject(expanded);
+                    walk[length++] = graph.getQuotedTriplePredicate(expanded);
+                    walk[length++] = graph.getQuotedTripleObject(expanded);
+                } else {
+                    int degree = graph.getOutDegree(lastObject);
+                    if (degree == 0) break;
+                    int i = random.nextInt(degree);
+                    walk[length++] = graph.getOutPredicate(lastObject, i);
+                    walk[length++] = graph.getOutObject(lastObject, i);
+                }
+            }
+            if (drawnWalks.add(walk, length)) {
+                result.add(joinWalk(walk, 0, length));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Set of walks of IDs (used to reject walks that were drawn before). The walks are looked up by their
+     * {@link #fingerprint(int[], int)}; walks with the same fingerprint are compared ID by ID, so a fingerprint
+     * collision never drops a distinct walk.
+     */
+    static class WalkIdSet {
+
+
+        private final Map<Long, List<int[]>> walks = new HashMap<>();
+
+        /**
+         * Add a copy of the given walk.
+         *
+         * @param walk   The IDs of the walk.
+         * @param length The number of IDs.
+         * @return True if the walk has not been in the set before.
+         */
+        boolean add(int[] walk, int length) {
+            List<int[]> candidates = walks.computeIfAbsent(fingerprint(walk, length), k -> new ArrayList<>(1));
+            for (int[] candidate : candidates) {
+                if (isEqual(candidate, walk, length)) return false;
+            }
+            candidates.add(Arrays.copyOf(walk, length));
+            return true;
+        }
+
+        private static boolean isEqual(int[] candidate, int[] walk, int length) {
+            if (candidate.length != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (candidate[i] != walk[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 64-bit fingerprint of a walk of IDs.
+     *
+     * @param walk   The IDs of the walk.
+     * @param length The number of IDs.
+     * @return Fingerprint.
+     */
+    static long fingerprint(int[] walk, int length) {
+        long hash = length;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ walk[i]) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+    /**
+     * Integer-ID version of {@link MemoryStarWalkGenerator#generateRandomWalksForEntity(String, int, int)}.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be generated.
+     * @param depth         The depth of each walk.
+     * @return List of walks.
+     */
+    List<String> generateRandomWalksForEntityCompact(String entity, int numberOfWalks, int depth) {
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int entityId = graph.getId(entity);
+        Random random = getRandom(entity);
+        List<String> result = new ArrayList<>();
+        int[] walk = new int[2 * depth];
+        for (int currentWalkNumber = 0; currentWalkNumber < numberOfWalks; currentWalkNumber++) {
+            int length = 0;
+            int lastObject = entityId;
+            for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+                int degree = graph.getOutDegree(lastObject);
+                if (degree == 0) break;
+                int i = random.nextInt(degree);
+                walk[length++] = graph.getOutPredicate(lastObject, i);
+                walk[length++] = graph.getOutObject(lastObject, i);
+                lastObject = walk[length - 1];
+            }
+            if (length > 0) {
+                StringBuilder currentWalk = new StringBuilder(entity);
+                for (int i = 0; i < length; i++) {
+                    currentWalk.append(" ").append(uriShortenerFunction.apply(graph.getTerm(walk[i])));
+                }
+                result.add(currentWalk.toString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Integer-ID version of
+     * {@link MemoryStarWalkGenerator#generateNode2VecWalksForEntity(String, int, int, double, double)}. Quoted
+     * triple nodes are handled like any other node; the neighbour check is a binary search in the incoming edges.
+     *
+     * @param entity          The entity for which walks shall be generated.
+     * @param numberOfWalks   The number of walks to be generated.
+     * @param depth           The depth of each walk.
+     * @param returnParameter The return parameter p (&gt; 0).
+     * @param inOutParameter  The in-out parameter q (&gt; 0).
+     * @return List of walks.
+     */
+    List<String> generateNode2VecWalksForEntityCompact(String entity, int numberOfWalks, int depth,
+                                                       double returnParameter, double inOutParameter) {
+        List<String> result = new ArrayList<>();
+        if (!MemoryWalkGenerator.isValidNode2VecParameter(returnParameter)
+                || !MemoryWalkGenerator.isValidNode2VecParameter(inOutParameter)) {
+            LOGGER.error("The node2vec parameters p and q must be positive and finite (p: " + returnParameter
+                    + ", q: " + inOutParameter + ").");
+            return result;
+        }
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int entityId = graph.getId(entity);
+        Random random = getRandom(entity);
+        double returnWeight = 1.0 / returnParameter;
+        double inOutWeight = 1.0 / inOutParameter;
+        double maxWeight = Math.max(1.0, Math.max(returnWeight, inOutWeight));
+        int[] walk = new int[2 * depth];
+        for (int currentWalkNumber = 0; currentWalkNumber < numberOfWalks; currentWalkNumber++) {
+            int length = 0;
+            int previous = CompactQuotedTripleDataSetMemory.NONE;
+            int current = entityId;
+            for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+                int degree = graph.getOutDegree(current);
+                if (degree == 0) break;
+                int i = random.nextInt(degree);
+                // first order step at the beginning of the walk
+                while (previous != CompactQuotedTripleDataSetMemory.NONE) {
+                    int candidate = graph.getOutObject(current, i);
+                    double weight;
+                    if (candidate == previous) {
+                        weight = returnWeight;
+                    } else if (graph.isLinked(previous, candidate) || graph.isLinked(candidate, previous)) {
+                        weight = 1.0;
+                    } else {
+                        weight = inOutWeight;
+                    }
+                    if (random.nextDouble() * maxWeight < weight) break;
+                    i = random.nextInt(degree);
+                }
+                walk[length++] = graph.getOutPredicate(current, i);
+                walk[length++] = graph.getOutObject(current, i);
+                previous = current;
+                current = walk[length - 1];
+            }
+            if (length > 0) {
+                StringBuilder currentWalk = new StringBuilder(entity);
+                for (int i = 0; i < length; i++) {
+                    currentWalk.append(" ").append(uriShortenerFunction.apply(graph.getTerm(walk[i])));
+                }
+                result.add(currentWalk.toString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Integer-ID version of {@link MemoryStarWalkGenerator#getRandomSupertypeOfEntity(String)}.
+     *
+     * @param entity The entity for which the type shall be obtained.
+     * @return Type. Null if there is no type.
+     */
+    String getRandomSupertypeOfEntityCompact(String entity, Random random) {
+        CompactQuotedTripleDataSetMemory graph = compactData;
+        graph.ensureCompacted();
+        int node = graph.getId(entity);
+        int degree = graph.getOutDegree(node);
+        if (degree == 0) return null;
+        IntArrayList typeIds = new IntArrayList(getTypeProperties().size());
+        for (String property : getTypeProperties()) {
+            int id = graph.getId(property);
+            if (id != CompactQuotedTripleDataSetMemory.NONE) typeIds.add(id);
+        }
+        IntArrayList candidates = new IntArrayList();
+        for (int i = 0; i < degree; i++) {
+            int predicate = graph.getOutPredicate(node, i);
+            for (int t = 0; t < typeIds.size(); t++) {
+                if (typeIds.get(t) == predicate) {
+                    // the CSR segment is sorted by (predicate, object), hence there are no duplicates per predicate
+                    candidates.add(graph.getOutObject(node, i));
+                    break;
+                }
+            }
+        }
+        if (candidates.isEmpty()) return null;
+        return graph.getTerm(candidates.get(random.nextInt(candidates.size())));
+    }
+
+    /**
+     * Translate the given ID walk into a list of terms.
+     *
+     * @param walk Walk buffer.
+     * @param from First position (inclusive).
+     * @param to   Last position (exclusive).
+     * @return Walk as list of terms.
+     */
+    private List<String> renderWalk(int[] walk, int from, int to) {
+        List<String> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(compactData.getTerm(walk[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Translate the given ID walk into a space-separated walk.
+     *
+     * @param walk Walk buffer.
+     * @param from First position (inclusive).
+     * @param to   Last position (exclusive).
+     * @return Walk as string.
+     */
+    private String joinWalk(int[] walk, int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i > from) sb.append(" ");
+            sb.append(compactData.getTerm(walk[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Obtain the random number generator of the given entity (derived from the seed and the entity).
+     *
+     * @param entity The entity for which walks are generated.
+     * @return New random number generator.
+     */
+    WalkRandom getRandom(String entity) {
+        return WalkRandom.forEntity(seed, entity);
+    }
+
     // getters and setters below
 
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
     public boolean isUnifyAnonymousNodes() {
         return isUnifyAnonymousNodes;
     }
@@ -1070,6 +2135,69 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
         return data;
     }
 
+    /**
+     * Obtain the dictionary-encoded data structure.
+     *
+     * @return The compact data structure or null if {@link MemoryStarWalkGenerator#data} is used.
+     */
+    public CompactQuotedTripleDataSetMemory getCompactData() {
+        return compactData;
+    }
+
+    /**
+     * Indicator whether walks are generated on the dictionary-encoded data structure.
+     *
+     * @return True if {@link MemoryStarWalkGenerator#compactData} is used.
+     */
+    public boolean isUseCompactData() {
+        return compactData != null;
+    }
+
+    /**
+     * Write a binary snapshot of the quoted triples and object triples (see {@link GraphSnapshot}) which can be
+     * reopened with {@link MemoryStarWalkGenerator#readSnapshot(File)} instead of parsing the graph again.
+     *
+     * @param snapshotFile The snapshot file to be written.
+     * @param sourceFile   The graph file that was parsed (used to detect outdated snapshots), may be null.
+     * @param parserSettings Fingerprint of the parser settings with which the graph file was parsed (see
+     *                       {@link GraphSnapshot#isUpToDate(File, File, long)}).
+     * @return True if the snapshot was written.
+     */
+    public boolean writeSnapshot(File snapshotFile, File sourceFile, long parserSettings) {
+        try {
+            if (compactData != null) {
+                GraphSnapshot.write(compactData, true, snapshotFile, sourceFile, parserSettings);
+            } else {
+                GraphSnapshot.write(data, snapshotFile, sourceFile, parserSettings);
+            }
+            return true;
+        } catch (IOException ioe) {
+            LOGGER.error("Could not write snapshot " + snapshotFile.getAbsolutePath(), ioe);
+            return false;
+        }
+    }
+
+    /**
+     * Read the given snapshot. If the compact data structure is used, it is replaced by the snapshot; otherwise,
+     * the triples of the snapshot are added to {@link MemoryStarWalkGenerator#data}.
+     *
+     * @param snapshotFile The snapshot file.
+     * @return True if the snapshot was read.
+     */
+    public boolean readSnapshot(File snapshotFile) {
+        try {
+            if (compactData != null) {
+                compactData = GraphSnapshot.read(snapshotFile);
+            } else {
+                GraphSnapshot.readInto(snapshotFile, data);
+            }
+            return true;
+        } catch (IOException ioe) {
+            LOGGER.error("Could not read snapshot " + snapshotFile.getAbsolutePath(), ioe);
+            return false;
+        }
+    }
+
     public boolean isParseDatatypeProperties() {
         return isParseDatatypeProperties;
     }
@@ -1079,6 +2207,9 @@ public abstract class MemoryStarWalkGenerator implements IWalkGenerator,
     }
 
     public long getDataSize() {
+        if (compactData != null) {
+            return compactData.getObjectTripleSize();
+        }
         if (data == null) {
             return 0L;
         } else return data.getObjectTripleSize();
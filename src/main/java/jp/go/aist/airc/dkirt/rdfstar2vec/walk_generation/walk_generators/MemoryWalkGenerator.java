@@ -1,12 +1,16 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.EdgeWeighting;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.GraphSnapshot;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.Triple;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TripleDataSetMemory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.UnaryOperator;
@@ -19,7 +23,8 @@ import java.util.stream.Collectors;
 public abstract class MemoryWalkGenerator implements IWalkGenerator,
         IMidWalkCapability, IMidWalkDuplicateFreeCapability, IRandomWalkDuplicateFreeCapability,
         IMidWalkWeightedCapability, IMidEdgeWalkDuplicateFreeCapability, IRandomWalkCapability,
-        IMidTypeWalkDuplicateFreeCapability, INodeWalksDuplicateFreeCapability {
+        IMidTypeWalkDuplicateFreeCapability, INodeWalksDuplicateFreeCapability, INode2VecWalkCapability,
+        ISampledRandomWalkDuplicateFreeCapability, ISeedableWalkGenerator {
 
 
     /**
@@ -60,6 +65,11 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
 
     private static final String[] DEFAULT_TYPE_PROPERTIES = {"http://www.w3.org/1999/02/22-rdf-syntax-ns#type"};
 
+    /**
+     * The global seed from which the random number generator of every entity is derived.
+     */
+    private long seed = WalkRandom.newSeed();
+
     /**
      * Constructor
      */
@@ -79,7 +89,22 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
     @Override
     public List<String> generateWeightedMidWalksForEntity(String entity, int numberOfWalks, int depth) {
         return Util.convertToStringWalksDuplicateFree(generateWeightedMidWalkForEntityAsArray(entity, numberOfWalks,
-                depth));
+                depth, getRandom(entity)));
+    }
+
+    /**
+     * Builds the alias tables of the data set, i.e. the edges of every node are drawn in O(1) proportionally to
+     * the given weighting.
+     *
+     * @param weighting       The edge weighting.
+     * @param numberOfThreads The number of threads used to build the alias tables.
+     * @return True if the weighting was applied.
+     */
+    @Override
+    public boolean setEdgeWeighting(EdgeWeighting weighting, int numberOfThreads) {
+        if (data == null) return false;
+        data.buildAliasTables(weighting, numberOfThreads);
+        return true;
     }
 
     /**
@@ -91,9 +116,23 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return A data structure describing the walks.
      */
     public List<List<String>> generateWeightedMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth) {
+        return generateWeightedMidWalkForEntityAsArray(entity, numberOfWalks, depth, getRandom(entity));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be performed.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param random        The random number generator to be used.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateWeightedMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth,
+                                                                      Random random) {
         List<List<String>> result = new ArrayList<>();
         for (int i = 0; i < numberOfWalks; i++) {
-            List<String> walk = generateWeightedMidWalkForEntity(entity, depth);
+            List<String> walk = generateWeightedMidWalkForEntity(entity, depth, random);
             if (walk.size() > 1) {
                 result.add(walk);
             }
@@ -109,6 +148,18 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return One walk as list where each element is a walk component.
      */
     public List<String> generateWeightedMidWalkForEntity(String entity, int depth) {
+        return generateWeightedMidWalkForEntity(entity, depth, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a single walk for the given entity with the given depth.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will have three walk components.
+     * @param random The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateWeightedMidWalkForEntity(String entity, int depth, Random random) {
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -124,19 +175,11 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
             currentDepth++;
 
             // randomly decide whether to use predecessors or successors
-            double randomPickZeroOne = ThreadLocalRandom.current().nextDouble(0.0, 1.00000001);
-
-            // predecessor candidates
-            List<Triple> candidatesPredecessor = data.getObjectTriplesInvolvingObject(nextElementPredecessor);
-
-            // successor candidates
-            List<Triple> candidatesSuccessor = data.getObjectTriplesInvolvingSubject(nextElementSuccessor);
+            double randomPickZeroOne = random.nextDouble();
 
-            double numberOfPredecessors = 0.0;
-            double numberOfSuccessors = 0.0;
-
-            if (candidatesPredecessor != null) numberOfPredecessors = candidatesPredecessor.size();
-            if (candidatesSuccessor != null) numberOfSuccessors = candidatesSuccessor.size();
+            // weight of the predecessor and successor candidates (their number if the edge weighting is uniform)
+            double numberOfPredecessors = data.getInWeight(nextElementPredecessor);
+            double numberOfSuccessors = data.getOutWeight(nextElementSuccessor);
 
             // if there are no successors and predecessors: return current walk
             if (numberOfPredecessors == 0 && numberOfSuccessors == 0) return result;
@@ -146,8 +189,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
 
             if (randomPickZeroOne <= cutOffPoint) {
                 // predecessor
-                if (candidatesPredecessor != null && candidatesPredecessor.size() > 0) {
-                    Triple drawnTriple = randomDrawFromList(candidatesPredecessor);
+                Triple drawnTriple = data.sampleWeightedPredecessor(nextElementPredecessor, random);
+                if (drawnTriple != null) {
 
                     // add walks from the front (walk started before entity)
                     result.addFirst(drawnTriple.predicate);
@@ -156,8 +199,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
                 }
             } else {
                 // successor
-                if (candidatesSuccessor != null && candidatesSuccessor.size() > 0) {
-                    Triple tripleToAdd = randomDrawFromList(candidatesSuccessor);
+                Triple tripleToAdd = data.sampleWeightedNeighbour(nextElementSuccessor, random);
+                if (tripleToAdd != null) {
 
                     // add next walk iteration
                     result.addLast(tripleToAdd.predicate);
@@ -202,7 +245,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      */
     @Override
     public List<String> generateMidWalksForEntity(String entity, int numberOfWalks, int depth) {
-        return Util.convertToStringWalks(generateMidWalkForEntityAsArray(entity, numberOfWalks, depth));
+        return Util.convertToStringWalks(generateMidWalkForEntityAsArray(entity, numberOfWalks, depth,
+                getRandom(entity)));
     }
 
     /**
@@ -214,9 +258,23 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return A data structure describing the walks.
      */
     public List<List<String>> generateMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth) {
+        return generateMidWalkForEntityAsArray(entity, numberOfWalks, depth, getRandom(entity));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be performed.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param random        The random number generator to be used.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth,
+                                                              Random random) {
         List<List<String>> result = new ArrayList<>();
         for (int i = 0; i < numberOfWalks; i++) {
-            List<String> walk = generateMidWalkForEntity(entity, depth);
+            List<String> walk = generateMidWalkForEntity(entity, depth, random);
             if (walk.size() > 1) {
                 result.add(walk);
             }
@@ -234,7 +292,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      */
     @Override
     public List<String> generateMidWalksForEntityDuplicateFree(String entity, int numberOfWalks, int depth) {
-        return Util.convertToStringWalksDuplicateFree(generateMidWalkForEntityAsArray(entity, numberOfWalks, depth));
+        return Util.convertToStringWalksDuplicateFree(generateMidWalkForEntityAsArray(entity, numberOfWalks, depth,
+                getRandom(entity)));
     }
 
     /**
@@ -247,7 +306,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      */
     @Override
     public List<String> generateMidEdgeWalksForEntityDuplicateFree(String entity, int numberOfWalks, int depth) {
-        List<List<String>> walksWithNodes = generateMidWalkForEntityAsArray(entity, numberOfWalks, depth);
+        Random random = getRandom(entity);
+        List<List<String>> walksWithNodes = generateMidWalkForEntityAsArray(entity, numberOfWalks, depth, random);
         List<List<String>> result = new ArrayList<>();
         for (List<String> walkWithNodes : walksWithNodes) {
 
@@ -256,7 +316,7 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
             int appearances = getNumberOfAppearances(entity, walkWithNodes);
 
             // draw the desired position to keep
-            int choice = getRandomNumberBetweenZeroAndX(appearances);
+            int choice = getRandomNumberBetweenZeroAndX(appearances, random);
 
             List<String> walk = new ArrayList<>();
             int currentNodeOfInterestPosition = 0;
@@ -305,7 +365,18 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return Integer
      */
     static int getRandomNumberBetweenZeroAndX(int x) {
-        return ThreadLocalRandom.current().nextInt(x);
+        return getRandomNumberBetweenZeroAndX(x, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Returns a random number between 0 and x (exclusive!).
+     *
+     * @param x      Integer upper bound (exclusive).
+     * @param random The random number generator to be used.
+     * @return Integer
+     */
+    static int getRandomNumberBetweenZeroAndX(int x, Random random) {
+        return random.nextInt(x);
     }
 
     /**
@@ -316,6 +387,18 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return One walk as list where each element is a walk component.
      */
     public List<String> generateMidWalkForEntity(String entity, int depth) {
+        return generateMidWalkForEntity(entity, depth, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a single walk for the given entity with the given depth.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will have three walk components.
+     * @param random The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateMidWalkForEntity(String entity, int depth, Random random) {
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -331,14 +414,13 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
             currentDepth++;
 
             // randomly decide whether to use predecessors or successors
-            int randomPickZeroOne = ThreadLocalRandom.current().nextInt(2);
+            int randomPickZeroOne = random.nextInt(2);
 
             if (randomPickZeroOne == 0) {
                 // predecessor
-                List<Triple> candidates = data.getObjectTriplesInvolvingObject(nextElementPredecessor);
+                Triple drawnTriple = data.samplePredecessor(nextElementPredecessor, random);
 
-                if (candidates != null && candidates.size() > 0) {
-                    Triple drawnTriple = randomDrawFromList(candidates);
+                if (drawnTriple != null) {
 
                     // add walks from the front (walk started before entity)
                     result.addFirst(drawnTriple.predicate);
@@ -347,9 +429,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
                 }
             } else {
                 // successor
-                List<Triple> candidates = data.getObjectTriplesInvolvingSubject(nextElementSuccessor);
-                if (candidates != null && candidates.size() > 0) {
-                    Triple tripleToAdd = randomDrawFromList(candidates);
+                Triple tripleToAdd = data.sampleNeighbour(nextElementSuccessor, random);
+                if (tripleToAdd != null) {
 
                     // add next walk iteration
                     result.addLast(tripleToAdd.predicate);
@@ -369,7 +450,19 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return Drawn value of type T.
      */
     public static <T> T randomDrawFromList(List<T> listToDrawFrom) {
-        int randomNumber = ThreadLocalRandom.current().nextInt(listToDrawFrom.size());
+        return randomDrawFromList(listToDrawFrom, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draw a random value from a List.
+     *
+     * @param listToDrawFrom The list from which shall be drawn.
+     * @param random         The random number generator to be used.
+     * @param <T>            Type
+     * @return Drawn value of type T.
+     */
+    public static <T> T randomDrawFromList(List<T> listToDrawFrom, Random random) {
+        int randomNumber = random.nextInt(listToDrawFrom.size());
         return listToDrawFrom.get(randomNumber);
     }
 
@@ -381,7 +474,19 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return Drawn value of type T.
      */
     public static<T> T randomDrawFromSet(Set<T> setToDrawFrom) {
-        int randomNumber = ThreadLocalRandom.current().nextInt(setToDrawFrom.size());
+        return randomDrawFromSet(setToDrawFrom, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draw a random value from a set.
+     *
+     * @param setToDrawFrom The set from which shall be drawn.
+     * @param random        The random number generator to be used.
+     * @param <T> Type
+     * @return Drawn value of type T.
+     */
+    public static<T> T randomDrawFromSet(Set<T> setToDrawFrom, Random random) {
+        int randomNumber = random.nextInt(setToDrawFrom.size());
         int i = 0;
         for(T t : setToDrawFrom){
             if(i == randomNumber){
@@ -401,14 +506,14 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
     public Triple getRandomTripleForSubject(String subject) {
         if (subject == null) return null;
         subject = uriShortenerFunction.apply(removeTags(subject));
-        List<Triple> queryResult = data.getObjectTriplesInvolvingSubject(subject);
-        if (queryResult == null) {
+        int degree = data.getOutDegree(subject);
+        if (degree == 0) {
             // no triple found
             return null;
         }
-        int randomNumber = ThreadLocalRandom.current().nextInt(queryResult.size());
+        int randomNumber = ThreadLocalRandom.current().nextInt(degree);
         LOGGER.info("(" + Thread.currentThread().getName() + ") " + randomNumber);
-        return queryResult.get(randomNumber);
+        return data.getOutTriple(subject, randomNumber);
     }
 
     /**
@@ -467,16 +572,18 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * spaces.
      */
     public List<String> generateDuplicateFreeRandomWalksForEntity(String entity, int numberOfWalks, int depth) {
+        Random random = getRandom(entity);
         List<List<Triple>> walks = new ArrayList<>();
         boolean isFirstIteration = true;
         for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
             // initialize with first node
             if (isFirstIteration) {
-                List<Triple> neighbours = data.getObjectTriplesInvolvingSubject(entity);
-                if (neighbours == null || neighbours.size() == 0) {
+                int numberOfNeighbours = data.getOutDegree(entity);
+                if (numberOfNeighbours == 0) {
                     return new ArrayList<>();
                 }
-                for (Triple neighbour : neighbours) {
+                for (int i = 0; i < numberOfNeighbours; i++) {
+                    Triple neighbour = data.getOutTriple(entity, i);
                     ArrayList<Triple> individualWalk = new ArrayList<>();
                     individualWalk.add(neighbour);
                     walks.add(individualWalk);
@@ -490,10 +597,11 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
                 for (List<Triple> walk : walks_tmp) {
                     // get last entity
                     Triple lastTriple = walk.get(walk.size() - 1);
-                    List<Triple> nextIteration = data.getObjectTriplesInvolvingSubject(lastTriple.object);
-                    if (nextIteration != null) {
+                    int numberOfNextSteps = data.getOutDegree(lastTriple.object);
+                    if (numberOfNextSteps > 0) {
                         walks.remove(walk); // check whether this works
-                        for (Triple nextStep : nextIteration) {
+                        for (int i = 0; i < numberOfNextSteps; i++) {
+                            Triple nextStep = data.getOutTriple(lastTriple.object, i);
                             List<Triple> newWalk = new ArrayList<>(walk);
                             newWalk.add(nextStep);
                             walks.add(newWalk);
@@ -504,7 +612,7 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
 
             // trim the list
             while (walks.size() > numberOfWalks) {
-                int randomNumber = ThreadLocalRandom.current().nextInt(walks.size());
+                int randomNumber = random.nextInt(walks.size());
                 walks.remove(randomNumber);
             }
         } // depth loop
@@ -513,9 +621,47 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
         return Util.convertToStringWalks(walks, entity, isUnifyAnonymousNodes());
     }
 
+    /**
+     * Generates duplicate-free walks for the given entity by drawing random walks and rejecting the ones that were
+     * drawn before (see {@link ISampledRandomWalkDuplicateFreeCapability}).
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be generated.
+     * @param depth         The number of hops to nodes (!).
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    @Override
+    public List<String> generateSampledDuplicateFreeRandomWalksForEntity(String entity, int numberOfWalks, int depth) {
+        if (data.getOutDegree(entity) == 0) {
+            return new ArrayList<>();
+        }
+        Random random = getRandom(entity);
+        Set<String> walks = new LinkedHashSet<>();
+        long maxAttempts = (long) numberOfWalks * SAMPLING_ATTEMPTS_PER_WALK;
+        for (long attempt = 0; attempt < maxAttempts && walks.size() < numberOfWalks; attempt++) {
+            StringBuilder walk = new StringBuilder(entity);
+            String lastObject = entity;
+            for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+                int degree = data.getOutDegree(lastObject);
+                if (degree == 0) break;
+                Triple po = data.getOutTriple(lastObject, random.nextInt(degree));
+                String object = po.object;
+                if (isUnifyAnonymousNodes() && Util.isAnonymousNode(object)) {
+                    object = "ANode";
+                }
+                walk.append(" ").append(po.predicate).append(" ").append(object);
+                lastObject = po.object;
+            }
+            walks.add(walk.toString());
+        }
+        return new ArrayList<>(walks);
+    }
+
     @Override
     public List<String> generateMidTypeWalksForEntityDuplicateFree(String entity, int numberOfWalks, int depth){
-        List<List<String>> walksWithNodes = generateMidWalkForEntityAsArray(entity, numberOfWalks, depth);
+        Random random = getRandom(entity);
+        List<List<String>> walksWithNodes = generateMidWalkForEntityAsArray(entity, numberOfWalks, depth, random);
         List<List<String>> result = new ArrayList<>();
         for (List<String> walkWithNodes : walksWithNodes) {
 
@@ -523,7 +669,7 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
             int appearances = getNumberOfAppearances(entity, walkWithNodes);
 
             // draw the desired position to keep
-            int choice = getRandomNumberBetweenZeroAndX(appearances);
+            int choice = getRandomNumberBetweenZeroAndX(appearances, random);
 
             List<String> walk = new ArrayList<>();
             int currentNodeOfInterestPosition = 0;
@@ -537,7 +683,7 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
                             currentNodeOfInterestPosition++;
                         } else {
                             // -> we will not add the node of interest this time but instead its supertype
-                            String type = getRandomSupertypeOfEntity(node);
+                            String type = getRandomSupertypeOfEntity(node, random);
                             if(type != null){
                                 walk.add(type);
                             }
@@ -545,7 +691,7 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
                         }
                     } else {
                         // we have a normal node that is not a node of interest
-                        String type = getRandomSupertypeOfEntity(node);
+                        String type = getRandomSupertypeOfEntity(node, random);
                         if(type != null){
                             walk.add(type);
                         }
@@ -566,6 +712,16 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return Type. Null if there is no type.
      */
     public String getRandomSupertypeOfEntity(String entity){
+        return getRandomSupertypeOfEntity(entity, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draw a random supertype. Note that the predicates of {@link MemoryWalkGenerator#typeProperties} are used.
+     * @param entity The entity for which the type shall be obtained.
+     * @param random The random number generator to be used.
+     * @return Type. Null if there is no type.
+     */
+    public String getRandomSupertypeOfEntity(String entity, Random random){
         if(entity == null){
             return null;
         }
@@ -581,12 +737,13 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
         if(candidates.size() == 0){
             return null;
         } else {
-            return randomDrawFromSet(candidates);
+            return randomDrawFromSet(candidates, random);
         }
     }
 
     @Override
     public List<String> generateRandomWalksForEntity(String entity, int numberOfWalks, int depth){
+        Random random = getRandom(entity);
         List<String> result = new ArrayList<>();
         int currentDepth;
         String currentWalk;
@@ -600,7 +757,7 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
             currentDepth = 0;
             while (currentDepth < depth) {
                 currentDepth++;
-                Triple po = getRandomTripleForSubjectWithoutTags(lastObject);
+                Triple po = getRandomTripleForSubjectWithoutTags(lastObject, random);
                 if(po != null){
                     currentWalk += " " + uriShortenerFunction.apply(po.predicate) + " " + uriShortenerFunction.apply(po.object);
                     lastObject = po.object;
@@ -615,6 +772,66 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
         return result;
     }
 
+    /**
+     * Node2vec walks (see {@link INode2VecWalkCapability}). The next edge is proposed uniformly and accepted with
+     * probability alpha / max(alpha) where alpha is 1/p for the way back, 1 for neighbours of the previous node,
+     * and 1/q otherwise (rejection sampling: nothing is precomputed, also not for high-degree nodes).
+     *
+     * @param entity          The entity for which walks shall be generated.
+     * @param numberOfWalks   Number of walks to be performed per entity.
+     * @param depth           The depth of each walk (where the depth is the number of hops).
+     * @param returnParameter The return parameter p (&gt; 0).
+     * @param inOutParameter  The in-out parameter q (&gt; 0).
+     * @return List of walks.
+     */
+    @Override
+    public List<String> generateNode2VecWalksForEntity(String entity, int numberOfWalks, int depth,
+                                                       double returnParameter, double inOutParameter) {
+        List<String> result = new ArrayList<>();
+        if (!isValidNode2VecParameter(returnParameter) || !isValidNode2VecParameter(inOutParameter)) {
+            LOGGER.error("The node2vec parameters p and q must be positive and finite (p: " + returnParameter
+                    + ", q: " + inOutParameter + ").");
+            return result;
+        }
+        Random random = getRandom(entity);
+        double returnWeight = 1.0 / returnParameter;
+        double inOutWeight = 1.0 / inOutParameter;
+        double maxWeight = Math.max(1.0, Math.max(returnWeight, inOutWeight));
+        for (int currentWalkNumber = 0; currentWalkNumber < numberOfWalks; currentWalkNumber++) {
+            StringBuilder currentWalk = new StringBuilder(entity);
+            String previous = null;
+            String current = entity;
+            for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+                Triple next = data.sampleNeighbour(current, random);
+                // first order step at the beginning of the walk
+                while (next != null && previous != null) {
+                    double weight;
+                    if (next.object.equals(previous)) {
+                        weight = returnWeight;
+                    } else if (data.isLinked(previous, next.object) || data.isLinked(next.object, previous)) {
+                        weight = 1.0;
+                    } else {
+                        weight = inOutWeight;
+                    }
+                    if (random.nextDouble() * maxWeight < weight) break;
+                    next = data.sampleNeighbour(current, random);
+                }
+                if (next == null) break;
+                currentWalk.append(" ").append(uriShortenerFunction.apply(next.predicate))
+                        .append(" ").append(uriShortenerFunction.apply(next.object));
+                previous = current;
+                current = next.object;
+            }
+            // walks that contain only the entity are ignored
+            if (currentWalk.length() != entity.length()) result.add(currentWalk.toString());
+        }
+        return result;
+    }
+
+    static boolean isValidNode2VecParameter(double parameter) {
+        return parameter > 0 && !Double.isInfinite(parameter) && !Double.isNaN(parameter);
+    }
+
     /**
      * Faster version of {@link NtMemoryWalkGenerator#getRandomTripleForSubject(String)}.
      * Note that there cannot be any leading less-than or trailing greater-than signs around the subject.
@@ -624,15 +841,26 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return Predicate and object, randomly obtained for the given subject.
      */
     public Triple getRandomTripleForSubjectWithoutTags(String subject) {
+        return getRandomTripleForSubjectWithoutTags(subject, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Obtain a random triple for the given subject (see {@link MemoryWalkGenerator#getRandomTripleForSubjectWithoutTags(String)}).
+     *
+     * @param subject The subject for which a random predicate and object shall be found.
+     * @param random  The random number generator to be used.
+     * @return Predicate and object, randomly obtained for the given subject.
+     */
+    public Triple getRandomTripleForSubjectWithoutTags(String subject, Random random) {
         if (subject == null) return null;
-        List<Triple> queryResult = data.getObjectTriplesInvolvingSubject(subject);
-        if (queryResult == null) {
+        int degree = data.getOutDegree(subject);
+        if (degree == 0) {
             // no triple found
             return null;
         }
-        int randomNumber = ThreadLocalRandom.current().nextInt(queryResult.size());
-        //System.out.println("(" + Thread.currentThread().getName() + ") " + randomNumber + "[" + queryResult.size() + "]");
-        return queryResult.get(randomNumber);
+        int randomNumber = random.nextInt(degree);
+        //System.out.println("(" + Thread.currentThread().getName() + ") " + randomNumber + "[" + degree + "]");
+        return data.getOutTriple(subject, randomNumber);
     }
 
     /**
@@ -648,8 +876,28 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
         return stringToBeEdited;
     }
 
+    /**
+     * Obtain the random number generator of the given entity (derived from the seed and the entity).
+     *
+     * @param entity The entity for which walks are generated.
+     * @return New random number generator.
+     */
+    WalkRandom getRandom(String entity) {
+        return WalkRandom.forEntity(seed, entity);
+    }
+
     // getters and setters below
 
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
     public boolean isUnifyAnonymousNodes() {
         return isUnifyAnonymousNodes;
     }
@@ -662,6 +910,42 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
         return data;
     }
 
+    /**
+     * Write a binary snapshot of the object triples (see {@link GraphSnapshot}) which can be reopened with
+     * {@link MemoryWalkGenerator#readSnapshot(File)} instead of parsing the graph again.
+     *
+     * @param snapshotFile The snapshot file to be written.
+     * @param sourceFile   The graph file that was parsed (used to detect outdated snapshots), may be null.
+     * @param parserSettings Fingerprint of the parser settings with which the graph file was parsed (see
+     *                       {@link GraphSnapshot#isUpToDate(File, File, long)}).
+     * @return True if the snapshot was written.
+     */
+    public boolean writeSnapshot(File snapshotFile, File sourceFile, long parserSettings) {
+        try {
+            GraphSnapshot.write(data, snapshotFile, sourceFile, parserSettings);
+            return true;
+        } catch (IOException ioe) {
+            LOGGER.error("Could not write snapshot " + snapshotFile.getAbsolutePath(), ioe);
+            return false;
+        }
+    }
+
+    /**
+     * Add the object triples of the given snapshot to the data structure.
+     *
+     * @param snapshotFile The snapshot file.
+     * @return True if the snapshot was read.
+     */
+    public boolean readSnapshot(File snapshotFile) {
+        try {
+            GraphSnapshot.readInto(snapshotFile, data);
+            return true;
+        } catch (IOException ioe) {
+            LOGGER.error("Could not read snapshot " + snapshotFile.getAbsolutePath(), ioe);
+            return false;
+        }
+    }
+
     public boolean isParseDatatypeProperties() {
         return isParseDatatypeProperties;
     }
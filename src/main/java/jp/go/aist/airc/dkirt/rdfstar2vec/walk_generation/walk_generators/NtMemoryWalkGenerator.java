@@ -217,6 +217,8 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
             }
         }
 
+        // the reader threads ingest without locking the store; the indices are built once all threads are done
+        data.beginConcurrentBuild();
         ArrayList<Thread> allThreads = new ArrayList<>();
         for (File fileOriginal : directoryOfDataSets.listFiles()) {
             if (optimizedFiles.containsKey(fileOriginal.getName())) {
@@ -245,6 +247,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
         } catch (InterruptedException ie) {
             LOGGER.error("Problem waiting for thread...", ie);
         }
+        data.finishConcurrentBuild();
         LOGGER.info("Data read.");
     }
 
@@ -419,6 +422,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
                     LOGGER.error("The problem occurred in the following line:\n" + readLine);
                 }
             } // end of while loop
+            data.ensureNeighbourIndex();
             LOGGER.info("File " + fileToReadFrom.getName() + " successfully read. " + data.getObjectTripleSize() + " subjects loaded.");
             if (isWriteOptimizedFile) {
                 writer.flush();
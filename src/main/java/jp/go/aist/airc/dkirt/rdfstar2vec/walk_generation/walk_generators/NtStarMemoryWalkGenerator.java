@@ -1,7 +1,10 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.ISearchCondition;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTriple;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.Triple;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TripleDataSetMemory;
 
 import org.apache.jena.ontology.OntModel;
@@ -10,11 +13,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -27,7 +32,10 @@ import java.util.zip.GZIPOutputStream;
  */
 public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
 
-   	Prefix pref = new Prefix();
+    /**
+     * The namespaces which are replaced by prefix labels while parsing.
+     */
+    Prefix pref = new Prefix();
 
     /**
      * Default logger
@@ -45,6 +53,21 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
      */
     boolean isWriteOptimizedFile = false;
 
+    /**
+     * The number of threads used to parse a single file. If 1, the file is parsed line by line on the calling thread.
+     */
+    private int numberOfParserThreads = 1;
+
+    /**
+     * The number of nested concurrent builds in progress (a directory build contains the builds of its files).
+     */
+    private final AtomicInteger buildDepth = new AtomicInteger();
+
+    /**
+     * The number of lines which are handed to a parser thread at once.
+     */
+    private static final int LINES_PER_BLOCK = 10000;
+
     /**
      * Default Constructor
      */
@@ -66,6 +89,20 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
         uriShortenerFunction = s -> s;
     }
 
+    /**
+     * Constructor
+     * @param isParseDatatypeTriples True if datatype triples shall be parsed.
+     * @param isUseCompactData True if the triples shall be held in the dictionary-encoded
+     *                         {@link CompactQuotedTripleDataSetMemory} rather than in the String-keyed
+     *                         {@link QuotedTripleDataSetMemory}.
+     */
+    public NtStarMemoryWalkGenerator(boolean isParseDatatypeTriples, boolean isUseCompactData) {
+        this(isParseDatatypeTriples);
+        if (isUseCompactData) {
+            compactData = new CompactQuotedTripleDataSetMemory();
+        }
+    }
+
     /**
      * Constructor
      *
@@ -125,6 +162,52 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
         readNTriples(tripleFile, false);
     }
 
+    /**
+     * Constructor
+     *
+     * @param tripleFile The nt file to be read (not zipped).
+     * @param isParseDatatypeTriples True if datatype triples shall also be parsed.
+     * @param isUseCompactData True if the triples shall be held in the dictionary-encoded
+     *                         {@link CompactQuotedTripleDataSetMemory}.
+     */
+    public NtStarMemoryWalkGenerator(File tripleFile, boolean isParseDatatypeTriples, boolean isUseCompactData) {
+        this(tripleFile, isParseDatatypeTriples, isUseCompactData, 1);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param tripleFile The nt file to be read (not zipped).
+     * @param isParseDatatypeTriples True if datatype triples shall also be parsed.
+     * @param isUseCompactData True if the triples shall be held in the dictionary-encoded
+     *                         {@link CompactQuotedTripleDataSetMemory}.
+     * @param numberOfParserThreads The number of threads used to parse the file.
+     */
+    public NtStarMemoryWalkGenerator(File tripleFile, boolean isParseDatatypeTriples, boolean isUseCompactData,
+                                     int numberOfParserThreads) {
+        this(tripleFile, isParseDatatypeTriples, isUseCompactData, numberOfParserThreads, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param tripleFile The nt file to be read (not zipped).
+     * @param isParseDatatypeTriples True if datatype triples shall also be parsed.
+     * @param isUseCompactData True if the triples shall be held in the dictionary-encoded
+     *                         {@link CompactQuotedTripleDataSetMemory}.
+     * @param numberOfParserThreads The number of threads used to parse the file.
+     * @param prefix The namespaces which shall be replaced by prefix labels (null: built-in namespaces).
+     */
+    public NtStarMemoryWalkGenerator(File tripleFile, boolean isParseDatatypeTriples, boolean isUseCompactData,
+                                     int numberOfParserThreads, Prefix prefix) {
+        this(isParseDatatypeTriples, isUseCompactData);
+        setNumberOfParserThreads(numberOfParserThreads);
+        if (prefix != null) {
+            setPrefix(prefix);
+        }
+        readNTriples(tripleFile, false);
+    }
+
     /**
      * Save an ontModel as TTL file.
      *
@@ -173,6 +256,9 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
             LOGGER.error("The given pathToDirectory is no directory, aborting. (given: " + pathToDirectory + ")");
             return;
         }
+        for (File file : directoryOfDataSets.listFiles()) {
+            learnNamespaces(file, file.getName().endsWith(".gz"));
+        }
         for (File file : directoryOfDataSets.listFiles()) {
             LOGGER.info("Processing file " + file.getName());
             if (file.getName().endsWith(".gz")) {
@@ -221,6 +307,15 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
             }
         }
 
+        // all files are sampled before the first term is shortened
+        for (File fileOriginal : directoryOfDataSets.listFiles()) {
+            if (!optimizedFiles.containsKey(fileOriginal.getName())) {
+                learnNamespaces(fileOriginal, fileOriginal.getName().endsWith(".gz"));
+            }
+        }
+
+        // the reader threads ingest without locking the store; the indices are built once all threads are done
+        beginConcurrentBuild();
         ArrayList<Thread> allThreads = new ArrayList<>();
         for (File fileOriginal : directoryOfDataSets.listFiles()) {
             if (optimizedFiles.containsKey(fileOriginal.getName())) {
@@ -249,6 +344,7 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
         } catch (InterruptedException ie) {
             LOGGER.error("Problem waiting for thread...", ie);
         }
+        finishConcurrentBuild();
         LOGGER.info("Data read.");
     }
 
@@ -320,7 +416,7 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
                     String subject = parsed[0];
                     String predicate = parsed[1];
                     String object = parsed[2];
-                    data.addObjectTriple(subject, predicate, object);
+                    addObjectTriple(subject, predicate, object);
                 }
             }
         } catch (IOException ioe) {
@@ -342,100 +438,58 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
 		return qtIsTail;
     }
     
+    /**
+     * Read a statement that contains quoted triples (also nested ones), see
+     * {@link NtStarMemoryWalkGenerator#readStatement(String, BufferedWriter)}.
+     *
+     * @param spo    The tokens of the statement (split at spaces, without the terminating dot).
+     * @param writer The writer of the optimized file (only used if the optimized file is written).
+     */
     public void readQuotedTriples(String[] spo, BufferedWriter writer) {
-    	try {
-	    	Deque<String> subjectStack = new ArrayDeque<>();
-	    	Deque<String> predicateStack = new ArrayDeque<>();
-	    	Deque<String> objectStack = new ArrayDeque<>();
-	    	String qt = "";
-	    	String subject = "";
-	    	String predicate = "";
-	    	String[] objectTokens = {};
-	    	String object = "";
-//	    	System.out.println(String.join(" ", spo));
-    		for (int i=0; i<spo.length; i++) {
-    	    	if (spo[i].equals("<<")) {
-    				subject = "";
-    				predicate = "";
-    				object = "";
-    			} else if(spo[i].equals(">>")) {
-					// create a quoted triple
-					qt = "<<" + subject + "-" + predicate + "-" + object + ">>";
-//					if (!(object.endsWith("\"@en") || object.endsWith("\"@ja") || object.endsWith("\""))) {
-						// not datatype triple
-					data.addObjectQuotedTriple(qt, subject, predicate, object);
-//					}
-					boolean qtIsTail = checkQtIsTail(spo, i);
-    				if (qtIsTail) {
-    					// The quoted triple node is an object of a statement.
-    					subject = subjectStack.pop();
-    					predicate = predicateStack.pop();
-    					object = qt;
-    					data.addObjectTriple(subject, predicate, object);
-    					if (isWriteOptimizedFile) {
-                            writer.write(subject + " " + predicate + " " + object + "\n");
-                        }
-    				} else {
-    					// The quoted triple node is a subject of a statement.
-    					subjectStack.push(qt);
-    					subject = qt;
-    					predicate = "";
-        				object = "";
-    				}
-    			} else {
-    				// qt内のsubject, predicate, objectをそれぞれstackに追加
-    				if (subject.equals("")) {
-    					subject = uriShortenerFunction.apply(removeTags(spo[i]));
-    					subject = pref.replaceURI(subject).intern();
-    					subjectStack.push(subject);
-    				} else if (predicate.equals("")) {
-    					predicate = uriShortenerFunction.apply(removeTags(spo[i]));
-    					predicate = pref.replaceURI(predicate).intern();
-    					predicateStack.push(predicate);
-    				} else if (object.equals("")) {
-    					if (spo[i].startsWith("\"")) {
-    						//Literal
-    						int literalEnd = 0;
-    						for (int j=0; j<spo.length; j++) {
-    							if ((spo[i+j].endsWith("\"@en") || spo[i+j].endsWith("\"@ja") || spo[i+j].endsWith("\""))) {
-    								literalEnd = i + j;
-    								break;
-    							}
-    						}
-    						objectTokens = Arrays.copyOfRange(spo, i, literalEnd);
-    						if (objectTokens.length > 1) {
-    							object = textProcessingFunction.apply(String.join(" ", objectTokens));
-    						} else {
-    							object = spo[i];
-    						}
-    						
-    						subject = subjectStack.pop();
-    						predicate = predicateStack.pop();
-    								
-//    						data.addDatatypeTriple(subject, predicate, object);
-    						if (isWriteOptimizedFile) {
-                                writer.write(subject + " " + predicate + " " + object + "\n");
-                            }
-    					} else {
-    						object = uriShortenerFunction.apply(removeTags(spo[i]));
-    						object = pref.replaceURI(object).intern();
-    						
-    						subject = subjectStack.pop();
-    						predicate = predicateStack.pop();
-    						
-    						data.addObjectTriple(subject, predicate, object);
-    						if (isWriteOptimizedFile) {
-                                writer.write(subject + " " + predicate + " " + object + "\n");
-                            }
-    					}
-    					
-    				}
-    			}
-    		}
-    	} catch (Exception e) {
-    		e.printStackTrace();
-    	}
-    	
+        String line = String.join(" ", spo);
+        try {
+            if (!readStatement(line, writer)) {
+                LOGGER.error("Could not parse the following statement:\n" + line);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not write to the optimized file.", e);
+        }
+    }
+
+    /**
+     * Read a single statement with the {@link NtStarTokenizer} and {@link NtStarMemoryWalkGenerator#parseStatement(List, List, List)}
+     * (exactly like the parallel parser, so that literals are rendered the same way) and add it to the data
+     * structure in use. Quoted triples which are already known are looked up instead of building their node again.
+     *
+     * @param line   The statement.
+     * @param writer The writer of the optimized file (only used if the optimized file is written); the object
+     *               triples of the statement are written to it.
+     * @return False if the statement is malformed (nothing is added then), else true.
+     * @throws IOException If the optimized file cannot be written.
+     */
+    private boolean readStatement(String line, BufferedWriter writer) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        List<QuotedTriple> quotedTriples = new ArrayList<>();
+        List<Triple> objectTriples = new ArrayList<>();
+        if (!NtStarTokenizer.tokenize(line, tokens)) {
+            return false;
+        }
+        if (tokens.isEmpty()) {
+            return true;
+        }
+        if (!parseStatement(tokens, quotedTriples, objectTriples, true)) {
+            return false;
+        }
+        for (QuotedTriple quotedTriple : quotedTriples) {
+            addObjectQuotedTriple(quotedTriple.qt, quotedTriple.subject, quotedTriple.predicate, quotedTriple.object);
+        }
+        for (Triple triple : objectTriples) {
+            addObjectTriple(triple.subject, triple.predicate, triple.object);
+            if (isWriteOptimizedFile) {
+                writer.write(triple.subject + " " + triple.predicate + " " + triple.object + "\n");
+            }
+        }
+        return true;
     }
 
     /**
@@ -445,6 +499,11 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
      * @param isGzippedFile  Indicator whether the given file is gzipped.
      */
     public void readNTriples(File fileToReadFrom, boolean isGzippedFile) {
+        learnNamespaces(fileToReadFrom, isGzippedFile);
+        if (numberOfParserThreads > 1 && !isWriteOptimizedFile) {
+            readNTriplesParallel(fileToReadFrom, isGzippedFile, numberOfParserThreads);
+            return;
+        }
         if (!fileToReadFrom.exists()) {
             LOGGER.error("File does not exist. Cannot parse.");
             return;
@@ -474,7 +533,6 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
             }
             String readLine;
             long lineNumber = 0;
-            Matcher datatypeMatcher; // only required if datatype properties shall be included
             nextLine:
             while ((readLine = reader.readLine()) != null) {
                 try {
@@ -483,69 +541,23 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
                         continue nextLine;
                     }
 
-                    // remove the dot at the end of a statement
-                    readLine = readLine.replaceAll("(?<=>)*[ ]*.[ ]*$", "");
-
-                    // legacy function:
-                    /*
-                    if (isIncludeDatatypeProperties) {
-                        datatypeMatcher = datatypePattern.matcher(readLine);
-                        if (datatypeMatcher.find()) {
-                            String datatypeValue = datatypeMatcher.group(0);
-                            String newDatatypeValue = datatypeValue.replaceAll(" ", "_");
-                            readLine = readLine.replace(datatypeValue, newDatatypeValue);
-                        }
+                    if (!readStatement(readLine, writer)) {
+                        LOGGER.error("Error in file " + fileToReadFrom.getName() + " in line " + lineNumber +
+                                " while parsing the following line:\n" + readLine + "\nLine is ignored. Parsing continues.");
                     }
-                    */
-                    
-                    String[] spo = readLine.split(" ");
-
-                    // There are quoted triples in the statement.
-                    if (readLine.contains("<<")) {
-                    	readQuotedTriples(spo, writer);
-                    } else {
-                    	if (spo[2].startsWith("\"")) {
-                            String subject = uriShortenerFunction.apply(removeTags(spo[0]));
-                            subject = pref.replaceURI(subject).intern();
-                            String predicate = uriShortenerFunction.apply(removeTags(spo[1]));
-                            predicate = pref.replaceURI(predicate).intern();
-                            String[]  objectTokens = Arrays.copyOfRange(spo, 2, spo.length);
-                            String object = textProcessingFunction.apply(String.join(" ", objectTokens));
-                            if (isWriteOptimizedFile) {
-                                writer.write(subject + " " + predicate + " " + object + "\n");
-                            }
-//                            data.addDatatypeTriple(subject, predicate, object);
-
-                        } else {
-                            if (spo.length != 3) {
-                                LOGGER.error("Error in file " + fileToReadFrom.getName() + " in line " + lineNumber + " while parsing the following line:\n" + readLine + "\n Required tokens: 3\nActual tokens: " + spo.length);
-                                int i = 1;
-                                for (String token : spo) {
-                                    LOGGER.error("Token " + i++ + ": " + token);
-                                }
-                                LOGGER.error("Line is ignored. Parsing continues.");
-                                continue nextLine;
-                            }
-                            String subject = uriShortenerFunction.apply(removeTags(spo[0]));
-                            subject = pref.replaceURI(subject).intern();
-                            String predicate = uriShortenerFunction.apply(removeTags(spo[1]));
-                            predicate = pref.replaceURI(predicate).intern();
-                            String object = uriShortenerFunction.apply(removeTags(spo[2]));
-                            object = pref.replaceURI(object).intern();
-                            data.addObjectTriple(subject, predicate, object);
-                            if (isWriteOptimizedFile) {
-                                writer.write(subject + " " + predicate + " " + object + "\n");
-                            }
-                        }
-                    }
-                    
                 } catch (Exception e) {
                     // it is important that the parsing continues no matter what happens
                     LOGGER.error("A problem occurred while parsing line number " + lineNumber + " of file " + fileToReadFrom.getName(), e);
                     LOGGER.error("The problem occurred in the following line:\n" + readLine);
                 }
             } // end of while loop
-            LOGGER.info("File " + fileToReadFrom.getName() + " successfully read. " + data.getObjectTripleSize() + " subjects loaded.");
+            if (compactData != null && buildDepth.get() == 0) {
+                // within a build (e.g. of a directory), the store is compacted once all files are read
+                compactData.compact();
+            } else if (compactData == null) {
+                data.ensureNeighbourIndex();
+            }
+            LOGGER.info("File " + fileToReadFrom.getName() + " successfully read. " + getDataSize() + " subjects loaded.");
             if (isWriteOptimizedFile) {
                 writer.flush();
                 writer.close();
@@ -556,6 +568,339 @@ public class NtStarMemoryWalkGenerator extends MemoryStarWalkGenerator {
         }
     }
 
+    /**
+     * Read the given nt file into memory using multiple threads. The (decompressed) stream is cut into blocks of
+     * lines which are tokenized and parsed by a pool of worker threads; every block is handed to the data structure
+     * in use as one batch (the store is in its lock-free concurrent build mode while parsing). If all workers are
+     * busy, the reading thread parses the next block itself (back pressure). The optimized file is not written by
+     * this method.
+     *
+     * @param fileToReadFrom  The file.
+     * @param isGzippedFile   Indicator whether the given file is gzipped.
+     * @param numberOfThreads The number of parser threads.
+     */
+    public void readNTriplesParallel(File fileToReadFrom, boolean isGzippedFile, int numberOfThreads) {
+        if (!fileToReadFrom.exists()) {
+            LOGGER.error("File does not exist. Cannot parse.");
+            return;
+        }
+        learnNamespaces(fileToReadFrom, isGzippedFile);
+        numberOfThreads = Math.max(1, numberOfThreads);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(numberOfThreads, numberOfThreads,
+                0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(numberOfThreads * 2),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        beginConcurrentBuild();
+
+        long lineNumber = 0;
+        try (BufferedReader reader = isGzippedFile ?
+                new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(fileToReadFrom)), StandardCharsets.UTF_8)) :
+                new BufferedReader(new InputStreamReader(new FileInputStream(fileToReadFrom), StandardCharsets.UTF_8))) {
+            List<String> block = new ArrayList<>(LINES_PER_BLOCK);
+            String readLine;
+            while ((readLine = reader.readLine()) != null) {
+                block.add(readLine);
+                if (block.size() == LINES_PER_BLOCK) {
+                    pool.execute(new BlockParser(block, lineNumber, fileToReadFrom.getName()));
+                    lineNumber += block.size();
+                    block = new ArrayList<>(LINES_PER_BLOCK);
+                }
+            }
+            if (!block.isEmpty()) {
+                pool.execute(new BlockParser(block, lineNumber, fileToReadFrom.getName()));
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error while parsing file.", e);
+        }
+
+        pool.shutdown();
+        try {
+            pool.awaitTermination(10, TimeUnit.DAYS);
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for the parser threads.", e);
+        }
+        finishConcurrentBuild();
+        LOGGER.info("File " + fileToReadFrom.getName() + " successfully read. " + getDataSize() + " subjects loaded.");
+    }
+
+    /**
+     * Parses a block of lines and merges the result as one batch into the data structure in use.
+     */
+    private class BlockParser implements Runnable {
+
+
+        /**
+         * Constructor
+         *
+         * @param lines           The lines to be parsed.
+         * @param firstLineNumber The number of lines in the file before the block.
+         * @param fileName        Name of the file (for logging).
+         */
+        BlockParser(List<String> lines, long firstLineNumber, String fileName) {
+            this.lines = lines;
+            this.firstLineNumber = firstLineNumber;
+            this.fileName = fileName;
+        }
+
+        private final List<String> lines;
+        private final long firstLineNumber;
+        private final String fileName;
+
+        @Override
+        public void run() {
+            List<QuotedTriple> quotedTriples = new ArrayList<>();
+            List<Triple> objectTriples = new ArrayList<>(lines.size());
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                try {
+                    if (skipCondition.isHit(line)) {
+                        continue;
+                    }
+                    tokens.clear();
+                    int numberOfQuotedTriples = quotedTriples.size();
+                    int numberOfObjectTriples = objectTriples.size();
+                    if (!NtStarTokenizer.tokenize(line, tokens)
+                            || (!tokens.isEmpty() && !parseStatement(tokens, quotedTriples, objectTriples))) {
+                        // nothing of a malformed line is added (as in the sequential parser)
+                        quotedTriples.subList(numberOfQuotedTriples, quotedTriples.size()).clear();
+                        objectTriples.subList(numberOfObjectTriples, objectTriples.size()).clear();
+                        LOGGER.error("Error in file " + fileName + " in line " + (firstLineNumber + i + 1) +
+                                " while parsing the following line:\n" + line + "\nLine is ignored. Parsing continues.");
+                    }
+                } catch (Exception e) {
+                    // it is important that the parsing continues no matter what happens
+                    LOGGER.error("A problem occurred while parsing line number " + (firstLineNumber + i + 1) + " of file " + fileName, e);
+                }
+            }
+            addAll(quotedTriples, objectTriples);
+        }
+    }
+
+    /**
+     * Parse a tokenized statement (see {@link NtStarTokenizer}). Quoted triples (also nested ones) and the object
+     * triple are appended to the given lists; statements with a literal object only contribute their quoted triples.
+     * As in {@link NtStarMemoryWalkGenerator#readQuotedTriples(String[], BufferedWriter)}, the constituents of a quoted
+     * triple with a non-literal object are also added as object triple.
+     *
+     * @param tokens        The tokens of the statement.
+     * @param quotedTriples The list to which the parsed quoted triples are appended.
+     * @param objectTriples The list to which the parsed object triple is appended.
+     * @return False if the statement is malformed, else true.
+     */
+    boolean parseStatement(List<String> tokens, List<QuotedTriple> quotedTriples, List<Triple> objectTriples) {
+        return parseStatement(tokens, quotedTriples, objectTriples, false);
+    }
+
+    /**
+     * Parse a tokenized statement, see {@link NtStarMemoryWalkGenerator#parseStatement(List, List, List)}.
+     *
+     * @param tokens                The tokens of the statement.
+     * @param quotedTriples         The list to which the parsed quoted triples are appended.
+     * @param objectTriples         The list to which the parsed object triple is appended.
+     * @param isLookUpQuotedTriples True if the nodes of already known quoted triples shall be looked up in the data
+     *                              structure in use.
+     * @return False if the statement is malformed, else true.
+     */
+    private boolean parseStatement(List<String> tokens, List<QuotedTriple> quotedTriples, List<Triple> objectTriples,
+                                   boolean isLookUpQuotedTriples) {
+        int[] position = {0};
+        String subject = parseTerm(tokens, position, quotedTriples, objectTriples, isLookUpQuotedTriples);
+        String predicate = parseTerm(tokens, position, quotedTriples, objectTriples, isLookUpQuotedTriples);
+        String object = parseTerm(tokens, position, quotedTriples, objectTriples, isLookUpQuotedTriples);
+        if (subject == null || predicate == null || object == null) {
+            return false;
+        }
+        // the graph label of N-Quads is ignored
+        if (position[0] != tokens.size() && position[0] != tokens.size() - 1) {
+            return false;
+        }
+        if (!object.startsWith("\"")) {
+            objectTriples.add(new Triple(subject, predicate, object));
+        }
+        return true;
+    }
+
+    /**
+     * Parse the term at the given position.
+     *
+     * @param tokens        The tokens of the statement.
+     * @param position      Array of length 1 holding the current position; it is moved behind the term.
+     * @param quotedTriples The list to which the parsed quoted triples are appended.
+     * @param objectTriples The list to which the constituents of the parsed quoted triples are appended.
+     * @param isLookUpQuotedTriples True if the nodes of already known quoted triples shall be looked up.
+     * @return The node of the term, null if the term is malformed.
+     */
+    private String parseTerm(List<String> tokens, int[] position, List<QuotedTriple> quotedTriples,
+                             List<Triple> objectTriples, boolean isLookUpQuotedTriples) {
+        if (position[0] >= tokens.size()) {
+            return null;
+        }
+        String token = tokens.get(position[0]++);
+        if (token.equals("<<")) {
+            String subject = parseTerm(tokens, position, quotedTriples, objectTriples, isLookUpQuotedTriples);
+            String predicate = parseTerm(tokens, position, quotedTriples, objectTriples, isLookUpQuotedTriples);
+            String object = parseTerm(tokens, position, quotedTriples, objectTriples, isLookUpQuotedTriples);
+            if (subject == null || predicate == null || object == null
+                    || position[0] >= tokens.size() || !tokens.get(position[0]++).equals(">>")) {
+                return null;
+            }
+            // the textual node is only built if the quoted triple is not yet known
+            String qt = isLookUpQuotedTriples ? getKnownQuotedTripleNode(subject, predicate, object) : null;
+            if (qt == null) {
+                qt = ("<<" + subject + "-" + predicate + "-" + object + ">>").intern();
+            }
+            quotedTriples.add(new QuotedTriple(qt, subject, predicate, object));
+            if (!object.startsWith("\"")) {
+                objectTriples.add(new Triple(subject, predicate, object));
+            }
+            return qt;
+        } else if (token.equals(">>")) {
+            return null;
+        } else if (token.startsWith("\"")) {
+            // literal: single words are kept as they are
+            return token.indexOf(' ') < 0 ? token : textProcessingFunction.apply(token);
+        }
+        return toNode(token);
+    }
+
+    /**
+     * Switch the data structure in use to its lock-free concurrent build mode (only supported by
+     * {@link QuotedTripleDataSetMemory}; the compact store is filled through its synchronized methods).
+     */
+    private void beginConcurrentBuild() {
+        buildDepth.incrementAndGet();
+        if (compactData == null) {
+            data.beginConcurrentBuild();
+        }
+    }
+
+    /**
+     * Finish the concurrent build mode, see {@link QuotedTripleDataSetMemory#finishConcurrentBuild()}. The compact
+     * store is compacted once the outermost build (e.g. the one of a directory) is done.
+     */
+    private void finishConcurrentBuild() {
+        boolean isOutermost = buildDepth.decrementAndGet() == 0;
+        if (compactData == null) {
+            data.finishConcurrentBuild();
+        } else if (isOutermost) {
+            compactData.compact();
+        }
+    }
+
+    /**
+     * Add a batch of quoted triples and object triples to the data structure in use.
+     *
+     * @param quotedTriples Quoted triples.
+     * @param objectTriples Object triples.
+     */
+    private void addAll(List<QuotedTriple> quotedTriples, List<Triple> objectTriples) {
+        if (compactData != null) {
+            compactData.addAll(quotedTriples, objectTriples);
+        } else {
+            data.addAll(quotedTriples, objectTriples);
+        }
+    }
+
+    /**
+     * Add the given object triple to the data structure in use.
+     *
+     * @param subject The subject.
+     * @param predicate The predicate.
+     * @param object The object.
+     */
+    private void addObjectTriple(String subject, String predicate, String object) {
+        if (compactData != null) {
+            compactData.addObjectTriple(subject, predicate, object);
+        } else {
+            data.addObjectTriple(subject, predicate, object);
+        }
+    }
+
+    /**
+     * Obtain the node of an already parsed quoted triple via its constituents (no string is built).
+     *
+     * @param subject The subject of the quoted triple.
+     * @param predicate The predicate of the quoted triple.
+     * @param object The object of the quoted triple.
+     * @return The quoted triple node, null if the quoted triple is not yet known.
+     */
+    private String getKnownQuotedTripleNode(String subject, String predicate, String object) {
+        if (compactData != null) {
+            int node = compactData.getQuotedTriple(subject, predicate, object);
+            return node == CompactQuotedTripleDataSetMemory.NONE ? null : compactData.getTerm(node);
+        }
+        QuotedTriple quotedTriple = data.getQuotedTriple(subject, predicate, object);
+        return quotedTriple == null ? null : quotedTriple.qt;
+    }
+
+    /**
+     * Add the given quoted triple to the data structure in use.
+     *
+     * @param qt The quoted triple node.
+     * @param subject The subject of the quoted triple.
+     * @param predicate The predicate of the quoted triple.
+     * @param object The object of the quoted triple.
+     */
+    private void addObjectQuotedTriple(String qt, String subject, String predicate, String object) {
+        if (compactData != null) {
+            compactData.addObjectQuotedTriple(qt, subject, predicate, object);
+        } else {
+            data.addObjectQuotedTriple(qt, subject, predicate, object);
+        }
+    }
+
+    /**
+     * Sample the given file to learn namespaces if this is requested by the {@link Prefix} in use.
+     *
+     * @param file The file to be sampled.
+     * @param isGzippedFile Indicator whether the given file is gzipped.
+     */
+    private void learnNamespaces(File file, boolean isGzippedFile) {
+        if (pref.isLearnNamespaces() && file.exists()) {
+            pref.learnNamespaces(file, isGzippedFile);
+        }
+    }
+
+    /**
+     * Turn the given token into a node: tags are removed and namespaces are replaced by prefix labels. The node is
+     * interned if it is used as key of the String-based data structure; the compact data structure stores every
+     * term only once in its {@link jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TermDictionary}.
+     *
+     * @param token The token (IRI with tags or blank node).
+     * @return The node.
+     */
+    private String toNode(String token) {
+        String node = pref.replaceURI(uriShortenerFunction.apply(removeTags(token)));
+        return compactData == null ? node.intern() : node;
+    }
+
+    public Prefix getPrefix() {
+        return pref;
+    }
+
+    /**
+     * Set the namespaces which are replaced by prefix labels. Must be called before parsing.
+     *
+     * @param prefix The prefix mappings.
+     */
+    public void setPrefix(Prefix prefix) {
+        this.pref = prefix;
+    }
+
+    public int getNumberOfParserThreads() {
+        return numberOfParserThreads;
+    }
+
+    /**
+     * Set the number of threads used to parse a single file.
+     *
+     * @param numberOfParserThreads The number of threads. If 1 (default), files are parsed on the calling thread.
+     */
+    public void setNumberOfParserThreads(int numberOfParserThreads) {
+        this.numberOfParserThreads = Math.max(1, numberOfParserThreads);
+    }
+
     public ISearchCondition getSkipCondition() {
         return skipCondition;
     }
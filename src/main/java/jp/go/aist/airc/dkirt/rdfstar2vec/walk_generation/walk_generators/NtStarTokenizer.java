@@ -0,0 +1,133 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import java.util.List;
+
+/**
+ * Hand-written tokenizer for N-Triples-star statements (one statement per line).
+ * <p>
+ * The tokens are: {@code <<}, {@code >>}, IRIs (including the angle brackets), blank nodes, and literals (including
+ * language tag or datatype, spaces within the literal are kept). The terminating dot and trailing comments are
+ * dropped. In contrast to {@code line.split(" ")}, no regular expression is involved and literals are never split.
+ */
+public class NtStarTokenizer {
+
+
+    /**
+     * Tokenize the given line.
+     *
+     * @param line   The line to be tokenized.
+     * @param tokens The list to which the tokens will be appended (it is not cleared).
+     * @return False if the line is malformed (unterminated IRI or literal), else true.
+     */
+    public static boolean tokenize(String line, List<String> tokens) {
+        final int length = line.length();
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                i++;
+            } else if (c == '#') {
+                // comment until the end of the line
+                return true;
+            } else if (c == '<') {
+                if (i + 1 < length && line.charAt(i + 1) == '<') {
+                    tokens.add("<<");
+                    i += 2;
+                } else {
+                    int end = line.indexOf('>', i + 1);
+                    if (end < 0) return false;
+                    tokens.add(line.substring(i, end + 1));
+                    i = end + 1;
+                }
+            } else if (c == '>') {
+                if (i + 1 < length && line.charAt(i + 1) == '>') {
+                    tokens.add(">>");
+                    i += 2;
+                } else return false;
+            } else if (c == '"') {
+                int end = endOfLiteral(line, i);
+                if (end < 0) return false;
+                tokens.add(line.substring(i, end));
+                i = end;
+            } else if (c == '.' && isEndOfStatement(line, i + 1)) {
+                return true;
+            } else {
+                // blank node or any other bare term
+                int end = i + 1;
+                while (end < length && !isDelimiter(line.charAt(end))) {
+                    end++;
+                }
+                if (line.charAt(end - 1) == '.' && end - 1 > i && isEndOfStatement(line, end)) {
+                    // statement dot directly attached to the term
+                    tokens.add(line.substring(i, end - 1));
+                    return true;
+                }
+                tokens.add(line.substring(i, end));
+                i = end;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the end of the literal starting at the given position.
+     *
+     * @param line  Line.
+     * @param start Position of the opening quotation mark.
+     * @return Position after the literal (including language tag or datatype), -1 if the literal is not terminated.
+     */
+    private static int endOfLiteral(String line, int start) {
+        final int length = line.length();
+        int i = start + 1;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                break;
+            } else {
+                i++;
+            }
+        }
+        if (i >= length) return -1;
+        i++; // closing quotation mark
+        if (i < length && line.charAt(i) == '@') {
+            i++;
+            while (i < length && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '-')) {
+                i++;
+            }
+        } else if (i + 1 < length && line.charAt(i) == '^' && line.charAt(i + 1) == '^') {
+            i += 2;
+            if (i < length && line.charAt(i) == '<') {
+                int end = line.indexOf('>', i + 1);
+                if (end < 0) return -1;
+                i = end + 1;
+            } else {
+                while (i < length && !isDelimiter(line.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Check whether only white space or a comment follows the given position.
+     *
+     * @param line Line.
+     * @param from Position to start from.
+     * @return True if the statement ends at the given position.
+     */
+    private static boolean isEndOfStatement(String line, int from) {
+        for (int i = from; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '#') return true;
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') return false;
+        }
+        return true;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '<' || c == '>';
+    }
+}
@@ -151,6 +151,7 @@ public class NxMemoryWalkGenerator extends MemoryWalkGenerator {
                     object = uriShortenerFunction.apply(removeTags(nx[2].toString()));
                     data.addObjectTriple(subject, predicate, object);
                 }
+                data.ensureNeighbourIndex();
             } catch (FileNotFoundException fnfe) {
                 LOGGER.error("Could not find file " + fileToReadFrom.getAbsolutePath(), fnfe);
             }
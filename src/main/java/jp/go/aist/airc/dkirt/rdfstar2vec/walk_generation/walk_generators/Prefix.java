@@ -1,15 +1,92 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.PrefixTrie;
 
 import org.apache.jena.vocabulary.OWL;
 import org.semanticweb.yars.nx.namespace.RDF;
 import org.semanticweb.yars.nx.namespace.RDFS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replaces namespaces by prefix labels (e.g. {@code http://www.w3.org/2000/01/rdf-schema#label -> rdfs:label}).
+ * The namespaces are held in a {@link PrefixTrie}, hence the longest namespace of a term is found in O(length of the
+ * term). Besides the built-in namespaces, mappings can be read from a file ({@link Prefix#readPrefixFile(File)}) or
+ * learnt from a sample of the graph ({@link Prefix#learnNamespaces(File, boolean)}).
+ */
+public class Prefix implements UnaryOperator<String> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(Prefix.class);
+
+	/**
+	 * The number of lines of a file that are read to learn namespaces.
+	 */
+	public static final int DEFAULT_SAMPLE_SIZE = 100000;
+
+	/**
+	 * The number of IRIs that must share a namespace so that the namespace is learnt.
+	 */
+	public static final int DEFAULT_MIN_OCCURRENCES = 100;
+
+	/**
+	 * Label prefix of learnt namespaces (followed by a running number).
+	 */
+	private static final String LEARNT_LABEL = "ns";
+
+	/**
+	 * Prefix declarations: {@code @prefix kgc: <http://...> .}, {@code PREFIX kgc: <http://...>}, or
+	 * {@code kgc: <http://...>}.
+	 */
+	private static final Pattern PREFIX_DECLARATION = Pattern.compile("^\\s*(?:@prefix|PREFIX)?\\s*([\\w.-]*):\\s*<([^>]+)>",
+			Pattern.CASE_INSENSITIVE);
+
+	private final PrefixTrie trie = new PrefixTrie();
 
-public class Prefix {
+	/**
+	 * True if namespaces shall be learnt from the graph before it is parsed.
+	 */
+	private boolean isLearnNamespaces = false;
+
+	/**
+	 * The number of lines of a file that are read to learn namespaces.
+	 */
+	private int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+	/**
+	 * The number of IRIs that must share a namespace so that the namespace is learnt.
+	 */
+	private int minOccurrences = DEFAULT_MIN_OCCURRENCES;
+
+	/**
+	 * Set once the first term has been shortened. Afterwards, the mappings must not change anymore (the same IRI
+	 * would otherwise be represented differently).
+	 */
+	private volatile boolean isInUse = false;
+
+	/**
+	 * The files which have already been sampled (absolute paths).
+	 */
+	private final Set<String> sampledFiles = new HashSet<>();
 
-	public Map<String, String> prefixMap = new HashMap<String,String>();
 	public Prefix() {
 		final String kgc = "http://kgc.knowledge-graph.jp/ontology/kgc.owl#";
 		final String sb = "http://kgc.knowledge-graph.jp/data/SpeckledBand/";
@@ -21,31 +98,241 @@ public class Prefix {
 		final String sl = "http://kgc.knowledge-graph.jp/data/SilverBlaze/";
 		final String rp = "http://kgc.knowledge-graph.jp/data/ResidentPatient/";
 		final String kdp = "http://kgc.knowledge-graph.jp/data/predicate/";
-		
-		prefixMap.put(kgc, "kgc:");
-		prefixMap.put(sb, "sb:");
-		prefixMap.put(dm, "dm:");
-		prefixMap.put(ci, "ci:");
-		prefixMap.put(df, "df:");
-		prefixMap.put(cm, "cm:");
-		prefixMap.put(ag, "ag:");
-		prefixMap.put(sl, "sl:");
-		prefixMap.put(rp, "rp:");
-		prefixMap.put(kdp, "kdp:");
-		prefixMap.put(RDF.NS, "rdf:");
-		prefixMap.put(RDFS.NS, "rdfs:");
-		prefixMap.put(OWL.NS, "owl:");
-		
+
+		trie.put(kgc, "kgc:");
+		trie.put(sb, "sb:");
+		trie.put(dm, "dm:");
+		trie.put(ci, "ci:");
+		trie.put(df, "df:");
+		trie.put(cm, "cm:");
+		trie.put(ag, "ag:");
+		trie.put(sl, "sl:");
+		trie.put(rp, "rp:");
+		trie.put(kdp, "kdp:");
+		trie.put(RDF.NS, "rdf:");
+		trie.put(RDFS.NS, "rdfs:");
+		trie.put(OWL.NS, "owl:");
+
+	}
+
+	/**
+	 * Constructor
+	 * @param prefixMap Map of the form {@code namespace -> label} (the label includes the colon); the built-in
+	 *                  namespaces are not used.
+	 */
+	public Prefix(Map<String, String> prefixMap) {
+		for (Map.Entry<String, String> entry : prefixMap.entrySet()) {
+			trie.put(entry.getKey(), entry.getValue());
+		}
 	}
 
+	/**
+	 * Replace the namespace of the given term by its label. The namespace of a typed literal's datatype is replaced
+	 * as well.
+	 * @param entity The term.
+	 * @return The shortened term.
+	 */
 	public String replaceURI(String entity) {
-		String qname = entity;
-		for (String key : prefixMap.keySet()) {
-			if (entity.contains(key)) {
-				qname = entity.replace(key, prefixMap.get(key));
-				break;
+		if (!isInUse) {
+			isInUse = true;
+		}
+		if (entity.startsWith("\"")) {
+			int datatypeStart = entity.lastIndexOf("^^");
+			if (datatypeStart < 0) {
+				return entity;
+			}
+			datatypeStart += 2;
+			if (datatypeStart < entity.length() && entity.charAt(datatypeStart) == '<') {
+				datatypeStart++;
+			}
+			return trie.shorten(entity, datatypeStart);
+		}
+		return trie.shorten(entity);
+	}
+
+	@Override
+	public String apply(String entity) {
+		return replaceURI(entity);
+	}
+
+	/**
+	 * Add (or replace) a mapping.
+	 * @param namespace The namespace IRI.
+	 * @param label The label, e.g. {@code rdfs:}.
+	 */
+	public void addPrefix(String namespace, String label) {
+		if (isInUse) {
+			LOGGER.warn("The prefix " + label + " is added after terms have already been shortened.");
+		}
+		trie.put(namespace, label);
+	}
+
+	/**
+	 * Read the mappings of the given file. Each line holds one declaration in Turtle or SPARQL syntax, e.g.
+	 * {@code @prefix kgc: <http://kgc.knowledge-graph.jp/ontology/kgc.owl#> .}. Existing mappings of the same
+	 * namespace are replaced.
+	 * @param prefixFile The file to be read.
+	 * @return The number of mappings read.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public int readPrefixFile(File prefixFile) throws IOException {
+		int numberOfMappings = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(prefixFile),
+				StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Matcher matcher = PREFIX_DECLARATION.matcher(line);
+				if (matcher.find()) {
+					addPrefix(matcher.group(2), matcher.group(1) + ":");
+					numberOfMappings++;
+				} else if (!line.trim().isEmpty() && !line.trim().startsWith("#")) {
+					LOGGER.warn("Ignoring line of prefix file " + prefixFile.getName() + ": " + line);
+				}
+			}
+		}
+		return numberOfMappings;
+	}
+
+	/**
+	 * Learn namespaces from the first {@link Prefix#getSampleSize()} lines of the given N-Triples(-star) file:
+	 * Every IRI is cut after its last {@code #} or {@code /}; each resulting namespace which is shared by at least
+	 * {@link Prefix#getMinOccurrences()} IRIs and which has no label yet gets the label {@code ns<number>:}.
+	 * Nothing is learnt once terms have been shortened; every file is sampled only once.
+	 * @param file The file to be sampled.
+	 * @param isGzipped True if the file is gzipped.
+	 * @return The number of namespaces learnt.
+	 */
+	public synchronized int learnNamespaces(File file, boolean isGzipped) {
+		if (!sampledFiles.add(file.getAbsolutePath())) {
+			return 0;
+		}
+		if (isInUse) {
+			LOGGER.warn("Namespaces can only be learnt before the first term is shortened. " + file.getName()
+					+ " is not sampled.");
+			return 0;
+		}
+		Map<String, Integer> counts = new HashMap<>();
+		List<String> tokens = new ArrayList<>();
+		try (InputStream in = isGzipped ? new GZIPInputStream(new FileInputStream(file)) : new FileInputStream(file);
+			 BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null && lineNumber++ < sampleSize) {
+				tokens.clear();
+				NtStarTokenizer.tokenize(line, tokens);
+				for (String token : tokens) {
+					if (token.length() > 2 && token.charAt(0) == '<' && token.charAt(1) != '<') {
+						String namespace = getNamespace(token.substring(1, token.length() - 1));
+						if (namespace != null) {
+							counts.merge(namespace, 1, Integer::sum);
+						}
+					}
+				}
 			}
+		} catch (IOException ioe) {
+			LOGGER.error("Could not sample file " + file.getName() + " to learn namespaces.", ioe);
+			return 0;
+		}
+		return learnNamespaces(counts);
+	}
+
+	/**
+	 * Add the namespaces which occur often enough.
+	 * @param counts Map of the form {@code namespace -> number of IRIs}.
+	 * @return The number of namespaces learnt.
+	 */
+	private int learnNamespaces(Map<String, Integer> counts) {
+		List<Map.Entry<String, Integer>> candidates = new ArrayList<>(counts.entrySet());
+		// most frequent namespaces get the smallest numbers; ties are broken by the namespace (deterministic labels)
+		candidates.sort((e1, e2) -> e1.getValue().equals(e2.getValue()) ? e1.getKey().compareTo(e2.getKey()) :
+				Integer.compare(e2.getValue(), e1.getValue()));
+		Collection<String> labels = trie.toMap().values();
+		int learnt = 0;
+		int number = 0;
+		for (Map.Entry<String, Integer> candidate : candidates) {
+			if (candidate.getValue() < minOccurrences) break;
+			if (trie.get(candidate.getKey()) != null) continue;
+			String label;
+			do {
+				label = LEARNT_LABEL + number++ + ":";
+			} while (labels.contains(label));
+			trie.put(candidate.getKey(), label);
+			LOGGER.info("Learnt namespace " + label + " <" + candidate.getKey() + ">");
+			learnt++;
+		}
+		return learnt;
+	}
+
+	/**
+	 * Obtain the namespace of the given IRI.
+	 * @param iri The IRI (without angle brackets).
+	 * @return The IRI up to and including the last {@code #} or {@code /}, null if there is no such namespace.
+	 */
+	static String getNamespace(String iri) {
+		int end = Math.max(iri.lastIndexOf('#'), iri.lastIndexOf('/'));
+		// the namespace must not end within the scheme, e.g. "http://"
+		if (end < 0 || end == iri.length() - 1 || iri.indexOf("//") == end - 1) {
+			return null;
+		}
+		return iri.substring(0, end + 1);
+	}
+
+	/**
+	 * Obtain all mappings.
+	 * @return Map of the form {@code namespace -> label}.
+	 */
+	public Map<String, String> getPrefixMap() {
+		return trie.toMap();
+	}
+
+	/**
+	 * Obtain a fingerprint of the mappings and of the settings for learning namespaces. A graph snapshot keeps the
+	 * fingerprint it was written with, so that it is not reused with other prefixes. Learnt namespaces are part of
+	 * the mappings, hence the fingerprint has to be obtained before the graph is parsed.
+	 * @return 64-bit FNV-1a hash.
+	 */
+	public long getFingerprint() {
+		long hash = 0xcbf29ce484222325L;
+		for (Map.Entry<String, String> mapping : getPrefixMap().entrySet()) {
+			hash = hash(hash, mapping.getKey());
+			hash = hash(hash, mapping.getValue());
 		}
-		return qname;
+		return hash(hash, isLearnNamespaces + " " + sampleSize + " " + minOccurrences);
+	}
+
+	private static long hash(long hash, String text) {
+		for (int i = 0; i < text.length(); i++) {
+			hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+		}
+		// separator, so that the boundaries of the strings are part of the hash
+		return (hash ^ 0xffff) * 0x100000001b3L;
+	}
+
+	public boolean isLearnNamespaces() {
+		return isLearnNamespaces;
+	}
+
+	/**
+	 * @param learnNamespaces True if namespaces shall be learnt from the graph before it is parsed (see
+	 *                        {@link Prefix#learnNamespaces(File, boolean)}).
+	 */
+	public void setLearnNamespaces(boolean learnNamespaces) {
+		isLearnNamespaces = learnNamespaces;
+	}
+
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	public void setSampleSize(int sampleSize) {
+		this.sampleSize = sampleSize;
+	}
+
+	public int getMinOccurrences() {
+		return minOccurrences;
+	}
+
+	public void setMinOccurrences(int minOccurrences) {
+		this.minOccurrences = minOccurrences;
 	}
 }
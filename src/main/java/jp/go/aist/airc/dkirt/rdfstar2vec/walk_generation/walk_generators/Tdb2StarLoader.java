@@ -0,0 +1,135 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads an N-Triples-star file (optionally gzipped) into a TDB2 data set for the {@link Tdb2StarWalkGenerator}.
+ * Quoted triples are stored as native triple terms. The file is parsed as a stream and written in batches, each in
+ * its own write transaction, so the heap required does not depend on the size of the graph.
+ */
+public class Tdb2StarLoader {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Tdb2StarLoader.class);
+
+    /**
+     * The default number of triples written per transaction.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100000;
+
+    /**
+     * The number of triples written per transaction.
+     */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Load the given file into the TDB2 data set in the given directory (the data set is created if it does not
+     * exist yet; the triples are added to its default graph).
+     *
+     * @param ntStarFile    The N-Triples-star file.
+     * @param tdb2Directory The directory of the TDB2 data set.
+     * @return The number of triples loaded; -1 in case of an error.
+     */
+    public long load(File ntStarFile, File tdb2Directory) {
+        if (ntStarFile == null || !ntStarFile.isFile()) {
+            LOGGER.error("The file to be loaded does not exist: " + ntStarFile);
+            return -1;
+        }
+        tdb2Directory.mkdirs();
+        Dataset dataset = TDB2Factory.connectDataset(tdb2Directory.getAbsolutePath());
+        BatchWriter writer = new BatchWriter(dataset);
+        long start = System.currentTimeMillis();
+        try {
+            RDFParser.source(ntStarFile.getAbsolutePath()).lang(Lang.NTRIPLES).parse(writer);
+            writer.flush();
+        } catch (RiotException e) {
+            LOGGER.error("Could not parse " + ntStarFile.getAbsolutePath() + ". " + writer.numberOfTriples +
+                    " triples have been loaded.", e);
+            return -1;
+        } finally {
+            dataset.close();
+        }
+        LOGGER.info("Loaded " + writer.numberOfTriples + " triples into " + tdb2Directory.getAbsolutePath() + " in "
+                + (System.currentTimeMillis() - start) / 1000 + " seconds.");
+        return writer.numberOfTriples;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the number of triples written per transaction.
+     *
+     * @param batchSize The number of triples (at least 1).
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            LOGGER.warn("The batch size must be at least 1. Using the default (" + DEFAULT_BATCH_SIZE + ").");
+            batchSize = DEFAULT_BATCH_SIZE;
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Collects the parsed triples and writes them in batches.
+     */
+    private class BatchWriter extends StreamRDFBase {
+
+
+        private final Dataset dataset;
+
+        private final Graph graph;
+
+        private final List<Triple> batch = new ArrayList<>();
+
+        private long numberOfTriples = 0;
+
+        BatchWriter(Dataset dataset) {
+            this.dataset = dataset;
+            this.graph = dataset.asDatasetGraph().getDefaultGraph();
+        }
+
+        @Override
+        public void triple(Triple triple) {
+            batch.add(triple);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            triple(quad.asTriple());
+        }
+
+        void flush() {
+            if (batch.isEmpty()) return;
+            Txn.executeWrite(dataset, () -> {
+                for (Triple triple : batch) {
+                    graph.add(triple);
+                }
+            });
+            numberOfTriples += batch.size();
+            batch.clear();
+            if (numberOfTriples % (10L * batchSize) == 0) {
+                LOGGER.info(numberOfTriples + " triples loaded.");
+            }
+        }
+    }
+}
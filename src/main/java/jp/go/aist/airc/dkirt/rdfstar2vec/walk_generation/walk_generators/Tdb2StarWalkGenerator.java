@@ -0,0 +1,581 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Node_Triple;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Disk-based RDF-star walk generator on a TDB2 data set. Quoted triples are stored as native triple terms by TDB2,
+ * hence the graph does not have to fit into memory (see {@link Tdb2StarLoader} to load an N-Triples-star file).
+ * <p>
+ * The walks follow the semantics of the {@link MemoryStarWalkGenerator}: Only object triples are walked, and quoted
+ * triple nodes are rendered as {@code <<subject-predicate-object>>} with the namespaces replaced by the labels of the
+ * {@link Prefix}. Every walker thread reads in its own read transaction; the neighbours of the visited nodes are
+ * kept in a shared cache bounded by their approximate memory.
+ */
+public class Tdb2StarWalkGenerator implements IWalkGenerator, IMidWalkCapability, IStarMidWalkCapability,
+        IStarRandomWalkCapability, ICloseableWalkGenerator, ISeedableWalkGenerator {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Tdb2StarWalkGenerator.class);
+
+    /**
+     * Default (approximate) size of the neighbour cache in bytes.
+     */
+    public static final long DEFAULT_CACHE_SIZE = 128L * 1024 * 1024;
+
+    private final Dataset tdbDataset;
+
+    /**
+     * The default graph of the data set (to be read in transactions only).
+     */
+    private final Graph graph;
+
+    /**
+     * Shared neighbour cache: (node, direction) to the object triples of the node. Null if caching is disabled.
+     */
+    private final LoadingCache<NeighbourKey, List<Triple>> neighbourCache;
+
+    /**
+     * The namespaces which are replaced by labels.
+     */
+    private Prefix prefix = new Prefix();
+
+    /**
+     * Map of the form {@code label -> namespace} to resolve shortened IRIs.
+     */
+    private Map<String, String> labelToNamespace;
+
+    /**
+     * The global seed from which the random number generator of every entity is derived.
+     */
+    private long seed = WalkRandom.newSeed();
+
+    /**
+     * Constructor
+     *
+     * @param pathToTdb2Dataset File path to the TDB2 data set.
+     */
+    public Tdb2StarWalkGenerator(String pathToTdb2Dataset) {
+        this(pathToTdb2Dataset, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param pathToTdb2Dataset File path to the TDB2 data set.
+     * @param cacheSize         Approximate size of the neighbour cache in bytes; 0 disables the cache.
+     */
+    public Tdb2StarWalkGenerator(String pathToTdb2Dataset, long cacheSize) {
+        tdbDataset = TDB2Factory.connectDataset(pathToTdb2Dataset);
+        graph = tdbDataset.asDatasetGraph().getDefaultGraph();
+        setPrefix(prefix);
+        if (cacheSize > 0) {
+            neighbourCache = CacheBuilder.newBuilder()
+                    .maximumWeight(cacheSize)
+                    .weigher((NeighbourKey key, List<Triple> triples) -> 64 + 128 * triples.size())
+                    .recordStats()
+                    .build(new CacheLoader<NeighbourKey, List<Triple>>() {
+                        @Override
+                        public List<Triple> load(NeighbourKey key) {
+                            return queryTriples(key);
+                        }
+                    });
+        } else neighbourCache = null;
+    }
+
+    @Override
+    public List<String> generateStarMidWalksForEntity(String entity, int numberOfWalks, int depth,
+                                                      double probabilityFromQtToSubject,
+                                                      double probabilityFromObjectToQt) {
+        return read(() -> {
+            Node node = toNode(entity);
+            if (node == null) return new ArrayList<>();
+            Random random = getRandom(entity);
+            List<List<String>> walks = new ArrayList<>();
+            for (int i = 0; i < numberOfWalks; i++) {
+                List<String> walk = generateStarMidWalkForEntity(node, depth, probabilityFromQtToSubject,
+                        probabilityFromObjectToQt, random);
+                if (walk.size() > 1) {
+                    walks.add(walk);
+                }
+            }
+            return Util.convertToStringWalks(walks);
+        });
+    }
+
+    @Override
+    public List<String> generateMidWalksForEntity(String entity, int numberOfWalks, int depth) {
+        return generateStarMidWalksForEntity(entity, numberOfWalks, depth, 0.0, 0.0);
+    }
+
+    /**
+     * Generates a single star-walk for the given entity with the given depth.
+     *
+     * @param entity                     The entity for which a walk shall be generated.
+     * @param depth                      The depth of the walk. Depth is defined as hop to the next node.
+     * @param probabilityFromQtToSubject The transition probability from a quoted triple (QT) node to its
+     *                                   constituents.
+     * @param probabilityFromObjectToQt  The transition probability from an object to a quoted triple (QT) node.
+     * @param random                     The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateStarMidWalkForEntity(Node entity, int depth, double probabilityFromQtToSubject,
+                                                     double probabilityFromObjectToQt, Random random) {
+        return read(() -> {
+            LinkedList<String> result = new LinkedList<>();
+            Node nextElementPredecessor = entity;
+            Node nextElementSuccessor = entity;
+            result.add(toLabel(entity));
+
+            for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+                if (random.nextInt(2) == 0) {
+                    // predecessor
+                    Triple drawnTriple = draw(getNeighbours(nextElementPredecessor, false), random);
+                    if (nextElementPredecessor.isNodeTriple() && random.nextDouble() < probabilityFromObjectToQt) {
+                        // walk from the QT node to its constituents
+                        Triple quotedTriple = expandQuotedTriple(Node_Triple.triple(nextElementPredecessor));
+                        result.addFirst(toLabel(quotedTriple.getObject()));
+                        result.addFirst(toLabel(quotedTriple.getPredicate()));
+                        result.addFirst(toLabel(quotedTriple.getSubject()));
+                        nextElementPredecessor = quotedTriple.getSubject();
+                    } else if (drawnTriple != null) {
+                        result.addFirst(toLabel(drawnTriple.getPredicate()));
+                        result.addFirst(toLabel(drawnTriple.getSubject()));
+                        nextElementPredecessor = drawnTriple.getSubject();
+                    }
+                } else {
+                    // successor
+                    Triple drawnTriple = draw(getNeighbours(nextElementSuccessor, true), random);
+                    if (drawnTriple != null) {
+                        if (nextElementSuccessor.isNodeTriple() && random.nextDouble() < probabilityFromQtToSubject) {
+                            // walk from the QT node to its constituents
+                            Triple quotedTriple = expandQuotedTriple(Node_Triple.triple(nextElementSuccessor));
+                            result.addLast(toLabel(quotedTriple.getSubject()));
+                            result.addLast(toLabel(quotedTriple.getPredicate()));
+                            result.addLast(toLabel(quotedTriple.getObject()));
+                            nextElementSuccessor = quotedTriple.getObject();
+                        } else {
+                            result.addLast(toLabel(drawnTriple.getPredicate()));
+                            result.addLast(toLabel(drawnTriple.getObject()));
+                            nextElementSuccessor = drawnTriple.getObject();
+                        }
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Generates RDF-star random walks for the given entity. TDB2 does not index triple terms by their
+     * constituents, hence a walk moves from an object to the quoted triple of its last hop (rather than to the
+     * quoted triple enveloping it).
+     *
+     * @param entity                     The entity for which walks shall be generated.
+     * @param numberOfWalks              The number of walks to be generated.
+     * @param depth                      The number of hops to nodes (!).
+     * @param probabilityFromQtToSubject The transition probability from a quoted triple (QT) node to its
+     *                                   constituents.
+     * @param probabilityFromObjectToQt  The transition probability from an object to a quoted triple (QT) node.
+     * @return A list of walks where each element in the list represents a walk. The walk elements are separated by
+     * spaces.
+     */
+    @Override
+    public List<String> generateStarRandomWalksForEntity(String entity, int numberOfWalks, int depth,
+                                                         double probabilityFromQtToSubject,
+                                                         double probabilityFromObjectToQt) {
+        return read(() -> {
+            Node node = toNode(entity);
+            if (node == null) return new ArrayList<>();
+            Random random = getRandom(entity);
+            List<List<Node>> walks = new ArrayList<>();
+            for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+                if (currentDepth == 0) {
+                    List<Triple> neighbours = getNeighbours(node, true);
+                    if (neighbours.isEmpty()) {
+                        return new ArrayList<>();
+                    }
+                    if (node.isNodeTriple() && random.nextDouble() < probabilityFromQtToSubject) {
+                        // walk from the QT node to its constituents
+                        Triple quotedTriple = expandQuotedTriple(Node_Triple.triple(node));
+                        walks.add(new ArrayList<>(Arrays.asList(node, quotedTriple.getSubject(),
+                                quotedTriple.getPredicate(), quotedTriple.getObject())));
+                    } else {
+                        for (Triple neighbour : neighbours) {
+                            walks.add(new ArrayList<>(Arrays.asList(neighbour.getSubject(),
+                                    neighbour.getPredicate(), neighbour.getObject())));
+                        }
+                    }
+                } else {
+                    for (List<Node> walk : new ArrayList<>(walks)) {
+                        Node lastSubject = walk.get(walk.size() - 3);
+                        Node lastPredicate = walk.get(walk.size() - 2);
+                        Node lastObject = walk.get(walk.size() - 1);
+                        double randFromObjectToQt = random.nextDouble();
+                        double randFromQtToSubject = random.nextDouble();
+                        Node lastQuotedTriple = NodeFactory.createTripleNode(lastSubject, lastPredicate, lastObject);
+                        if (randFromObjectToQt < probabilityFromObjectToQt && isInGraph(lastQuotedTriple)) {
+                            // walk from the object to the QT node
+                            List<Node> newWalk = new ArrayList<>(walk);
+                            newWalk.add(lastQuotedTriple);
+                            walks.add(newWalk);
+                        } else if (lastObject.isNodeTriple() && randFromQtToSubject < probabilityFromQtToSubject) {
+                            // walk from the QT node to its constituents
+                            Triple quotedTriple = expandQuotedTriple(Node_Triple.triple(lastObject));
+                            List<Node> newWalk = new ArrayList<>(walk);
+                            newWalk.add(quotedTriple.getSubject());
+                            newWalk.add(quotedTriple.getPredicate());
+                            newWalk.add(quotedTriple.getObject());
+                            walks.add(newWalk);
+                        } else {
+                            for (Triple nextStep : getNeighbours(lastObject, true)) {
+                                List<Node> newWalk = new ArrayList<>(walk);
+                                newWalk.add(nextStep.getPredicate());
+                                newWalk.add(nextStep.getObject());
+                                walks.add(newWalk);
+                            }
+                        }
+                    }
+                }
+
+                // trim the list
+                while (walks.size() > numberOfWalks) {
+                    walks.remove(random.nextInt(walks.size()));
+                }
+            }
+
+            List<String> result = new ArrayList<>();
+            for (List<Node> walk : walks) {
+                result.add(walk.stream().map(this::toLabel).collect(Collectors.joining(" ")));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Obtain the object triples of the given node from the neighbour cache (or from the data set if caching is
+     * disabled).
+     *
+     * @param node      The node.
+     * @param isForward True for the (s, ?, ?) triples, false for the (?, ?, o) triples.
+     * @return Immutable list of object triples (triples with literal objects are not walked).
+     */
+    public List<Triple> getNeighbours(Node node, boolean isForward) {
+        NeighbourKey key = new NeighbourKey(node, isForward);
+        if (neighbourCache == null) return queryTriples(key);
+        return neighbourCache.getUnchecked(key);
+    }
+
+    private List<Triple> queryTriples(NeighbourKey key) {
+        return read(() -> {
+            List<Triple> result = (key.isForward ? graph.find(key.node, Node.ANY, Node.ANY)
+                    : graph.find(Node.ANY, Node.ANY, key.node))
+                    .filterDrop(triple -> triple.getObject().isLiteral())
+                    .toList();
+            if (result.isEmpty()) return Collections.emptyList();
+            return Collections.unmodifiableList(result);
+        });
+    }
+
+    /**
+     * Check whether the given node appears in the graph (as subject or object).
+     *
+     * @param node The node.
+     * @return True if the node appears in the graph.
+     */
+    public boolean isInGraph(Node node) {
+        return read(() -> graph.contains(node, Node.ANY, Node.ANY) || graph.contains(Node.ANY, Node.ANY, node));
+    }
+
+    /**
+     * Check whether the given node is the subject or the object of an object triple (without using the cache).
+     *
+     * @param node The node.
+     * @return True if the node can be walked.
+     */
+    public boolean isInObjectTriple(Node node) {
+        if (node.isLiteral()) return false;
+        return read(() -> hasObjectTriple(graph.find(node, Node.ANY, Node.ANY))
+                || hasObjectTriple(graph.find(Node.ANY, Node.ANY, node)));
+    }
+
+    private static boolean hasObjectTriple(ExtendedIterator<Triple> triples) {
+        try {
+            while (triples.hasNext()) {
+                if (!triples.next().getObject().isLiteral()) return true;
+            }
+            return false;
+        } finally {
+            triples.close();
+        }
+    }
+
+    /**
+     * Returns the quoted triple to be used when walking into the given quoted triple: Value annotations
+     * ({@code <<<<s p o>> rdf:value "literal">>}) are resolved to the annotated quoted triple, see
+     * {@link jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTripleDataSetMemory#expandQuotedTriple}.
+     *
+     * @param quotedTriple The quoted triple.
+     * @return The quoted triple to walk into.
+     */
+    static Triple expandQuotedTriple(Triple quotedTriple) {
+        while (quotedTriple.getSubject().isNodeTriple() && quotedTriple.getPredicate().equals(RDF.Nodes.value)
+                && quotedTriple.getObject().isLiteral()) {
+            quotedTriple = Node_Triple.triple(quotedTriple.getSubject());
+        }
+        return quotedTriple;
+    }
+
+    private static Triple draw(List<Triple> triples, Random random) {
+        if (triples.isEmpty()) return null;
+        return triples.get(random.nextInt(triples.size()));
+    }
+
+    /**
+     * Render the given node as walk component.
+     *
+     * @param node The node.
+     * @return The label of the node.
+     */
+    public String toLabel(Node node) {
+        if (node.isURI()) {
+            return prefix.replaceURI(node.getURI());
+        } else if (node.isBlank()) {
+            return node.getBlankNodeLabel();
+        } else if (node.isNodeTriple()) {
+            Triple triple = Node_Triple.triple(node);
+            return "<<" + toLabel(triple.getSubject()) + "-" + toLabel(triple.getPredicate()) + "-"
+                    + toLabel(triple.getObject()) + ">>";
+        } else if (node.isLiteral()) {
+            // the walk components are separated by spaces
+            StringBuilder literal = new StringBuilder("\"")
+                    .append(node.getLiteralLexicalForm().replaceAll("\\s+", "_")).append("\"");
+            String language = node.getLiteralLanguage();
+            String datatype = node.getLiteralDatatypeURI();
+            if (language != null && !language.isEmpty()) {
+                literal.append("@").append(language);
+            } else if (datatype != null && !datatype.equals(XSDDatatype.XSDstring.getURI())) {
+                literal.append("^^<").append(datatype).append(">");
+            }
+            return prefix.replaceURI(literal.toString());
+        }
+        return node.toString();
+    }
+
+    /**
+     * Resolve a label (as rendered by {@link #toLabel(Node)}) to its node. The components of quoted triple labels
+     * are separated by hyphens which may also appear in IRIs; the candidate which appears in the graph is chosen.
+     *
+     * @param label The label.
+     * @return The node, null if the label is a quoted triple which does not appear in the graph.
+     */
+    public Node toNode(String label) {
+        if (!label.startsWith("<<")) return toSimpleNode(label);
+        return read(() -> {
+            for (Node candidate : toNodeCandidates(label)) {
+                if (isInGraph(candidate)) return candidate;
+            }
+            LOGGER.warn("The quoted triple " + label + " is not in the graph.");
+            return null;
+        });
+    }
+
+    private List<Node> toNodeCandidates(String label) {
+        if (!label.startsWith("<<") || !label.endsWith(">>")) {
+            return Collections.singletonList(toSimpleNode(label));
+        }
+        String inner = label.substring(2, label.length() - 2);
+        List<Node> result = new ArrayList<>();
+        // split into subject-predicate-object; the predicate is an IRI, the subject may be a quoted triple
+        for (int subjectEnd : getSplitCandidates(inner, 0)) {
+            for (int predicateEnd : getSplitCandidates(inner, subjectEnd + 1)) {
+                String predicate = inner.substring(subjectEnd + 1, predicateEnd);
+                if (predicate.startsWith("<<") || predicate.startsWith("\"")) continue;
+                Node predicateNode = toSimpleNode(predicate);
+                String object = inner.substring(predicateEnd + 1);
+                for (Node subjectNode : toNodeCandidates(inner.substring(0, subjectEnd))) {
+                    for (Node objectNode : toNodeCandidates(object)) {
+                        result.add(NodeFactory.createTripleNode(subjectNode, predicateNode, objectNode));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The positions of the hyphens behind a complete term which starts at the given position.
+     */
+    private static List<Integer> getSplitCandidates(String text, int start) {
+        List<Integer> result = new ArrayList<>();
+        int depth = 0;
+        for (int i = start; i < text.length(); i++) {
+            if (text.startsWith("<<", i)) {
+                depth++;
+                i++;
+            } else if (text.startsWith(">>", i)) {
+                depth--;
+                i++;
+            } else if (text.charAt(i) == '-' && depth == 0 && i > start) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    private Node toSimpleNode(String label) {
+        if (label.startsWith("\"")) {
+            int end = label.lastIndexOf('"');
+            String lexicalForm = label.substring(1, Math.max(1, end));
+            String suffix = label.substring(end + 1);
+            if (suffix.startsWith("@")) {
+                return NodeFactory.createLiteral(lexicalForm, suffix.substring(1));
+            } else if (suffix.startsWith("^^")) {
+                String datatype = expandLabel(suffix.substring(2).replace("<", "").replace(">", ""));
+                return NodeFactory.createLiteral(lexicalForm,
+                        TypeMapper.getInstance().getSafeTypeByName(datatype));
+            }
+            return NodeFactory.createLiteral(lexicalForm);
+        }
+        if (label.indexOf(':') < 0) {
+            return NodeFactory.createBlankNode(label);
+        }
+        return NodeFactory.createURI(expandLabel(label));
+    }
+
+    /**
+     * Replace the label of a shortened IRI by its namespace.
+     *
+     * @param iri The (shortened) IRI.
+     * @return The full IRI.
+     */
+    private String expandLabel(String iri) {
+        int colon = iri.indexOf(':');
+        if (colon < 0) return iri;
+        String namespace = labelToNamespace.get(iri.substring(0, colon + 1));
+        if (namespace == null) return iri;
+        return namespace + iri.substring(colon + 1);
+    }
+
+    /**
+     * Run the given read operation in a read transaction of the current thread (nested calls join the transaction
+     * of the thread).
+     *
+     * @param operation The operation.
+     * @param <T>       Type of the result.
+     * @return The result of the operation.
+     */
+    public <T> T read(Supplier<T> operation) {
+        return Txn.calculateRead(tdbDataset, operation);
+    }
+
+    /**
+     * @return Hit and miss statistics of the neighbour cache; null if caching is disabled.
+     */
+    public CacheStats getCacheStatistics() {
+        return neighbourCache == null ? null : neighbourCache.stats();
+    }
+
+    @Override
+    public void close() {
+        if (neighbourCache != null) {
+            CacheStats stats = neighbourCache.stats();
+            LOGGER.info("Neighbour cache: " + stats.hitCount() + " hits, " + stats.missCount() + " misses (hit rate "
+                    + String.format("%.3f", stats.hitRate()) + "), " + stats.evictionCount() + " evictions.");
+            neighbourCache.invalidateAll();
+        }
+        tdbDataset.close();
+    }
+
+    public Dataset getTdbDataset() {
+        return tdbDataset;
+    }
+
+    public Prefix getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Set the namespaces which are replaced by prefix labels. Must be called before walks are generated.
+     *
+     * @param prefix The prefix mappings.
+     */
+    public void setPrefix(Prefix prefix) {
+        this.prefix = prefix;
+        Map<String, String> labels = new HashMap<>();
+        for (Map.Entry<String, String> entry : prefix.getPrefixMap().entrySet()) {
+            labels.put(entry.getValue(), entry.getKey());
+        }
+        this.labelToNamespace = labels;
+    }
+
+    /**
+     * Obtain the random number generator of the given entity (derived from the seed and the entity).
+     *
+     * @param entity The entity for which walks are generated.
+     * @return New random number generator.
+     */
+    WalkRandom getRandom(String entity) {
+        return WalkRandom.forEntity(seed, entity);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Key of the neighbour cache: a node and the direction of its triples.
+     */
+    private static final class NeighbourKey {
+
+
+        private final Node node;
+
+        private final boolean isForward;
+
+        NeighbourKey(Node node, boolean isForward) {
+            this.node = node;
+            this.isForward = isForward;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof NeighbourKey)) return false;
+            NeighbourKey that = (NeighbourKey) o;
+            return isForward == that.isForward && node.equals(that.node);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * node.hashCode() + (isForward ? 1 : 0);
+        }
+    }
+}
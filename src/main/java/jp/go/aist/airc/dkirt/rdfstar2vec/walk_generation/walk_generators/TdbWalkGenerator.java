@@ -3,9 +3,15 @@ package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
 import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.Triple;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.rdf.model.*;
+import org.apache.jena.system.Txn;
 import org.apache.jena.tdb.TDBFactory;
+import org.apache.jena.tdb.base.file.Location;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,9 +19,11 @@ import java.io.File;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMidWalkDuplicateFreeCapability,
-        IRandomWalkDuplicateFreeCapability, IMidWalkWeightedCapability, ICloseableWalkGenerator {
+        IRandomWalkDuplicateFreeCapability, IMidWalkWeightedCapability, ICloseableWalkGenerator,
+        ISeedableWalkGenerator {
 
 
     /**
@@ -23,8 +31,32 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(TdbWalkGenerator.class);
 
+    /**
+     * Default (approximate) size of the neighbour cache in bytes.
+     */
+    public static final long DEFAULT_CACHE_SIZE = 128L * 1024 * 1024;
+
     private Dataset tdbDataset;
     private Model tdbModel;
+    private final Location tdbLocation;
+
+    /**
+     * True if the data set is read in read transactions. TDB transactions are bound to the thread which began them,
+     * hence every walker thread reads in its own transaction.
+     */
+    private final boolean isReadTransactions;
+
+    /**
+     * Shared neighbour cache: (node, direction) to the triples of the node. The cache is bounded by the approximate
+     * memory of the triples and evicts the least recently used nodes, so that frequently visited (hub) nodes are
+     * queried once rather than on every hop. Null if caching is disabled.
+     */
+    private final LoadingCache<NeighbourKey, List<Triple>> neighbourCache;
+
+    /**
+     * The global seed from which the random number generator of every entity is derived.
+     */
+    private long seed = WalkRandom.newSeed();
 
     /**
      * Main Constructor
@@ -32,9 +64,35 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      * @param pathToTdbDataset File path to the TDB dataset.
      */
     public TdbWalkGenerator(String pathToTdbDataset) {
-        tdbDataset = TDBFactory.createDataset(pathToTdbDataset);
-        //tdbDataset.begin(ReadWrite.READ);
+        this(pathToTdbDataset, false, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param pathToTdbDataset   File path to the TDB dataset.
+     * @param isReadTransactions True if every walker thread shall read in its own read transaction. Once a TDB
+     *                           dataset has been used in a transaction, it must not be accessed outside of transactions
+     *                           anymore (also not by other {@link Dataset} instances on the same location).
+     * @param cacheSize          Approximate size of the neighbour cache in bytes; 0 disables the cache.
+     */
+    public TdbWalkGenerator(String pathToTdbDataset, boolean isReadTransactions, long cacheSize) {
+        tdbLocation = Location.create(pathToTdbDataset);
+        tdbDataset = TDBFactory.createDataset(tdbLocation);
         tdbModel = tdbDataset.getDefaultModel();
+        this.isReadTransactions = isReadTransactions;
+        if (cacheSize > 0) {
+            neighbourCache = CacheBuilder.newBuilder()
+                    .maximumWeight(cacheSize)
+                    .weigher((NeighbourKey key, List<Triple> triples) -> weigh(key, triples))
+                    .recordStats()
+                    .build(new CacheLoader<NeighbourKey, List<Triple>>() {
+                        @Override
+                        public List<Triple> load(NeighbourKey key) {
+                            return queryTriples(key);
+                        }
+                    });
+        } else neighbourCache = null;
     }
 
     /**
@@ -55,7 +113,8 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      */
     @Override
     public List<String> generateMidWalksForEntityDuplicateFree(String entity, int numberOfWalks, int depth) {
-        return Util.convertToStringWalksDuplicateFree(generateMidWalkForEntityAsArray(entity, depth, numberOfWalks));
+        return read(() -> Util.convertToStringWalksDuplicateFree(generateMidWalkForEntityAsArray(entity, depth,
+                numberOfWalks)));
     }
 
     /**
@@ -68,7 +127,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      */
     @Override
     public List<String> generateMidWalksForEntity(java.lang.String entity, int numberOfWalks, int depth) {
-        return Util.convertToStringWalks(generateMidWalkForEntityAsArray(entity, depth, numberOfWalks));
+        return read(() -> Util.convertToStringWalks(generateMidWalkForEntityAsArray(entity, depth, numberOfWalks)));
     }
 
     /**
@@ -80,17 +139,44 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      * @return A data structure describing the walks.
      */
     public List<List<String>> generateMidWalkForEntityAsArray(String entity, int depth, int numberOfWalks) {
-        List<List<String>> result = new ArrayList<>();
-        for (int i = 0; i < numberOfWalks; i++) {
-            List<String> walk = generateMidWalkForEntity(entity, depth);
-            if (walk.size() > 1) {
-                result.add(walk);
+        return generateMidWalkForEntityAsArray(entity, depth, numberOfWalks, getRandom(entity));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param numberOfWalks The number of walks to be performed.
+     * @param random        The random number generator to be used.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateMidWalkForEntityAsArray(String entity, int depth, int numberOfWalks, Random random) {
+        return read(() -> {
+            List<List<String>> result = new ArrayList<>();
+            for (int i = 0; i < numberOfWalks; i++) {
+                List<String> walk = generateMidWalkForEntity(entity, depth, random);
+                if (walk.size() > 1) {
+                    result.add(walk);
+                }
             }
-        }
-        return result;
+            return result;
+        });
     }
 
     public List<String> generateMidWalkForEntity(String entity, int depth) {
+        return generateMidWalkForEntity(entity, depth, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a single walk for the given entity with the given depth.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will have three walk components.
+     * @param random The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateMidWalkForEntity(String entity, int depth, Random random) {
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -106,23 +192,23 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
             currentDepth++;
 
             // randomly decide whether to use predecessors or successors
-            int randomPickZeroOne = ThreadLocalRandom.current().nextInt(2);
+            int randomPickZeroOne = random.nextInt(2);
 
             if (randomPickZeroOne == 0) {
                 // predecessor
-                Set<Triple> triples = getBackwardTriples(nextElementPredecessor);
+                List<Triple> triples = getNeighbours(nextElementPredecessor, false);
                 if (triples.size() > 0) {
                     // now we need to draw randomly...
-                    Triple triple = Util.randomDrawFromSet(triples);
+                    Triple triple = triples.get(random.nextInt(triples.size()));
                     result.addFirst(triple.predicate);
                     result.addFirst(triple.subject);
                     nextElementPredecessor = triple.subject;
                 }
             } else {
                 // successor
-                Set<Triple> triples = getForwardTriples(nextElementSuccessor);
+                List<Triple> triples = getNeighbours(nextElementSuccessor, true);
                 if (triples.size() > 0) {
-                    Triple triple = Util.randomDrawFromSet(triples);
+                    Triple triple = triples.get(random.nextInt(triples.size()));
 
                     result.addLast(triple.predicate);
                     result.addLast(triple.object);
@@ -139,6 +225,46 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      * @return Result triples.
      */
     public Set<Triple> getBackwardTriples(String object) {
+        return new HashSet<>(getNeighbours(object, false));
+    }
+
+    /**
+     * Answers a (s, ?, ?) query.
+     * @param subject The subject in the query.
+     * @return Result triples.
+     */
+    public Set<Triple> getForwardTriples(String subject) {
+        return new HashSet<>(getNeighbours(subject, true));
+    }
+
+    /**
+     * Obtain the triples of the given node from the neighbour cache (or from the data set if caching is disabled).
+     *
+     * @param node      The node.
+     * @param isForward True for the (s, ?, ?) triples (with resource objects), false for the (?, ?, o) triples.
+     * @return Immutable list of result triples (without duplicates).
+     */
+    List<Triple> getNeighbours(String node, boolean isForward) {
+        NeighbourKey key = new NeighbourKey(node, isForward);
+        if (neighbourCache == null) return queryTriples(key);
+        return neighbourCache.getUnchecked(key);
+    }
+
+    /**
+     * Query the data set.
+     *
+     * @param key Node and direction.
+     * @return Immutable list of result triples.
+     */
+    private List<Triple> queryTriples(NeighbourKey key) {
+        return read(() -> {
+            Set<Triple> result = key.isForward ? queryForwardTriples(key.node) : queryBackwardTriples(key.node);
+            if (result.isEmpty()) return Collections.emptyList();
+            return Collections.unmodifiableList(new ArrayList<>(result));
+        });
+    }
+
+    private Set<Triple> queryBackwardTriples(String object) {
         Set<Triple> result = new HashSet<>();
         Set<Statement> tdbStatements =  tdbModel.listStatements(null, null, tdbModel.createResource(object)).toSet();
 
@@ -156,12 +282,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
         return result;
     }
 
-    /**
-     * Answers a (s, ?, ?) query.
-     * @param subject The subject in the query.
-     * @return Result triples.
-     */
-    public Set<Triple> getForwardTriples(String subject) {
+    private Set<Triple> queryForwardTriples(String subject) {
         Set<Triple> result = new HashSet<>();
         Set<Statement> tdbStatements =  tdbModel.createResource(subject)
                 .listProperties()
@@ -182,19 +303,78 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
         return result;
     }
 
+    /**
+     * Run the given read operation; in a read transaction of the current thread if read transactions are enabled
+     * (nested calls join the transaction of the thread).
+     *
+     * @param operation The operation.
+     * @param <T>       Type of the result.
+     * @return The result of the operation.
+     */
+    <T> T read(Supplier<T> operation) {
+        if (!isReadTransactions) return operation.get();
+        return Txn.calculateRead(tdbDataset, operation);
+    }
+
+    /**
+     * Approximate memory of a cache entry (Java 8 strings: 40 bytes plus two bytes per character). The node of the
+     * key is shared by the triples and counted once.
+     *
+     * @param key     The key.
+     * @param triples The triples of the key.
+     * @return Weight in bytes.
+     */
+    private static int weigh(NeighbourKey key, List<Triple> triples) {
+        long result = 64 + 2L * key.node.length();
+        for (Triple triple : triples) {
+            String other = key.isForward ? triple.object : triple.subject;
+            result += 48 + 80 + 2L * (other.length() + triple.predicate.length());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, result);
+    }
+
+    /**
+     * @return Hit and miss statistics of the neighbour cache; null if caching is disabled.
+     */
+    public CacheStats getCacheStatistics() {
+        return neighbourCache == null ? null : neighbourCache.stats();
+    }
+
+    /**
+     * @return True if every walker thread reads in its own read transaction.
+     */
+    public boolean isReadTransactions() {
+        return isReadTransactions;
+    }
+
     public void close() {
+        if (neighbourCache != null) {
+            CacheStats stats = neighbourCache.stats();
+            LOGGER.info("Neighbour cache: " + stats.hitCount() + " hits, " + stats.missCount() + " misses (hit rate "
+                    + String.format("%.3f", stats.hitRate()) + "), " + stats.evictionCount() + " evictions.");
+            neighbourCache.invalidateAll();
+        }
         tdbDataset.close();
+        if (isReadTransactions) {
+            // forget that the location has been used in transactions, so that it can be opened without them again
+            TDBFactory.release(tdbLocation);
+        }
     }
 
     @Override
     public List<String> generateDuplicateFreeRandomWalksForEntity(String entity, int numberOfWalks, int depth) {
+        return read(() -> generateDuplicateFreeRandomWalksForEntityInternal(entity, numberOfWalks, depth));
+    }
+
+    private List<String> generateDuplicateFreeRandomWalksForEntityInternal(String entity, int numberOfWalks, int depth) {
         List<String> result = new ArrayList<>();
         List<List<Triple>> walks = new ArrayList();
+        Random random = getRandom(entity);
         boolean isFirstIteration = true;
         for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
             // initialize with first node
             if (isFirstIteration) {
-                Set<Triple> neighbours = getForwardTriples(entity);
+                List<Triple> neighbours = getNeighbours(entity, true);
                 if (neighbours == null || neighbours.size() == 0) {
                     return result;
                 }
@@ -213,7 +393,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
                 for (List<Triple> walk : walks_tmp) {
                     // get last entity
                     Triple lastTriple = walk.get(walk.size() - 1);
-                    Set<Triple> nextIteration = getForwardTriples(lastTriple.object);
+                    List<Triple> nextIteration = getNeighbours(lastTriple.object, true);
                     if (nextIteration != null) {
                         walks.remove(walk); // check whether this works
                         for (Triple nextStep : nextIteration) {
@@ -226,7 +406,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
             }
             // trim the list
             while (walks.size() > numberOfWalks) {
-                int randomNumber = ThreadLocalRandom.current().nextInt(walks.size());
+                int randomNumber = random.nextInt(walks.size());
                 walks.remove(randomNumber);
             }
         } // depth loop
@@ -237,7 +417,8 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
 
     @Override
     public List<String> generateWeightedMidWalksForEntity(String entity, int numberOfWalks, int depth) {
-        return Util.convertToStringWalksDuplicateFree(generateWeightedMidWalkForEntityAsArray(entity, numberOfWalks, depth));
+        return read(() -> Util.convertToStringWalksDuplicateFree(generateWeightedMidWalkForEntityAsArray(entity,
+                numberOfWalks, depth)));
     }
 
     /**
@@ -249,14 +430,29 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      * @return A data structure describing the walks.
      */
     public List<List<String>> generateWeightedMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth) {
-        List<List<String>> result = new ArrayList<>();
-        for (int i = 0; i < numberOfWalks; i++) {
-            List<String> walk = generateWeightedMidWalkForEntity(entity, depth);
-            if (walk.size() > 1) {
-                result.add(walk);
+        return generateWeightedMidWalkForEntityAsArray(entity, numberOfWalks, depth, getRandom(entity));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param numberOfWalks The number of walks to be performed.
+     * @param random        The random number generator to be used.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateWeightedMidWalkForEntityAsArray(String entity, int numberOfWalks, int depth, Random random) {
+        return read(() -> {
+            List<List<String>> result = new ArrayList<>();
+            for (int i = 0; i < numberOfWalks; i++) {
+                List<String> walk = generateWeightedMidWalkForEntity(entity, depth, random);
+                if (walk.size() > 1) {
+                    result.add(walk);
+                }
             }
-        }
-        return result;
+            return result;
+        });
     }
 
     /**
@@ -267,6 +463,18 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      * @return One walk as list where each element is a walk component.
      */
     public List<String> generateWeightedMidWalkForEntity(String entity, int depth) {
+        return generateWeightedMidWalkForEntity(entity, depth, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a single walk for the given entity with the given depth.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will have three walk components.
+     * @param random The random number generator to be used.
+     * @return One walk as list where each element is a walk component.
+     */
+    public List<String> generateWeightedMidWalkForEntity(String entity, int depth, Random random) {
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -282,13 +490,13 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
             currentDepth++;
 
             // randomly decide whether to use predecessors or successors
-            double randomPickZeroOne = ThreadLocalRandom.current().nextDouble(0.0, 1.00000001);
+            double randomPickZeroOne = random.nextDouble();
 
             // predecessor candidates
-            Set<Triple> candidatesPredecessor = getBackwardTriples(nextElementPredecessor);
+            List<Triple> candidatesPredecessor = getNeighbours(nextElementPredecessor, false);
 
             // successor candidates
-            Set<Triple> candidatesSuccessor = getForwardTriples(nextElementSuccessor);
+            List<Triple> candidatesSuccessor = getNeighbours(nextElementSuccessor, true);
 
             double numberOfPredecessors = 0.0;
             double numberOfSuccessors = 0.0;
@@ -305,7 +513,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
             if (randomPickZeroOne <= cutOffPoint) {
                 // predecessor
                 if (candidatesPredecessor != null && candidatesPredecessor.size() > 0) {
-                    Triple drawnTriple = Util.randomDrawFromSet(candidatesPredecessor);
+                    Triple drawnTriple = candidatesPredecessor.get(random.nextInt(candidatesPredecessor.size()));
 
                     // add walks from the front (walk started before entity)
                     result.addFirst(drawnTriple.predicate);
@@ -315,7 +523,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
             } else {
                 // successor
                 if (candidatesSuccessor != null && candidatesSuccessor.size() > 0) {
-                    Triple tripleToAdd = Util.randomDrawFromSet(candidatesSuccessor);
+                    Triple tripleToAdd = candidatesSuccessor.get(random.nextInt(candidatesSuccessor.size()));
 
                     // add next walk iteration
                     result.addLast(tripleToAdd.predicate);
@@ -330,4 +538,57 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
     public Model getTdbModel() {
         return tdbModel;
     }
+
+    public Dataset getTdbDataset() {
+        return tdbDataset;
+    }
+
+    /**
+     * Obtain the random number generator of the given entity (derived from the seed and the entity).
+     *
+     * @param entity The entity for which walks are generated.
+     * @return New random number generator.
+     */
+    WalkRandom getRandom(String entity) {
+        return WalkRandom.forEntity(seed, entity);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Key of the neighbour cache: a node and the direction of its triples.
+     */
+    private static final class NeighbourKey {
+
+
+        private final String node;
+
+        private final boolean isForward;
+
+        NeighbourKey(String node, boolean isForward) {
+            this.node = node;
+            this.isForward = isForward;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof NeighbourKey)) return false;
+            NeighbourKey that = (NeighbourKey) o;
+            return isForward == that.isForward && node.equals(that.node);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * node.hashCode() + (isForward ? 1 : 0);
+        }
+    }
 }
@@ -6,8 +6,9 @@ import org.javatuples.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.GraphSnapshot;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.EntitySelector;
-import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.HdtEntitySelector;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.HdtStreamingEntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.MemoryEntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.MemoryStarEntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.OntModelEntitySelector;
@@ -57,6 +58,140 @@ public class WalkGeneratorManager {
      * @return Pair with parser and entity selector.
      */
     public static Pair<IWalkGenerator, EntitySelector> parseSingleFile(File tripleFile, boolean isParseDatatypeTriples){
+        return parseSingleFile(tripleFile, isParseDatatypeTriples, false);
+    }
+
+    /**
+     * Given a triple file, this method determines the appropriate parser and entity selector.
+     * @param tripleFile The triple file to be processed.
+     * @param isParseDatatypeTriples True if datatype properties shall also be parsed.
+     * @param isUseCompactData True if RDF-star graphs shall be held in the dictionary-encoded
+     *                         {@link jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory}.
+     * @return Pair with parser and entity selector.
+     */
+    public static Pair<IWalkGenerator, EntitySelector> parseSingleFile(File tripleFile, boolean isParseDatatypeTriples,
+                                                                       boolean isUseCompactData){
+        return parseSingleFile(tripleFile, isParseDatatypeTriples, isUseCompactData, 1);
+    }
+
+    /**
+     * Given a triple file, this method determines the appropriate parser and entity selector. If a snapshot directory
+     * is given, an up-to-date {@link GraphSnapshot} of the file is reopened instead of parsing the file; otherwise,
+     * the file is parsed and a snapshot is written for the next run. Snapshots are not used if datatype triples
+     * shall be parsed (they are not part of a snapshot).
+     * @param tripleFile The triple file to be processed.
+     * @param isParseDatatypeTriples True if datatype properties shall also be parsed.
+     * @param isUseCompactData True if RDF-star graphs shall be held in the dictionary-encoded
+     *                         {@link jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory}.
+     * @param numberOfParserThreads The number of threads used to parse an RDF-star file.
+     * @param snapshotDirectory The directory in which snapshots are kept, null if no snapshots shall be used.
+     * @return Pair with parser and entity selector.
+     */
+    public static Pair<IWalkGenerator, EntitySelector> parseSingleFile(File tripleFile, boolean isParseDatatypeTriples,
+                                                                       boolean isUseCompactData, int numberOfParserThreads,
+                                                                       File snapshotDirectory){
+        return parseSingleFile(tripleFile, isParseDatatypeTriples, isUseCompactData, numberOfParserThreads,
+                snapshotDirectory, null);
+    }
+
+    /**
+     * Given a triple file, this method determines the appropriate parser and entity selector. If a snapshot directory
+     * is given, an up-to-date {@link GraphSnapshot} of the file is reopened instead of parsing the file; otherwise,
+     * the file is parsed and a snapshot is written for the next run. Snapshots are not used if datatype triples
+     * shall be parsed (they are not part of a snapshot). A snapshot holds the shortened terms, hence it is only
+     * reopened if the prefix mappings are the same as when it was written (see {@link Prefix#getFingerprint()}).
+     * @param tripleFile The triple file to be processed.
+     * @param isParseDatatypeTriples True if datatype properties shall also be parsed.
+     * @param isUseCompactData True if RDF-star graphs shall be held in the dictionary-encoded
+     *                         {@link jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory}.
+     * @param numberOfParserThreads The number of threads used to parse an RDF-star file.
+     * @param snapshotDirectory The directory in which snapshots are kept, null if no snapshots shall be used.
+     * @param prefix The namespaces which are replaced by prefix labels in RDF-star files (null: built-in namespaces).
+     * @return Pair with parser and entity selector.
+     */
+    public static Pair<IWalkGenerator, EntitySelector> parseSingleFile(File tripleFile, boolean isParseDatatypeTriples,
+                                                                       boolean isUseCompactData, int numberOfParserThreads,
+                                                                       File snapshotDirectory, Prefix prefix){
+        String fileName = tripleFile.getName().toLowerCase();
+        boolean isUseSnapshot = snapshotDirectory != null && !isParseDatatypeTriples
+                && !fileName.endsWith(".hdt") && !fileName.endsWith(".hdt.index.v1-1");
+        if (!isUseSnapshot) {
+            return parseSingleFile(tripleFile, isParseDatatypeTriples, isUseCompactData, numberOfParserThreads, prefix);
+        }
+        File snapshotFile = GraphSnapshot.getSnapshotFile(snapshotDirectory, tripleFile);
+        // obtained before parsing: learnt namespaces are added to the prefix mappings
+        long parserSettings = (prefix == null ? new Prefix() : prefix).getFingerprint();
+        if (GraphSnapshot.isUpToDate(snapshotFile, tripleFile, parserSettings)) {
+            LOGGER.info("Reading snapshot " + snapshotFile.getAbsolutePath() + " instead of parsing " + tripleFile.getName());
+            Pair<IWalkGenerator, EntitySelector> result = readSnapshot(snapshotFile, isUseCompactData);
+            if (result != null) {
+                return result;
+            }
+        }
+        Pair<IWalkGenerator, EntitySelector> result = parseSingleFile(tripleFile, isParseDatatypeTriples,
+                isUseCompactData, numberOfParserThreads, prefix);
+        IWalkGenerator parser = result.getValue0();
+        if (parser instanceof MemoryStarWalkGenerator) {
+            ((MemoryStarWalkGenerator) parser).writeSnapshot(snapshotFile, tripleFile, parserSettings);
+        } else if (parser instanceof MemoryWalkGenerator) {
+            ((MemoryWalkGenerator) parser).writeSnapshot(snapshotFile, tripleFile, parserSettings);
+        }
+        return result;
+    }
+
+    /**
+     * Reopen the given snapshot.
+     * @param snapshotFile The snapshot file.
+     * @param isUseCompactData True if RDF-star graphs shall be held in the dictionary-encoded data structure.
+     * @return Pair with parser and entity selector, null if the snapshot could not be read.
+     */
+    private static Pair<IWalkGenerator, EntitySelector> readSnapshot(File snapshotFile, boolean isUseCompactData) {
+        try {
+            if (GraphSnapshot.readHeader(snapshotFile).isRdfStar()) {
+                NtStarMemoryWalkGenerator parser = new NtStarMemoryWalkGenerator(false, isUseCompactData);
+                if (!parser.readSnapshot(snapshotFile)) return null;
+                EntitySelector entitySelector = isUseCompactData ?
+                        new MemoryStarEntitySelector(parser.getCompactData()) :
+                        new MemoryStarEntitySelector(parser.getData());
+                return new Pair<>(parser, entitySelector);
+            } else {
+                NtMemoryWalkGenerator parser = new NtMemoryWalkGenerator(false);
+                if (!parser.readSnapshot(snapshotFile)) return null;
+                return new Pair<>(parser, new MemoryEntitySelector(parser.getData()));
+            }
+        } catch (IOException ioe) {
+            LOGGER.error("Could not read snapshot " + snapshotFile.getAbsolutePath() + ". The graph file will be parsed.", ioe);
+            return null;
+        }
+    }
+
+    /**
+     * Given a triple file, this method determines the appropriate parser and entity selector.
+     * @param tripleFile The triple file to be processed.
+     * @param isParseDatatypeTriples True if datatype properties shall also be parsed.
+     * @param isUseCompactData True if RDF-star graphs shall be held in the dictionary-encoded
+     *                         {@link jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory}.
+     * @param numberOfParserThreads The number of threads used to parse an RDF-star file.
+     * @return Pair with parser and entity selector.
+     */
+    public static Pair<IWalkGenerator, EntitySelector> parseSingleFile(File tripleFile, boolean isParseDatatypeTriples,
+                                                                       boolean isUseCompactData, int numberOfParserThreads){
+        return parseSingleFile(tripleFile, isParseDatatypeTriples, isUseCompactData, numberOfParserThreads, (Prefix) null);
+    }
+
+    /**
+     * Given a triple file, this method determines the appropriate parser and entity selector.
+     * @param tripleFile The triple file to be processed.
+     * @param isParseDatatypeTriples True if datatype properties shall also be parsed.
+     * @param isUseCompactData True if RDF-star graphs shall be held in the dictionary-encoded
+     *                         {@link jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory}.
+     * @param numberOfParserThreads The number of threads used to parse an RDF-star file.
+     * @param prefix The namespaces which are replaced by prefix labels in RDF-star files (null: built-in namespaces).
+     * @return Pair with parser and entity selector.
+     */
+    public static Pair<IWalkGenerator, EntitySelector> parseSingleFile(File tripleFile, boolean isParseDatatypeTriples,
+                                                                       boolean isUseCompactData, int numberOfParserThreads,
+                                                                       Prefix prefix){
         IWalkGenerator parser = null;
         EntitySelector entitySelector = null;
         try {
@@ -91,8 +226,12 @@ public class WalkGeneratorManager {
                 }
                 if (rdfstar) {
                 	LOGGER.info("Load RDF-star using NtParser.");
-                	parser = new NtStarMemoryWalkGenerator(pathToTripleFile, isParseDatatypeTriples);
-                    entitySelector = new MemoryStarEntitySelector(((NtStarMemoryWalkGenerator) parser).getData());
+                	parser = new NtStarMemoryWalkGenerator(tripleFile, isParseDatatypeTriples, isUseCompactData, numberOfParserThreads, prefix);
+                	if (isUseCompactData) {
+                	    entitySelector = new MemoryStarEntitySelector(((NtStarMemoryWalkGenerator) parser).getCompactData());
+                	} else {
+                	    entitySelector = new MemoryStarEntitySelector(((NtStarMemoryWalkGenerator) parser).getData());
+                	}
                 } else {
                 	try {
                         LOGGER.info("Using NxParser.");
@@ -115,7 +254,7 @@ public class WalkGeneratorManager {
                 File newResourceFile = new File(tripleFile.getParent(), fileName.substring(0, fileName.length() - 3) + "nt");
                 if (rdfstar) {
                 	NtStarMemoryWalkGenerator.saveAsNt(model, newResourceFile); 
-                	parser = new NtStarMemoryWalkGenerator(newResourceFile, isParseDatatypeTriples);
+                	parser = new NtStarMemoryWalkGenerator(newResourceFile, isParseDatatypeTriples, false, 1, prefix);
                 } else {
                 	NtMemoryWalkGenerator.saveAsNt(model, newResourceFile);
                     parser = new NtMemoryWalkGenerator(newResourceFile, isParseDatatypeTriples);
@@ -127,7 +266,7 @@ public class WalkGeneratorManager {
                 //this.parser = new JenaOntModelMemoryParser(this.model, this);
                 if (rdfstar) {
                 	NtStarMemoryWalkGenerator.saveAsNt(model, newResourceFile);
-                    parser = new NtStarMemoryWalkGenerator(newResourceFile, isParseDatatypeTriples);
+                    parser = new NtStarMemoryWalkGenerator(newResourceFile, isParseDatatypeTriples, false, 1, prefix);
                 } else {
                 	NtMemoryWalkGenerator.saveAsNt(model, newResourceFile);
                     parser = new NtMemoryWalkGenerator(newResourceFile, isParseDatatypeTriples);
@@ -135,8 +274,10 @@ public class WalkGeneratorManager {
             } else if (fileName.toLowerCase().endsWith(".hdt") || fileName.toLowerCase().endsWith(".hdt.index.v1-1")) {
                 LOGGER.info("HDT file detected. Using HDT parser.");
                 try {
-                    parser = new HdtWalkGenerator(pathToTripleFile);
-                    entitySelector = new HdtEntitySelector(pathToTripleFile);
+                    HdtWalkGenerator hdtWalkGenerator = new HdtWalkGenerator(pathToTripleFile);
+                    parser = hdtWalkGenerator;
+                    // the selector enumerates the dictionary of the data set which is already loaded
+                    entitySelector = new HdtStreamingEntitySelector(hdtWalkGenerator.hdtDataSet, true);
                 } catch (IOException ioe) {
                     LOGGER.error("Propagated HDT Initializer Exception", ioe);
                 }
@@ -0,0 +1,131 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Fast random number generator for the walk generation (xoroshiro128++, seeded through SplitMix64).
+ * <p>
+ * An instance is not thread-safe and is meant to be used by one walker only: every entity obtains its own generator
+ * from a global seed and the entity itself ({@link WalkRandom#forEntity(long, String)}). Hence, there is no shared
+ * state between the walker threads, and the walks of an entity only depend on the seed and on the graph, not on the
+ * number of threads or on the order in which the entities are processed.
+ * <p>
+ * The class extends {@link Random} so that it can be handed to all sampling methods of the data structures.
+ */
+public class WalkRandom extends Random {
+
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long s0;
+    private long s1;
+
+    /**
+     * Constructor
+     *
+     * @param seed The seed.
+     */
+    public WalkRandom(long seed) {
+        // calls setSeed(long)
+        super(seed);
+    }
+
+    /**
+     * Obtain the generator of the given entity.
+     *
+     * @param seed   The global seed.
+     * @param entity The entity for which walks are generated.
+     * @return New generator.
+     */
+    public static WalkRandom forEntity(long seed, String entity) {
+        // FNV-1a over the characters, mixed with the seed
+        long hash = 0xCBF29CE484222325L ^ mix(seed);
+        if (entity != null) {
+            for (int i = 0; i < entity.length(); i++) {
+                hash ^= entity.charAt(i);
+                hash *= 0x100000001B3L;
+            }
+        }
+        return new WalkRandom(hash);
+    }
+
+    /**
+     * Obtain a seed which differs between runs (used if no seed is configured).
+     *
+     * @return Seed.
+     */
+    public static long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * Obtain a new generator whose sequence is independent of the sequence of this generator.
+     *
+     * @return New generator.
+     */
+    public WalkRandom split() {
+        return new WalkRandom(nextLong());
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        super.setSeed(seed);
+        s0 = mix(seed);
+        s1 = mix(seed + GOLDEN_GAMMA);
+        if ((s0 | s1) == 0) {
+            // the all-zero state is not allowed
+            s1 = GOLDEN_GAMMA;
+        }
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        final long state0 = s0;
+        long state1 = s1;
+        final long result = Long.rotateLeft(state0 + state1, 17) + state0;
+        state1 ^= state0;
+        s0 = Long.rotateLeft(state0, 49) ^ state1 ^ (state1 << 21);
+        s1 = Long.rotateLeft(state1, 28);
+        return result;
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     *
+     * @param z Input.
+     * @return Mixed value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -6,6 +6,7 @@ import logging
 import os
 import sys
 import gzip
+import mmap
 import pkg_resources
 from pkg_resources import DistributionNotFound
 import pathlib
@@ -80,8 +81,82 @@ def check_requirements() -> str:
         return message
 
 
+def read_token_walks(walk_file_path):
+    """Iterate over the walks of a binary token walk file (*.walks) together with its vocabulary (*.vocab).
+
+    The walk file starts with the magic number and the version (big-endian int32 each); every walk is stored as the
+    number of its tokens followed by the token IDs (unsigned LEB128 varints). Line i of the vocabulary is token i.
+
+    Parameters
+    ----------
+    walk_file_path : str
+        The path to the walk file.
+    """
+    vocabulary_path = walk_file_path[: -len(".walks")] + ".vocab"
+    with open(vocabulary_path, mode="rt", encoding="utf-8") as vocabulary_file:
+        vocabulary = vocabulary_file.read().split("\n")
+    walk_file = open(walk_file_path, mode="rb")
+    # the file is memory-mapped rather than read: walk files can be larger than the memory
+    data = mmap.mmap(walk_file.fileno(), 0, access=mmap.ACCESS_READ)
+    if int.from_bytes(data[0:4], "big") != 0x52325657:
+        raise ValueError("Not a token walk file: " + walk_file_path)
+    position = 8
+    length = len(data)
+
+    def read_varint():
+        nonlocal position
+        result = 0
+        shift = 0
+        while True:
+            b = data[position]
+            position += 1
+            result |= (b & 0x7F) << shift
+            if b < 0x80:
+                return result
+            shift += 7
+
+    try:
+        while position < length:
+            number_of_tokens = read_varint()
+            yield [vocabulary[read_varint()] for _ in range(number_of_tokens)]
+    finally:
+        data.close()
+        walk_file.close()
+
+
+def read_token_counts(file_or_directory_path):
+    """Read the token counts which were written during the walk generation (token_counts.vocab in the walk directory).
+    Every line holds a token and its frequency, separated by a space.
+
+    Parameters
+    ----------
+    file_or_directory_path : str
+        The path to the walk directory (or walk file).
+
+    Returns
+    -------
+    dict
+        Frequency by token or None if there are no token counts.
+    """
+    if not os.path.isdir(file_or_directory_path):
+        return None
+    counts_path = os.path.join(file_or_directory_path, "token_counts.vocab")
+    if not os.path.isfile(counts_path):
+        return None
+    token_counts = {}
+    with open(counts_path, mode="rt", encoding="utf-8") as counts_file:
+        for line in counts_file:
+            line = line.rstrip("\n")
+            if not line:
+                continue
+            token, count = line.rsplit(" ", 1)
+            token_counts[token] = int(count)
+    return token_counts
+
+
 class MySentences(object):
-    """Data structure to iterate over the lines of a file in a memory-friendly way. The files can be gzipped."""
+    """Data structure to iterate over the lines of a file in a memory-friendly way. The files can be gzipped or
+    binary token walk files (*.walks)."""
 
     def __init__(self, file_or_directory_path):
         """Constructor
@@ -99,7 +174,15 @@ class MySentences(object):
                 logging.info("Directory detected.")
                 for file_name in os.listdir(self.file_or_directory_path):
                     logging.info("Processing file: " + file_name)
-                    if file_name[-2:] in "gz":
+                    if file_name.endswith(".vocab"):
+                        continue
+                    if file_name.endswith(".walks"):
+                        logging.info("Token walk file detected!")
+                        for words in read_token_walks(
+                            os.path.join(self.file_or_directory_path, file_name)
+                        ):
+                            yield words
+                    elif file_name[-2:] in "gz":
                         logging.info("Gzip file detected! Using gzip.open().")
                         for line in gzip.open(
                             os.path.join(self.file_or_directory_path, file_name),
@@ -120,7 +203,11 @@ class MySentences(object):
                             yield words
             else:
                 logging.info("Processing file: " + self.file_or_directory_path)
-                if self.file_or_directory_path[-2:] in "gz":
+                if self.file_or_directory_path.endswith(".walks"):
+                    logging.info("Token walk file detected!")
+                    for words in read_token_walks(self.file_or_directory_path):
+                        yield words
+                elif self.file_or_directory_path[-2:] in "gz":
                     logging.info("Gzip file detected! Using gzip.open().")
                     for line in gzip.open(
                         self.file_or_directory_path, mode="rt", encoding="utf-8"
@@ -218,12 +305,24 @@ def train_word_2_vec() -> str:
                 epochs=int(iterations),
             )
 
-        logging.info("Model object initialized. Building Vocabulary...")
-        model.build_vocab(corpus_iterable=sentences)
-        logging.info("Vocabulary built. Training now...")
-        model.train(
-            corpus_iterable=sentences, total_examples=model.corpus_count, epochs=int(epochs)
-        )
+        token_counts = read_token_counts(file_path)
+        if token_counts is not None:
+            # the token counts of the walk generation replace the vocabulary pass over the walks
+            logging.info("Model object initialized. Building Vocabulary from token counts...")
+            model.build_vocab_from_freq(token_counts)
+            logging.info("Vocabulary built. Training now...")
+            model.train(
+                corpus_iterable=sentences,
+                total_words=sum(token_counts.values()),
+                epochs=int(epochs),
+            )
+        else:
+            logging.info("Model object initialized. Building Vocabulary...")
+            model.build_vocab(corpus_iterable=sentences)
+            logging.info("Vocabulary built. Training now...")
+            model.train(
+                corpus_iterable=sentences, total_examples=model.corpus_count, epochs=int(epochs)
+            )
         logging.info("Model trained.")
 
         model.save(model_path)
@@ -0,0 +1,90 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.ChunkedWalkScheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedWalkSchedulerTest {
+
+
+    @Test
+    void run() {
+        List<String> entities = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            entities.add("entity_" + i);
+        }
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+        ChunkedWalkScheduler scheduler = new ChunkedWalkScheduler(4, 7, 3);
+        long scheduled = scheduler.run(entities.iterator(), entity -> {
+            calls.incrementAndGet();
+            processed.add(entity);
+        }, 1, TimeUnit.MINUTES);
+        assertEquals(1000, scheduled);
+        assertEquals(1000, calls.get());
+        assertEquals(new HashSet<>(entities), processed);
+
+        // empty input
+        assertEquals(0, scheduler.run(Collections.emptyIterator(), entity -> fail("No entity expected."),
+                1, TimeUnit.MINUTES));
+    }
+
+    @Test
+    void backpressure() {
+        // the iterator must not run ahead of the workers by more than the chunks in flight
+        int chunkSize = 5;
+        int maxChunksInFlight = 2;
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        Iterator<String> entities = new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < 200;
+            }
+
+            @Override
+            public String next() {
+                int ahead = pulled.incrementAndGet() - processed.get();
+                maxAhead.accumulateAndGet(ahead, Math::max);
+                return "entity_" + pulled.get();
+            }
+        };
+        new ChunkedWalkScheduler(2, chunkSize, maxChunksInFlight).run(entities, entity -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                fail(e);
+            }
+            processed.incrementAndGet();
+        }, 1, TimeUnit.MINUTES);
+        assertEquals(200, processed.get());
+        assertTrue(maxAhead.get() <= (maxChunksInFlight + 1) * chunkSize, "Ahead: " + maxAhead.get());
+    }
+
+    @Test
+    void failingEntity() {
+        AtomicInteger processed = new AtomicInteger();
+        List<String> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entities.add(i == 50 ? "fail" : "entity_" + i);
+        }
+        new ChunkedWalkScheduler(3, 10, 2).run(entities.iterator(), entity -> {
+            if (entity.equals("fail")) throw new IllegalStateException("Test");
+            processed.incrementAndGet();
+        }, 1, TimeUnit.MINUTES);
+        assertEquals(99, processed.get());
+    }
+}
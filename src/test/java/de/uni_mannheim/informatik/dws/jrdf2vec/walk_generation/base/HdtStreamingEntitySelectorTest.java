@@ -0,0 +1,89 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.HdtEntitySelector;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.HdtStreamingEntitySelector;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HdtStreamingEntitySelectorTest {
+
+    @Test
+    void getEntityIterator() throws Exception {
+        String hdtPath = loadFile("swdf-2012-11-28.hdt").getAbsolutePath();
+        HdtStreamingEntitySelector selector = new HdtStreamingEntitySelector(hdtPath);
+
+        long count = 0;
+        Set<String> entities = new HashSet<>();
+        Iterator<String> iterator = selector.getEntityIterator();
+        while (iterator.hasNext()) {
+            String entity = iterator.next();
+            assertFalse(entity.startsWith("\""), "Literal selected: " + entity);
+            entities.add(entity);
+            count++;
+        }
+        // every entity is returned once
+        assertEquals(entities.size(), count);
+        assertEquals(count, selector.getNumberOfEntities());
+        assertEquals(entities, selector.getEntities());
+
+        // all subjects and, in addition, objects
+        Set<String> subjects = new HdtEntitySelector(hdtPath).getEntities();
+        assertTrue(entities.containsAll(subjects));
+        assertTrue(entities.size() > subjects.size());
+        assertTrue(entities.contains("http://data.semanticweb.org/workshop/semwiki/2010/programme-committee-member"));
+
+        // subjects only
+        HdtStreamingEntitySelector subjectSelector = new HdtStreamingEntitySelector(hdtPath, false);
+        assertEquals(subjects, subjectSelector.getEntities());
+    }
+
+    @Test
+    void getEntitySpliterator() throws Exception {
+        String hdtPath = loadFile("swdf-2012-11-28.hdt").getAbsolutePath();
+        HdtStreamingEntitySelector selector = new HdtStreamingEntitySelector(hdtPath);
+
+        Spliterator<String> spliterator = selector.getEntitySpliterator();
+        assertEquals(selector.getNumberOfEntities(), spliterator.estimateSize());
+        Spliterator<String> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(selector.getNumberOfEntities(), prefix.estimateSize() + spliterator.estimateSize());
+
+        // the parts are disjoint and cover all entities
+        Set<String> entities = new HashSet<>();
+        prefix.forEachRemaining(entities::add);
+        long prefixCount = entities.size();
+        spliterator.forEachRemaining(entities::add);
+        assertTrue(prefixCount > 0);
+        assertTrue(entities.size() > prefixCount);
+        assertEquals(selector.getNumberOfEntities(), entities.size());
+        assertEquals(selector.getEntities(), entities);
+    }
+
+    /**
+     * Helper function to load files in class path that contain spaces.
+     * @param fileName Name of the file.
+     * @return File in case of success, else null.
+     */
+    private File loadFile(String fileName){
+        try {
+            File result =  FileUtils.toFile(this.getClass().getClassLoader().getResource(fileName).toURI().toURL());
+            assertTrue(result.exists(), "Required resource not available.");
+            return result;
+        } catch (URISyntaxException | MalformedURLException exception){
+            exception.printStackTrace();
+            fail("Could not load file.");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.ShardedWalkWriter;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedWalkWriterTest {
+
+
+    private static final File WALK_DIRECTORY = new File("./shardedWalkWriterTest");
+
+    @Test
+    void write() throws Exception {
+        ShardedWalkWriter writer = new ShardedWalkWriter(WALK_DIRECTORY, 2, 1000);
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            final int worker = t;
+            workers[t] = new Thread(() -> {
+                for (int entity = 0; entity < 500; entity++) {
+                    List<String> walks = new ArrayList<>();
+                    for (int walk = 0; walk < 3; walk++) {
+                        walks.add("w" + worker + " e" + entity + " x" + walk);
+                    }
+                    writer.write(walks);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        writer.close();
+        assertEquals(2000, writer.getProcessedEntities());
+        assertEquals(6000, writer.getProcessedWalks());
+
+        // every walk is written exactly once, the files are rotated
+        Set<String> walks = new HashSet<>();
+        int numberOfLines = 0;
+        File[] files = WALK_DIRECTORY.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            assertTrue(file.getName().matches("walk_file_\\d+\\.txt\\.gz"), file.getName());
+            for (String line : readLines(file)) {
+                walks.add(line);
+                numberOfLines++;
+            }
+        }
+        assertEquals(6000, numberOfLines);
+        assertEquals(6000, walks.size());
+        assertTrue(walks.contains("w3 e499 x2"));
+        assertEquals(writer.getNumberOfFiles(), files.length);
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(
+                new FileInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    @AfterAll
+    static void tearDown() {
+        File[] files = WALK_DIRECTORY.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        WALK_DIRECTORY.delete();
+    }
+}
@@ -0,0 +1,93 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenFrequencyCounter;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenFrequencyCounterTest {
+
+
+    private static final File WALK_DIRECTORY = new File("./tokenFrequencyCounterTest");
+
+    @Test
+    void countConcurrently() throws Exception {
+        TokenFrequencyCounter counter = new TokenFrequencyCounter();
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            final int worker = t;
+            workers[t] = new Thread(() -> {
+                for (int entity = 0; entity < 500; entity++) {
+                    List<String> walks = new ArrayList<>();
+                    for (int walk = 0; walk < 3; walk++) {
+                        walks.add("e" + entity + " <http://example.org/p> w" + worker);
+                    }
+                    counter.add(walks);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(6000, counter.getNumberOfWalks());
+        assertEquals(18000, counter.getNumberOfTokens());
+        assertEquals(500 + 1 + 4, counter.getVocabularySize());
+        assertEquals(6000, counter.getCount("<http://example.org/p>"));
+        assertEquals(12, counter.getCount("e7"));
+        assertEquals(1500, counter.getCount("w2"));
+        assertEquals(0, counter.getCount("unknown"));
+
+        // descending frequency
+        File countsFile = TokenFrequencyCounter.getCountsFile(WALK_DIRECTORY);
+        assertTrue(counter.write(countsFile));
+        List<String> lines = Files.readAllLines(countsFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(505, lines.size());
+        assertEquals("<http://example.org/p> 6000", lines.get(0));
+        assertEquals("w0 1500", lines.get(1));
+
+        LinkedHashMap<String, Long> read = TokenFrequencyCounter.read(countsFile);
+        assertEquals(505, read.size());
+        assertEquals(12L, (long) read.get("e7"));
+        assertEquals("<http://example.org/p>", read.keySet().iterator().next());
+
+        // continuation: counts of existing walks are added
+        TokenFrequencyCounter continued = new TokenFrequencyCounter();
+        continued.addAll(countsFile);
+        continued.add(Arrays.asList("e7  new", "new"));
+        assertEquals(13, continued.getCount("e7"));
+        assertEquals(2, continued.getCount("new"));
+        assertEquals(18003, continued.getNumberOfTokens());
+    }
+
+    @Test
+    void readMalformed() throws Exception {
+        File file = new File(WALK_DIRECTORY, "malformed.vocab");
+        WALK_DIRECTORY.mkdirs();
+        Files.write(file.toPath(), "token notANumber\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> TokenFrequencyCounter.read(file));
+        file.delete();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        File[] files = WALK_DIRECTORY.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        WALK_DIRECTORY.delete();
+    }
+}
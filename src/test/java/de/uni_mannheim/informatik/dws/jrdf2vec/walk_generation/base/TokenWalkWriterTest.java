@@ -0,0 +1,85 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenWalkReader;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenWalkWriter;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenWalkWriterTest {
+
+
+    private static final File WALK_DIRECTORY = new File("./tokenWalkWriterTest");
+
+    @Test
+    void writeAndRead() throws Exception {
+        TokenWalkWriter writer = new TokenWalkWriter(WALK_DIRECTORY, "walk_file_0");
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            final int worker = t;
+            workers[t] = new Thread(() -> {
+                for (int entity = 0; entity < 500; entity++) {
+                    List<String> walks = new ArrayList<>();
+                    for (int walk = 0; walk < 3; walk++) {
+                        walks.add("e" + entity + " <http://example.org/p> w" + worker + " x" + walk);
+                    }
+                    writer.write(walks);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        writer.close();
+        assertEquals(2000, writer.getProcessedEntities());
+        assertEquals(6000, writer.getProcessedWalks());
+        assertTrue(writer.getVocabularyFile().exists());
+
+        // text view
+        Set<String> walks = new HashSet<>();
+        assertEquals(6000, TokenWalkReader.forEachTextWalk(writer.getWalkFile(), walks::add));
+        assertEquals(6000, walks.size());
+        assertTrue(walks.contains("e499 <http://example.org/p> w3 x2"));
+
+        // ID view: the vocabulary is dense
+        String[] vocabulary = TokenWalkReader.readVocabulary(writer.getWalkFile());
+        assertEquals(500 + 1 + 4 + 3, vocabulary.length);
+        assertEquals(writer.getVocabularySize(), vocabulary.length);
+        assertEquals(new HashSet<>(Arrays.asList(vocabulary)).size(), vocabulary.length);
+        TokenWalkReader.forEachWalk(writer.getWalkFile(), walk -> assertEquals(4, walk.length));
+
+        assertEquals(1, TokenWalkReader.getWalkFiles(WALK_DIRECTORY).size());
+    }
+
+    @Test
+    void notATokenWalkFile() throws Exception {
+        File file = new File(WALK_DIRECTORY, "broken.walks");
+        WALK_DIRECTORY.mkdirs();
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> TokenWalkReader.forEachWalk(file, walk -> {}));
+        file.delete();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        File[] files = WALK_DIRECTORY.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        WALK_DIRECTORY.delete();
+    }
+}
@@ -0,0 +1,76 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.WalkRingBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalkRingBufferTest {
+
+
+    @Test
+    void putAndTake() throws Exception {
+        // small capacity: the producers are blocked until the consumers take the walks
+        WalkRingBuffer buffer = new WalkRingBuffer(4);
+        Thread[] producers = new Thread[3];
+        for (int t = 0; t < producers.length; t++) {
+            final int producer = t;
+            producers[t] = new Thread(() -> {
+                for (int entity = 0; entity < 1000; entity++) {
+                    buffer.put(Collections.singletonList("p" + producer + " e" + entity));
+                }
+            });
+            producers[t].start();
+        }
+
+        Set<String> walks = Collections.synchronizedSet(new HashSet<>());
+        AtomicInteger numberOfWalks = new AtomicInteger(0);
+        Thread[] consumers = new Thread[2];
+        for (int t = 0; t < consumers.length; t++) {
+            consumers[t] = new Thread(() -> {
+                try {
+                    List<String> entityWalks;
+                    while ((entityWalks = buffer.take()) != null) {
+                        walks.addAll(entityWalks);
+                        numberOfWalks.addAndGet(entityWalks.size());
+                    }
+                } catch (InterruptedException e) {
+                    fail(e);
+                }
+            });
+            consumers[t].start();
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        buffer.close();
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+
+        assertEquals(3000, numberOfWalks.get());
+        assertEquals(3000, walks.size());
+        assertTrue(walks.contains("p2 e999"));
+        assertEquals(3000, buffer.getProcessedEntities());
+        assertEquals(3000, buffer.getProcessedWalks());
+
+        // closed and empty
+        assertNull(buffer.take());
+        assertTrue(buffer.isClosed());
+        buffer.put(Collections.singletonList("lost"));
+        assertEquals(3000, buffer.getProcessedEntities());
+    }
+
+    @Test
+    void invalidCapacity() {
+        assertEquals(WalkRingBuffer.DEFAULT_CAPACITY, new WalkRingBuffer(0).getCapacity());
+    }
+}
@@ -0,0 +1,76 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.AliasTable;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AliasTableTest {
+
+
+    @Test
+    void sample() {
+        // segment 0: weights 1, 2, 7; segment 1: empty; segment 2: a single edge
+        int[] offsets = {0, 3, 3, 4};
+        double[] weights = {1, 2, 7, 5};
+        AliasTable table = new AliasTable(offsets, i -> weights[i], 1);
+        assertEquals(3, table.getNumberOfSegments());
+        assertEquals(10.0, table.getTotalWeight(0), 1e-9);
+        assertEquals(0.0, table.getTotalWeight(1));
+        assertEquals(5.0, table.getTotalWeight(2), 1e-9);
+
+        Random random = new Random(42);
+        int[] counts = new int[3];
+        int draws = 100_000;
+        for (int i = 0; i < draws; i++) {
+            counts[table.sample(0, random)]++;
+        }
+        assertEquals(0.1, counts[0] / (double) draws, 0.01);
+        assertEquals(0.2, counts[1] / (double) draws, 0.01);
+        assertEquals(0.7, counts[2] / (double) draws, 0.01);
+
+        assertEquals(-1, table.sample(1, random));
+        assertEquals(0, table.sample(2, random));
+    }
+
+    @Test
+    void zeroWeights() {
+        int[] offsets = {0, 2, 4};
+        double[] weights = {0, 3, 0, 0};
+        AliasTable table = new AliasTable(offsets, i -> weights[i], 1);
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            // an edge with weight 0 is never drawn
+            assertEquals(1, table.sample(0, random));
+        }
+
+        // all weights 0: uniform
+        assertEquals(0.0, table.getTotalWeight(1));
+        int[] counts = new int[2];
+        for (int i = 0; i < 10_000; i++) {
+            counts[table.sample(1, random)]++;
+        }
+        assertEquals(0.5, counts[0] / 10_000.0, 0.05);
+    }
+
+    @Test
+    void parallelBuild() {
+        int numberOfSegments = 10_000;
+        int[] offsets = new int[numberOfSegments + 1];
+        for (int s = 0; s < numberOfSegments; s++) {
+            // skewed segment sizes
+            offsets[s + 1] = offsets[s] + (s % 100 == 0 ? 500 : s % 7);
+        }
+        AliasTable sequential = new AliasTable(offsets, i -> i % 13, 1);
+        AliasTable parallel = new AliasTable(offsets, i -> i % 13, 4);
+        Random random1 = new Random(7);
+        Random random2 = new Random(7);
+        for (int s = 0; s < numberOfSegments; s++) {
+            assertEquals(sequential.getTotalWeight(s), parallel.getTotalWeight(s));
+            assertEquals(sequential.sample(s, random1), parallel.sample(s, random2));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.EdgeWeighting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactQuotedTripleDataSetMemoryTest {
+
+
+    @Test
+    void addObjectTriple() {
+        CompactQuotedTripleDataSetMemory ds = new CompactQuotedTripleDataSetMemory();
+        ds.addObjectTriple("A", "B", "C");
+        ds.addObjectTriple("A", "B", "D");
+        ds.addObjectTriple("A", "B", "C"); // duplicate
+        ds.compact();
+
+        int a = ds.getId("A");
+        int c = ds.getId("C");
+        assertEquals(2, ds.getOutDegree(a));
+        assertEquals(0, ds.getInDegree(a));
+        assertEquals(1, ds.getInDegree(c));
+        assertEquals("A", ds.getTerm(ds.getInSubject(c, 0)));
+        assertEquals("B", ds.getTerm(ds.getInPredicate(c, 0)));
+        assertEquals(2, ds.getObjectTripleSize());
+
+        Set<String> objects = new HashSet<>();
+        for (int i = 0; i < ds.getOutDegree(a); i++) {
+            assertEquals("B", ds.getTerm(ds.getOutPredicate(a, i)));
+            objects.add(ds.getTerm(ds.getOutObject(a, i)));
+        }
+        assertTrue(objects.contains("C"));
+        assertTrue(objects.contains("D"));
+
+        // unknown nodes
+        assertEquals(CompactQuotedTripleDataSetMemory.NONE, ds.getId("X"));
+        assertEquals(0, ds.getOutDegree(ds.getId("X")));
+    }
+
+    @Test
+    void incrementalCompaction() {
+        CompactQuotedTripleDataSetMemory ds = new CompactQuotedTripleDataSetMemory();
+        ds.addObjectTriple("A", "B", "C");
+        ds.compact();
+        ds.addObjectTriple("C", "B", "D");
+        ds.addObjectTriple("A", "B", "E");
+        ds.ensureCompacted();
+        assertEquals(2, ds.getOutDegree(ds.getId("A")));
+        assertEquals(1, ds.getOutDegree(ds.getId("C")));
+        assertEquals(3, ds.getObjectTripleSize());
+
+        Set<String> entities = ds.getUniqueObjectTripleSubjectsAndObjects();
+        assertEquals(4, entities.size());
+        assertFalse(entities.contains("B"));
+    }
+
+    @Test
+    void quotedTriples() {
+        CompactQuotedTripleDataSetMemory ds = new CompactQuotedTripleDataSetMemory();
+        // << << A-p-B >> q C >> rdf:value "0.5"
+        String inner = "<<A-p-B>>";
+        String outer = "<<" + inner + "-q-C>>";
+        String annotation = "<<" + outer + "-rdf:value-\"0.5\">>";
+        ds.addObjectQuotedTriple(inner, "A", "p", "B");
+        ds.addObjectQuotedTriple(outer, inner, "q", "C");
+        ds.addObjectQuotedTriple(annotation, outer, "rdf:value", "\"0.5\"");
+        ds.addObjectTriple("A", "p", "B");
+        ds.addObjectTriple(inner, "q", "C");
+        ds.addObjectTriple("D", "r", outer);
+        ds.compact();
+
+        assertEquals(3, ds.getNumberOfQuotedTriples());
+        int innerId = ds.getId(inner);
+        int outerId = ds.getId(outer);
+        int annotationId = ds.getId(annotation);
+        assertTrue(ds.isQuotedTriple(innerId));
+        assertFalse(ds.isQuotedTriple(ds.getId("A")));
+
+        // structural lookup
+        assertEquals(innerId, ds.getQuotedTriple(ds.getId("A"), ds.getId("p"), ds.getId("B")));
+        assertEquals(outerId, ds.getQuotedTriple(innerId, ds.getId("q"), ds.getId("C")));
+        assertEquals(CompactQuotedTripleDataSetMemory.NONE,
+                ds.getQuotedTriple(ds.getId("B"), ds.getId("p"), ds.getId("A")));
+
+        // constituents
+        assertEquals("A", ds.getTerm(ds.getQuotedTripleSubject(innerId)));
+        assertEquals("p", ds.getTerm(ds.getQuotedTriplePredicate(innerId)));
+        assertEquals("B", ds.getTerm(ds.getQuotedTripleObject(innerId)));
+
+        // expand: the rdf:value annotation points to the annotated quoted triple
+        assertEquals(outerId, ds.expandQuotedTriple(annotationId));
+        assertEquals(innerId, ds.expandQuotedTriple(innerId));
+
+        // envelope: the quoted triple which uses the given one as subject
+        assertEquals(outerId, ds.envelopeQuotedTriple(innerId));
+        assertEquals(annotationId, ds.envelopeQuotedTriple(outerId));
+        assertEquals(annotationId, ds.envelopeQuotedTriple(annotationId));
+    }
+
+    @Test
+    void nestedValueAnnotations() {
+        CompactQuotedTripleDataSetMemory ds = new CompactQuotedTripleDataSetMemory();
+        String inner = "<<A-p-B>>";
+        String annotation1 = "<<" + inner + "-rdf:value-\"0.5\">>";
+        String annotation2 = "<<" + annotation1 + "-rdf:value-\"0.9\">>";
+        ds.addObjectQuotedTriple(inner, "A", "p", "B");
+        ds.addObjectQuotedTriple(annotation1, inner, "rdf:value", "\"0.5\"");
+        ds.addObjectQuotedTriple(annotation2, annotation1, "rdf:value", "\"0.9\"");
+        ds.addObjectTriple("D", "r", annotation2);
+        ds.compact();
+
+        int innerId = ds.getId(inner);
+        assertEquals(innerId, ds.expandQuotedTriple(ds.getId(annotation2)));
+        assertEquals(innerId, ds.expandQuotedTriple(ds.getId(annotation1)));
+        assertEquals(ds.getId(annotation1), ds.envelopeQuotedTriple(ds.getId(annotation1)));
+    }
+
+    @Test
+    void getQuotedTripleByTerms() {
+        CompactQuotedTripleDataSetMemory ds = new CompactQuotedTripleDataSetMemory();
+        for (int i = 0; i < 100; i++) {
+            ds.addObjectQuotedTriple("<<S" + i + "-p-O" + i + ">>", "S" + i, "p", "O" + i);
+        }
+
+        // the lookup works before compaction
+        int node = ds.getQuotedTriple("S42", "p", "O42");
+        assertEquals("<<S42-p-O42>>", ds.getTerm(node));
+        assertEquals(CompactQuotedTripleDataSetMemory.NONE, ds.getQuotedTriple("O42", "p", "S42"));
+        assertEquals(CompactQuotedTripleDataSetMemory.NONE, ds.getQuotedTriple("X", "p", "O42"));
+
+        ds.compact();
+        assertEquals(node, ds.getQuotedTriple(ds.getId("S42"), ds.getId("p"), ds.getId("O42")));
+    }
+
+    @Test
+    void isLinked() {
+        CompactQuotedTripleDataSetMemory ds = new CompactQuotedTripleDataSetMemory();
+        for (int i = 0; i < 50; i++) {
+            ds.addObjectTriple("S" + i, "p", "O");
+        }
+        ds.addObjectTriple("S7", "q", "O");
+        ds.addObjectTriple("O", "p", "<<S1-p-O>>");
+        ds.compact();
+        int o = ds.getId("O");
+        assertTrue(ds.isLinked(ds.getId("S0"), o));
+        assertTrue(ds.isLinked(ds.getId("S7"), o));
+        assertTrue(ds.isLinked(ds.getId("S49"), o));
+        assertFalse(ds.isLinked(o, ds.getId("S7")));
+        assertTrue(ds.isLinked(o, ds.getId("<<S1-p-O>>")));
+        assertFalse(ds.isLinked(CompactQuotedTripleDataSetMemory.NONE, o));
+    }
+
+    @Test
+    void weightedSampling() {
+        CompactQuotedTripleDataSetMemory ds = new CompactQuotedTripleDataSetMemory();
+        ds.addObjectTriple("A", "rare", "B");
+        for (int i = 0; i < 9; i++) {
+            ds.addObjectTriple("A", "frequent", "C" + i);
+        }
+        ds.compact();
+        int a = ds.getId("A");
+        int b = ds.getId("B");
+        Random random = new Random(42);
+
+        // uniform by default
+        assertEquals(EdgeWeighting.UNIFORM, ds.getEdgeWeighting());
+        assertEquals(10.0, ds.getOutWeight(a));
+        assertEquals(-1, ds.sampleInEdge(a, random));
+
+        ds.buildAliasTables(EdgeWeighting.INVERSE_PREDICATE_FREQUENCY, 2);
+        assertEquals(2.0, ds.getOutWeight(a), 1e-9);
+        int rare = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (ds.getOutObject(a, ds.sampleOutEdge(a, random)) == b) rare++;
+        }
+        // weight 1 vs. 9 * 1/9
+        assertEquals(0.5, rare / 10_000.0, 0.05);
+
+        ds.buildAliasTables(EdgeWeighting.PREDICATE_FREQUENCY, 2);
+        assertEquals(1.0 + 9 * 9, ds.getOutWeight(a), 1e-9);
+        assertEquals(0, ds.sampleInEdge(b, random));
+
+        // the tables are rebuilt on compaction
+        ds.addObjectTriple("D", "rare", "A");
+        ds.compact();
+        assertEquals(2.0, ds.getInWeight(a), 1e-9);
+        assertEquals(0, ds.sampleInEdge(a, random));
+
+        ds.buildAliasTables(EdgeWeighting.UNIFORM, 1);
+        assertEquals(10.0, ds.getOutWeight(a));
+    }
+}
@@ -0,0 +1,146 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.GraphSnapshot;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TripleDataSetMemory;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphSnapshotTest {
+
+
+    private static final File SNAPSHOT_FILE = new File("./graphSnapshotTest" + GraphSnapshot.FILE_ENDING);
+
+    private static final File SOURCE_FILE = new File("./graphSnapshotTest.nt");
+
+    @AfterAll
+    static void cleanUp() {
+        SNAPSHOT_FILE.delete();
+        SOURCE_FILE.delete();
+    }
+
+    @Test
+    void compactRoundTrip() throws IOException {
+        CompactQuotedTripleDataSetMemory ds = new CompactQuotedTripleDataSetMemory();
+        String inner = "<<A-p-B>>";
+        String annotation = "<<" + inner + "-rdf:value-\"0.5\">>";
+        ds.addObjectQuotedTriple(inner, "A", "p", "B");
+        ds.addObjectQuotedTriple(annotation, inner, "rdf:value", "\"0.5\"");
+        ds.addObjectTriple("A", "p", "B");
+        ds.addObjectTriple("D", "r", annotation);
+        ds.addObjectTriple("D", "r", "Ä€");
+
+        GraphSnapshot.write(ds, true, SNAPSHOT_FILE, null, 0L);
+        assertTrue(GraphSnapshot.readHeader(SNAPSHOT_FILE).isRdfStar());
+        assertEquals(GraphSnapshot.VERSION, GraphSnapshot.readHeader(SNAPSHOT_FILE).getVersion());
+
+        CompactQuotedTripleDataSetMemory read = GraphSnapshot.read(SNAPSHOT_FILE);
+        assertEquals(ds.getDictionary().size(), read.getDictionary().size());
+        assertEquals(3, read.getObjectTripleSize());
+        assertEquals(2, read.getNumberOfQuotedTriples());
+        int d = read.getId("D");
+        assertEquals(2, read.getOutDegree(d));
+        assertEquals(1, read.getInDegree(read.getId("Ä€")));
+        int innerId = read.getId(inner);
+        assertTrue(read.isQuotedTriple(innerId));
+        assertEquals(innerId, read.getQuotedTriple("A", "p", "B"));
+        assertEquals(innerId, read.expandQuotedTriple(read.getId(annotation)));
+        assertEquals(ds.getUniqueObjectTripleSubjectsAndObjects(), read.getUniqueObjectTripleSubjectsAndObjects());
+
+        // the store can be extended after reading
+        read.addObjectTriple("D", "r", "E");
+        read.compact();
+        assertEquals(3, read.getOutDegree(read.getId("D")));
+        // the stored term ranks keep the neighbours in lexicographic order
+        assertEquals(annotation, read.getTerm(read.getOutObject(d, 0)));
+        assertEquals("E", read.getTerm(read.getOutObject(d, 1)));
+        assertEquals("Ä€", read.getTerm(read.getOutObject(d, 2)));
+    }
+
+    @Test
+    void termRanksAreRead() throws IOException {
+        CompactQuotedTripleDataSetMemory ds = new CompactQuotedTripleDataSetMemory();
+        // the subjects are added in another order than the lexicographic one
+        for (int i = 9; i >= 0; i--) {
+            ds.addObjectTriple("S" + i, "p", "O");
+        }
+        GraphSnapshot.write(ds, false, SNAPSHOT_FILE, null, 0L);
+        CompactQuotedTripleDataSetMemory read = GraphSnapshot.read(SNAPSHOT_FILE);
+        int o = read.getId("O");
+        for (int i = 0; i < 10; i++) {
+            assertEquals("S" + i, read.getTerm(read.getInSubject(o, i)));
+            assertTrue(read.isLinked(read.getId("S" + i), o));
+            assertFalse(read.isLinked(o, read.getId("S" + i)));
+        }
+    }
+
+    @Test
+    void stringStoreRoundTrip() throws IOException {
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        ds.addObjectTriple("A", "p", "B");
+        ds.addObjectTriple("B", "p", "C");
+        ds.addObjectTriple("A", "q", "C");
+        GraphSnapshot.write(ds, SNAPSHOT_FILE, null, 0L);
+        assertFalse(GraphSnapshot.readHeader(SNAPSHOT_FILE).isRdfStar());
+
+        TripleDataSetMemory read = new TripleDataSetMemory();
+        GraphSnapshot.readInto(SNAPSHOT_FILE, read);
+        assertEquals(ds.getAllObjectTriples(), read.getAllObjectTriples());
+        assertEquals(2, read.getOutDegree("A"));
+        assertEquals(2, read.getInDegree("C"));
+
+        QuotedTripleDataSetMemory qds = new QuotedTripleDataSetMemory();
+        qds.addObjectQuotedTriple("<<A-p-B>>", "A", "p", "B");
+        qds.addDatatypeQuotedTriple("<<A-q-\"1\">>", "A", "q", "\"1\"");
+        qds.addObjectTriple("D", "r", "<<A-p-B>>");
+        GraphSnapshot.write(qds, SNAPSHOT_FILE, null, 0L);
+
+        QuotedTripleDataSetMemory qread = new QuotedTripleDataSetMemory();
+        GraphSnapshot.readInto(SNAPSHOT_FILE, qread);
+        assertEquals("<<A-p-B>>", qread.getQuotedTriple("A", "p", "B").qt);
+        assertEquals(1, qread.getOutDegree("D"));
+        // the datatype quoted triple keeps its kind
+        assertEquals("<<A-q-\"1\">>", qread.getQuotedTriple("A", "q", "\"1\"").qt);
+        assertEquals(1, qread.getDatatypeTripleSize());
+    }
+
+    @Test
+    void isUpToDate() throws IOException {
+        try (FileWriter writer = new FileWriter(SOURCE_FILE)) {
+            writer.write("<A> <p> <B> .\n");
+        }
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        ds.addObjectTriple("A", "p", "B");
+        GraphSnapshot.write(ds, SNAPSHOT_FILE, SOURCE_FILE, 42L);
+        assertTrue(GraphSnapshot.isUpToDate(SNAPSHOT_FILE, SOURCE_FILE, 42L));
+        assertEquals(42L, GraphSnapshot.readHeader(SNAPSHOT_FILE).getParserSettings());
+
+        // other parser settings (e.g. other prefixes)
+        assertFalse(GraphSnapshot.isUpToDate(SNAPSHOT_FILE, SOURCE_FILE, 43L));
+
+        // the source changed
+        try (FileWriter writer = new FileWriter(SOURCE_FILE, true)) {
+            writer.write("<B> <p> <C> .\n");
+        }
+        assertFalse(GraphSnapshot.isUpToDate(SNAPSHOT_FILE, SOURCE_FILE, 42L));
+
+        // an existing snapshot is replaced, no temporary file is left behind
+        GraphSnapshot.write(ds, SNAPSHOT_FILE, SOURCE_FILE, 42L);
+        assertTrue(GraphSnapshot.isUpToDate(SNAPSHOT_FILE, SOURCE_FILE, 42L));
+        File[] temporaryFiles = SNAPSHOT_FILE.getAbsoluteFile().getParentFile()
+                .listFiles((directory, name) -> name.startsWith(SNAPSHOT_FILE.getName()) && name.endsWith(".tmp"));
+        assertEquals(0, temporaryFiles.length);
+
+        // no snapshot file
+        assertFalse(GraphSnapshot.isUpToDate(new File("./doesNotExist" + GraphSnapshot.FILE_ENDING), SOURCE_FILE, 42L));
+        assertThrows(IOException.class, () -> GraphSnapshot.readHeader(SOURCE_FILE));
+    }
+}
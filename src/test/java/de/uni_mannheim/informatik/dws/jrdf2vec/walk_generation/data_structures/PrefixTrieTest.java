@@ -0,0 +1,41 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.PrefixTrie;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTrieTest {
+
+
+    @Test
+    void shorten() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.put("http://kgc.knowledge-graph.jp/data/", "kd:");
+        trie.put("http://kgc.knowledge-graph.jp/data/SpeckledBand/", "sb:");
+        trie.put("http://www.w3.org/2001/XMLSchema#", "xsd:");
+        assertEquals(3, trie.size());
+
+        // longest namespace wins
+        assertEquals("sb:Holmes", trie.shorten("http://kgc.knowledge-graph.jp/data/SpeckledBand/Holmes"));
+        assertEquals("kd:DancingMen/Holmes", trie.shorten("http://kgc.knowledge-graph.jp/data/DancingMen/Holmes"));
+
+        // no match: same instance
+        String term = "http://example.org/A";
+        assertSame(term, trie.shorten(term));
+        assertSame("_:b0", trie.shorten("_:b0"));
+
+        // match at a position
+        assertEquals("\"0.5\"^^<xsd:double>", trie.shorten("\"0.5\"^^<http://www.w3.org/2001/XMLSchema#double>", 8));
+
+        // replace a label
+        trie.put("http://kgc.knowledge-graph.jp/data/", "data:");
+        assertEquals(3, trie.size());
+        assertEquals("data:", trie.get("http://kgc.knowledge-graph.jp/data/"));
+        assertNull(trie.get("http://kgc.knowledge-graph.jp/"));
+        assertEquals("data:X", trie.shorten("http://kgc.knowledge-graph.jp/data/X"));
+        assertEquals(3, trie.toMap().size());
+        assertEquals("xsd:", trie.toMap().get("http://www.w3.org/2001/XMLSchema#"));
+    }
+}
@@ -0,0 +1,112 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTriple;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.Triple;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotedTripleDataSetMemoryTest {
+
+
+    @Test
+    void envelopeQuotedTriple() {
+        QuotedTripleDataSetMemory ds = new QuotedTripleDataSetMemory();
+        String inner = "<<A-p-B>>";
+        String outer = "<<" + inner + "-q-C>>";
+        ds.addObjectQuotedTriple(inner, "A", "p", "B");
+        ds.addObjectQuotedTriple("<<" + inner + "-r-D>>", inner, "r", "D");
+        ds.addObjectQuotedTriple(outer, inner, "q", "C");
+
+        QuotedTriple innerQt = ds.getQuotedTriples().get(inner);
+        QuotedTriple outerQt = ds.getQuotedTriples().get(outer);
+
+        // the enclosing quoted triple with the smallest node is returned, independently of the order of addition
+        assertEquals(outerQt, ds.getEnclosingQuotedTriple(inner));
+        assertEquals(outer, ds.envelopeQuotedTriple(innerQt).qt);
+
+        // no enclosing quoted triple
+        assertNull(ds.getEnclosingQuotedTriple(outer));
+        assertSame(outerQt, ds.envelopeQuotedTriple(outerQt));
+        assertNull(ds.getEnclosingQuotedTriple("A"));
+    }
+
+    @Test
+    void expandQuotedTriple() {
+        QuotedTripleDataSetMemory ds = new QuotedTripleDataSetMemory();
+        String inner = "<<A-p-B>>";
+        String annotation1 = "<<" + inner + "-rdf:value-\"0.5\">>";
+        String annotation2 = "<<" + annotation1 + "-rdf:value-\"0.9\">>";
+        ds.addObjectQuotedTriple(inner, "A", "p", "B");
+        ds.addObjectQuotedTriple(annotation1, inner, "rdf:value", "\"0.5\"");
+        ds.addObjectQuotedTriple(annotation2, annotation1, "rdf:value", "\"0.9\"");
+
+        QuotedTriple innerQt = ds.getQuotedTriples().get(inner);
+        QuotedTriple annotation1Qt = ds.getQuotedTriples().get(annotation1);
+        QuotedTriple annotation2Qt = ds.getQuotedTriples().get(annotation2);
+
+        assertTrue(QuotedTripleDataSetMemory.isValueAnnotation(annotation1Qt));
+        assertFalse(QuotedTripleDataSetMemory.isValueAnnotation(innerQt));
+
+        // nested annotations are resolved completely
+        assertSame(innerQt, ds.expandQuotedTriple(annotation1Qt));
+        assertSame(innerQt, ds.expandQuotedTriple(annotation2Qt));
+        assertSame(innerQt, ds.expandQuotedTriple(innerQt));
+
+        // value annotations are not enveloped
+        assertSame(annotation1Qt, ds.envelopeQuotedTriple(annotation1Qt));
+        assertSame(annotation1Qt, ds.envelopeQuotedTriple(innerQt));
+    }
+
+    @Test
+    void getQuotedTriple() {
+        QuotedTripleDataSetMemory ds = new QuotedTripleDataSetMemory();
+        ds.addObjectQuotedTriple("<<A-p-B>>", "A", "p", "B");
+        ds.addDatatypeQuotedTriple("<<A-q-\"1\">>", "A", "q", "\"1\"");
+        // trigger growth of the structural index
+        for (int i = 0; i < 100; i++) {
+            ds.addObjectQuotedTriple("<<S" + i + "-p-O" + i + ">>", "S" + i, "p", "O" + i);
+        }
+
+        assertEquals("<<A-p-B>>", ds.getQuotedTriple("A", "p", "B").qt);
+        assertEquals("<<A-q-\"1\">>", ds.getQuotedTriple("A", "q", "\"1\"").qt);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("<<S" + i + "-p-O" + i + ">>", ds.getQuotedTriple("S" + i, "p", "O" + i).qt);
+        }
+        assertNull(ds.getQuotedTriple("B", "p", "A"));
+        assertNull(ds.getQuotedTriple("A", "p", "C"));
+    }
+
+    @Test
+    void concurrentBuild() throws Exception {
+        QuotedTripleDataSetMemory ds = new QuotedTripleDataSetMemory();
+        ds.beginConcurrentBuild();
+        // nested builds are merged by the outermost finish
+        ds.beginConcurrentBuild();
+        Thread[] threads = new Thread[3];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    String qt = "<<S" + i + "-p-O" + i + ">>";
+                    ds.addAll(Collections.singletonList(new QuotedTriple(qt, "S" + i, "p", "O" + i)),
+                            Collections.singletonList(new Triple("D", "r", qt)));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(ds.finishConcurrentBuild().isEmpty());
+        assertEquals(0, ds.getObjectTripleSize());
+
+        assertEquals(3, ds.finishConcurrentBuild().size());
+        assertEquals(100, ds.getQuotedTriples().size());
+        assertEquals(100, ds.getOutDegree("D"));
+        assertEquals("<<S7-p-O7>>", ds.getQuotedTriple("S7", "p", "O7").qt);
+    }
+}
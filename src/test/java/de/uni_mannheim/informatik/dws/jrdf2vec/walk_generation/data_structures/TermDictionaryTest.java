@@ -0,0 +1,132 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TermDictionary;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermDictionaryTest {
+
+
+    @Test
+    void getOrAddId() {
+        TermDictionary dictionary = new TermDictionary();
+        assertEquals(0, dictionary.getOrAddId("http://example.org/A"));
+        assertEquals(1, dictionary.getOrAddId("http://example.org/B"));
+        assertEquals(0, dictionary.getOrAddId("http://example.org/A"));
+        assertEquals(2, dictionary.size());
+        assertEquals(1, dictionary.getId("http://example.org/B"));
+        assertEquals(TermDictionary.UNKNOWN, dictionary.getId("http://example.org/C"));
+        assertEquals(TermDictionary.UNKNOWN, dictionary.getId(null));
+        assertEquals("http://example.org/B", dictionary.getTerm(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.getTerm(2));
+    }
+
+    @Test
+    void frontCoding() {
+        TermDictionary dictionary = new TermDictionary(10);
+        List<String> terms = new ArrayList<>();
+        terms.add("");
+        terms.add("<<kgc:A-kgc:p-\"Ä€ 日本\"@ja>>");
+        for (int i = 0; i < 100_000; i++) {
+            // shared prefixes, shorter and longer successors
+            terms.add("http://kgc.knowledge-graph.jp/data/SpeckledBand/" + (i % 3 == 0 ? i : i * 31) + (i % 7 == 0 ? "#x" : ""));
+        }
+        StringBuilder longTerm = new StringBuilder();
+        for (int i = 0; i < 1_000_000; i++) {
+            longTerm.append((char) ('a' + i % 26));
+        }
+        // longer than a page
+        terms.add(longTerm.toString() + longTerm + longTerm + longTerm + longTerm);
+        terms.add("http://example.org/after_the_long_term");
+        long numberOfRawBytes = 0;
+        for (String term : terms) {
+            dictionary.getOrAddId(term);
+            numberOfRawBytes += term.getBytes(StandardCharsets.UTF_8).length;
+        }
+        assertEquals(terms.size(), dictionary.size());
+        for (int i = 0; i < terms.size(); i++) {
+            assertEquals(terms.get(i), dictionary.getTerm(i));
+            assertEquals(i, dictionary.getId(terms.get(i)));
+        }
+        // the IRIs share long prefixes
+        assertTrue(dictionary.getNumberOfBytes() < numberOfRawBytes * 3 / 4);
+    }
+
+    @Test
+    void concurrentAdds() throws InterruptedException {
+        TermDictionary dictionary = new TermDictionary();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int id = dictionary.getOrAddId("http://example.org/" + i);
+                    assertEquals(id, dictionary.getId("http://example.org/" + i));
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(20_000, dictionary.size());
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals("http://example.org/" + i, dictionary.getTerm(dictionary.getId("http://example.org/" + i)));
+        }
+    }
+
+    @Test
+    void sortTerms() {
+        TermDictionary dictionary = new TermDictionary();
+        List<String> terms = new ArrayList<>();
+        Random random = new Random(7);
+        addRandomTerms(dictionary, terms, random);
+        int[] termsByRank = assertSorted(dictionary, terms, new int[0]);
+
+        // with the ranks of the previous call, only the new terms are sorted and merged in
+        int[] ranks = new int[termsByRank.length];
+        for (int rank = 0; rank < termsByRank.length; rank++) {
+            ranks[termsByRank[rank]] = rank;
+        }
+        addRandomTerms(dictionary, terms, random);
+        assertSorted(dictionary, terms, ranks);
+    }
+
+    private static void addRandomTerms(TermDictionary dictionary, List<String> terms, Random random) {
+        // characters whose UTF-8 byte order differs from the UTF-16 order of String#compareTo
+        String[] characters = {"a", "b", "\u00C4", "\uE000", "\uFFFD", "\uD83D\uDE00", "\uD800\uDC00"};
+        for (int i = 0; i < 10_000; i++) {
+            StringBuilder term = new StringBuilder("http://example.org/");
+            for (int j = random.nextInt(4); j >= 0; j--) {
+                term.append(characters[random.nextInt(characters.length)]);
+            }
+            String string = term.append(random.nextInt(1000)).toString();
+            if (dictionary.getOrAddId(string) == terms.size()) {
+                terms.add(string);
+            }
+        }
+    }
+
+    /**
+     * Check {@link TermDictionary#sortTerms(int[])} against the order of {@link String#compareTo(String)}.
+     *
+     * @return The result of the dictionary.
+     */
+    private static int[] assertSorted(TermDictionary dictionary, List<String> terms, int[] ranks) {
+        List<String> expected = new ArrayList<>(terms);
+        expected.sort(null);
+        int[] termsByRank = dictionary.sortTerms(ranks);
+        assertEquals(expected.size(), termsByRank.length);
+        for (int rank = 0; rank < termsByRank.length; rank++) {
+            assertEquals(expected.get(rank), dictionary.getTerm(termsByRank[rank]), "Rank " + rank);
+        }
+        return termsByRank;
+    }
+}
@@ -1,6 +1,7 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
 
 import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.EdgeWeighting;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.Triple;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TripleDataSetMemory;
 
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -206,6 +208,134 @@ class TripleDataSetMemoryTest {
         assertEquals(1, ds.getObjectTripleSize());
     }
 
+    @Test
+    void neighbourView(){
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        ds.addObjectTriple("A", "B", "C");
+        ds.addObjectTriple("A", "B", "D");
+        ds.addObjectTriple("A", "E", "D");
+        assertEquals(3, ds.getOutDegree("A"));
+        assertEquals(0, ds.getInDegree("A"));
+        assertEquals(2, ds.getInDegree("D"));
+        assertEquals(0, ds.getOutDegree("X"));
+        assertEquals(0, ds.getOutDegree(null));
+
+        Set<Triple> triples = new HashSet<>();
+        for (int i = 0; i < ds.getOutDegree("A"); i++) {
+            triples.add(ds.getOutTriple("A", i));
+        }
+        assertEquals(3, triples.size());
+        assertTrue(triples.contains(new Triple("A", "E", "D")));
+        assertEquals("A", ds.getInTriple("C", 0).subject);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(triples.contains(ds.sampleNeighbour("A", random)));
+            assertEquals("D", ds.samplePredecessor("D", random).object);
+        }
+        assertNull(ds.sampleNeighbour("C", random));
+        assertNull(ds.samplePredecessor("A", random));
+
+        // the view must reflect changes (it is rebuilt explicitly or, else, on the next access)
+        ds.addObjectTriple("A", "F", "G");
+        ds.ensureNeighbourIndex();
+        assertEquals(4, ds.getOutDegree("A"));
+        ds.removeObjectTriple(new Triple("A", "B", "C"));
+        assertEquals(3, ds.getOutDegree("A"));
+        assertEquals(0, ds.getInDegree("C"));
+    }
+
+    @Test
+    void isLinked(){
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        ds.addObjectTriple("A", "B", "C");
+        ds.addObjectTriple("A", "D", "E");
+        ds.addObjectTriple("F", "D", "C");
+        assertTrue(ds.isLinked("A", "C"));
+        assertTrue(ds.isLinked("A", "E"));
+        assertFalse(ds.isLinked("C", "A"));
+        assertFalse(ds.isLinked("F", "E"));
+        assertFalse(ds.isLinked("X", "C"));
+        assertFalse(ds.isLinked(null, "C"));
+    }
+
+    @Test
+    void weightedNeighbourView(){
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        ds.addObjectTriple("A", "B", "Hub");
+        ds.addObjectTriple("A", "B", "Leaf");
+        for (int i = 0; i < 8; i++) {
+            ds.addObjectTriple("Hub", "B", "X" + i);
+        }
+        Random random = new Random(42);
+
+        // uniform by default
+        assertEquals(2.0, ds.getOutWeight("A"));
+        assertNotNull(ds.sampleWeightedNeighbour("A", random));
+
+        ds.buildAliasTables(EdgeWeighting.DEGREE, 2);
+        assertEquals(EdgeWeighting.DEGREE, ds.getEdgeWeighting());
+        // degree of Hub: 9, degree of Leaf: 1
+        assertEquals(10.0, ds.getOutWeight("A"), 1e-9);
+        int hub = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (ds.sampleWeightedNeighbour("A", random).object.equals("Hub")) hub++;
+        }
+        assertEquals(0.9, hub / 10_000.0, 0.02);
+        assertEquals("A", ds.sampleWeightedPredecessor("Hub", random).subject);
+        assertNull(ds.sampleWeightedNeighbour("Leaf", random));
+        assertNull(ds.sampleWeightedPredecessor("A", random));
+        assertEquals(0.0, ds.getInWeight("A"));
+
+        // the tables are rebuilt after changes
+        ds.addObjectTriple("Leaf", "B", "Y");
+        ds.ensureNeighbourIndex();
+        assertEquals(11.0, ds.getOutWeight("A"), 1e-9);
+        assertEquals("Y", ds.sampleWeightedNeighbour("Leaf", random).object);
+
+        ds.buildAliasTables(EdgeWeighting.UNIFORM, 1);
+        assertEquals(2.0, ds.getOutWeight("A"));
+    }
+
+    @Test
+    void concurrentBuild() throws Exception {
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        ds.addObjectTriple("S0", "P", "O0");
+        ds.beginConcurrentBuild();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    // every triple is added by two threads
+                    int j = (i + offset * 500) % 2000;
+                    ds.addObjectTriple("S" + j % 100, "P", "O" + j);
+                }
+                ds.addDatatypeTriple("S0", "label", "thread " + offset);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // not yet visible
+        assertEquals(1, ds.getObjectTripleSize());
+
+        Map<String, Double> throughput = ds.finishConcurrentBuild();
+        assertEquals(4, throughput.size());
+        assertEquals(2000, ds.getObjectTripleSize());
+        assertEquals(20, ds.getOutDegree("S0"));
+        assertEquals(1, ds.getInDegree("O0"));
+        assertEquals(2000, ds.getObjectTriplesInvolvingPredicate("P").size());
+        assertEquals(4, ds.getDatatypeTuplesForSubject("S0").get("label").size());
+        assertTrue(ds.getObjectNodes().contains("O1999"));
+
+        // back to the regular mode
+        ds.addObjectTriple("S0", "P", "X");
+        assertEquals(21, ds.getOutDegree("S0"));
+    }
+
     @Test
     void parseNtFile(){
         File readFile = Util.loadFile("ntParseExample.nt");
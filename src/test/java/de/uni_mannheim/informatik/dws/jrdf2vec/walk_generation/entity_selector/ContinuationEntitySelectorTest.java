@@ -3,6 +3,7 @@ package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.ContinuationEntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.MemoryEntitySelector;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.StreamingEntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators.NtMemoryWalkGenerator;
 
 import org.apache.commons.io.FileUtils;
@@ -15,6 +16,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,11 +33,13 @@ class ContinuationEntitySelectorTest {
     @BeforeAll
     static void setup(){
         deleteDirectory("./new_walk_directory_continuation");
+        deleteDirectory("./new_walk_directory_continuation_streaming");
     }
 
     @AfterAll
     static void tearDown(){
         deleteDirectory("./new_walk_directory_continuation");
+        deleteDirectory("./new_walk_directory_continuation_streaming");
     }
 
     private static void deleteDirectory(String directoryPath){
@@ -67,6 +75,37 @@ class ContinuationEntitySelectorTest {
         assertEquals(1, newWalkDirectory.listFiles().length);
     }
 
+    @Test
+    void getEntityIterator() {
+        File existingWalkDirectory = Util.loadFile("existing_walk_directory");
+        assertTrue(existingWalkDirectory != null && existingWalkDirectory.exists());
+        File newWalkDirectory = new File("./new_walk_directory_continuation_streaming");
+
+        List<String> allEntities = Arrays.asList("http://www.co-ode.org/ontologies/pizza/pizza.owl#CheeseyPizza",
+                "http://www.co-ode.org/ontologies/pizza/pizza.owl#America",
+                "http://www.co-ode.org/ontologies/pizza/pizza.owl#MeatTopping");
+        StreamingEntitySelector streamingSelector = new StreamingEntitySelector() {
+            @Override
+            public Iterator<String> getEntityIterator() {
+                return allEntities.iterator();
+            }
+
+            @Override
+            public Set<String> getEntities() {
+                fail("The entities of a streaming selector must not be materialized.");
+                return null;
+            }
+        };
+        ContinuationEntitySelector selector = new ContinuationEntitySelector(existingWalkDirectory, newWalkDirectory,
+                streamingSelector);
+
+        List<String> entities = new ArrayList<>();
+        selector.getEntityIterator().forEachRemaining(entities::add);
+        assertEquals(Collections.singletonList("http://www.co-ode.org/ontologies/pizza/pizza.owl#CheeseyPizza"),
+                entities);
+        assertEquals(1, newWalkDirectory.listFiles().length);
+    }
+
     @Test
     void getEntitiesFailure() {
         File ntFile = Util.loadFile("pizza.owl.nt");
@@ -0,0 +1,90 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.CompactQuotedTripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.QuotedTripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.TripleDataSetMemory;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.EntitySelector;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.MemoryEntitySelector;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.MemoryStarEntitySelector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryEntitySelectorTest {
+
+
+    @Test
+    void getEntitySpliterator() {
+        TripleDataSetMemory data = new TripleDataSetMemory();
+        for (int i = 0; i < 100; i++) {
+            data.addObjectTriple("S" + i, "P", "O" + (i % 10));
+            data.addObjectTriple("O" + (i % 10), "P", "S" + ((i + 1) % 100));
+        }
+        data.addDatatypeTriple("D", "P", "literal");
+        data.addDatatypeTriple("S0", "P", "literal");
+
+        MemoryEntitySelector selector = new MemoryEntitySelector(data);
+        Set<String> entities = selector.getEntities();
+        assertEquals(111, entities.size());
+        assertTrue(entities.contains("D"));
+        assertFalse(entities.contains("P"));
+        assertFalse(entities.contains("literal"));
+
+        // the size estimate is an upper bound; every entity is returned once (also after splitting)
+        Spliterator<String> spliterator = selector.getEntitySpliterator();
+        assertTrue(spliterator.estimateSize() >= entities.size());
+        assertEquals(entities, consume(spliterator, entities.size()));
+    }
+
+    @Test
+    void getEntitySpliteratorStar() {
+        QuotedTripleDataSetMemory data = new QuotedTripleDataSetMemory();
+        CompactQuotedTripleDataSetMemory compactData = new CompactQuotedTripleDataSetMemory();
+        for (int i = 0; i < 100; i++) {
+            data.addObjectTriple("S" + i, "P", "O" + (i % 10));
+            compactData.addObjectTriple("S" + i, "P", "O" + (i % 10));
+        }
+
+        EntitySelector selector = new MemoryStarEntitySelector(data);
+        Set<String> entities = selector.getEntities();
+        assertEquals(110, entities.size());
+        assertEquals(entities, consume(selector.getEntitySpliterator(), entities.size()));
+
+        EntitySelector compactSelector = new MemoryStarEntitySelector(compactData);
+        assertEquals(entities, compactSelector.getEntities());
+        Spliterator<String> spliterator = compactSelector.getEntitySpliterator();
+        assertEquals(111, spliterator.estimateSize()); // all node IDs including the predicate
+        assertEquals(entities, consume(spliterator, entities.size()));
+    }
+
+    /**
+     * Split the spliterator into parts and consume all of them.
+     * @param spliterator The spliterator to be consumed.
+     * @param expectedCount The expected number of elements (every element is expected once).
+     * @return The elements.
+     */
+    private static Set<String> consume(Spliterator<String> spliterator, int expectedCount) {
+        List<Spliterator<String>> parts = new ArrayList<>();
+        parts.add(spliterator);
+        for (int i = 0; i < parts.size() && parts.size() < 8; i++) {
+            Spliterator<String> prefix = parts.get(i).trySplit();
+            if (prefix != null) {
+                parts.add(prefix);
+                i--;
+            }
+        }
+        assertTrue(parts.size() > 1, "The spliterator could not be split.");
+        List<String> elements = new ArrayList<>();
+        for (Spliterator<String> part : parts) {
+            part.forEachRemaining(elements::add);
+        }
+        assertEquals(expectedCount, elements.size());
+        return new HashSet<>(elements);
+    }
+}
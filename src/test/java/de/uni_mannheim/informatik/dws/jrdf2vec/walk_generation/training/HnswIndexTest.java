@@ -0,0 +1,104 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.training;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.nearest_neighbors.HnswIndex;
+import jp.go.aist.airc.dkirt.rdfstar2vec.nearest_neighbors.RecallEvaluation;
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.VectorStore;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+
+
+    private static final File DIRECTORY = new File("./hnswIndexTest");
+
+    @Test
+    void buildQueryAndReload() throws Exception {
+        File vectorFile = writeRandomVectors("vectors.txt", 3000, 16);
+        VectorStore store = VectorStore.open(vectorFile);
+        File indexFile = HnswIndex.getIndexFile(vectorFile);
+        HnswIndex index = HnswIndex.build(store, indexFile, 8, 100, 4);
+        assertEquals(3000, index.size());
+        assertTrue(indexFile.exists());
+
+        RecallEvaluation evaluation = new RecallEvaluation(index, 10, 50, 42);
+        assertEquals(50, evaluation.getQueries().size());
+        assertTrue(evaluation.evaluate(100).getValue0() >= 0.9);
+        assertTrue(evaluation.getReport(10, 100).contains("brute force"));
+
+        // the concept itself is not part of the result; the similarities are descending
+        List<Pair<String, Double>> nearest = index.getNearest("e7", 10);
+        assertEquals(10, nearest.size());
+        for (int i = 0; i < nearest.size(); i++) {
+            assertNotEquals("e7", nearest.get(i).getValue0());
+            if (i > 0) assertTrue(nearest.get(i - 1).getValue1() >= nearest.get(i).getValue1());
+        }
+        assertEquals(index.getNearestExact("e7", 10).get(0).getValue1(), nearest.get(0).getValue1(), 1e-5);
+        assertNull(index.getNearest("unknown", 10));
+
+        // a vector query finds the concept itself
+        assertEquals("e7", index.getNearest(store.getVector("e7"), 1).get(0).getValue0());
+
+        // the reloaded index gives the same results
+        HnswIndex reloaded = HnswIndex.load(store, indexFile);
+        assertEquals(index.size(), reloaded.size());
+        assertEquals(index.getMaxLevel(), reloaded.getMaxLevel());
+        for (String concept : evaluation.getQueries()) {
+            assertEquals(index.getNearest(concept, 10), reloaded.getNearest(concept, 10));
+        }
+    }
+
+    @Test
+    void invalidIndexFile() throws Exception {
+        VectorStore store = VectorStore.open(writeRandomVectors("small.txt", 20, 4));
+        File other = writeRandomVectors("other.txt", 10, 4);
+        File indexFile = HnswIndex.getIndexFile(other);
+        HnswIndex.build(VectorStore.open(other), indexFile, 1);
+        assertThrows(IOException.class, () -> HnswIndex.load(store, indexFile));
+
+        File noIndex = new File(DIRECTORY, "noIndex.hnsw");
+        Files.write(noIndex.toPath(), new byte[100]);
+        assertThrows(IOException.class, () -> HnswIndex.load(store, noIndex));
+    }
+
+    private static File writeRandomVectors(String name, int number, int dimension) throws IOException {
+        DIRECTORY.mkdirs();
+        File file = new File(DIRECTORY, name);
+        Random random = new Random(number);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8))) {
+            for (int i = 0; i < number; i++) {
+                writer.write("e" + i);
+                for (int j = 0; j < dimension; j++) {
+                    writer.write(" " + (float) random.nextGaussian());
+                }
+                writer.write(" \n");
+            }
+        }
+        return file;
+    }
+
+    @AfterAll
+    static void tearDown() {
+        File[] files = DIRECTORY.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        DIRECTORY.delete();
+    }
+}
@@ -0,0 +1,270 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.training;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.NativeWord2Vec;
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.Word2VecConfiguration;
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.Word2VecType;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenFrequencyCounter;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.TokenWalkWriter;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.base.WalkRingBuffer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NativeWord2VecTest {
+
+
+    private static final File DIRECTORY = new File("./nativeWord2VecTest");
+
+    @Test
+    void trainWord2VecModel() throws Exception {
+        String testFilePath = getPathOfResource("testInputForWord2Vec.txt");
+        DIRECTORY.mkdirs();
+        for (Word2VecType type : Word2VecType.values()) {
+            NativeWord2Vec word2Vec = new NativeWord2Vec();
+            File w2vFile = new File(DIRECTORY, "freude_" + type + ".w2v");
+            assertTrue(word2Vec.trainWord2VecModel(w2vFile.getPath(), testFilePath, new Word2VecConfiguration(type)));
+
+            // contains "Hymne" (count = 1) and "Freude" (count > 3)
+            assertTrue(word2Vec.isInVocabulary("Hymne"));
+            assertTrue(word2Vec.isInVocabulary("Freude"));
+            assertTrue(word2Vec.isInVocabulary("Bösewicht,"));
+            assertTrue(word2Vec.getVocabularySize() > 100);
+            assertEquals(200, word2Vec.getVector("Freude").length);
+            assertNull(word2Vec.getVector("NotInTheVocabulary"));
+
+            List<String> w2vLines = readLines(w2vFile);
+            assertEquals(word2Vec.getVocabularySize() + " 200", w2vLines.get(0));
+            assertEquals(word2Vec.getVocabularySize() + 1, w2vLines.size());
+            assertEquals(201, w2vLines.get(1).split(" ").length);
+
+            File textFile = new File(DIRECTORY, "vectors_" + type + ".txt");
+            word2Vec.writeModelAsTextFile(textFile.getPath());
+            assertEquals(word2Vec.getVocabularySize(), readLines(textFile).size());
+
+            File subsetFile = new File(DIRECTORY, "vectors_subset_" + type + ".txt");
+            word2Vec.writeModelAsTextFile(subsetFile.getPath(), getPathOfResource("freudeSubset.txt"));
+            List<String> subsetLines = readLines(subsetFile);
+            assertEquals(1, subsetLines.size());
+            assertTrue(subsetLines.get(0).startsWith("Freude "));
+        }
+    }
+
+    @Test
+    void learnsCooccurrences() throws Exception {
+        // two groups of words which only co-occur within their group; the walks are written as token walk file
+        File walkDirectory = new File(DIRECTORY, "walks");
+        TokenWalkWriter writer = new TokenWalkWriter(walkDirectory, "walk_file_0");
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String group = (i % 2 == 0) ? "a" : "b";
+            List<String> walks = new ArrayList<>();
+            StringBuilder walk = new StringBuilder();
+            for (int j = 0; j < 8; j++) {
+                if (j > 0) walk.append(' ');
+                walk.append(group).append(random.nextInt(5));
+            }
+            walks.add(walk.toString());
+            writer.write(walks);
+        }
+        writer.close();
+
+        // a text walk file in the same directory is read as well
+        try (Writer textWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+                new File(walkDirectory, "walk_file_1.txt")), StandardCharsets.UTF_8))) {
+            textWriter.write("c0 c1\n");
+        }
+
+        for (Word2VecType type : Word2VecType.values()) {
+            Word2VecConfiguration configuration = new Word2VecConfiguration(type, 20);
+            configuration.setNumberOfThreads(2);
+            NativeWord2Vec word2Vec = new NativeWord2Vec();
+            File w2vFile = new File(DIRECTORY, "groups_" + type + ".w2v");
+            assertTrue(word2Vec.trainWord2VecModel(w2vFile.getPath(), walkDirectory.getPath(), configuration));
+            assertEquals(12, word2Vec.getVocabularySize());
+
+            double withinGroup = cosineSimilarity(word2Vec.getVector("a0"), word2Vec.getVector("a1"));
+            double acrossGroups = cosineSimilarity(word2Vec.getVector("a0"), word2Vec.getVector("b1"));
+            assertTrue(withinGroup > acrossGroups, type + ": within " + withinGroup + ", across " + acrossGroups);
+        }
+    }
+
+    @Test
+    void trainWord2VecModelFromBuffer() throws Exception {
+        File spillDirectory = new File(DIRECTORY, "spill");
+        for (File spill : new File[]{null, spillDirectory}) {
+            for (Word2VecType type : Word2VecType.values()) {
+                WalkRingBuffer buffer = new WalkRingBuffer(16);
+                Thread[] producers = new Thread[2];
+                for (int t = 0; t < producers.length; t++) {
+                    final int producer = t;
+                    producers[t] = new Thread(() -> {
+                        Random random = new Random(producer);
+                        for (int i = 0; i < 1000; i++) {
+                            String group = (i % 2 == 0) ? "a" : "b";
+                            StringBuilder walk = new StringBuilder();
+                            for (int j = 0; j < 8; j++) {
+                                if (j > 0) walk.append(' ');
+                                walk.append(group).append(random.nextInt(5));
+                            }
+                            buffer.put(Collections.singletonList(walk.toString()));
+                        }
+                        // rare word
+                        if (producer == 0) buffer.put(Collections.singletonList("a0 rare"));
+                    });
+                    producers[t].start();
+                }
+                Thread closer = new Thread(() -> {
+                    for (Thread producer : producers) {
+                        try {
+                            producer.join();
+                        } catch (InterruptedException e) {
+                            fail(e);
+                        }
+                    }
+                    buffer.close();
+                });
+                closer.start();
+
+                Word2VecConfiguration configuration = new Word2VecConfiguration(type, 20);
+                configuration.setNumberOfThreads(2);
+                configuration.setMinCount(2);
+                NativeWord2Vec word2Vec = new NativeWord2Vec();
+                DIRECTORY.mkdirs();
+                File w2vFile = new File(DIRECTORY, "stream_" + type + ".w2v");
+                assertTrue(word2Vec.trainWord2VecModel(w2vFile.getPath(), buffer, configuration, spill));
+                closer.join();
+
+                assertEquals(10, word2Vec.getVocabularySize());
+                assertFalse(word2Vec.isInVocabulary("rare"));
+                assertEquals(11, readLines(w2vFile).size());
+                double withinGroup = cosineSimilarity(word2Vec.getVector("a0"), word2Vec.getVector("a1"));
+                double acrossGroups = cosineSimilarity(word2Vec.getVector("a0"), word2Vec.getVector("b1"));
+                assertTrue(withinGroup > acrossGroups, type + ": within " + withinGroup + ", across " + acrossGroups);
+
+                // the spill files are removed after the training
+                File[] spillFiles = spillDirectory.listFiles();
+                assertTrue(spillFiles == null || spillFiles.length == 0);
+            }
+        }
+    }
+
+    @Test
+    void minCount() throws Exception {
+        File walkFile = new File(DIRECTORY, "minCount.txt");
+        DIRECTORY.mkdirs();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(walkFile),
+                StandardCharsets.UTF_8))) {
+            writer.write("frequent rare frequent\nfrequent other\nother frequent\n");
+        }
+        Word2VecConfiguration configuration = new Word2VecConfiguration(Word2VecType.SG, 10);
+        configuration.setMinCount(2);
+        NativeWord2Vec word2Vec = new NativeWord2Vec();
+        assertTrue(word2Vec.trainWord2VecModel(new File(DIRECTORY, "minCount.w2v").getPath(), walkFile.getPath(),
+                configuration));
+        assertEquals(2, word2Vec.getVocabularySize());
+        assertFalse(word2Vec.isInVocabulary("rare"));
+
+        // the most frequent word comes first
+        List<String> lines = readLines(new File(DIRECTORY, "minCount.w2v"));
+        assertTrue(lines.get(1).startsWith("frequent "));
+
+        assertFalse(new NativeWord2Vec().trainWord2VecModel(new File(DIRECTORY, "x.w2v").getPath(),
+                "./doesNotExist.txt", configuration));
+    }
+
+    @Test
+    void tokenCounts() throws Exception {
+        // the vocabulary is taken from the token counts of the walk generation
+        File walkDirectory = new File(DIRECTORY, "countedWalks");
+        walkDirectory.mkdirs();
+        List<String> walks = Arrays.asList("frequent rare frequent", "frequent other", "other frequent");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+                new File(walkDirectory, "walk_file_0.txt")), StandardCharsets.UTF_8))) {
+            for (String walk : walks) {
+                writer.write(walk + "\n");
+            }
+        }
+        TokenFrequencyCounter counter = new TokenFrequencyCounter();
+        counter.add(walks);
+        assertTrue(counter.write(TokenFrequencyCounter.getCountsFile(walkDirectory)));
+
+        Word2VecConfiguration configuration = new Word2VecConfiguration(Word2VecType.SG, 10);
+        configuration.setMinCount(2);
+        NativeWord2Vec word2Vec = new NativeWord2Vec();
+        File w2vFile = new File(DIRECTORY, "counted.w2v");
+        assertTrue(word2Vec.trainWord2VecModel(w2vFile.getPath(), walkDirectory.getPath(), configuration));
+        assertEquals(2, word2Vec.getVocabularySize());
+        assertFalse(word2Vec.isInVocabulary("rare"));
+        assertTrue(readLines(w2vFile).get(1).startsWith("frequent "));
+    }
+
+    private static double cosineSimilarity(Double[] vector1, Double[] vector2) {
+        double dotProduct = 0.0;
+        double norm1 = 0.0;
+        double norm2 = 0.0;
+        for (int i = 0; i < vector1.length; i++) {
+            dotProduct += vector1[i] * vector2[i];
+            norm1 += vector1[i] * vector1[i];
+            norm2 += vector2[i] * vector2[i];
+        }
+        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private String getPathOfResource(String resourceName) {
+        try {
+            URL res = getClass().getClassLoader().getResource(resourceName);
+            if (res == null) throw new IOException();
+            File file = Paths.get(res.toURI()).toFile();
+            return file.getCanonicalPath();
+        } catch (URISyntaxException | IOException ex) {
+            return null;
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        deleteRecursively(DIRECTORY);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,128 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.training;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.training.VectorStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorStoreTest {
+
+
+    private static final File DIRECTORY = new File("./vectorStoreTest");
+
+    private static final String[] CONCEPTS = {"http://example.org/a", "http://example.org/b", "c", "Bösewicht,"};
+
+    private static final float[][] VECTORS = {{1f, 0f, 0f}, {1f, 1f, 0f}, {-1f, 0f, 0f}, {0.5f, -0.25f, 2f}};
+
+    @Test
+    void vectorsTxt() throws Exception {
+        // vectors.txt format (trailing space, no header)
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < CONCEPTS.length; i++) {
+            sb.append(CONCEPTS[i]);
+            for (float value : VECTORS[i]) sb.append(' ').append(value);
+            sb.append(" \n");
+        }
+        File vectorFile = write("vectors.txt", sb.toString().getBytes(StandardCharsets.UTF_8));
+        assertStore(VectorStore.open(vectorFile));
+
+        // the store file is reused
+        File storeFile = new File(vectorFile.getPath() + VectorStore.STORE_FILE_SUFFIX);
+        assertTrue(storeFile.exists());
+        long lastModified = storeFile.lastModified();
+        assertStore(VectorStore.open(vectorFile));
+        assertEquals(lastModified, storeFile.lastModified());
+    }
+
+    @Test
+    void word2VecText() throws Exception {
+        StringBuilder sb = new StringBuilder(CONCEPTS.length + " 3\n");
+        for (int i = 0; i < CONCEPTS.length; i++) {
+            sb.append(CONCEPTS[i]);
+            for (float value : VECTORS[i]) sb.append(' ').append(value);
+            sb.append('\n');
+        }
+        assertStore(VectorStore.open(write("model.w2v", sb.toString().getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void word2VecBinary() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write((CONCEPTS.length + " 3\n").getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < CONCEPTS.length; i++) {
+            out.write((CONCEPTS[i] + " ").getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            for (float value : VECTORS[i]) buffer.putFloat(value);
+            out.write(buffer.array());
+            out.write('\n');
+        }
+        // detected by content (not by the file ending)
+        assertStore(VectorStore.open(write("binary.w2v", out.toByteArray())));
+    }
+
+    @Test
+    void notAVectorFile() throws Exception {
+        File emptyFile = write("empty.txt", new byte[0]);
+        assertThrows(IOException.class, () -> VectorStore.open(emptyFile));
+        assertThrows(IOException.class, () -> VectorStore.open(new File(DIRECTORY, "doesNotExist.txt")));
+        assertTrue(VectorStore.isVectorFile("vectors.txt"));
+        assertFalse(VectorStore.isVectorFile("model.kv"));
+    }
+
+    private static void assertStore(VectorStore store) {
+        assertEquals(4, store.getVocabularySize());
+        assertEquals(3, store.getDimension());
+        for (int i = 0; i < CONCEPTS.length; i++) {
+            assertTrue(store.isInVocabulary(CONCEPTS[i]));
+            assertArrayEquals(VECTORS[i], store.getVector(CONCEPTS[i]));
+            assertEquals(CONCEPTS[i], store.getConcept(store.getRow(CONCEPTS[i])));
+        }
+        assertFalse(store.isInVocabulary("http://example.org/unknown"));
+        assertNull(store.getVector("http://example.org/unknown"));
+        assertEquals(-1, store.getRow("http://example.org/unknown"));
+
+        float[][] vectors = store.getVectors(Arrays.asList("c", "unknown", "http://example.org/a"));
+        assertArrayEquals(VECTORS[2], vectors[0]);
+        assertNull(vectors[1]);
+        assertArrayEquals(VECTORS[0], vectors[2]);
+
+        assertEquals(1.0, store.getSimilarity("http://example.org/a", "http://example.org/a"), 1e-6);
+        assertEquals(Math.sqrt(0.5), store.getSimilarity("http://example.org/a", "http://example.org/b"), 1e-6);
+        assertEquals(-1.0, store.getSimilarity("http://example.org/a", "c"), 1e-6);
+        assertTrue(Double.isNaN(store.getSimilarity("http://example.org/a", "unknown")));
+        double[] similarities = store.getSimilarities("c", Arrays.asList("http://example.org/a", "unknown"));
+        assertEquals(-1.0, similarities[0], 1e-6);
+        assertTrue(Double.isNaN(similarities[1]));
+
+        assertEquals(4, store.getVocabularyTerms().size());
+        assertTrue(store.getVocabularyTerms().contains("Bösewicht,"));
+    }
+
+    private static File write(String name, byte[] content) throws IOException {
+        DIRECTORY.mkdirs();
+        File file = new File(DIRECTORY, name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    @AfterAll
+    static void tearDown() {
+        File[] files = DIRECTORY.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        DIRECTORY.delete();
+    }
+}
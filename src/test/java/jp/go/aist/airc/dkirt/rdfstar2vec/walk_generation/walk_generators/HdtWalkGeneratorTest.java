@@ -224,6 +224,47 @@ class HdtWalkGeneratorTest {
         }
     }
 
+    @Test
+    void idWalks() {
+        try {
+            HdtWalkGenerator parser = new HdtWalkGenerator(loadFile("swdf-2012-11-28.hdt"));
+            assertTrue(parser.isIdWalks());
+            parser.setSeed(42);
+            String concept = "http://data.semanticweb.org/person/amelie-cordier";
+            HDT hdtDataSet = HDTManager.loadHDT(loadFile("swdf-2012-11-28.hdt").getAbsolutePath());
+
+            for (boolean isWeighted : new boolean[]{false, true}) {
+                List<List<String>> walks = isWeighted ?
+                        parser.generateWeightedMidWalkForEntityAsArray(concept, 50, 4) :
+                        parser.generateMidWalkForEntityAsArray(concept, 4, 50);
+                assertFalse(walks.isEmpty());
+                for (List<String> walk : walks) {
+                    assertTrue(walk.contains(concept));
+                    assertEquals(1, walk.size() % 2);
+                    assertTrue(walk.size() <= 4 * 2 + 1);
+                    for (int i = 2; i < walk.size(); i += 2) {
+                        assertFalse(walk.get(i).startsWith("\""), "Literal in walk: " + walk);
+                        IteratorTripleString iterator = hdtDataSet.search(walk.get(i - 2), walk.get(i - 1),
+                                walk.get(i));
+                        assertTrue(iterator.hasNext(), "The following triple appeared in the walk but not in the " +
+                                "data set:\n" + walk.get(i - 2) + " " + walk.get(i - 1) + " " + walk.get(i));
+                    }
+                }
+            }
+
+            // the walks only depend on the seed
+            HdtWalkGenerator parser2 = new HdtWalkGenerator(loadFile("swdf-2012-11-28.hdt"));
+            parser2.setSeed(42);
+            assertEquals(parser.generateMidWalksForEntity(concept, 10, 4),
+                    parser2.generateMidWalksForEntity(concept, 10, 4));
+
+            // unknown entities do not produce walks
+            assertTrue(parser.generateMidWalksForEntity("http://example.org/unknown", 10, 4).isEmpty());
+        } catch (IOException | NotFoundException e) {
+            fail("No exception should occur.", e);
+        }
+    }
+
     @Test
     void isSameListContent() {
         List<String> list_1 = new ArrayList<>();
@@ -23,6 +23,23 @@ class MemoryWalkGeneratorTest {
         assertEquals(0, MemoryWalkGenerator.getNumberOfAppearances("D", myArray));
     }
 
+    @Test
+    void walkIdSet(){
+        MemoryStarWalkGenerator.WalkIdSet walks = new MemoryStarWalkGenerator.WalkIdSet();
+        int[] buffer = {1, 2, 3, 4};
+        assertTrue(walks.add(buffer, 4));
+        assertFalse(walks.add(new int[]{1, 2, 3, 4}, 4));
+
+        // only the given length counts
+        assertTrue(walks.add(buffer, 2));
+        assertFalse(walks.add(new int[]{1, 2, 7, 7}, 2));
+
+        // the set keeps a copy of the (reused) buffer
+        buffer[3] = 5;
+        assertTrue(walks.add(buffer, 4));
+        assertFalse(walks.add(new int[]{1, 2, 3, 4}, 4));
+    }
+
     @Test
     void getRandomNumberBetweenOneAndX(){
         int count0 = 0;
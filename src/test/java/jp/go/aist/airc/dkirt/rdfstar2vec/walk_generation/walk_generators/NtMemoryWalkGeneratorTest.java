@@ -228,6 +228,67 @@ class NtMemoryWalkGeneratorTest {
         assertEquals(3, maxLengh);
     }
 
+    @Test
+    void generateSampledDuplicateFreeRandomWalksForEntity(){
+        String graphPath = loadFile("dummyGraph.nt").getAbsolutePath();
+        NtMemoryWalkGenerator parser = new NtMemoryWalkGenerator(graphPath);
+
+        // same walks as the exhaustive version
+        List<String> result_1 = parser.generateSampledDuplicateFreeRandomWalksForEntity("A", 100, 8);
+        assertEquals(3, result_1.size());
+        assertEquals(new HashSet<>(parser.generateDuplicateFreeRandomWalksForEntity("A", 100, 8)),
+                new HashSet<>(result_1));
+
+        List<String> result_2 = parser.generateSampledDuplicateFreeRandomWalksForEntity("Z", 3, 8);
+        assertEquals(3, result_2.size());
+        assertEquals(3, new HashSet<>(result_2).size());
+
+        assertEquals(7, parser.generateSampledDuplicateFreeRandomWalksForEntity("W", 100, 8).size());
+
+        // depth
+        for (String walk : parser.generateSampledDuplicateFreeRandomWalksForEntity("W", 100, 1)) {
+            assertEquals(3, walk.split(" ").length);
+        }
+
+        // reproducible
+        parser.setSeed(42);
+        List<String> result_3 = parser.generateSampledDuplicateFreeRandomWalksForEntity("Z", 2, 8);
+        assertEquals(result_3, parser.generateSampledDuplicateFreeRandomWalksForEntity("Z", 2, 8));
+
+        // entity without outgoing edges
+        assertEquals(0, parser.generateSampledDuplicateFreeRandomWalksForEntity("D", 10, 8).size());
+    }
+
+    @Test
+    void generateNode2VecWalksForEntity(){
+        NtMemoryWalkGenerator parser = new NtMemoryWalkGenerator();
+        // from B, the walk can return to A or move on to C (which is not a neighbour of A)
+        parser.getData().addObjectTriple("A", "P", "B");
+        parser.getData().addObjectTriple("B", "P", "A");
+        parser.getData().addObjectTriple("B", "P", "C");
+
+        // low p: returning is likely
+        int returns = 0;
+        List<String> walks = parser.generateNode2VecWalksForEntity("A", 1000, 2, 0.01, 1.0);
+        assertEquals(1000, walks.size());
+        for (String walk : walks) {
+            assertTrue(walk.equals("A P B P A") || walk.equals("A P B P C"));
+            if (walk.endsWith("A")) returns++;
+        }
+        assertTrue(returns > 900, "Returns: " + returns);
+
+        // high p: returning is unlikely
+        returns = 0;
+        for (String walk : parser.generateNode2VecWalksForEntity("A", 1000, 2, 100, 1.0)) {
+            if (walk.endsWith("A")) returns++;
+        }
+        assertTrue(returns < 100, "Returns: " + returns);
+
+        // dead ends and invalid parameters
+        assertEquals(0, parser.generateNode2VecWalksForEntity("C", 10, 2, 1.0, 1.0).size());
+        assertEquals(0, parser.generateNode2VecWalksForEntity("A", 10, 2, 0, 1.0).size());
+    }
+
     @Test
     void generateMidWalksForEntity(){
         try {
@@ -0,0 +1,98 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NtStarMemoryWalkGeneratorTest {
+
+
+    private static final File GRAPH_FILE = new File("./ntStarMemoryWalkGeneratorTest.nt");
+
+    private static final int NUMBER_OF_ENTITIES = 500;
+
+    /**
+     * Several blocks of the parallel parser, so that the blocks are processed in a different order than in the file.
+     */
+    private static final int NUMBER_OF_LINES = 50000;
+
+    @BeforeAll
+    static void writeGraph() throws IOException {
+        Random random = new Random(1);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(GRAPH_FILE))) {
+            for (int line = 0; line < NUMBER_OF_LINES; line++) {
+                String triple = getEntity(random) + " <http://example.org/p" + random.nextInt(5) + "> "
+                        + getEntity(random);
+                if (line % 5 == 0) {
+                    writer.write("<< " + triple + " >> <http://example.org/source> " + getEntity(random) + " .\n");
+                } else if (line % 7 == 0) {
+                    // nested quoted triples: few inner quoted triples with several enclosing ones each; the enclosing
+                    // quoted triples of the second pool are spread over several blocks of the parallel parser
+                    int inner = line < 10000 ? random.nextInt(20) : 20 + random.nextInt(20);
+                    writer.write("<< << <http://example.org/e" + inner + "> <http://example.org/p0> <http://example.org/e"
+                            + (inner + 1) + "> >> <http://example.org/p" + random.nextInt(5) + "> " + getEntity(random)
+                            + " >> <http://example.org/source> " + getEntity(random) + " .\n");
+                } else if (line % 11 == 0) {
+                    // quoted triples with a (multi-word, language-tagged) literal as object
+                    String literal = line % 2 == 0 ? "\"label " + random.nextInt(50) + "\"@en" :
+                            "\"word" + random.nextInt(50) + "\"";
+                    writer.write("<< " + getEntity(random) + " <http://example.org/label> " + literal
+                            + " >> <http://example.org/source> " + getEntity(random) + " .\n");
+                } else {
+                    writer.write(triple + " .\n");
+                }
+            }
+        }
+    }
+
+    private static String getEntity(Random random) {
+        return "<http://example.org/e" + random.nextInt(NUMBER_OF_ENTITIES) + ">";
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        GRAPH_FILE.delete();
+    }
+
+    /**
+     * The same seed leads to the same walks, independently of the number of parser threads (which changes the order
+     * in which triples and terms are added to the data structures).
+     */
+    @Test
+    void seededWalksDoNotDependOnParserThreads() {
+        for (boolean isUseCompactData : new boolean[]{false, true}) {
+            NtStarMemoryWalkGenerator sequential = new NtStarMemoryWalkGenerator(GRAPH_FILE, false,
+                    isUseCompactData, 1);
+            NtStarMemoryWalkGenerator parallel = new NtStarMemoryWalkGenerator(GRAPH_FILE, false,
+                    isUseCompactData, 4);
+            sequential.setSeed(42);
+            parallel.setSeed(42);
+            if (!isUseCompactData) {
+                for (int inner = 0; inner < 40; inner++) {
+                    String innerNode = "<<http://example.org/e" + inner + "-http://example.org/p0-http://example.org/e"
+                            + (inner + 1) + ">>";
+                    assertEquals(sequential.getData().getEnclosingQuotedTriple(innerNode).qt,
+                            parallel.getData().getEnclosingQuotedTriple(innerNode).qt, innerNode);
+                }
+            }
+            // all subjects of the nested quoted triples and a sample of the other entities
+            for (int i = 0; i < NUMBER_OF_ENTITIES; i += i < 40 ? 1 : 25) {
+                String entity = "http://example.org/e" + i;
+                assertEquals(sequential.generateStarRandomWalksForEntity(entity, 10, 4, 0.5, 0.5),
+                        parallel.generateStarRandomWalksForEntity(entity, 10, 4, 0.5, 0.5),
+                        "Compact: " + isUseCompactData + ", entity: " + entity);
+                assertEquals(sequential.generateStarMidWalksForEntity(entity, 10, 4, 0.5, 0.5),
+                        parallel.generateStarMidWalksForEntity(entity, 10, 4, 0.5, 0.5),
+                        "Compact: " + isUseCompactData + ", entity: " + entity);
+            }
+        }
+    }
+}
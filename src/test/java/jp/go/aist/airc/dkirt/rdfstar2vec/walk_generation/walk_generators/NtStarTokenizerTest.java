@@ -0,0 +1,51 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NtStarTokenizerTest {
+
+
+    @Test
+    void tokenize() {
+        List<String> tokens = new ArrayList<>();
+        assertTrue(NtStarTokenizer.tokenize("<http://a> <http://p> <http://b> .", tokens));
+        assertEquals(Arrays.asList("<http://a>", "<http://p>", "<http://b>"), tokens);
+
+        // nested quoted triple, no spaces before the dot
+        tokens.clear();
+        assertTrue(NtStarTokenizer.tokenize("<< << <a> <p> <b> >> <q> _:c >> <r> <d>.", tokens));
+        assertEquals(Arrays.asList("<<", "<<", "<a>", "<p>", "<b>", ">>", "<q>", "_:c", ">>", "<r>", "<d>"), tokens);
+
+        // literals are kept as one token
+        tokens.clear();
+        assertTrue(NtStarTokenizer.tokenize("<< <a> <p> <b> >> <http://www.w3.org/1999/02/22-rdf-syntax-ns#value> \"0.5\"^^<http://www.w3.org/2001/XMLSchema#double> .", tokens));
+        assertEquals(7, tokens.size());
+        assertEquals("\"0.5\"^^<http://www.w3.org/2001/XMLSchema#double>", tokens.get(6));
+
+        tokens.clear();
+        assertTrue(NtStarTokenizer.tokenize("_:a <p> \"Hello \\\"World\\\" .\"@en-GB . # comment", tokens));
+        assertEquals(Arrays.asList("_:a", "<p>", "\"Hello \\\"World\\\" .\"@en-GB"), tokens);
+
+        // blank node directly followed by the dot
+        tokens.clear();
+        assertTrue(NtStarTokenizer.tokenize("<a> <p> _:b1.", tokens));
+        assertEquals(Arrays.asList("<a>", "<p>", "_:b1"), tokens);
+
+        // comments and empty lines
+        tokens.clear();
+        assertTrue(NtStarTokenizer.tokenize("# only a comment", tokens));
+        assertTrue(NtStarTokenizer.tokenize("   ", tokens));
+        assertTrue(tokens.isEmpty());
+
+        // malformed lines
+        assertFalse(NtStarTokenizer.tokenize("<a> <p> \"unterminated .", tokens));
+        tokens.clear();
+        assertFalse(NtStarTokenizer.tokenize("<a> <p> <b .", tokens));
+    }
+}
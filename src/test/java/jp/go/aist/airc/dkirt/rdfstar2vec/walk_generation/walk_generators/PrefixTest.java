@@ -0,0 +1,93 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTest {
+
+
+    private static final File PREFIX_FILE = new File("./prefixTest.ttl");
+
+    private static final File GRAPH_FILE = new File("./prefixTest.nt");
+
+    @AfterAll
+    static void cleanUp() {
+        PREFIX_FILE.delete();
+        GRAPH_FILE.delete();
+    }
+
+    @Test
+    void replaceURI() {
+        Prefix prefix = new Prefix();
+        assertEquals("kgc:Person", prefix.replaceURI("http://kgc.knowledge-graph.jp/ontology/kgc.owl#Person"));
+        assertEquals("sb:Holmes", prefix.apply("http://kgc.knowledge-graph.jp/data/SpeckledBand/Holmes"));
+        assertEquals("rdf:type", prefix.replaceURI("http://www.w3.org/1999/02/22-rdf-syntax-ns#type"));
+        assertEquals("http://example.org/A", prefix.replaceURI("http://example.org/A"));
+        assertEquals("\"Holmes\"@en", prefix.replaceURI("\"Holmes\"@en"));
+        assertEquals("\"a\"^^<rdf:langString>", prefix.replaceURI("\"a\"^^<http://www.w3.org/1999/02/22-rdf-syntax-ns#langString>"));
+    }
+
+    @Test
+    void readPrefixFile() throws IOException {
+        try (FileWriter writer = new FileWriter(PREFIX_FILE)) {
+            writer.write("@prefix ex: <http://example.org/> .\n");
+            writer.write("PREFIX foaf: <http://xmlns.com/foaf/0.1/>\n");
+            writer.write("# comment\n\n");
+            writer.write("kgc2: <http://kgc.knowledge-graph.jp/ontology/kgc.owl#>\n");
+        }
+        Prefix prefix = new Prefix();
+        assertEquals(3, prefix.readPrefixFile(PREFIX_FILE));
+        assertEquals("ex:A", prefix.replaceURI("http://example.org/A"));
+        assertEquals("foaf:name", prefix.replaceURI("http://xmlns.com/foaf/0.1/name"));
+        assertEquals("kgc2:Person", prefix.replaceURI("http://kgc.knowledge-graph.jp/ontology/kgc.owl#Person"));
+    }
+
+    @Test
+    void learnNamespaces() throws IOException {
+        try (FileWriter writer = new FileWriter(GRAPH_FILE)) {
+            for (int i = 0; i < 10; i++) {
+                writer.write("<http://example.org/resource/" + i + "> <http://example.org/ontology#p> << <http://example.org/resource/x> <http://example.org/ontology#q> \"" + i + "\" >> .\n");
+            }
+            writer.write("<http://rare.org/a> <http://example.org/ontology#p> <http://rare.org/b> .\n");
+        }
+        Prefix prefix = new Prefix();
+        prefix.setMinOccurrences(5);
+        assertEquals(2, prefix.learnNamespaces(GRAPH_FILE, false));
+        // the most frequent namespace (21 IRIs in contrast to 20 IRIs) gets the first number
+        assertEquals("ns0:p", prefix.replaceURI("http://example.org/ontology#p"));
+        assertEquals("ns1:1", prefix.replaceURI("http://example.org/resource/1"));
+        assertEquals("http://rare.org/a", prefix.replaceURI("http://rare.org/a"));
+
+        // nothing is learnt once terms have been shortened
+        assertEquals(0, prefix.learnNamespaces(PREFIX_FILE, false));
+    }
+
+    @Test
+    void getNamespace() {
+        assertEquals("http://example.org/", Prefix.getNamespace("http://example.org/A"));
+        assertEquals("http://example.org/o#", Prefix.getNamespace("http://example.org/o#A"));
+        assertNull(Prefix.getNamespace("http://example.org"));
+        assertNull(Prefix.getNamespace("http://example.org/"));
+        assertNull(Prefix.getNamespace("_:b0"));
+    }
+
+    @Test
+    void getFingerprint() {
+        assertEquals(new Prefix().getFingerprint(), new Prefix().getFingerprint());
+
+        Prefix prefix = new Prefix();
+        long fingerprint = prefix.getFingerprint();
+        prefix.addPrefix("http://example.org/", "ex:");
+        assertNotEquals(fingerprint, prefix.getFingerprint());
+
+        Prefix learning = new Prefix();
+        learning.setLearnNamespaces(true);
+        assertNotEquals(fingerprint, learning.getFingerprint());
+    }
+}
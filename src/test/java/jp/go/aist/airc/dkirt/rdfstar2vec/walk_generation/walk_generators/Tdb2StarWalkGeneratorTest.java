@@ -0,0 +1,111 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import jp.go.aist.airc.dkirt.rdfstar2vec.util.Util;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.Tdb2StarEntitySelector;
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.graph.Node;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Tdb2StarWalkGeneratorTest {
+
+
+    private static final File DIRECTORY = new File("./tdb2StarWalkGeneratorTest");
+
+    private static final String QT = "<<http://ex.org/A-http://ex.org/has-part-http://ex.org/B>>";
+
+    static Tdb2StarWalkGenerator walkGenerator;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        DIRECTORY.mkdirs();
+        File file = new File(DIRECTORY, "graph.nt");
+        Files.write(file.toPath(), Arrays.asList(
+                "<http://ex.org/A> <http://ex.org/has-part> <http://ex.org/B> .",
+                "<< <http://ex.org/A> <http://ex.org/has-part> <http://ex.org/B> >> <http://ex.org/source> <http://ex.org/C> .",
+                "<http://ex.org/B> <http://ex.org/q> <http://ex.org/D> .",
+                "<http://ex.org/E> <http://ex.org/r> << <http://ex.org/A> <http://ex.org/has-part> <http://ex.org/B> >> .",
+                "<http://ex.org/D> <http://ex.org/label> \"D\" ."
+        ), StandardCharsets.UTF_8);
+        File tdb2Directory = new File(DIRECTORY, "tdb2");
+        Tdb2StarLoader loader = new Tdb2StarLoader();
+        loader.setBatchSize(2);
+        assertEquals(5, loader.load(file, tdb2Directory));
+        assertTrue(Util.isTdb2Directory(tdb2Directory));
+        assertFalse(Util.isTdbDirectory(tdb2Directory));
+        walkGenerator = new Tdb2StarWalkGenerator(tdb2Directory.getAbsolutePath());
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        walkGenerator.close();
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void labels() {
+        Node node = walkGenerator.toNode(QT);
+        assertNotNull(node);
+        assertTrue(node.isNodeTriple());
+        assertEquals(QT, walkGenerator.toLabel(node));
+        assertNull(walkGenerator.toNode("<<http://ex.org/A-http://ex.org/has-part-http://ex.org/C>>"));
+        assertEquals("http://ex.org/has-part", walkGenerator.toNode("http://ex.org/has-part").getURI());
+    }
+
+    @Test
+    void getEntities() {
+        Set<String> entities = new Tdb2StarEntitySelector(walkGenerator).getEntities();
+        assertTrue(entities.contains(QT));
+        assertTrue(entities.contains("http://ex.org/A"));
+        assertTrue(entities.contains("http://ex.org/D"));
+        // predicates and literals are not selected
+        assertFalse(entities.contains("http://ex.org/has-part"));
+        assertFalse(entities.contains("\"D\""));
+        assertEquals(6, entities.size());
+    }
+
+    @Test
+    void generateStarMidWalksForEntity() {
+        List<String> walks = walkGenerator.generateStarMidWalksForEntity("http://ex.org/E", 100, 4, 1.0, 1.0);
+        // walks which only go backwards stay at E and are dropped
+        assertTrue(walks.size() > 50);
+        boolean isConstituentVisited = false;
+        for (String walk : walks) {
+            assertTrue(walk.contains("http://ex.org/E"));
+            assertFalse(walk.contains("\"D\""));
+            if (walk.contains(QT + " http://ex.org/A http://ex.org/has-part http://ex.org/B")) {
+                isConstituentVisited = true;
+            }
+        }
+        assertTrue(isConstituentVisited);
+
+        // quoted triples can be entities as well
+        assertTrue(walkGenerator.generateStarMidWalksForEntity(QT, 10, 2, 0.5, 0.5).size() > 0);
+
+        // the same seed gives the same walks
+        assertEquals(walks, walkGenerator.generateStarMidWalksForEntity("http://ex.org/E", 100, 4, 1.0, 1.0));
+        assertTrue(walkGenerator.getCacheStatistics().hitCount() > 0);
+    }
+
+    @Test
+    void generateStarRandomWalksForEntity() {
+        List<String> walks = walkGenerator.generateStarRandomWalksForEntity("http://ex.org/E", 10, 3, 1.0, 0.0);
+        assertTrue(walks.size() > 0);
+        assertTrue(walks.contains("http://ex.org/E http://ex.org/r " + QT
+                + " http://ex.org/A http://ex.org/has-part http://ex.org/B"));
+        for (String walk : walks) {
+            assertTrue(walk.startsWith("http://ex.org/E"));
+        }
+        assertEquals(0, walkGenerator.generateStarRandomWalksForEntity("http://ex.org/D", 10, 3, 1.0, 1.0).size());
+    }
+}
@@ -1,14 +1,22 @@
 package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
 
+import com.google.common.cache.CacheStats;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.data_structures.Triple;
+import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.entity_selector.TdbEntitySelector;
 import jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators.TdbWalkGenerator;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static jp.go.aist.airc.dkirt.rdfstar2vec.util.Util.loadFile;
 import static org.junit.jupiter.api.Assertions.*;
@@ -102,4 +110,49 @@ class TdbWalkGeneratorTest {
         // test error case
         assertNotNull(walkGenerator.getForwardTriples("ERROR_URL"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void readTransactionsAndNeighbourCache() throws Exception {
+        // use a copy: once a location has been read in transactions, it must not be read without them
+        File directory = new File("./tdbReadTransactionsTest");
+        FileUtils.copyDirectory(loadFile("pizza_tdb"), directory);
+        TdbWalkGenerator generator = new TdbWalkGenerator(directory.getAbsolutePath(), true,
+                TdbWalkGenerator.DEFAULT_CACHE_SIZE);
+        try {
+            assertTrue(generator.isReadTransactions());
+            String entity = "http://www.co-ode.org/ontologies/pizza/pizza.owl#VegetableTopping";
+            generator.setSeed(7);
+            List<String> walks = generator.generateMidWalksForEntity(entity, 100, 3);
+            assertEquals(100, walks.size());
+
+            // every walker thread reads in its own transaction
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> generator.generateMidWalksForEntity(entity, 100, 3)));
+            }
+            for (Future<List<String>> future : futures) {
+                // the neighbours come from the cache, the walks are the same
+                assertEquals(walks, future.get());
+            }
+            executor.shutdown();
+
+            CacheStats stats = generator.getCacheStatistics();
+            assertTrue(stats.missCount() > 0);
+            assertTrue(stats.hitCount() > stats.missCount());
+
+            Triple triple = new Triple(
+                    "http://www.co-ode.org/ontologies/pizza/pizza.owl#Siciliana",
+                    "http://www.w3.org/2000/01/rdf-schema#subClassOf",
+                    "http://www.co-ode.org/ontologies/pizza/pizza.owl#NamedPizza");
+            assertTrue(generator.getForwardTriples(triple.subject).contains(triple));
+            assertTrue(generator.getBackwardTriples(triple.object).contains(triple));
+
+            Set<String> entities = new TdbEntitySelector(generator.getTdbDataset()).getEntities();
+            assertTrue(entities.contains(triple.subject));
+        } finally {
+            generator.close();
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package jp.go.aist.airc.dkirt.rdfstar2vec.walk_generation.walk_generators;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalkRandomTest {
+
+
+    @Test
+    void forEntity() {
+        WalkRandom random1 = WalkRandom.forEntity(42, "http://example.org/A");
+        WalkRandom random2 = WalkRandom.forEntity(42, "http://example.org/A");
+        for (int i = 0; i < 100; i++) {
+            assertEquals(random1.nextLong(), random2.nextLong());
+        }
+
+        // different entity or different seed: different sequence
+        long first = WalkRandom.forEntity(42, "http://example.org/A").nextLong();
+        assertNotEquals(first, WalkRandom.forEntity(42, "http://example.org/B").nextLong());
+        assertNotEquals(first, WalkRandom.forEntity(43, "http://example.org/A").nextLong());
+
+        // null entity is allowed
+        assertEquals(WalkRandom.forEntity(7, null).nextLong(), WalkRandom.forEntity(7, null).nextLong());
+    }
+
+    @Test
+    void ranges() {
+        WalkRandom random = new WalkRandom(1);
+        int[] counts = new int[5];
+        for (int i = 0; i < 10000; i++) {
+            double d = random.nextDouble();
+            assertTrue(d >= 0.0 && d < 1.0);
+            float f = random.nextFloat();
+            assertTrue(f >= 0.0f && f < 1.0f);
+            counts[random.nextInt(5)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 1500, "Count: " + count);
+        }
+    }
+
+    @Test
+    void split() {
+        WalkRandom random = new WalkRandom(3);
+        WalkRandom child = random.split();
+        assertNotEquals(random.nextLong(), child.nextLong());
+
+        // splitting is reproducible
+        assertEquals(new WalkRandom(3).split().nextLong(), new WalkRandom(3).split().nextLong());
+    }
+}